@@ -0,0 +1,57 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.AlertaStockDTO;
+import com.tallermoto.dto.ResumenAlertasStockDTO;
+import com.tallermoto.service.AlertaStockService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Controlador REST para las alertas de stock bajo
+ * El conjunto se mantiene en memoria; las transiciones se reciben en vivo por Server-Sent Events
+ */
+@RestController
+@RequestMapping("/api/alertas-stock")
+@Tag(name = "Alertas de Stock", description = "API de alertas de repuestos en o bajo el stock mínimo")
+public class AlertaStockController {
+
+    @Autowired
+    private AlertaStockService alertaStockService;
+
+    /**
+     * Repuestos activos en o bajo su stock mínimo (incluye agotados)
+     */
+    @GetMapping
+    public ResponseEntity<List<AlertaStockDTO>> obtenerAlertas() {
+        return ResponseEntity.ok(alertaStockService.obtenerAlertas());
+    }
+
+    /**
+     * Cantidad de repuestos en o bajo el mínimo y agotados
+     */
+    @GetMapping("/resumen")
+    public ResponseEntity<ResumenAlertasStockDTO> obtenerResumen() {
+        return ResponseEntity.ok(alertaStockService.obtenerResumen());
+    }
+
+    /**
+     * Suscribirse a las transiciones de umbral (ENTRA_BAJO, AGOTADO, SALE_BAJO)
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribir() {
+        try {
+            return ResponseEntity.ok(alertaStockService.suscribir());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
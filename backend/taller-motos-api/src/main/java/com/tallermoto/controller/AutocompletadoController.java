@@ -0,0 +1,41 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.SugerenciaCatalogoDTO;
+import com.tallermoto.service.AutocompletadoService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para el autocompletado de repuestos y servicios
+ * Las búsquedas se resuelven con el índice en memoria, sin consultar la base de datos
+ */
+@RestController
+@RequestMapping("/api/autocompletado")
+@Tag(name = "Autocompletado", description = "API de búsqueda por prefijo de código y nombre en el catálogo")
+public class AutocompletadoController {
+
+    @Autowired
+    private AutocompletadoService autocompletadoService;
+
+    /**
+     * Sugerencias para el texto escrito (sin distinguir mayúsculas ni acentos)
+     * Ejemplo: /api/autocompletado?q=buji&tipo=REPUESTO&limite=10
+     */
+    @GetMapping
+    public ResponseEntity<List<SugerenciaCatalogoDTO>> sugerir(
+            @RequestParam String q,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            return ResponseEntity.ok(autocompletadoService.sugerir(q, tipo, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
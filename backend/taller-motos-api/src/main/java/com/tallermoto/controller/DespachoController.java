@@ -0,0 +1,103 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.CargaMecanicoDTO;
+import com.tallermoto.dto.OrdenTrabajoSummaryDTO;
+import com.tallermoto.dto.ResultadoTransicionDTO;
+import com.tallermoto.service.DespachoMecanicosService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para el despacho de órdenes a mecánicos
+ * Expone la cola de órdenes sin asignar, la carga de cada mecánico y la asignación automática
+ */
+@RestController
+@RequestMapping("/api/despacho")
+@Tag(name = "Despacho", description = "API para la cola de órdenes y la asignación de mecánicos")
+public class DespachoController {
+
+    private static final int MAXIMO_ASIGNACIONES = 100;
+
+    @Autowired
+    private DespachoMecanicosService despachoMecanicosService;
+
+    // ===============================
+    // CONSULTAS
+    // ===============================
+
+    /**
+     * Órdenes esperando mecánico, en orden de atención
+     */
+    @GetMapping("/cola")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> obtenerCola(@RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(despachoMecanicosService.obtenerCola(limite));
+    }
+
+    /**
+     * Siguiente orden a atender
+     */
+    @GetMapping("/siguiente")
+    public ResponseEntity<OrdenTrabajoSummaryDTO> obtenerSiguienteOrden() {
+        return despachoMecanicosService.obtenerSiguienteOrden()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Carga actual de cada mecánico
+     */
+    @GetMapping("/cargas")
+    public ResponseEntity<List<CargaMecanicoDTO>> obtenerCargas() {
+        return ResponseEntity.ok(despachoMecanicosService.obtenerCargas());
+    }
+
+    // ===============================
+    // ASIGNACIÓN
+    // ===============================
+
+    /**
+     * Asignar la siguiente orden al mecánico indicado o al menos cargado
+     */
+    @PostMapping("/asignar-siguiente")
+    public ResponseEntity<ResultadoTransicionDTO> asignarSiguiente(@RequestParam(required = false) Long idMecanico) {
+        try {
+            return ResponseEntity.ok(despachoMecanicosService.asignarSiguiente(idMecanico));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Repartir las órdenes de la cola entre los mecánicos menos cargados
+     */
+    @PostMapping("/asignar-pendientes")
+    public ResponseEntity<List<ResultadoTransicionDTO>> asignarPendientes(@RequestParam(defaultValue = "20") int maximo) {
+        if (maximo <= 0 || maximo > MAXIMO_ASIGNACIONES) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(despachoMecanicosService.asignarPendientes(maximo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Reconstruir la cola y las cargas desde la base de datos
+     */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Void> reconstruir() {
+        despachoMecanicosService.reconstruir();
+        return ResponseEntity.ok().build();
+    }
+}
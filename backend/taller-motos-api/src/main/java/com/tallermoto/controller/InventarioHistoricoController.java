@@ -0,0 +1,99 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.DiferenciaCierreDTO;
+import com.tallermoto.dto.StockHistoricoDTO;
+import com.tallermoto.service.CierreInventarioService;
+import com.tallermoto.service.KardexService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controlador REST para consultar el inventario en una fecha pasada
+ * Las consultas parten de los cierres diarios y solo recorren los movimientos posteriores al cierre
+ */
+@RestController
+@RequestMapping("/api/inventario-historico")
+@Tag(name = "Inventario Histórico", description = "API para stock y valorización de repuestos a una fecha")
+public class InventarioHistoricoController {
+
+    @Autowired
+    private CierreInventarioService cierreInventarioService;
+
+    @Autowired
+    private KardexService kardexService;
+
+    /**
+     * Stock y valorización de todos los repuestos en una fecha
+     * Ejemplo: /api/inventario-historico/stock?fecha=2025-01-31T23:59:59
+     */
+    @GetMapping("/stock")
+    public ResponseEntity<List<StockHistoricoDTO>> obtenerInventarioEnFecha(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(cierreInventarioService.obtenerInventarioEnFecha(fecha));
+    }
+
+    /**
+     * Stock y valorización de un repuesto en una fecha
+     */
+    @GetMapping("/stock/{idRepuesto}")
+    public ResponseEntity<StockHistoricoDTO> obtenerStockEnFecha(
+            @PathVariable Long idRepuesto,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return cierreInventarioService.obtenerStockEnFecha(idRepuesto, fecha)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Generar ahora los cierres diarios pendientes hasta ayer
+     */
+    @PostMapping("/cierres/generar")
+    public ResponseEntity<Integer> generarCierresPendientes() {
+        return ResponseEntity.ok(cierreInventarioService.generarCierresPendientes());
+    }
+
+    /**
+     * Repuestos cuyo último cierre no cuadra con el stock actual (lista vacía si todos coinciden)
+     */
+    @GetMapping("/cierres/verificar")
+    public ResponseEntity<List<DiferenciaCierreDTO>> verificarCierres() {
+        return ResponseEntity.ok(cierreInventarioService.verificarCierres());
+    }
+
+    /**
+     * Kardex de un repuesto o de una categoría, escrito a medida que se lee (CSV o NDJSON)
+     * Ejemplo: /api/inventario-historico/kardex?idRepuesto=5&desde=2025-01-01T00:00:00&formato=ndjson
+     */
+    @GetMapping("/kardex")
+    public ResponseEntity<StreamingResponseBody> exportarKardex(
+            @RequestParam(required = false) Long idRepuesto,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = KardexService.FORMATO_CSV) String formato) {
+        try {
+            StreamingResponseBody cuerpo = kardexService.prepararKardex(idRepuesto, categoria, desde, hasta, formato);
+            boolean csv = KardexService.FORMATO_CSV.equals(formato);
+            String archivo = "kardex-" + (idRepuesto != null ? "repuesto-" + idRepuesto : "categoria") + "." + formato;
+            return ResponseEntity.ok()
+                    .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                            : MediaType.parseMediaType("application/x-ndjson"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                    .body(cuerpo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
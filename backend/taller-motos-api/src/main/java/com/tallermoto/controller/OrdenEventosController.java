@@ -0,0 +1,66 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.service.OrdenEventosService;
+import com.tallermoto.service.UsuarioService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Controlador REST para los eventos en vivo de órdenes de trabajo (Server-Sent Events)
+ * Los tableros abren una conexión y recargan solo las órdenes que cambian
+ */
+@RestController
+@RequestMapping("/api/eventos")
+@Tag(name = "Eventos", description = "API de eventos en vivo de órdenes de trabajo")
+public class OrdenEventosController {
+
+    @Autowired
+    private OrdenEventosService ordenEventosService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    /**
+     * Suscribirse a los cambios de órdenes
+     * Si la petición trae un token, el rol y el mecánico se toman de la sesión;
+     * si no (EventSource no envía cabeceras), de los parámetros
+     */
+    @GetMapping(value = "/ordenes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirOrdenes(
+            @RequestParam(required = false) String rol,
+            @RequestParam(required = false) Long idMecanico) {
+        String rolEfectivo = rol;
+        Long mecanicoEfectivo = idMecanico;
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getName())) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if (authority.getAuthority().startsWith("ROLE_")) {
+                    rolEfectivo = authority.getAuthority().substring("ROLE_".length());
+                }
+            }
+            if (OrdenEventosService.ROL_MECANICO.equals(rolEfectivo)) {
+                mecanicoEfectivo = usuarioService.obtenerIdUsuarioActual();
+            }
+        }
+
+        try {
+            return ResponseEntity.ok(ordenEventosService.suscribir(rolEfectivo, mecanicoEfectivo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
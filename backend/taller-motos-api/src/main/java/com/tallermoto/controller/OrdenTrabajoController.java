@@ -1,14 +1,28 @@
 package com.tallermoto.controller;
 
+import com.tallermoto.dto.CambioEstadoOrdenDTO;
 import com.tallermoto.dto.CreateOrdenTrabajoDTO;
+import com.tallermoto.dto.CursorPageDTO;
+import com.tallermoto.dto.DiferenciaTotalesDTO;
+import com.tallermoto.dto.OperacionLoteOrdenesDTO;
+import com.tallermoto.dto.OrdenDetalleCompletoDTO;
+import com.tallermoto.dto.OrdenTrabajoFiltroDTO;
+import com.tallermoto.dto.OrdenTrabajoSummaryDTO;
+import com.tallermoto.dto.ResultadoLoteOrdenDTO;
+import com.tallermoto.dto.ResultadoTransicionDTO;
 import com.tallermoto.entity.Moto;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Usuario;
+import com.tallermoto.service.OrdenClonacionService;
+import com.tallermoto.service.OrdenDetalleCompletoService;
+import com.tallermoto.service.OrdenTotalesService;
 import com.tallermoto.service.OrdenTrabajoService;
+import com.tallermoto.service.OrdenTransicionService;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -34,6 +48,18 @@ public class OrdenTrabajoController {
     @Autowired
     private OrdenTrabajoService ordenTrabajoService;
 
+    @Autowired
+    private OrdenTransicionService ordenTransicionService;
+
+    @Autowired
+    private OrdenTotalesService ordenTotalesService;
+
+    @Autowired
+    private OrdenDetalleCompletoService ordenDetalleCompletoService;
+
+    @Autowired
+    private OrdenClonacionService ordenClonacionService;
+
     // ===============================
     // OPERACIONES CRUD BÁSICAS
     // ===============================
@@ -57,6 +83,18 @@ public class OrdenTrabajoController {
                           .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Obtener orden de trabajo con servicios, repuestos, pagos e historial en una sola petición
+     */
+    @GetMapping("/{id}/completo")
+    public ResponseEntity<OrdenDetalleCompletoDTO> obtenerDetalleCompleto(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ordenDetalleCompletoService.obtenerDetalleCompleto(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Obtener todas las órdenes de trabajo
      */
@@ -75,13 +113,300 @@ public class OrdenTrabajoController {
         return ResponseEntity.ok(ordenesTrabajo);
     }
 
+    /**
+     * Obtener órdenes de trabajo paginadas por cursor, con filtros opcionales
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<OrdenTrabajo>> obtenerOrdenesPorCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String prioridad,
+            @RequestParam(required = false) Long idMecanico) {
+        try {
+            CursorPageDTO<OrdenTrabajo> pagina = ordenTrabajoService.obtenerOrdenesPorCursor(cursor, limite, estado, prioridad, idMecanico);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Filtrar órdenes de trabajo combinando criterios opcionales, con paginación y orden
+     * Ej: /filtrar?estados=RECIBIDA,EN_PROCESO&idMecanico=3&totalMinimo=100&sort=fechaIngreso,desc
+     */
+    @GetMapping("/filtrar")
+    public ResponseEntity<Page<OrdenTrabajo>> filtrarOrdenes(@ModelAttribute OrdenTrabajoFiltroDTO filtro, Pageable pageable) {
+        try {
+            Page<OrdenTrabajo> ordenesTrabajo = ordenTrabajoService.filtrarOrdenes(filtro, pageable);
+            return ResponseEntity.ok(ordenesTrabajo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ===============================
+    // TRANSICIONES (UPDATE CONDICIONAL + HISTORIAL)
+    // ===============================
+
+    /**
+     * Cambiar estado de la orden validando la transición
+     * 409 si la transición no está permitida o la versión enviada ya no es la actual
+     */
+    @PatchMapping("/{id}/estado")
+    public ResponseEntity<ResultadoTransicionDTO> cambiarEstado(@PathVariable Long id, @Valid @RequestBody CambioEstadoOrdenDTO cambio) {
+        try {
+            ResultadoTransicionDTO resultado = ordenTransicionService.cambiarEstado(id, cambio.getEstado(), cambio.getVersion(), cambio.getComentario());
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Cambiar prioridad de la orden
+     */
+    @PatchMapping("/{id}/prioridad")
+    public ResponseEntity<ResultadoTransicionDTO> cambiarPrioridad(@PathVariable Long id,
+                                                                   @RequestParam String prioridad,
+                                                                   @RequestParam(required = false) Long version) {
+        try {
+            ResultadoTransicionDTO resultado = ordenTransicionService.cambiarPrioridad(id, prioridad, version);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Asignar mecánico a la orden (sin idMecanico se quita la asignación)
+     */
+    @PatchMapping("/{id}/mecanico")
+    public ResponseEntity<ResultadoTransicionDTO> asignarMecanico(@PathVariable Long id,
+                                                                  @RequestParam(required = false) Long idMecanico,
+                                                                  @RequestParam(required = false) Long version) {
+        try {
+            ResultadoTransicionDTO resultado = ordenTransicionService.asignarMecanico(id, idMecanico, version);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Cambiar estado de pago de la orden
+     */
+    @PatchMapping("/{id}/estado-pago")
+    public ResponseEntity<ResultadoTransicionDTO> cambiarEstadoPago(@PathVariable Long id,
+                                                                    @RequestParam String estadoPago,
+                                                                    @RequestParam(required = false) Long version) {
+        try {
+            ResultadoTransicionDTO resultado = ordenTransicionService.cambiarEstadoPago(id, estadoPago, version);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // ===============================
+    // VERIFICACIÓN DE TOTALES
+    // ===============================
+
+    /**
+     * Listar órdenes cuyos totales no coinciden con la suma de sus líneas
+     */
+    @GetMapping("/totales/verificacion")
+    public ResponseEntity<List<DiferenciaTotalesDTO>> verificarTotales() {
+        List<DiferenciaTotalesDTO> diferencias = ordenTotalesService.verificarTotales();
+        return ResponseEntity.ok(diferencias);
+    }
+
+    /**
+     * Corregir los totales de las órdenes con desviación
+     */
+    @PostMapping("/totales/reparar")
+    public ResponseEntity<Integer> repararTotales() {
+        int corregidas = ordenTotalesService.repararTotales();
+        return ResponseEntity.ok(corregidas);
+    }
+
+    // ===============================
+    // CLONACIÓN Y PLANTILLAS
+    // ===============================
+
+    /**
+     * Copiar los servicios y repuestos de esta orden a otra orden existente
+     */
+    @PostMapping("/{id}/clonar-lineas")
+    public ResponseEntity<OrdenDetalleCompletoDTO> clonarLineas(@PathVariable Long id,
+                                                                @RequestParam Long idDestino,
+                                                                @RequestParam(defaultValue = "true") boolean incluirRepuestos,
+                                                                @RequestParam(defaultValue = "false") boolean preciosActuales) {
+        try {
+            return ResponseEntity.ok(ordenClonacionService.clonarLineas(id, idDestino, incluirRepuestos, preciosActuales));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Crear una nueva orden usando esta como plantilla
+     */
+    @PostMapping("/{id}/plantilla")
+    public ResponseEntity<OrdenDetalleCompletoDTO> crearDesdePlantilla(@PathVariable Long id,
+                                                                       @Valid @RequestBody CreateOrdenTrabajoDTO createDTO,
+                                                                       @RequestParam(defaultValue = "true") boolean incluirRepuestos) {
+        try {
+            OrdenDetalleCompletoDTO nuevaOrden = ordenClonacionService.crearDesdePlantilla(id, createDTO, incluirRepuestos);
+            return new ResponseEntity<>(nuevaOrden, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ===============================
+    // OPERACIONES MASIVAS
+    // ===============================
+
+    /**
+     * Cambiar el estado de varias órdenes en una sola transacción
+     */
+    @PatchMapping("/lote/estado")
+    public ResponseEntity<List<ResultadoLoteOrdenDTO>> cambiarEstadoLote(@Valid @RequestBody OperacionLoteOrdenesDTO operacion) {
+        try {
+            return ResponseEntity.ok(ordenTransicionService.cambiarEstadoLote(
+                    operacion.getIdsOrden(), operacion.getEstado(), operacion.getComentario()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Cambiar la prioridad de varias órdenes en una sola transacción
+     */
+    @PatchMapping("/lote/prioridad")
+    public ResponseEntity<List<ResultadoLoteOrdenDTO>> cambiarPrioridadLote(@Valid @RequestBody OperacionLoteOrdenesDTO operacion) {
+        try {
+            return ResponseEntity.ok(ordenTransicionService.cambiarPrioridadLote(
+                    operacion.getIdsOrden(), operacion.getPrioridad()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Asignar (o quitar) el mecánico de varias órdenes en una sola transacción
+     */
+    @PatchMapping("/lote/mecanico")
+    public ResponseEntity<List<ResultadoLoteOrdenDTO>> asignarMecanicoLote(@Valid @RequestBody OperacionLoteOrdenesDTO operacion) {
+        try {
+            return ResponseEntity.ok(ordenTransicionService.asignarMecanicoLote(
+                    operacion.getIdsOrden(), operacion.getIdMecanico()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Cambiar el estado de pago de varias órdenes en una sola transacción
+     */
+    @PatchMapping("/lote/estado-pago")
+    public ResponseEntity<List<ResultadoLoteOrdenDTO>> cambiarEstadoPagoLote(@Valid @RequestBody OperacionLoteOrdenesDTO operacion) {
+        try {
+            return ResponseEntity.ok(ordenTransicionService.cambiarEstadoPagoLote(
+                    operacion.getIdsOrden(), operacion.getEstadoPago()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ===============================
+    // LISTADOS RESUMIDOS
+    // ===============================
+
+    /**
+     * Listado resumido de todas las órdenes de trabajo
+     */
+    @GetMapping("/resumen")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> obtenerResumenOrdenes() {
+        List<OrdenTrabajoSummaryDTO> resumen = ordenTrabajoService.obtenerResumenOrdenes();
+        return ResponseEntity.ok(resumen);
+    }
+
+    /**
+     * Listado resumido de órdenes por estado
+     */
+    @GetMapping("/resumen/estado/{estado}")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> obtenerResumenPorEstado(@PathVariable String estado) {
+        List<OrdenTrabajoSummaryDTO> resumen = ordenTrabajoService.obtenerResumenPorEstado(estado);
+        return ResponseEntity.ok(resumen);
+    }
+
+    /**
+     * Listado resumido de órdenes asignadas a un mecánico
+     */
+    @GetMapping("/resumen/mecanico/{idMecanico}")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> obtenerResumenPorMecanico(@PathVariable Long idMecanico) {
+        List<OrdenTrabajoSummaryDTO> resumen = ordenTrabajoService.obtenerResumenPorMecanico(idMecanico);
+        return ResponseEntity.ok(resumen);
+    }
+
+    /**
+     * Listado resumido de órdenes ingresadas en un rango de fechas
+     */
+    @GetMapping("/resumen/rango-fechas/{fechaDesde}/{fechaHasta}")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> obtenerResumenEnRangoDeFechas(@PathVariable LocalDateTime fechaDesde, @PathVariable LocalDateTime fechaHasta) {
+        List<OrdenTrabajoSummaryDTO> resumen = ordenTrabajoService.obtenerResumenEnRangoDeFechas(fechaDesde, fechaHasta);
+        return ResponseEntity.ok(resumen);
+    }
+
+    /**
+     * Búsqueda general de órdenes con resultado resumido
+     */
+    @GetMapping("/resumen/buscar")
+    public ResponseEntity<List<OrdenTrabajoSummaryDTO>> buscarResumen(@RequestParam String busqueda) {
+        List<OrdenTrabajoSummaryDTO> resumen = ordenTrabajoService.buscarResumen(busqueda);
+        return ResponseEntity.ok(resumen);
+    }
+
+    /**
+     * Búsqueda de texto completo de órdenes, ordenada por relevancia y paginada
+     */
+    @GetMapping("/busqueda")
+    public ResponseEntity<Page<OrdenTrabajoSummaryDTO>> buscarOrdenesTextoCompleto(@RequestParam String busqueda, Pageable pageable) {
+        try {
+            Page<OrdenTrabajoSummaryDTO> resultado = ordenTrabajoService.buscarOrdenesTextoCompleto(busqueda, pageable);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Actualizar orden de trabajo
+     * 409 si la versión enviada no es la actual o si se intenta cambiar estado, prioridad, mecánico o estado de pago
+     * (cada uno tiene su PATCH en /{id}/...)
      */
     @PutMapping("/{id}")
     public ResponseEntity<OrdenTrabajo> actualizarOrdenTrabajo(@PathVariable Long id, @Valid @RequestBody OrdenTrabajo ordenTrabajoActualizada) {
-        OrdenTrabajo ordenTrabajo = ordenTrabajoService.actualizarOrdenTrabajo(id, ordenTrabajoActualizada);
-        return ResponseEntity.ok(ordenTrabajo);
+        try {
+            OrdenTrabajo ordenTrabajo = ordenTrabajoService.actualizarOrdenTrabajo(id, ordenTrabajoActualizada);
+            return ResponseEntity.ok(ordenTrabajo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.service.ParticionesService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para el mantenimiento de las particiones mensuales de movimientos e historial
+ * El mantenimiento corre solo a diario; este endpoint permite ejecutarlo a demanda
+ */
+@RestController
+@RequestMapping("/api/particiones")
+@Tag(name = "Particiones", description = "API de creación y archivado de particiones mensuales de tablas históricas")
+public class ParticionesController {
+
+    @Autowired
+    private ParticionesService particionesService;
+
+    /**
+     * Crear las particiones de los próximos meses y archivar las que superen la retención
+     */
+    @PostMapping("/mantenimiento")
+    public ResponseEntity<List<String>> mantenerParticiones() {
+        return ResponseEntity.ok(particionesService.mantenerParticiones());
+    }
+}
@@ -0,0 +1,55 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.SugerenciaReposicionDTO;
+import com.tallermoto.service.PronosticoConsumoService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para el pronóstico de consumo y las sugerencias de reposición de repuestos
+ */
+@RestController
+@RequestMapping("/api/pronostico-consumo")
+@Tag(name = "Pronóstico de Consumo", description = "API de tasas de consumo, punto de reorden y cantidades sugeridas")
+public class PronosticoConsumoController {
+
+    @Autowired
+    private PronosticoConsumoService pronosticoConsumoService;
+
+    /**
+     * Sugerencias de reposición
+     * Ejemplo: /api/pronostico-consumo/sugerencias?soloReordenar=true&plazoDias=10
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaReposicionDTO>> obtenerSugerencias(
+            @RequestParam(defaultValue = "true") boolean soloReordenar,
+            @RequestParam(required = false) Integer plazoDias) {
+        try {
+            return ResponseEntity.ok(pronosticoConsumoService.obtenerSugerencias(soloReordenar, plazoDias));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Pronóstico y sugerencia de un repuesto
+     */
+    @GetMapping("/repuesto/{idRepuesto}")
+    public ResponseEntity<SugerenciaReposicionDTO> obtenerSugerencia(
+            @PathVariable Long idRepuesto,
+            @RequestParam(required = false) Integer plazoDias) {
+        try {
+            return pronosticoConsumoService.obtenerSugerencia(idRepuesto, plazoDias)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tallermoto.controller;
 
 import com.tallermoto.entity.Repuesto;
+import com.tallermoto.service.CatalogoService;
 import com.tallermoto.service.RepuestoService;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -8,6 +9,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +32,9 @@ public class RepuestoController {
     @Autowired
     private RepuestoService repuestoService;
 
+    @Autowired
+    private CatalogoService catalogoService;
+
     // ===============================
     // OPERACIONES CRUD BÁSICAS
     // ===============================
@@ -54,12 +59,12 @@ public class RepuestoController {
     }
 
     /**
-     * Obtener todos los repuestos
+     * Obtener todos los repuestos (catálogo en caché con ETag)
      */
     @GetMapping
-    public ResponseEntity<List<Repuesto>> obtenerTodosLosRepuestos() {
-        List<Repuesto> repuestos = repuestoService.obtenerTodosLosRepuestos();
-        return ResponseEntity.ok(repuestos);
+    public ResponseEntity<List<Repuesto>> obtenerTodosLosRepuestos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerRepuestos(), siNoCoincide);
     }
 
     /**
@@ -222,12 +227,12 @@ public class RepuestoController {
     }
 
     /**
-     * Obtener todas las categorías activas
+     * Obtener todas las categorías activas (catálogo en caché con ETag)
      */
     @GetMapping("/categorias-activas")
-    public ResponseEntity<List<String>> obtenerCategoriasActivas() {
-        List<String> categorias = repuestoService.obtenerCategoriasActivas();
-        return ResponseEntity.ok(categorias);
+    public ResponseEntity<List<String>> obtenerCategoriasActivas(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerCategoriasRepuestos(), siNoCoincide);
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.DisponibilidadRepuestoDTO;
+import com.tallermoto.dto.ReservaStockDTO;
+import com.tallermoto.service.ReservaStockService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para reservas de stock de repuestos
+ * Flujo: reservar al planificar el trabajo, consumir al usar el repuesto o liberar si no se usa
+ */
+@RestController
+@RequestMapping("/api/reservas-stock")
+@Tag(name = "Reservas de Stock", description = "API para reservar, consumir y liberar stock de repuestos")
+public class ReservaStockController {
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    /**
+     * Reservar stock de un repuesto para una orden
+     */
+    @PostMapping
+    public ResponseEntity<ReservaStockDTO> reservar(@RequestParam Long idRepuesto,
+                                                    @RequestParam Integer cantidad,
+                                                    @RequestParam Long idOrden) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservaStockService.reservar(idRepuesto, cantidad, idOrden));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Consumir una reserva: registra el uso del repuesto en la orden
+     */
+    @PostMapping("/{idReserva}/consumir")
+    public ResponseEntity<ReservaStockDTO> consumir(@PathVariable Long idReserva) {
+        try {
+            return ResponseEntity.ok(reservaStockService.consumir(idReserva));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Liberar una reserva que no se va a usar
+     */
+    @DeleteMapping("/{idReserva}")
+    public ResponseEntity<ReservaStockDTO> liberar(@PathVariable Long idReserva) {
+        try {
+            return ResponseEntity.ok(reservaStockService.liberar(idReserva));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Reservas activas de una orden
+     */
+    @GetMapping("/orden/{idOrden}")
+    public ResponseEntity<List<ReservaStockDTO>> obtenerReservasDeOrden(@PathVariable Long idOrden) {
+        return ResponseEntity.ok(reservaStockService.obtenerReservasDeOrden(idOrden));
+    }
+
+    /**
+     * Disponibilidad en memoria de un repuesto
+     */
+    @GetMapping("/repuesto/{idRepuesto}")
+    public ResponseEntity<DisponibilidadRepuestoDTO> obtenerDisponibilidad(@PathVariable Long idRepuesto) {
+        try {
+            return ResponseEntity.ok(reservaStockService.obtenerDisponibilidad(idRepuesto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
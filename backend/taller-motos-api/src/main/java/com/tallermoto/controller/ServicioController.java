@@ -1,6 +1,7 @@
 package com.tallermoto.controller;
 
 import com.tallermoto.entity.Servicio;
+import com.tallermoto.service.CatalogoService;
 import com.tallermoto.service.ServicioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,6 +10,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +32,9 @@ public class ServicioController {
     @Autowired
     private ServicioService servicioService;
 
+    @Autowired
+    private CatalogoService catalogoService;
+
     // ========== OPERACIONES CRUD ==========
 
     /**
@@ -38,9 +43,9 @@ public class ServicioController {
     @GetMapping
     @Operation(summary = "Obtener todos los servicios", description = "Retorna la lista completa de servicios del catálogo")
     @ApiResponse(responseCode = "200", description = "Lista de servicios obtenida exitosamente")
-    public ResponseEntity<List<Servicio>> obtenerTodos() {
-        List<Servicio> servicios = servicioService.obtenerTodos();
-        return ResponseEntity.ok(servicios);
+    public ResponseEntity<List<Servicio>> obtenerTodos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerServicios(), siNoCoincide);
     }
 
     /**
@@ -197,9 +202,10 @@ public class ServicioController {
     @GetMapping("/categoria/{categoria}")
     @Operation(summary = "Obtener servicios por categoría", description = "Retorna todos los servicios de una categoría específica")
     @ApiResponse(responseCode = "200", description = "Lista de servicios de la categoría")
-    public ResponseEntity<List<Servicio>> obtenerPorCategoria(@PathVariable String categoria) {
-        List<Servicio> servicios = servicioService.obtenerPorCategoria(categoria);
-        return ResponseEntity.ok(servicios);
+    public ResponseEntity<List<Servicio>> obtenerPorCategoria(
+            @PathVariable String categoria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerServiciosPorCategoria(categoria), siNoCoincide);
     }
 
     /**
@@ -208,9 +214,10 @@ public class ServicioController {
     @GetMapping("/activos/categoria/{categoria}")
     @Operation(summary = "Obtener servicios activos por categoría", description = "Retorna todos los servicios activos de una categoría específica")
     @ApiResponse(responseCode = "200", description = "Lista de servicios activos de la categoría")
-    public ResponseEntity<List<Servicio>> obtenerActivosPorCategoria(@PathVariable String categoria) {
-        List<Servicio> servicios = servicioService.obtenerActivosPorCategoria(categoria);
-        return ResponseEntity.ok(servicios);
+    public ResponseEntity<List<Servicio>> obtenerActivosPorCategoria(
+            @PathVariable String categoria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerServiciosActivosPorCategoria(categoria), siNoCoincide);
     }
 
     /**
@@ -219,9 +226,10 @@ public class ServicioController {
     @GetMapping("/categoria/{categoria}/ordenados")
     @Operation(summary = "Obtener servicios por categoría ordenados", description = "Retorna servicios de una categoría ordenados alfabéticamente por nombre")
     @ApiResponse(responseCode = "200", description = "Lista de servicios de la categoría ordenados")
-    public ResponseEntity<List<Servicio>> obtenerPorCategoriaOrdenados(@PathVariable String categoria) {
-        List<Servicio> servicios = servicioService.obtenerPorCategoriaOrdenados(categoria);
-        return ResponseEntity.ok(servicios);
+    public ResponseEntity<List<Servicio>> obtenerPorCategoriaOrdenados(
+            @PathVariable String categoria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerServiciosPorCategoriaOrdenados(categoria), siNoCoincide);
     }
 
     /**
@@ -241,9 +249,9 @@ public class ServicioController {
     @GetMapping("/categorias/activas")
     @Operation(summary = "Obtener categorías activas", description = "Retorna la lista de todas las categorías que tienen servicios activos")
     @ApiResponse(responseCode = "200", description = "Lista de categorías activas")
-    public ResponseEntity<List<String>> obtenerCategoriasActivas() {
-        List<String> categorias = servicioService.obtenerCategoriasActivas();
-        return ResponseEntity.ok(categorias);
+    public ResponseEntity<List<String>> obtenerCategoriasActivas(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerCategoriasServicios(), siNoCoincide);
     }
 
     /**
@@ -252,9 +260,10 @@ public class ServicioController {
     @GetMapping("/categoria/{categoria}/por-precio")
     @Operation(summary = "Obtener servicios por categoría ordenados por precio", description = "Retorna servicios de una categoría ordenados por precio ascendente")
     @ApiResponse(responseCode = "200", description = "Lista de servicios ordenados por precio")
-    public ResponseEntity<List<Servicio>> obtenerPorCategoriaPorPrecio(@PathVariable String categoria) {
-        List<Servicio> servicios = servicioService.obtenerPorCategoriaPorPrecio(categoria);
-        return ResponseEntity.ok(servicios);
+    public ResponseEntity<List<Servicio>> obtenerPorCategoriaPorPrecio(
+            @PathVariable String categoria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return CatalogoService.responder(catalogoService.obtenerServiciosPorCategoriaPorPrecio(categoria), siNoCoincide);
     }
 
     // ========== CONSULTAS POR PRECIO BASE ==========
@@ -0,0 +1,50 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.SincronizacionDTO;
+import com.tallermoto.service.SincronizacionService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controlador REST para la sincronización incremental
+ * Los clientes guardan la marca de agua de cada respuesta y la envían en la siguiente consulta
+ */
+@RestController
+@RequestMapping("/api/sincronizacion")
+@Tag(name = "Sincronización", description = "API para obtener cambios desde una marca de agua")
+public class SincronizacionController {
+
+    @Autowired
+    private SincronizacionService sincronizacionService;
+
+    /**
+     * Marca de agua actual, para iniciar la sincronización después de una carga completa
+     */
+    @GetMapping("/marca-agua")
+    public ResponseEntity<LocalDateTime> obtenerMarcaAgua() {
+        return ResponseEntity.ok(sincronizacionService.obtenerMarcaAgua());
+    }
+
+    /**
+     * Registros creados, modificados o eliminados desde la marca de agua
+     * Ejemplo: /api/sincronizacion/cambios?desde=2025-01-10T08:00:00&entidades=ORDEN,PAGO
+     */
+    @GetMapping("/cambios")
+    public ResponseEntity<SincronizacionDTO> obtenerCambios(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) List<String> entidades) {
+        try {
+            return ResponseEntity.ok(sincronizacionService.obtenerCambios(desde, entidades));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
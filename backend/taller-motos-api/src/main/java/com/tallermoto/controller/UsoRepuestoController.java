@@ -1,11 +1,14 @@
 package com.tallermoto.controller;
 
+import com.tallermoto.dto.ConsumoLoteDTO;
+import com.tallermoto.dto.UsoRepuestoLineaDTO;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Repuesto;
 import com.tallermoto.entity.UsoRepuesto;
 import com.tallermoto.service.UsoRepuestoService;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -386,6 +389,22 @@ public class UsoRepuestoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(usosClonados);
     }
 
+    /**
+     * Registrar de una vez varios repuestos consumidos en una orden (todo o nada)
+     */
+    @PostMapping("/orden/{idOrden}/lote")
+    public ResponseEntity<List<UsoRepuestoLineaDTO>> registrarUsosLote(@PathVariable Long idOrden,
+                                                                       @Valid @RequestBody ConsumoLoteDTO consumo) {
+        try {
+            List<UsoRepuestoLineaDTO> lineas = usoRepuestoService.registrarUsosLote(idOrden, consumo.getLineas());
+            return ResponseEntity.status(HttpStatus.CREATED).body(lineas);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @PostMapping("/buscar-uso-especifico")
     public ResponseEntity<UsoRepuesto> buscarUsoEspecifico(@RequestBody OrdenTrabajo ordenTrabajo, @RequestBody Repuesto repuesto) {
         Optional<UsoRepuesto> usoRepuesto = usoRepuestoService.buscarUsoEspecifico(ordenTrabajo, repuesto);
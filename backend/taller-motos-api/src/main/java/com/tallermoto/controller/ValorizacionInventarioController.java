@@ -0,0 +1,31 @@
+package com.tallermoto.controller;
+
+import com.tallermoto.dto.ValorizacionInventarioDTO;
+import com.tallermoto.service.ValorizacionInventarioService;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para la valorización del inventario
+ * Los totales se mantienen en memoria en el servidor; la consulta no recorre la tabla de repuestos
+ */
+@RestController
+@RequestMapping("/api/valorizacion-inventario")
+@Tag(name = "Valorización de Inventario", description = "API de valor, unidades y stock bajo por categoría")
+public class ValorizacionInventarioController {
+
+    @Autowired
+    private ValorizacionInventarioService valorizacionInventarioService;
+
+    /**
+     * Valorización total y desglose por categoría
+     */
+    @GetMapping
+    public ResponseEntity<ValorizacionInventarioDTO> obtenerValorizacion() {
+        return ResponseEntity.ok(valorizacionInventarioService.obtenerValorizacion());
+    }
+}
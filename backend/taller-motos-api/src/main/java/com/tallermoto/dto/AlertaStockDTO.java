@@ -0,0 +1,126 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de alerta de stock bajo de un repuesto
+ * nivel: BAJO (en o bajo el mínimo), AGOTADO (sin stock) o NORMAL;
+ * evento: transición que originó la alerta (ENTRA_BAJO, AGOTADO o SALE_BAJO), null en las consultas
+ */
+public class AlertaStockDTO {
+
+    private Long idRepuesto;
+    private String codigo;
+    private String nombre;
+    private String categoria;
+    private Integer stockActual;
+    private Integer stockMinimo;
+    private String nivel;
+    private String evento;
+    private LocalDateTime fecha;
+
+    // Constructor vacío
+    public AlertaStockDTO() {}
+
+    // Constructor completo
+    public AlertaStockDTO(Long idRepuesto, String codigo, String nombre, String categoria, Integer stockActual,
+                          Integer stockMinimo, String nivel, String evento, LocalDateTime fecha) {
+        this.idRepuesto = idRepuesto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.categoria = categoria;
+        this.stockActual = stockActual;
+        this.stockMinimo = stockMinimo;
+        this.nivel = nivel;
+        this.evento = evento;
+        this.fecha = fecha;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Integer getStockActual() {
+        return stockActual;
+    }
+
+    public void setStockActual(Integer stockActual) {
+        this.stockActual = stockActual;
+    }
+
+    public Integer getStockMinimo() {
+        return stockMinimo;
+    }
+
+    public void setStockMinimo(Integer stockMinimo) {
+        this.stockMinimo = stockMinimo;
+    }
+
+    public String getNivel() {
+        return nivel;
+    }
+
+    public void setNivel(String nivel) {
+        this.nivel = nivel;
+    }
+
+    public String getEvento() {
+        return evento;
+    }
+
+    public void setEvento(String evento) {
+        this.evento = evento;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertaStockDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", codigo='" + codigo + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", categoria='" + categoria + '\'' +
+                ", stockActual=" + stockActual +
+                ", stockMinimo=" + stockMinimo +
+                ", nivel='" + nivel + '\'' +
+                ", evento='" + evento + '\'' +
+                ", fecha=" + fecha +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.tallermoto.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO para solicitar un cambio de estado de una orden de trabajo
+ * La versión es opcional; si se envía, el cambio solo se aplica si la orden no fue modificada desde entonces
+ */
+public class CambioEstadoOrdenDTO {
+
+    @NotBlank(message = "El estado nuevo es obligatorio")
+    @Pattern(regexp = "^(RECIBIDA|DIAGNOSTICADA|EN_PROCESO|COMPLETADA|ENTREGADA|CANCELADA)$",
+             message = "El estado debe ser RECIBIDA, DIAGNOSTICADA, EN_PROCESO, COMPLETADA, ENTREGADA o CANCELADA")
+    private String estado;
+
+    @Size(max = 1000, message = "El comentario no puede exceder 1000 caracteres")
+    private String comentario;
+
+    private Long version;
+
+    // Constructor vacío
+    public CambioEstadoOrdenDTO() {}
+
+    // Constructor completo
+    public CambioEstadoOrdenDTO(String estado, String comentario, Long version) {
+        this.estado = estado;
+        this.comentario = comentario;
+        this.version = version;
+    }
+
+    // Getters y Setters
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public String getComentario() {
+        return comentario;
+    }
+
+    public void setComentario(String comentario) {
+        this.comentario = comentario;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "CambioEstadoOrdenDTO{" +
+                "estado='" + estado + '\'' +
+                ", comentario='" + comentario + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
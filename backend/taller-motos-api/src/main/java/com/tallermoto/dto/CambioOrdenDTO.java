@@ -0,0 +1,110 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO compacto de un cambio en una orden de trabajo, enviado por el canal de eventos en vivo
+ * Lleva solo lo necesario para que el tablero decida si refresca la tarjeta de la orden
+ */
+public class CambioOrdenDTO {
+
+    private String tipo;
+    private Long idOrden;
+    private String numeroOrden;
+    private String estado;
+    private String prioridad;
+    private String estadoPago;
+    private Long idMecanico;
+    private LocalDateTime fecha;
+
+    // Constructor vacío
+    public CambioOrdenDTO() {}
+
+    // Constructor completo
+    public CambioOrdenDTO(String tipo, Long idOrden, String numeroOrden, String estado, String prioridad,
+                          String estadoPago, Long idMecanico, LocalDateTime fecha) {
+        this.tipo = tipo;
+        this.idOrden = idOrden;
+        this.numeroOrden = numeroOrden;
+        this.estado = estado;
+        this.prioridad = prioridad;
+        this.estadoPago = estadoPago;
+        this.idMecanico = idMecanico;
+        this.fecha = fecha;
+    }
+
+    // Getters y Setters
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public String getNumeroOrden() {
+        return numeroOrden;
+    }
+
+    public void setNumeroOrden(String numeroOrden) {
+        this.numeroOrden = numeroOrden;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public String getPrioridad() {
+        return prioridad;
+    }
+
+    public void setPrioridad(String prioridad) {
+        this.prioridad = prioridad;
+    }
+
+    public String getEstadoPago() {
+        return estadoPago;
+    }
+
+    public void setEstadoPago(String estadoPago) {
+        this.estadoPago = estadoPago;
+    }
+
+    public Long getIdMecanico() {
+        return idMecanico;
+    }
+
+    public void setIdMecanico(Long idMecanico) {
+        this.idMecanico = idMecanico;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    @Override
+    public String toString() {
+        return "CambioOrdenDTO{" +
+                "tipo='" + tipo + '\'' +
+                ", idOrden=" + idOrden +
+                ", estado='" + estado + '\'' +
+                ", idMecanico=" + idMecanico +
+                '}';
+    }
+}
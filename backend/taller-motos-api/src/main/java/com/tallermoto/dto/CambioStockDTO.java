@@ -0,0 +1,55 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con el resultado de un cambio atómico de stock de un repuesto
+ */
+public class CambioStockDTO {
+
+    private Long idRepuesto;
+    private Integer stockAnterior;
+    private Integer stockNuevo;
+
+    // Constructor vacío
+    public CambioStockDTO() {}
+
+    // Constructor completo
+    public CambioStockDTO(Long idRepuesto, Integer stockAnterior, Integer stockNuevo) {
+        this.idRepuesto = idRepuesto;
+        this.stockAnterior = stockAnterior;
+        this.stockNuevo = stockNuevo;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public Integer getStockAnterior() {
+        return stockAnterior;
+    }
+
+    public void setStockAnterior(Integer stockAnterior) {
+        this.stockAnterior = stockAnterior;
+    }
+
+    public Integer getStockNuevo() {
+        return stockNuevo;
+    }
+
+    public void setStockNuevo(Integer stockNuevo) {
+        this.stockNuevo = stockNuevo;
+    }
+
+    @Override
+    public String toString() {
+        return "CambioStockDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", stockAnterior=" + stockAnterior +
+                ", stockNuevo=" + stockNuevo +
+                '}';
+    }
+}
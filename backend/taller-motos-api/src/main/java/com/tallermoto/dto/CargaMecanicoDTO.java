@@ -0,0 +1,67 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con la carga de trabajo actual de un mecánico
+ * Cuenta las órdenes activas asignadas y la suma de minutos estimados de sus servicios
+ */
+public class CargaMecanicoDTO {
+
+    private Long idMecanico;
+    private String nombreMecanico;
+    private Integer ordenesActivas;
+    private Long minutosAsignados;
+
+    // Constructor vacío
+    public CargaMecanicoDTO() {}
+
+    // Constructor completo
+    public CargaMecanicoDTO(Long idMecanico, String nombreMecanico, Integer ordenesActivas, Long minutosAsignados) {
+        this.idMecanico = idMecanico;
+        this.nombreMecanico = nombreMecanico;
+        this.ordenesActivas = ordenesActivas;
+        this.minutosAsignados = minutosAsignados;
+    }
+
+    // Getters y Setters
+    public Long getIdMecanico() {
+        return idMecanico;
+    }
+
+    public void setIdMecanico(Long idMecanico) {
+        this.idMecanico = idMecanico;
+    }
+
+    public String getNombreMecanico() {
+        return nombreMecanico;
+    }
+
+    public void setNombreMecanico(String nombreMecanico) {
+        this.nombreMecanico = nombreMecanico;
+    }
+
+    public Integer getOrdenesActivas() {
+        return ordenesActivas;
+    }
+
+    public void setOrdenesActivas(Integer ordenesActivas) {
+        this.ordenesActivas = ordenesActivas;
+    }
+
+    public Long getMinutosAsignados() {
+        return minutosAsignados;
+    }
+
+    public void setMinutosAsignados(Long minutosAsignados) {
+        this.minutosAsignados = minutosAsignados;
+    }
+
+    @Override
+    public String toString() {
+        return "CargaMecanicoDTO{" +
+                "idMecanico=" + idMecanico +
+                ", nombreMecanico='" + nombreMecanico + '\'' +
+                ", ordenesActivas=" + ordenesActivas +
+                ", minutosAsignados=" + minutosAsignados +
+                '}';
+    }
+}
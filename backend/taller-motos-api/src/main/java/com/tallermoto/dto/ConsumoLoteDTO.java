@@ -0,0 +1,42 @@
+package com.tallermoto.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para registrar de una vez varios repuestos consumidos en una orden de trabajo
+ */
+public class ConsumoLoteDTO {
+
+    @NotEmpty(message = "Debe indicar al menos un repuesto")
+    @Size(max = 100, message = "No se pueden registrar más de 100 líneas por operación")
+    @Valid
+    private List<LineaConsumoDTO> lineas;
+
+    // Constructor vacío
+    public ConsumoLoteDTO() {}
+
+    // Constructor completo
+    public ConsumoLoteDTO(List<LineaConsumoDTO> lineas) {
+        this.lineas = lineas;
+    }
+
+    // Getters y Setters
+    public List<LineaConsumoDTO> getLineas() {
+        return lineas;
+    }
+
+    public void setLineas(List<LineaConsumoDTO> lineas) {
+        this.lineas = lineas;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumoLoteDTO{" +
+                "lineas=" + lineas +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package com.tallermoto.dto;
+
+import java.util.List;
+
+/**
+ * DTO para páginas obtenidas por cursor (keyset)
+ * El cursor es opaco para el cliente: solo debe reenviarlo para pedir la página siguiente
+ */
+public class CursorPageDTO<T> {
+
+    private List<T> contenido;
+    private String siguienteCursor;
+    private boolean hayMas;
+    private int tamanio;
+
+    // Constructor vacío
+    public CursorPageDTO() {}
+
+    // Constructor completo
+    public CursorPageDTO(List<T> contenido, String siguienteCursor, boolean hayMas) {
+        this.contenido = contenido;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+        this.tamanio = contenido != null ? contenido.size() : 0;
+    }
+
+    // Getters y Setters
+    public List<T> getContenido() {
+        return contenido;
+    }
+
+    public void setContenido(List<T> contenido) {
+        this.contenido = contenido;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public boolean isHayMas() {
+        return hayMas;
+    }
+
+    public void setHayMas(boolean hayMas) {
+        this.hayMas = hayMas;
+    }
+
+    public int getTamanio() {
+        return tamanio;
+    }
+
+    public void setTamanio(int tamanio) {
+        this.tamanio = tamanio;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPageDTO{" +
+                "tamanio=" + tamanio +
+                ", hayMas=" + hayMas +
+                ", siguienteCursor='" + siguienteCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,101 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una línea de servicio dentro del detalle completo de una orden
+ */
+public class DetalleOrdenLineaDTO {
+
+    private Long idDetalle;
+    private Long idServicio;
+    private String codigoServicio;
+    private String nombreServicio;
+    private String categoriaServicio;
+    private BigDecimal precioAplicado;
+    private String observaciones;
+    private LocalDateTime createdAt;
+
+    // Constructor vacío
+    public DetalleOrdenLineaDTO() {}
+
+    // Constructor completo
+    public DetalleOrdenLineaDTO(Long idDetalle, Long idServicio, String codigoServicio, String nombreServicio,
+                                String categoriaServicio, BigDecimal precioAplicado, String observaciones,
+                                LocalDateTime createdAt) {
+        this.idDetalle = idDetalle;
+        this.idServicio = idServicio;
+        this.codigoServicio = codigoServicio;
+        this.nombreServicio = nombreServicio;
+        this.categoriaServicio = categoriaServicio;
+        this.precioAplicado = precioAplicado;
+        this.observaciones = observaciones;
+        this.createdAt = createdAt;
+    }
+
+    // Getters y Setters
+    public Long getIdDetalle() {
+        return idDetalle;
+    }
+
+    public void setIdDetalle(Long idDetalle) {
+        this.idDetalle = idDetalle;
+    }
+
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    public void setIdServicio(Long idServicio) {
+        this.idServicio = idServicio;
+    }
+
+    public String getCodigoServicio() {
+        return codigoServicio;
+    }
+
+    public void setCodigoServicio(String codigoServicio) {
+        this.codigoServicio = codigoServicio;
+    }
+
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    public void setNombreServicio(String nombreServicio) {
+        this.nombreServicio = nombreServicio;
+    }
+
+    public String getCategoriaServicio() {
+        return categoriaServicio;
+    }
+
+    public void setCategoriaServicio(String categoriaServicio) {
+        this.categoriaServicio = categoriaServicio;
+    }
+
+    public BigDecimal getPrecioAplicado() {
+        return precioAplicado;
+    }
+
+    public void setPrecioAplicado(BigDecimal precioAplicado) {
+        this.precioAplicado = precioAplicado;
+    }
+
+    public String getObservaciones() {
+        return observaciones;
+    }
+
+    public void setObservaciones(String observaciones) {
+        this.observaciones = observaciones;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
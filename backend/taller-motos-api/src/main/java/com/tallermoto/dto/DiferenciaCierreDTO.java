@@ -0,0 +1,80 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con la diferencia entre el último cierre de un repuesto y el stock actual menos los movimientos posteriores
+ */
+public class DiferenciaCierreDTO {
+
+    private Long idRepuesto;
+    private String codigo;
+    private LocalDate fechaCierre;
+    private Integer stockCierre;
+    private Integer stockCalculado;
+
+    // Constructor vacío
+    public DiferenciaCierreDTO() {}
+
+    // Constructor completo
+    public DiferenciaCierreDTO(Long idRepuesto, String codigo, LocalDate fechaCierre, Integer stockCierre,
+                               Integer stockCalculado) {
+        this.idRepuesto = idRepuesto;
+        this.codigo = codigo;
+        this.fechaCierre = fechaCierre;
+        this.stockCierre = stockCierre;
+        this.stockCalculado = stockCalculado;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public LocalDate getFechaCierre() {
+        return fechaCierre;
+    }
+
+    public void setFechaCierre(LocalDate fechaCierre) {
+        this.fechaCierre = fechaCierre;
+    }
+
+    public Integer getStockCierre() {
+        return stockCierre;
+    }
+
+    public void setStockCierre(Integer stockCierre) {
+        this.stockCierre = stockCierre;
+    }
+
+    public Integer getStockCalculado() {
+        return stockCalculado;
+    }
+
+    public void setStockCalculado(Integer stockCalculado) {
+        this.stockCalculado = stockCalculado;
+    }
+
+    @Override
+    public String toString() {
+        return "DiferenciaCierreDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", codigo='" + codigo + '\'' +
+                ", fechaCierre=" + fechaCierre +
+                ", stockCierre=" + stockCierre +
+                ", stockCalculado=" + stockCalculado +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con la diferencia entre los totales almacenados de una orden y los calculados desde sus líneas
+ */
+public class DiferenciaTotalesDTO {
+
+    private Long idOrden;
+    private BigDecimal totalServiciosRegistrado;
+    private BigDecimal totalServiciosCalculado;
+    private BigDecimal totalRepuestosRegistrado;
+    private BigDecimal totalRepuestosCalculado;
+    private BigDecimal totalOrdenRegistrado;
+
+    // Constructor vacío
+    public DiferenciaTotalesDTO() {}
+
+    // Constructor completo
+    public DiferenciaTotalesDTO(Long idOrden, BigDecimal totalServiciosRegistrado, BigDecimal totalServiciosCalculado,
+                                BigDecimal totalRepuestosRegistrado, BigDecimal totalRepuestosCalculado,
+                                BigDecimal totalOrdenRegistrado) {
+        this.idOrden = idOrden;
+        this.totalServiciosRegistrado = totalServiciosRegistrado;
+        this.totalServiciosCalculado = totalServiciosCalculado;
+        this.totalRepuestosRegistrado = totalRepuestosRegistrado;
+        this.totalRepuestosCalculado = totalRepuestosCalculado;
+        this.totalOrdenRegistrado = totalOrdenRegistrado;
+    }
+
+    // Getters y Setters
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public BigDecimal getTotalServiciosRegistrado() {
+        return totalServiciosRegistrado;
+    }
+
+    public void setTotalServiciosRegistrado(BigDecimal totalServiciosRegistrado) {
+        this.totalServiciosRegistrado = totalServiciosRegistrado;
+    }
+
+    public BigDecimal getTotalServiciosCalculado() {
+        return totalServiciosCalculado;
+    }
+
+    public void setTotalServiciosCalculado(BigDecimal totalServiciosCalculado) {
+        this.totalServiciosCalculado = totalServiciosCalculado;
+    }
+
+    public BigDecimal getTotalRepuestosRegistrado() {
+        return totalRepuestosRegistrado;
+    }
+
+    public void setTotalRepuestosRegistrado(BigDecimal totalRepuestosRegistrado) {
+        this.totalRepuestosRegistrado = totalRepuestosRegistrado;
+    }
+
+    public BigDecimal getTotalRepuestosCalculado() {
+        return totalRepuestosCalculado;
+    }
+
+    public void setTotalRepuestosCalculado(BigDecimal totalRepuestosCalculado) {
+        this.totalRepuestosCalculado = totalRepuestosCalculado;
+    }
+
+    public BigDecimal getTotalOrdenRegistrado() {
+        return totalOrdenRegistrado;
+    }
+
+    public void setTotalOrdenRegistrado(BigDecimal totalOrdenRegistrado) {
+        this.totalOrdenRegistrado = totalOrdenRegistrado;
+    }
+
+    // Total que debería tener la orden según sus líneas
+    public BigDecimal getTotalOrdenCalculado() {
+        BigDecimal servicios = totalServiciosCalculado != null ? totalServiciosCalculado : BigDecimal.ZERO;
+        BigDecimal repuestos = totalRepuestosCalculado != null ? totalRepuestosCalculado : BigDecimal.ZERO;
+        return servicios.add(repuestos);
+    }
+
+    @Override
+    public String toString() {
+        return "DiferenciaTotalesDTO{" +
+                "idOrden=" + idOrden +
+                ", totalServiciosRegistrado=" + totalServiciosRegistrado +
+                ", totalServiciosCalculado=" + totalServiciosCalculado +
+                ", totalRepuestosRegistrado=" + totalRepuestosRegistrado +
+                ", totalRepuestosCalculado=" + totalRepuestosCalculado +
+                ", totalOrdenRegistrado=" + totalOrdenRegistrado +
+                '}';
+    }
+}
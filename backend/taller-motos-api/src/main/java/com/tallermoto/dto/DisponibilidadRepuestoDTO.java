@@ -0,0 +1,57 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con la disponibilidad en memoria de un repuesto con reservas
+ * disponible: lo que aún puede reservarse; sinConfirmar: reservado pero todavía no descontado en la base de datos
+ */
+public class DisponibilidadRepuestoDTO {
+
+    private Long idRepuesto;
+    private Long disponible;
+    private Long sinConfirmar;
+    private Integer reservasActivas;
+
+    // Constructor vacío
+    public DisponibilidadRepuestoDTO() {}
+
+    // Constructor completo
+    public DisponibilidadRepuestoDTO(Long idRepuesto, Long disponible, Long sinConfirmar, Integer reservasActivas) {
+        this.idRepuesto = idRepuesto;
+        this.disponible = disponible;
+        this.sinConfirmar = sinConfirmar;
+        this.reservasActivas = reservasActivas;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public Long getDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(Long disponible) {
+        this.disponible = disponible;
+    }
+
+    public Long getSinConfirmar() {
+        return sinConfirmar;
+    }
+
+    public void setSinConfirmar(Long sinConfirmar) {
+        this.sinConfirmar = sinConfirmar;
+    }
+
+    public Integer getReservasActivas() {
+        return reservasActivas;
+    }
+
+    public void setReservasActivas(Integer reservasActivas) {
+        this.reservasActivas = reservasActivas;
+    }
+}
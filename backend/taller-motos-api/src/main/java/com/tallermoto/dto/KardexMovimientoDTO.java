@@ -0,0 +1,196 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una línea del kardex (tarjeta de existencias) de un repuesto
+ * variacion = stock nuevo - stock anterior del movimiento; saldo es el saldo acumulado del kardex y stockRegistrado
+ * el stock que quedó anotado en el movimiento. Los valores usan el precio vigente el día del movimiento.
+ * La línea SALDO_INICIAL (sin idMovimiento) trae el saldo al inicio del período
+ */
+public class KardexMovimientoDTO {
+
+    private Long idMovimiento;
+    private Long idRepuesto;
+    private String codigo;
+    private String nombre;
+    private LocalDateTime fecha;
+    private String tipoMovimiento;
+    private String referencia;
+    private String usuario;
+    private Integer cantidad;
+    private Integer variacion;
+    private Integer saldo;
+    private Integer stockRegistrado;
+    private BigDecimal precioUnitario;
+    private BigDecimal valorMovimiento;
+    private BigDecimal valorSaldo;
+
+    // Constructor vacío
+    public KardexMovimientoDTO() {}
+
+    // Constructor completo
+    public KardexMovimientoDTO(Long idMovimiento, Long idRepuesto, String codigo, String nombre,
+                               LocalDateTime fecha, String tipoMovimiento, String referencia, String usuario,
+                               Integer cantidad, Integer variacion, Integer saldo, Integer stockRegistrado,
+                               BigDecimal precioUnitario, BigDecimal valorMovimiento, BigDecimal valorSaldo) {
+        this.idMovimiento = idMovimiento;
+        this.idRepuesto = idRepuesto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.fecha = fecha;
+        this.tipoMovimiento = tipoMovimiento;
+        this.referencia = referencia;
+        this.usuario = usuario;
+        this.cantidad = cantidad;
+        this.variacion = variacion;
+        this.saldo = saldo;
+        this.stockRegistrado = stockRegistrado;
+        this.precioUnitario = precioUnitario;
+        this.valorMovimiento = valorMovimiento;
+        this.valorSaldo = valorSaldo;
+    }
+
+    // Getters y Setters
+    public Long getIdMovimiento() {
+        return idMovimiento;
+    }
+
+    public void setIdMovimiento(Long idMovimiento) {
+        this.idMovimiento = idMovimiento;
+    }
+
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public String getTipoMovimiento() {
+        return tipoMovimiento;
+    }
+
+    public void setTipoMovimiento(String tipoMovimiento) {
+        this.tipoMovimiento = tipoMovimiento;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public void setUsuario(String usuario) {
+        this.usuario = usuario;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Integer getVariacion() {
+        return variacion;
+    }
+
+    public void setVariacion(Integer variacion) {
+        this.variacion = variacion;
+    }
+
+    public Integer getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(Integer saldo) {
+        this.saldo = saldo;
+    }
+
+    public Integer getStockRegistrado() {
+        return stockRegistrado;
+    }
+
+    public void setStockRegistrado(Integer stockRegistrado) {
+        this.stockRegistrado = stockRegistrado;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    public BigDecimal getValorMovimiento() {
+        return valorMovimiento;
+    }
+
+    public void setValorMovimiento(BigDecimal valorMovimiento) {
+        this.valorMovimiento = valorMovimiento;
+    }
+
+    public BigDecimal getValorSaldo() {
+        return valorSaldo;
+    }
+
+    public void setValorSaldo(BigDecimal valorSaldo) {
+        this.valorSaldo = valorSaldo;
+    }
+
+    @Override
+    public String toString() {
+        return "KardexMovimientoDTO{" +
+                "idMovimiento=" + idMovimiento +
+                ", idRepuesto=" + idRepuesto +
+                ", codigo='" + codigo + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", fecha=" + fecha +
+                ", tipoMovimiento='" + tipoMovimiento + '\'' +
+                ", referencia='" + referencia + '\'' +
+                ", usuario='" + usuario + '\'' +
+                ", cantidad=" + cantidad +
+                ", variacion=" + variacion +
+                ", saldo=" + saldo +
+                ", stockRegistrado=" + stockRegistrado +
+                ", precioUnitario=" + precioUnitario +
+                ", valorMovimiento=" + valorMovimiento +
+                ", valorSaldo=" + valorSaldo +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package com.tallermoto.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de una línea de consumo de repuesto dentro de un lote
+ * Si no se indica precio unitario se aplica el precio vigente del catálogo
+ */
+public class LineaConsumoDTO {
+
+    @NotNull(message = "El repuesto es obligatorio")
+    private Long idRepuesto;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor a cero")
+    private Integer cantidad;
+
+    @DecimalMin(value = "0.0", message = "El precio unitario no puede ser negativo")
+    private BigDecimal precioUnitario;
+
+    // Constructor vacío
+    public LineaConsumoDTO() {}
+
+    // Constructor completo
+    public LineaConsumoDTO(Long idRepuesto, Integer cantidad, BigDecimal precioUnitario) {
+        this.idRepuesto = idRepuesto;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    @Override
+    public String toString() {
+        return "LineaConsumoDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", cantidad=" + cantidad +
+                ", precioUnitario=" + precioUnitario +
+                '}';
+    }
+}
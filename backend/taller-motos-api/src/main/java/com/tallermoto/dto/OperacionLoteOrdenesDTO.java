@@ -0,0 +1,103 @@
+package com.tallermoto.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para aplicar un mismo cambio a varias órdenes de trabajo
+ * Cada operación usa solo el campo que le corresponde (estado, prioridad, estadoPago o idMecanico)
+ */
+public class OperacionLoteOrdenesDTO {
+
+    @NotEmpty(message = "Debe indicar al menos una orden")
+    @Size(max = 500, message = "No se pueden procesar más de 500 órdenes por operación")
+    private List<Long> idsOrden;
+
+    private String estado;
+
+    private String prioridad;
+
+    private String estadoPago;
+
+    private Long idMecanico;
+
+    @Size(max = 1000, message = "El comentario no puede exceder 1000 caracteres")
+    private String comentario;
+
+    // Constructor vacío
+    public OperacionLoteOrdenesDTO() {}
+
+    // Constructor completo
+    public OperacionLoteOrdenesDTO(List<Long> idsOrden, String estado, String prioridad, String estadoPago,
+                                   Long idMecanico, String comentario) {
+        this.idsOrden = idsOrden;
+        this.estado = estado;
+        this.prioridad = prioridad;
+        this.estadoPago = estadoPago;
+        this.idMecanico = idMecanico;
+        this.comentario = comentario;
+    }
+
+    // Getters y Setters
+    public List<Long> getIdsOrden() {
+        return idsOrden;
+    }
+
+    public void setIdsOrden(List<Long> idsOrden) {
+        this.idsOrden = idsOrden;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public String getPrioridad() {
+        return prioridad;
+    }
+
+    public void setPrioridad(String prioridad) {
+        this.prioridad = prioridad;
+    }
+
+    public String getEstadoPago() {
+        return estadoPago;
+    }
+
+    public void setEstadoPago(String estadoPago) {
+        this.estadoPago = estadoPago;
+    }
+
+    public Long getIdMecanico() {
+        return idMecanico;
+    }
+
+    public void setIdMecanico(Long idMecanico) {
+        this.idMecanico = idMecanico;
+    }
+
+    public String getComentario() {
+        return comentario;
+    }
+
+    public void setComentario(String comentario) {
+        this.comentario = comentario;
+    }
+
+    @Override
+    public String toString() {
+        return "OperacionLoteOrdenesDTO{" +
+                "idsOrden=" + idsOrden +
+                ", estado='" + estado + '\'' +
+                ", prioridad='" + prioridad + '\'' +
+                ", estadoPago='" + estadoPago + '\'' +
+                ", idMecanico=" + idMecanico +
+                ", comentario='" + comentario + '\'' +
+                '}';
+    }
+}
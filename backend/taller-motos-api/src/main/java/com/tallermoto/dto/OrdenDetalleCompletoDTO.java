@@ -0,0 +1,93 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO agregado con toda la información de una orden de trabajo
+ * Orden, servicios, repuestos, pagos, saldo pendiente y línea de tiempo de estados en una sola respuesta
+ */
+public class OrdenDetalleCompletoDTO {
+
+    private OrdenTrabajoResponseDTO orden;
+    private List<DetalleOrdenLineaDTO> servicios;
+    private List<UsoRepuestoLineaDTO> repuestos;
+    private List<PagoLineaDTO> pagos;
+    private List<OrdenHistorialLineaDTO> historial;
+    private BigDecimal totalPagado;
+    private BigDecimal saldoPendiente;
+
+    // Constructor vacío
+    public OrdenDetalleCompletoDTO() {}
+
+    // Constructor completo
+    public OrdenDetalleCompletoDTO(OrdenTrabajoResponseDTO orden, List<DetalleOrdenLineaDTO> servicios,
+                                   List<UsoRepuestoLineaDTO> repuestos, List<PagoLineaDTO> pagos,
+                                   List<OrdenHistorialLineaDTO> historial, BigDecimal totalPagado,
+                                   BigDecimal saldoPendiente) {
+        this.orden = orden;
+        this.servicios = servicios;
+        this.repuestos = repuestos;
+        this.pagos = pagos;
+        this.historial = historial;
+        this.totalPagado = totalPagado;
+        this.saldoPendiente = saldoPendiente;
+    }
+
+    // Getters y Setters
+    public OrdenTrabajoResponseDTO getOrden() {
+        return orden;
+    }
+
+    public void setOrden(OrdenTrabajoResponseDTO orden) {
+        this.orden = orden;
+    }
+
+    public List<DetalleOrdenLineaDTO> getServicios() {
+        return servicios;
+    }
+
+    public void setServicios(List<DetalleOrdenLineaDTO> servicios) {
+        this.servicios = servicios;
+    }
+
+    public List<UsoRepuestoLineaDTO> getRepuestos() {
+        return repuestos;
+    }
+
+    public void setRepuestos(List<UsoRepuestoLineaDTO> repuestos) {
+        this.repuestos = repuestos;
+    }
+
+    public List<PagoLineaDTO> getPagos() {
+        return pagos;
+    }
+
+    public void setPagos(List<PagoLineaDTO> pagos) {
+        this.pagos = pagos;
+    }
+
+    public List<OrdenHistorialLineaDTO> getHistorial() {
+        return historial;
+    }
+
+    public void setHistorial(List<OrdenHistorialLineaDTO> historial) {
+        this.historial = historial;
+    }
+
+    public BigDecimal getTotalPagado() {
+        return totalPagado;
+    }
+
+    public void setTotalPagado(BigDecimal totalPagado) {
+        this.totalPagado = totalPagado;
+    }
+
+    public BigDecimal getSaldoPendiente() {
+        return saldoPendiente;
+    }
+
+    public void setSaldoPendiente(BigDecimal saldoPendiente) {
+        this.saldoPendiente = saldoPendiente;
+    }
+}
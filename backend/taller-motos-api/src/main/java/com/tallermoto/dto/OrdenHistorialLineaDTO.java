@@ -0,0 +1,89 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un cambio de estado dentro de la línea de tiempo de una orden
+ */
+public class OrdenHistorialLineaDTO {
+
+    private Long idHistorial;
+    private String estadoAnterior;
+    private String estadoNuevo;
+    private String comentario;
+    private Long idUsuarioCambio;
+    private String nombreUsuarioCambio;
+    private LocalDateTime fechaCambio;
+
+    // Constructor vacío
+    public OrdenHistorialLineaDTO() {}
+
+    // Constructor completo
+    public OrdenHistorialLineaDTO(Long idHistorial, String estadoAnterior, String estadoNuevo, String comentario,
+                                  Long idUsuarioCambio, String nombreUsuarioCambio, LocalDateTime fechaCambio) {
+        this.idHistorial = idHistorial;
+        this.estadoAnterior = estadoAnterior;
+        this.estadoNuevo = estadoNuevo;
+        this.comentario = comentario;
+        this.idUsuarioCambio = idUsuarioCambio;
+        this.nombreUsuarioCambio = nombreUsuarioCambio;
+        this.fechaCambio = fechaCambio;
+    }
+
+    // Getters y Setters
+    public Long getIdHistorial() {
+        return idHistorial;
+    }
+
+    public void setIdHistorial(Long idHistorial) {
+        this.idHistorial = idHistorial;
+    }
+
+    public String getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
+    public void setEstadoAnterior(String estadoAnterior) {
+        this.estadoAnterior = estadoAnterior;
+    }
+
+    public String getEstadoNuevo() {
+        return estadoNuevo;
+    }
+
+    public void setEstadoNuevo(String estadoNuevo) {
+        this.estadoNuevo = estadoNuevo;
+    }
+
+    public String getComentario() {
+        return comentario;
+    }
+
+    public void setComentario(String comentario) {
+        this.comentario = comentario;
+    }
+
+    public Long getIdUsuarioCambio() {
+        return idUsuarioCambio;
+    }
+
+    public void setIdUsuarioCambio(Long idUsuarioCambio) {
+        this.idUsuarioCambio = idUsuarioCambio;
+    }
+
+    public String getNombreUsuarioCambio() {
+        return nombreUsuarioCambio;
+    }
+
+    public void setNombreUsuarioCambio(String nombreUsuarioCambio) {
+        this.nombreUsuarioCambio = nombreUsuarioCambio;
+    }
+
+    public LocalDateTime getFechaCambio() {
+        return fechaCambio;
+    }
+
+    public void setFechaCambio(LocalDateTime fechaCambio) {
+        this.fechaCambio = fechaCambio;
+    }
+}
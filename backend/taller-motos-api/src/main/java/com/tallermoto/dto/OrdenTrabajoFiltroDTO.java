@@ -0,0 +1,172 @@
+package com.tallermoto.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con los criterios de filtrado de órdenes de trabajo
+ * Todos los campos son opcionales; los que vienen informados se combinan con AND
+ */
+public class OrdenTrabajoFiltroDTO {
+
+    private List<String> estados;
+    private List<String> prioridades;
+    private List<String> estadosPago;
+    private Long idMecanico;
+    private Boolean sinMecanico;
+    private Long idMoto;
+    private Long idCliente;
+    private Long idUsuarioCreador;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime fechaIngresoDesde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime fechaIngresoHasta;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaEntregaDesde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaEntregaHasta;
+
+    private BigDecimal totalMinimo;
+    private BigDecimal totalMaximo;
+
+    // Constructor vacío
+    public OrdenTrabajoFiltroDTO() {}
+
+    // Getters y Setters
+    public List<String> getEstados() {
+        return estados;
+    }
+
+    public void setEstados(List<String> estados) {
+        this.estados = estados;
+    }
+
+    public List<String> getPrioridades() {
+        return prioridades;
+    }
+
+    public void setPrioridades(List<String> prioridades) {
+        this.prioridades = prioridades;
+    }
+
+    public List<String> getEstadosPago() {
+        return estadosPago;
+    }
+
+    public void setEstadosPago(List<String> estadosPago) {
+        this.estadosPago = estadosPago;
+    }
+
+    public Long getIdMecanico() {
+        return idMecanico;
+    }
+
+    public void setIdMecanico(Long idMecanico) {
+        this.idMecanico = idMecanico;
+    }
+
+    public Boolean getSinMecanico() {
+        return sinMecanico;
+    }
+
+    public void setSinMecanico(Boolean sinMecanico) {
+        this.sinMecanico = sinMecanico;
+    }
+
+    public Long getIdMoto() {
+        return idMoto;
+    }
+
+    public void setIdMoto(Long idMoto) {
+        this.idMoto = idMoto;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public Long getIdUsuarioCreador() {
+        return idUsuarioCreador;
+    }
+
+    public void setIdUsuarioCreador(Long idUsuarioCreador) {
+        this.idUsuarioCreador = idUsuarioCreador;
+    }
+
+    public LocalDateTime getFechaIngresoDesde() {
+        return fechaIngresoDesde;
+    }
+
+    public void setFechaIngresoDesde(LocalDateTime fechaIngresoDesde) {
+        this.fechaIngresoDesde = fechaIngresoDesde;
+    }
+
+    public LocalDateTime getFechaIngresoHasta() {
+        return fechaIngresoHasta;
+    }
+
+    public void setFechaIngresoHasta(LocalDateTime fechaIngresoHasta) {
+        this.fechaIngresoHasta = fechaIngresoHasta;
+    }
+
+    public LocalDate getFechaEntregaDesde() {
+        return fechaEntregaDesde;
+    }
+
+    public void setFechaEntregaDesde(LocalDate fechaEntregaDesde) {
+        this.fechaEntregaDesde = fechaEntregaDesde;
+    }
+
+    public LocalDate getFechaEntregaHasta() {
+        return fechaEntregaHasta;
+    }
+
+    public void setFechaEntregaHasta(LocalDate fechaEntregaHasta) {
+        this.fechaEntregaHasta = fechaEntregaHasta;
+    }
+
+    public BigDecimal getTotalMinimo() {
+        return totalMinimo;
+    }
+
+    public void setTotalMinimo(BigDecimal totalMinimo) {
+        this.totalMinimo = totalMinimo;
+    }
+
+    public BigDecimal getTotalMaximo() {
+        return totalMaximo;
+    }
+
+    public void setTotalMaximo(BigDecimal totalMaximo) {
+        this.totalMaximo = totalMaximo;
+    }
+
+    @Override
+    public String toString() {
+        return "OrdenTrabajoFiltroDTO{" +
+                "estados=" + estados +
+                ", prioridades=" + prioridades +
+                ", estadosPago=" + estadosPago +
+                ", idMecanico=" + idMecanico +
+                ", sinMecanico=" + sinMecanico +
+                ", idMoto=" + idMoto +
+                ", idCliente=" + idCliente +
+                ", fechaIngresoDesde=" + fechaIngresoDesde +
+                ", fechaIngresoHasta=" + fechaIngresoHasta +
+                ", totalMinimo=" + totalMinimo +
+                ", totalMaximo=" + totalMaximo +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un pago dentro del detalle completo de una orden y de la sincronización incremental
+ */
+public class PagoLineaDTO {
+
+    private Long idPago;
+    private Long idOrden;
+    private BigDecimal monto;
+    private LocalDateTime fechaPago;
+    private String metodo;
+    private String referencia;
+    private String observaciones;
+
+    // Constructor vacío
+    public PagoLineaDTO() {}
+
+    // Constructor completo
+    public PagoLineaDTO(Long idPago, Long idOrden, BigDecimal monto, LocalDateTime fechaPago, String metodo,
+                        String referencia, String observaciones) {
+        this.idPago = idPago;
+        this.idOrden = idOrden;
+        this.monto = monto;
+        this.fechaPago = fechaPago;
+        this.metodo = metodo;
+        this.referencia = referencia;
+        this.observaciones = observaciones;
+    }
+
+    // Getters y Setters
+    public Long getIdPago() {
+        return idPago;
+    }
+
+    public void setIdPago(Long idPago) {
+        this.idPago = idPago;
+    }
+
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public BigDecimal getMonto() {
+        return monto;
+    }
+
+    public void setMonto(BigDecimal monto) {
+        this.monto = monto;
+    }
+
+    public LocalDateTime getFechaPago() {
+        return fechaPago;
+    }
+
+    public void setFechaPago(LocalDateTime fechaPago) {
+        this.fechaPago = fechaPago;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public void setMetodo(String metodo) {
+        this.metodo = metodo;
+    }
+
+    public String getReferencia() {
+        return referencia;
+    }
+
+    public void setReferencia(String referencia) {
+        this.referencia = referencia;
+    }
+
+    public String getObservaciones() {
+        return observaciones;
+    }
+
+    public void setObservaciones(String observaciones) {
+        this.observaciones = observaciones;
+    }
+}
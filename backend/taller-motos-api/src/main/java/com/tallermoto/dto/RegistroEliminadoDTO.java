@@ -0,0 +1,57 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un registro borrado físicamente, para que los clientes lo quiten de su réplica local
+ */
+public class RegistroEliminadoDTO {
+
+    private String entidad;
+    private Long idRegistro;
+    private LocalDateTime eliminadoEn;
+
+    // Constructor vacío
+    public RegistroEliminadoDTO() {}
+
+    // Constructor completo
+    public RegistroEliminadoDTO(String entidad, Long idRegistro, LocalDateTime eliminadoEn) {
+        this.entidad = entidad;
+        this.idRegistro = idRegistro;
+        this.eliminadoEn = eliminadoEn;
+    }
+
+    // Getters y Setters
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public void setEntidad(String entidad) {
+        this.entidad = entidad;
+    }
+
+    public Long getIdRegistro() {
+        return idRegistro;
+    }
+
+    public void setIdRegistro(Long idRegistro) {
+        this.idRegistro = idRegistro;
+    }
+
+    public LocalDateTime getEliminadoEn() {
+        return eliminadoEn;
+    }
+
+    public void setEliminadoEn(LocalDateTime eliminadoEn) {
+        this.eliminadoEn = eliminadoEn;
+    }
+
+    @Override
+    public String toString() {
+        return "RegistroEliminadoDTO{" +
+                "entidad='" + entidad + '\'' +
+                ", idRegistro=" + idRegistro +
+                ", eliminadoEn=" + eliminadoEn +
+                '}';
+    }
+}
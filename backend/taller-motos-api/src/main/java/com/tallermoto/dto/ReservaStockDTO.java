@@ -0,0 +1,100 @@
+package com.tallermoto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una reserva de stock de repuesto para una orden de trabajo
+ */
+public class ReservaStockDTO {
+
+    private Long idReserva;
+    private Long idRepuesto;
+    private Long idOrden;
+    private Integer cantidad;
+    private String estado;
+    private LocalDateTime venceEn;
+    private Long idUso;
+
+    // Constructor vacío
+    public ReservaStockDTO() {}
+
+    // Constructor completo
+    public ReservaStockDTO(Long idReserva, Long idRepuesto, Long idOrden, Integer cantidad, String estado,
+                           LocalDateTime venceEn, Long idUso) {
+        this.idReserva = idReserva;
+        this.idRepuesto = idRepuesto;
+        this.idOrden = idOrden;
+        this.cantidad = cantidad;
+        this.estado = estado;
+        this.venceEn = venceEn;
+        this.idUso = idUso;
+    }
+
+    // Getters y Setters
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getVenceEn() {
+        return venceEn;
+    }
+
+    public void setVenceEn(LocalDateTime venceEn) {
+        this.venceEn = venceEn;
+    }
+
+    public Long getIdUso() {
+        return idUso;
+    }
+
+    public void setIdUso(Long idUso) {
+        this.idUso = idUso;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservaStockDTO{" +
+                "idReserva=" + idReserva +
+                ", idRepuesto=" + idRepuesto +
+                ", idOrden=" + idOrden +
+                ", cantidad=" + cantidad +
+                ", estado='" + estado + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con el resultado de una operación masiva para una orden concreta
+ * Resultado: APLICADO, SIN_CAMBIOS, RECHAZADO o NO_ENCONTRADA
+ */
+public class ResultadoLoteOrdenDTO {
+
+    public static final String APLICADO = "APLICADO";
+    public static final String SIN_CAMBIOS = "SIN_CAMBIOS";
+    public static final String RECHAZADO = "RECHAZADO";
+    public static final String NO_ENCONTRADA = "NO_ENCONTRADA";
+
+    private Long idOrden;
+    private String resultado;
+    private String valorAnterior;
+    private String valorNuevo;
+    private Long version;
+    private String mensaje;
+
+    // Constructor vacío
+    public ResultadoLoteOrdenDTO() {}
+
+    // Constructor completo
+    public ResultadoLoteOrdenDTO(Long idOrden, String resultado, String valorAnterior, String valorNuevo,
+                                 Long version, String mensaje) {
+        this.idOrden = idOrden;
+        this.resultado = resultado;
+        this.valorAnterior = valorAnterior;
+        this.valorNuevo = valorNuevo;
+        this.version = version;
+        this.mensaje = mensaje;
+    }
+
+    // Getters y Setters
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public String getResultado() {
+        return resultado;
+    }
+
+    public void setResultado(String resultado) {
+        this.resultado = resultado;
+    }
+
+    public String getValorAnterior() {
+        return valorAnterior;
+    }
+
+    public void setValorAnterior(String valorAnterior) {
+        this.valorAnterior = valorAnterior;
+    }
+
+    public String getValorNuevo() {
+        return valorNuevo;
+    }
+
+    public void setValorNuevo(String valorNuevo) {
+        this.valorNuevo = valorNuevo;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLoteOrdenDTO{" +
+                "idOrden=" + idOrden +
+                ", resultado='" + resultado + '\'' +
+                ", valorAnterior='" + valorAnterior + '\'' +
+                ", valorNuevo='" + valorNuevo + '\'' +
+                ", version=" + version +
+                ", mensaje='" + mensaje + '\'' +
+                '}';
+    }
+}
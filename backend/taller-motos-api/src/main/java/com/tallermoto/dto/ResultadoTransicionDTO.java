@@ -0,0 +1,90 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con el resultado de un cambio aplicado sobre una orden de trabajo
+ * Incluye el valor anterior y el nuevo del campo modificado y la versión resultante de la orden
+ */
+public class ResultadoTransicionDTO {
+
+    private Long idOrden;
+    private String campo;
+    private String valorAnterior;
+    private String valorNuevo;
+    private String estado;
+    private Long version;
+
+    // Constructor vacío
+    public ResultadoTransicionDTO() {}
+
+    // Constructor completo
+    public ResultadoTransicionDTO(Long idOrden, String campo, String valorAnterior, String valorNuevo,
+                                  String estado, Long version) {
+        this.idOrden = idOrden;
+        this.campo = campo;
+        this.valorAnterior = valorAnterior;
+        this.valorNuevo = valorNuevo;
+        this.estado = estado;
+        this.version = version;
+    }
+
+    // Getters y Setters
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public void setIdOrden(Long idOrden) {
+        this.idOrden = idOrden;
+    }
+
+    public String getCampo() {
+        return campo;
+    }
+
+    public void setCampo(String campo) {
+        this.campo = campo;
+    }
+
+    public String getValorAnterior() {
+        return valorAnterior;
+    }
+
+    public void setValorAnterior(String valorAnterior) {
+        this.valorAnterior = valorAnterior;
+    }
+
+    public String getValorNuevo() {
+        return valorNuevo;
+    }
+
+    public void setValorNuevo(String valorNuevo) {
+        this.valorNuevo = valorNuevo;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoTransicionDTO{" +
+                "idOrden=" + idOrden +
+                ", campo='" + campo + '\'' +
+                ", valorAnterior='" + valorAnterior + '\'' +
+                ", valorNuevo='" + valorNuevo + '\'' +
+                ", estado='" + estado + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
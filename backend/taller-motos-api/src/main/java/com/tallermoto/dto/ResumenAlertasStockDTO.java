@@ -0,0 +1,45 @@
+package com.tallermoto.dto;
+
+/**
+ * DTO con el resumen de alertas de stock para el tablero
+ * bajoMinimo incluye a los agotados
+ */
+public class ResumenAlertasStockDTO {
+
+    private Integer bajoMinimo;
+    private Integer agotados;
+
+    // Constructor vacío
+    public ResumenAlertasStockDTO() {}
+
+    // Constructor completo
+    public ResumenAlertasStockDTO(Integer bajoMinimo, Integer agotados) {
+        this.bajoMinimo = bajoMinimo;
+        this.agotados = agotados;
+    }
+
+    // Getters y Setters
+    public Integer getBajoMinimo() {
+        return bajoMinimo;
+    }
+
+    public void setBajoMinimo(Integer bajoMinimo) {
+        this.bajoMinimo = bajoMinimo;
+    }
+
+    public Integer getAgotados() {
+        return agotados;
+    }
+
+    public void setAgotados(Integer agotados) {
+        this.agotados = agotados;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenAlertasStockDTO{" +
+                "bajoMinimo=" + bajoMinimo +
+                ", agotados=" + agotados +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.tallermoto.dto;
+
+import com.tallermoto.entity.Cliente;
+import com.tallermoto.entity.Moto;
+import com.tallermoto.entity.Repuesto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con los cambios ocurridos desde una marca de agua
+ * El cliente aplica los registros sobre su réplica local (por id) y usa marcaAgua en la siguiente consulta.
+ * Si reinicioRequerido es true, debe recargar las colecciones completas
+ */
+public class SincronizacionDTO {
+
+    private LocalDateTime marcaAgua;
+    private Boolean reinicioRequerido = false;
+    private List<OrdenTrabajoSummaryDTO> ordenes = new ArrayList<>();
+    private List<Cliente> clientes = new ArrayList<>();
+    private List<Moto> motos = new ArrayList<>();
+    private List<Repuesto> repuestos = new ArrayList<>();
+    private List<PagoLineaDTO> pagos = new ArrayList<>();
+    private List<RegistroEliminadoDTO> eliminados = new ArrayList<>();
+
+    // Constructor vacío
+    public SincronizacionDTO() {}
+
+    // Constructor con marca de agua
+    public SincronizacionDTO(LocalDateTime marcaAgua) {
+        this.marcaAgua = marcaAgua;
+    }
+
+    // Getters y Setters
+    public LocalDateTime getMarcaAgua() {
+        return marcaAgua;
+    }
+
+    public void setMarcaAgua(LocalDateTime marcaAgua) {
+        this.marcaAgua = marcaAgua;
+    }
+
+    public Boolean getReinicioRequerido() {
+        return reinicioRequerido;
+    }
+
+    public void setReinicioRequerido(Boolean reinicioRequerido) {
+        this.reinicioRequerido = reinicioRequerido;
+    }
+
+    public List<OrdenTrabajoSummaryDTO> getOrdenes() {
+        return ordenes;
+    }
+
+    public void setOrdenes(List<OrdenTrabajoSummaryDTO> ordenes) {
+        this.ordenes = ordenes;
+    }
+
+    public List<Cliente> getClientes() {
+        return clientes;
+    }
+
+    public void setClientes(List<Cliente> clientes) {
+        this.clientes = clientes;
+    }
+
+    public List<Moto> getMotos() {
+        return motos;
+    }
+
+    public void setMotos(List<Moto> motos) {
+        this.motos = motos;
+    }
+
+    public List<Repuesto> getRepuestos() {
+        return repuestos;
+    }
+
+    public void setRepuestos(List<Repuesto> repuestos) {
+        this.repuestos = repuestos;
+    }
+
+    public List<PagoLineaDTO> getPagos() {
+        return pagos;
+    }
+
+    public void setPagos(List<PagoLineaDTO> pagos) {
+        this.pagos = pagos;
+    }
+
+    public List<RegistroEliminadoDTO> getEliminados() {
+        return eliminados;
+    }
+
+    public void setEliminados(List<RegistroEliminadoDTO> eliminados) {
+        this.eliminados = eliminados;
+    }
+}
@@ -0,0 +1,129 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el stock y la valorización de un repuesto en un instante pasado
+ * Se calcula desde el cierre diario más cercano (fechaCierreBase) más los movimientos aplicados;
+ * fechaCierreBase es null cuando se partió del stock actual
+ */
+public class StockHistoricoDTO {
+
+    private Long idRepuesto;
+    private String codigo;
+    private String nombre;
+    private LocalDateTime fecha;
+    private Integer stock;
+    private BigDecimal precioUnitario;
+    private BigDecimal valor;
+    private LocalDate fechaCierreBase;
+    private Long movimientosAplicados;
+
+    // Constructor vacío
+    public StockHistoricoDTO() {}
+
+    // Constructor completo
+    public StockHistoricoDTO(Long idRepuesto, String codigo, String nombre, LocalDateTime fecha, Integer stock,
+                             BigDecimal precioUnitario, BigDecimal valor, LocalDate fechaCierreBase,
+                             Long movimientosAplicados) {
+        this.idRepuesto = idRepuesto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.fecha = fecha;
+        this.stock = stock;
+        this.precioUnitario = precioUnitario;
+        this.valor = valor;
+        this.fechaCierreBase = fechaCierreBase;
+        this.movimientosAplicados = movimientosAplicados;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public void setValor(BigDecimal valor) {
+        this.valor = valor;
+    }
+
+    public LocalDate getFechaCierreBase() {
+        return fechaCierreBase;
+    }
+
+    public void setFechaCierreBase(LocalDate fechaCierreBase) {
+        this.fechaCierreBase = fechaCierreBase;
+    }
+
+    public Long getMovimientosAplicados() {
+        return movimientosAplicados;
+    }
+
+    public void setMovimientosAplicados(Long movimientosAplicados) {
+        this.movimientosAplicados = movimientosAplicados;
+    }
+
+    @Override
+    public String toString() {
+        return "StockHistoricoDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", codigo='" + codigo + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", fecha=" + fecha +
+                ", stock=" + stock +
+                ", precioUnitario=" + precioUnitario +
+                ", valor=" + valor +
+                ", fechaCierreBase=" + fechaCierreBase +
+                ", movimientosAplicados=" + movimientosAplicados +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de una sugerencia del autocompletado del catálogo (repuesto o servicio)
+ * Incluye stock y precio para mostrar la disponibilidad sin otra consulta; el stock es null en servicios
+ */
+public class SugerenciaCatalogoDTO {
+
+    private String tipo;
+    private Long id;
+    private String codigo;
+    private String nombre;
+    private String categoria;
+    private Integer stockActual;
+    private Integer stockMinimo;
+    private BigDecimal precio;
+
+    // Constructor vacío
+    public SugerenciaCatalogoDTO() {}
+
+    // Constructor completo
+    public SugerenciaCatalogoDTO(String tipo, Long id, String codigo, String nombre, String categoria,
+                                 Integer stockActual, Integer stockMinimo, BigDecimal precio) {
+        this.tipo = tipo;
+        this.id = id;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.categoria = categoria;
+        this.stockActual = stockActual;
+        this.stockMinimo = stockMinimo;
+        this.precio = precio;
+    }
+
+    // Getters y Setters
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Integer getStockActual() {
+        return stockActual;
+    }
+
+    public void setStockActual(Integer stockActual) {
+        this.stockActual = stockActual;
+    }
+
+    public Integer getStockMinimo() {
+        return stockMinimo;
+    }
+
+    public void setStockMinimo(Integer stockMinimo) {
+        this.stockMinimo = stockMinimo;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(BigDecimal precio) {
+        this.precio = precio;
+    }
+
+    @Override
+    public String toString() {
+        return "SugerenciaCatalogoDTO{" +
+                "tipo='" + tipo + '\'' +
+                ", id=" + id +
+                ", codigo='" + codigo + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", categoria='" + categoria + '\'' +
+                ", stockActual=" + stockActual +
+                ", stockMinimo=" + stockMinimo +
+                ", precio=" + precio +
+                '}';
+    }
+}
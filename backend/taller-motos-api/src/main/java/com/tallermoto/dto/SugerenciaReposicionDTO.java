@@ -0,0 +1,207 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO con el pronóstico de consumo y la sugerencia de reposición de un repuesto
+ * consumoDiario y desviacionDiaria salen del suavizado exponencial por día; diasCobertura es null sin consumo.
+ * cantidadSugerida lleva el stock hasta stockObjetivo y solo es mayor que cero cuando reordenar es true
+ */
+public class SugerenciaReposicionDTO {
+
+    private Long idRepuesto;
+    private String codigo;
+    private String nombre;
+    private String categoria;
+    private Integer stockActual;
+    private Integer stockMinimo;
+    private BigDecimal consumoDiario;
+    private BigDecimal desviacionDiaria;
+    private Integer diasObservados;
+    private Integer plazoEntregaDias;
+    private Integer puntoReorden;
+    private Integer stockObjetivo;
+    private Integer cantidadSugerida;
+    private BigDecimal diasCobertura;
+    private Boolean reordenar;
+    private LocalDate fechaCalculo;
+
+    // Constructor vacío
+    public SugerenciaReposicionDTO() {}
+
+    // Constructor completo
+    public SugerenciaReposicionDTO(Long idRepuesto, String codigo, String nombre, String categoria,
+                                   Integer stockActual, Integer stockMinimo, BigDecimal consumoDiario,
+                                   BigDecimal desviacionDiaria, Integer diasObservados, Integer plazoEntregaDias,
+                                   Integer puntoReorden, Integer stockObjetivo, Integer cantidadSugerida,
+                                   BigDecimal diasCobertura, Boolean reordenar, LocalDate fechaCalculo) {
+        this.idRepuesto = idRepuesto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.categoria = categoria;
+        this.stockActual = stockActual;
+        this.stockMinimo = stockMinimo;
+        this.consumoDiario = consumoDiario;
+        this.desviacionDiaria = desviacionDiaria;
+        this.diasObservados = diasObservados;
+        this.plazoEntregaDias = plazoEntregaDias;
+        this.puntoReorden = puntoReorden;
+        this.stockObjetivo = stockObjetivo;
+        this.cantidadSugerida = cantidadSugerida;
+        this.diasCobertura = diasCobertura;
+        this.reordenar = reordenar;
+        this.fechaCalculo = fechaCalculo;
+    }
+
+    // Getters y Setters
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Integer getStockActual() {
+        return stockActual;
+    }
+
+    public void setStockActual(Integer stockActual) {
+        this.stockActual = stockActual;
+    }
+
+    public Integer getStockMinimo() {
+        return stockMinimo;
+    }
+
+    public void setStockMinimo(Integer stockMinimo) {
+        this.stockMinimo = stockMinimo;
+    }
+
+    public BigDecimal getConsumoDiario() {
+        return consumoDiario;
+    }
+
+    public void setConsumoDiario(BigDecimal consumoDiario) {
+        this.consumoDiario = consumoDiario;
+    }
+
+    public BigDecimal getDesviacionDiaria() {
+        return desviacionDiaria;
+    }
+
+    public void setDesviacionDiaria(BigDecimal desviacionDiaria) {
+        this.desviacionDiaria = desviacionDiaria;
+    }
+
+    public Integer getDiasObservados() {
+        return diasObservados;
+    }
+
+    public void setDiasObservados(Integer diasObservados) {
+        this.diasObservados = diasObservados;
+    }
+
+    public Integer getPlazoEntregaDias() {
+        return plazoEntregaDias;
+    }
+
+    public void setPlazoEntregaDias(Integer plazoEntregaDias) {
+        this.plazoEntregaDias = plazoEntregaDias;
+    }
+
+    public Integer getPuntoReorden() {
+        return puntoReorden;
+    }
+
+    public void setPuntoReorden(Integer puntoReorden) {
+        this.puntoReorden = puntoReorden;
+    }
+
+    public Integer getStockObjetivo() {
+        return stockObjetivo;
+    }
+
+    public void setStockObjetivo(Integer stockObjetivo) {
+        this.stockObjetivo = stockObjetivo;
+    }
+
+    public Integer getCantidadSugerida() {
+        return cantidadSugerida;
+    }
+
+    public void setCantidadSugerida(Integer cantidadSugerida) {
+        this.cantidadSugerida = cantidadSugerida;
+    }
+
+    public BigDecimal getDiasCobertura() {
+        return diasCobertura;
+    }
+
+    public void setDiasCobertura(BigDecimal diasCobertura) {
+        this.diasCobertura = diasCobertura;
+    }
+
+    public Boolean getReordenar() {
+        return reordenar;
+    }
+
+    public void setReordenar(Boolean reordenar) {
+        this.reordenar = reordenar;
+    }
+
+    public LocalDate getFechaCalculo() {
+        return fechaCalculo;
+    }
+
+    public void setFechaCalculo(LocalDate fechaCalculo) {
+        this.fechaCalculo = fechaCalculo;
+    }
+
+    @Override
+    public String toString() {
+        return "SugerenciaReposicionDTO{" +
+                "idRepuesto=" + idRepuesto +
+                ", codigo='" + codigo + '\'' +
+                ", nombre='" + nombre + '\'' +
+                ", categoria='" + categoria + '\'' +
+                ", stockActual=" + stockActual +
+                ", stockMinimo=" + stockMinimo +
+                ", consumoDiario=" + consumoDiario +
+                ", desviacionDiaria=" + desviacionDiaria +
+                ", diasObservados=" + diasObservados +
+                ", plazoEntregaDias=" + plazoEntregaDias +
+                ", puntoReorden=" + puntoReorden +
+                ", stockObjetivo=" + stockObjetivo +
+                ", cantidadSugerida=" + cantidadSugerida +
+                ", diasCobertura=" + diasCobertura +
+                ", reordenar=" + reordenar +
+                ", fechaCalculo=" + fechaCalculo +
+                '}';
+    }
+}
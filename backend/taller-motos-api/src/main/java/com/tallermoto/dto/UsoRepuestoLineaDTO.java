@@ -0,0 +1,101 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una línea de repuesto utilizado dentro del detalle completo de una orden
+ */
+public class UsoRepuestoLineaDTO {
+
+    private Long idUso;
+    private Long idRepuesto;
+    private String codigoRepuesto;
+    private String nombreRepuesto;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotal;
+    private LocalDateTime createdAt;
+
+    // Constructor vacío
+    public UsoRepuestoLineaDTO() {}
+
+    // Constructor completo
+    public UsoRepuestoLineaDTO(Long idUso, Long idRepuesto, String codigoRepuesto, String nombreRepuesto,
+                               Integer cantidad, BigDecimal precioUnitario, BigDecimal subtotal,
+                               LocalDateTime createdAt) {
+        this.idUso = idUso;
+        this.idRepuesto = idRepuesto;
+        this.codigoRepuesto = codigoRepuesto;
+        this.nombreRepuesto = nombreRepuesto;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.subtotal = subtotal;
+        this.createdAt = createdAt;
+    }
+
+    // Getters y Setters
+    public Long getIdUso() {
+        return idUso;
+    }
+
+    public void setIdUso(Long idUso) {
+        this.idUso = idUso;
+    }
+
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public void setIdRepuesto(Long idRepuesto) {
+        this.idRepuesto = idRepuesto;
+    }
+
+    public String getCodigoRepuesto() {
+        return codigoRepuesto;
+    }
+
+    public void setCodigoRepuesto(String codigoRepuesto) {
+        this.codigoRepuesto = codigoRepuesto;
+    }
+
+    public String getNombreRepuesto() {
+        return nombreRepuesto;
+    }
+
+    public void setNombreRepuesto(String nombreRepuesto) {
+        this.nombreRepuesto = nombreRepuesto;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        this.precioUnitario = precioUnitario;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
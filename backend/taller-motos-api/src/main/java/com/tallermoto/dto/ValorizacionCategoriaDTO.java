@@ -0,0 +1,92 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con la valorización del inventario de una categoría de repuestos
+ * valor = stock × precio unitario vigente; stockBajo incluye a los agotados (solo repuestos activos)
+ */
+public class ValorizacionCategoriaDTO {
+
+    private String categoria;
+    private Integer repuestos;
+    private Long unidades;
+    private BigDecimal valor;
+    private Integer stockBajo;
+    private Integer agotados;
+
+    // Constructor vacío
+    public ValorizacionCategoriaDTO() {}
+
+    // Constructor completo
+    public ValorizacionCategoriaDTO(String categoria, Integer repuestos, Long unidades, BigDecimal valor,
+                                    Integer stockBajo, Integer agotados) {
+        this.categoria = categoria;
+        this.repuestos = repuestos;
+        this.unidades = unidades;
+        this.valor = valor;
+        this.stockBajo = stockBajo;
+        this.agotados = agotados;
+    }
+
+    // Getters y Setters
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Integer getRepuestos() {
+        return repuestos;
+    }
+
+    public void setRepuestos(Integer repuestos) {
+        this.repuestos = repuestos;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public void setValor(BigDecimal valor) {
+        this.valor = valor;
+    }
+
+    public Integer getStockBajo() {
+        return stockBajo;
+    }
+
+    public void setStockBajo(Integer stockBajo) {
+        this.stockBajo = stockBajo;
+    }
+
+    public Integer getAgotados() {
+        return agotados;
+    }
+
+    public void setAgotados(Integer agotados) {
+        this.agotados = agotados;
+    }
+
+    @Override
+    public String toString() {
+        return "ValorizacionCategoriaDTO{" +
+                "categoria='" + categoria + '\'' +
+                ", repuestos=" + repuestos +
+                ", unidades=" + unidades +
+                ", valor=" + valor +
+                ", stockBajo=" + stockBajo +
+                ", agotados=" + agotados +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+package com.tallermoto.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con la valorización total del inventario y su desglose por categoría
+ * Se calcula en el servidor a partir de los totales que se mantienen en memoria
+ */
+public class ValorizacionInventarioDTO {
+
+    private Integer totalRepuestos;
+    private Long unidades;
+    private BigDecimal valorTotal;
+    private Integer stockBajo;
+    private Integer agotados;
+    private List<ValorizacionCategoriaDTO> categorias;
+    private LocalDateTime fecha;
+
+    // Constructor vacío
+    public ValorizacionInventarioDTO() {}
+
+    // Constructor completo
+    public ValorizacionInventarioDTO(Integer totalRepuestos, Long unidades, BigDecimal valorTotal,
+                                     Integer stockBajo, Integer agotados,
+                                     List<ValorizacionCategoriaDTO> categorias, LocalDateTime fecha) {
+        this.totalRepuestos = totalRepuestos;
+        this.unidades = unidades;
+        this.valorTotal = valorTotal;
+        this.stockBajo = stockBajo;
+        this.agotados = agotados;
+        this.categorias = categorias;
+        this.fecha = fecha;
+    }
+
+    // Getters y Setters
+    public Integer getTotalRepuestos() {
+        return totalRepuestos;
+    }
+
+    public void setTotalRepuestos(Integer totalRepuestos) {
+        this.totalRepuestos = totalRepuestos;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    public void setValorTotal(BigDecimal valorTotal) {
+        this.valorTotal = valorTotal;
+    }
+
+    public Integer getStockBajo() {
+        return stockBajo;
+    }
+
+    public void setStockBajo(Integer stockBajo) {
+        this.stockBajo = stockBajo;
+    }
+
+    public Integer getAgotados() {
+        return agotados;
+    }
+
+    public void setAgotados(Integer agotados) {
+        this.agotados = agotados;
+    }
+
+    public List<ValorizacionCategoriaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public void setCategorias(List<ValorizacionCategoriaDTO> categorias) {
+        this.categorias = categorias;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    @Override
+    public String toString() {
+        return "ValorizacionInventarioDTO{" +
+                "totalRepuestos=" + totalRepuestos +
+                ", unidades=" + unidades +
+                ", valorTotal=" + valorTotal +
+                ", stockBajo=" + stockBajo +
+                ", agotados=" + agotados +
+                ", categorias=" + categorias +
+                ", fecha=" + fecha +
+                '}';
+    }
+}
@@ -73,16 +73,17 @@ public class OrdenTrabajo {
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
 
+    // Totales mantenidos por OrdenTotalesService (deltas por SQL); JPA solo los escribe al insertar
     @DecimalMin(value = "0.0", message = "El total de servicios no puede ser negativo")
-    @Column(name = "total_servicios", precision = 10, scale = 2, nullable = false)
+    @Column(name = "total_servicios", precision = 10, scale = 2, nullable = false, updatable = false)
     private BigDecimal totalServicios = BigDecimal.ZERO;
 
     @DecimalMin(value = "0.0", message = "El total de repuestos no puede ser negativo")
-    @Column(name = "total_repuestos", precision = 10, scale = 2, nullable = false)
+    @Column(name = "total_repuestos", precision = 10, scale = 2, nullable = false, updatable = false)
     private BigDecimal totalRepuestos = BigDecimal.ZERO;
 
     @DecimalMin(value = "0.0", message = "El total de la orden no puede ser negativo")
-    @Column(name = "total_orden", precision = 10, scale = 2, nullable = false)
+    @Column(name = "total_orden", precision = 10, scale = 2, nullable = false, updatable = false)
     private BigDecimal totalOrden = BigDecimal.ZERO;
 
     @Size(max = 20, message = "El estado de pago no puede exceder 20 caracteres")
@@ -97,6 +98,10 @@ public class OrdenTrabajo {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructores
     public OrdenTrabajo() {
         this.fechaIngreso = LocalDateTime.now();
@@ -261,6 +266,14 @@ public class OrdenTrabajo {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "OrdenTrabajo{" +
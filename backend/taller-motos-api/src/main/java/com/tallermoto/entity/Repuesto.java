@@ -42,8 +42,9 @@ public class Repuesto {
     @Column(name = "categoria", length = 50)
     private String categoria;
 
+    // Stock mantenido por sentencias condicionales de RepuestoService; JPA solo lo escribe al insertar
     @Min(value = 0, message = "El stock actual no puede ser negativo")
-    @Column(name = "stock_actual", nullable = false)
+    @Column(name = "stock_actual", nullable = false, updatable = false)
     private Integer stockActual = 0;
 
     @Min(value = 0, message = "El stock mínimo no puede ser negativo")
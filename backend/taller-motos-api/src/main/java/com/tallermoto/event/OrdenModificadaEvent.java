@@ -0,0 +1,51 @@
+package com.tallermoto.event;
+
+/**
+ * Evento publicado cuando una orden de trabajo cambia
+ * Los consumidores lo reciben tras el commit y leen de la base de datos el estado que necesiten
+ */
+public class OrdenModificadaEvent {
+
+    // Tipos de cambio
+    public static final String CREADA = "CREADA";
+    public static final String ACTUALIZADA = "ACTUALIZADA";
+    public static final String ELIMINADA = "ELIMINADA";
+    public static final String ESTADO = "ESTADO";
+    public static final String PRIORIDAD = "PRIORIDAD";
+    public static final String MECANICO = "MECANICO";
+    public static final String ESTADO_PAGO = "ESTADO_PAGO";
+    public static final String SERVICIOS = "SERVICIOS";
+    public static final String PAGO = "PAGO";
+
+    private final Long idOrden;
+    private final String tipo;
+
+    public OrdenModificadaEvent(Long idOrden, String tipo) {
+        this.idOrden = idOrden;
+        this.tipo = tipo;
+    }
+
+    public Long getIdOrden() {
+        return idOrden;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Indica si un tipo de cambio puede alterar el estado o la asignación de la orden
+     * Los cambios puramente financieros (pagos y estado de pago) no lo hacen
+     */
+    public static boolean afectaAsignacion(String tipo) {
+        return !ESTADO_PAGO.equals(tipo) && !PAGO.equals(tipo);
+    }
+
+    @Override
+    public String toString() {
+        return "OrdenModificadaEvent{" +
+                "idOrden=" + idOrden +
+                ", tipo='" + tipo + '\'' +
+                '}';
+    }
+}
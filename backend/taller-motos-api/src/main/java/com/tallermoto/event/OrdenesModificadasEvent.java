@@ -0,0 +1,34 @@
+package com.tallermoto.event;
+
+import java.util.List;
+
+/**
+ * Evento publicado cuando una operación masiva modifica varias órdenes de trabajo a la vez
+ * El tipo usa las mismas constantes que OrdenModificadaEvent
+ */
+public class OrdenesModificadasEvent {
+
+    private final List<Long> idsOrden;
+    private final String tipo;
+
+    public OrdenesModificadasEvent(List<Long> idsOrden, String tipo) {
+        this.idsOrden = List.copyOf(idsOrden);
+        this.tipo = tipo;
+    }
+
+    public List<Long> getIdsOrden() {
+        return idsOrden;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    @Override
+    public String toString() {
+        return "OrdenesModificadasEvent{" +
+                "idsOrden=" + idsOrden +
+                ", tipo='" + tipo + '\'' +
+                '}';
+    }
+}
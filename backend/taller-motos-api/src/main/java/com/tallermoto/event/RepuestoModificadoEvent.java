@@ -0,0 +1,37 @@
+package com.tallermoto.event;
+
+/**
+ * Evento publicado cuando cambian los datos de un repuesto (no su stock)
+ * Los consumidores lo reciben tras el commit y leen de la base de datos el estado que necesiten
+ */
+public class RepuestoModificadoEvent {
+
+    // Tipos de cambio
+    public static final String CREADO = "CREADO";
+    public static final String ACTUALIZADO = "ACTUALIZADO";
+    public static final String ELIMINADO = "ELIMINADO";
+
+    private final Long idRepuesto;
+    private final String tipo;
+
+    public RepuestoModificadoEvent(Long idRepuesto, String tipo) {
+        this.idRepuesto = idRepuesto;
+        this.tipo = tipo;
+    }
+
+    public Long getIdRepuesto() {
+        return idRepuesto;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    @Override
+    public String toString() {
+        return "RepuestoModificadoEvent{" +
+                "idRepuesto=" + idRepuesto +
+                ", tipo='" + tipo + '\'' +
+                '}';
+    }
+}
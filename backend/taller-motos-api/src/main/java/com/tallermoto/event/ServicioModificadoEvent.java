@@ -0,0 +1,47 @@
+package com.tallermoto.event;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambia un servicio del catálogo (alta, modificación, baja lógica o eliminación)
+ * idServicio es null en los cambios masivos por categoría
+ * Lleva las categorías afectadas: la anterior y la nueva si la categoría cambió
+ */
+public class ServicioModificadoEvent {
+
+    // Tipos de cambio
+    public static final String CREADO = "CREADO";
+    public static final String ACTUALIZADO = "ACTUALIZADO";
+    public static final String ELIMINADO = "ELIMINADO";
+
+    private final Long idServicio;
+    private final String tipo;
+    private final Set<String> categorias;
+
+    public ServicioModificadoEvent(Long idServicio, String tipo, Set<String> categorias) {
+        this.idServicio = idServicio;
+        this.tipo = tipo;
+        this.categorias = categorias;
+    }
+
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public Set<String> getCategorias() {
+        return categorias;
+    }
+
+    @Override
+    public String toString() {
+        return "ServicioModificadoEvent{" +
+                "idServicio=" + idServicio +
+                ", tipo='" + tipo + '\'' +
+                ", categorias=" + categorias +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package com.tallermoto.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento publicado por el libro de movimientos cuando se confirma una transacción que cambió stock
+ * Se publica ya confirmada la transacción (los consumidores usan @EventListener) y trae los movimientos
+ * en el orden en que se registraron, antes de que el libro los escriba en repuesto_movimientos
+ */
+public class StockModificadoEvent {
+
+    private final List<Cambio> cambios;
+
+    public StockModificadoEvent(List<Cambio> cambios) {
+        this.cambios = List.copyOf(cambios);
+    }
+
+    public List<Cambio> getCambios() {
+        return cambios;
+    }
+
+    @Override
+    public String toString() {
+        return "StockModificadoEvent{" +
+                "cambios=" + cambios +
+                '}';
+    }
+
+    /**
+     * Un movimiento de stock confirmado
+     */
+    public static class Cambio {
+
+        private final Long idRepuesto;
+        private final String tipoMovimiento;
+        private final int cantidad;
+        private final int stockAnterior;
+        private final int stockNuevo;
+        private final String referencia;
+        private final LocalDateTime fecha;
+
+        public Cambio(Long idRepuesto, String tipoMovimiento, int cantidad, int stockAnterior, int stockNuevo,
+                      String referencia, LocalDateTime fecha) {
+            this.idRepuesto = idRepuesto;
+            this.tipoMovimiento = tipoMovimiento;
+            this.cantidad = cantidad;
+            this.stockAnterior = stockAnterior;
+            this.stockNuevo = stockNuevo;
+            this.referencia = referencia;
+            this.fecha = fecha;
+        }
+
+        public Long getIdRepuesto() {
+            return idRepuesto;
+        }
+
+        public String getTipoMovimiento() {
+            return tipoMovimiento;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        public int getStockAnterior() {
+            return stockAnterior;
+        }
+
+        public int getStockNuevo() {
+            return stockNuevo;
+        }
+
+        public String getReferencia() {
+            return referencia;
+        }
+
+        public LocalDateTime getFecha() {
+            return fecha;
+        }
+
+        @Override
+        public String toString() {
+            return "Cambio{" +
+                    "idRepuesto=" + idRepuesto +
+                    ", tipoMovimiento='" + tipoMovimiento + '\'' +
+                    ", cantidad=" + cantidad +
+                    ", stockAnterior=" + stockAnterior +
+                    ", stockNuevo=" + stockNuevo +
+                    ", referencia='" + referencia + '\'' +
+                    ", fecha=" + fecha +
+                    '}';
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tallermoto.repository;
 
 import com.tallermoto.entity.Cliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -106,4 +107,8 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
            "dni LIKE CONCAT('%', :busqueda, '%')) " +
            "AND activo = :activo ORDER BY nombre", nativeQuery = true)
     List<Cliente> buscarClientesActivos(@Param("busqueda") String busqueda, @Param("activo") Boolean activo);
+
+    // Clientes creados o modificados desde la marca de agua (sincronización incremental)
+    @Query("SELECT c FROM Cliente c WHERE c.updatedAt >= :desde ORDER BY c.updatedAt, c.idCliente")
+    List<Cliente> findModificadosDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
 }
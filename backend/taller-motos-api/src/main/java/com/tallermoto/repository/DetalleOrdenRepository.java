@@ -1,5 +1,6 @@
 package com.tallermoto.repository;
 
+import com.tallermoto.dto.DetalleOrdenLineaDTO;
 import com.tallermoto.entity.DetalleOrden;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Servicio;
@@ -105,4 +106,11 @@ public interface DetalleOrdenRepository extends JpaRepository<DetalleOrden, Long
            "WHERE d.precio_aplicado BETWEEN :precioMin AND :precioMax " +
            "ORDER BY d.precio_aplicado DESC", nativeQuery = true)
     List<DetalleOrden> findByRangoPrecio(@Param("precioMin") BigDecimal precioMin, @Param("precioMax") BigDecimal precioMax);
+
+    // Líneas de servicio de una orden como proyección (detalle completo de orden)
+    @Query("SELECT new com.tallermoto.dto.DetalleOrdenLineaDTO(d.idDetalle, s.idServicio, s.codigo, s.nombre, " +
+           "s.categoria, d.precioAplicado, d.observaciones, d.createdAt) " +
+           "FROM DetalleOrden d JOIN d.servicio s " +
+           "WHERE d.ordenTrabajo.idOrden = :idOrden ORDER BY d.createdAt, d.idDetalle")
+    List<DetalleOrdenLineaDTO> findLineasByIdOrden(@Param("idOrden") Long idOrden);
 }
@@ -2,6 +2,7 @@ package com.tallermoto.repository;
 
 import com.tallermoto.entity.Cliente;
 import com.tallermoto.entity.Moto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -140,4 +141,8 @@ public interface MotoRepository extends JpaRepository<Moto, Long> {
            "LOWER(c.nombre) LIKE LOWER(CONCAT('%', :busqueda, '%'))) " +
            "AND m.activo = :activo ORDER BY m.marca, m.modelo", nativeQuery = true)
     List<Moto> buscarMotosActivas(@Param("busqueda") String busqueda, @Param("activo") Boolean activo);
+
+    // Motos creadas o modificadas desde la marca de agua, con su cliente (sincronización incremental)
+    @Query("SELECT m FROM Moto m JOIN FETCH m.cliente WHERE m.updatedAt >= :desde ORDER BY m.updatedAt, m.idMoto")
+    List<Moto> findModificadasDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
 }
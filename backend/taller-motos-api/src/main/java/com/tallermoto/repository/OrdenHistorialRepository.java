@@ -1,5 +1,6 @@
 package com.tallermoto.repository;
 
+import com.tallermoto.dto.OrdenHistorialLineaDTO;
 import com.tallermoto.entity.OrdenHistorial;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Usuario;
@@ -141,4 +142,11 @@ public interface OrdenHistorialRepository extends JpaRepository<OrdenHistorial,
            "AND h.fecha_cambio BETWEEN :fechaDesde AND :fechaHasta " +
            "ORDER BY h.fecha_cambio DESC", nativeQuery = true)
     List<OrdenHistorial> findCambiosConComentarioEntreFechas(@Param("fechaDesde") LocalDateTime fechaDesde, @Param("fechaHasta") LocalDateTime fechaHasta);
+
+    // Línea de tiempo de estados de una orden como proyección (detalle completo de orden)
+    @Query("SELECT new com.tallermoto.dto.OrdenHistorialLineaDTO(h.idHistorial, h.estadoAnterior, h.estadoNuevo, " +
+           "h.comentario, u.idUsuario, u.nombreCompleto, h.fechaCambio) " +
+           "FROM OrdenHistorial h LEFT JOIN h.usuarioCambio u " +
+           "WHERE h.ordenTrabajo.idOrden = :idOrden ORDER BY h.fechaCambio, h.idHistorial")
+    List<OrdenHistorialLineaDTO> findLineasByIdOrden(@Param("idOrden") Long idOrden);
 }
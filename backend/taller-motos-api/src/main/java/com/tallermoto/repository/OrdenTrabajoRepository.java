@@ -1,9 +1,13 @@
 package com.tallermoto.repository;
 
+import com.tallermoto.dto.OrdenTrabajoSummaryDTO;
 import com.tallermoto.entity.Moto;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Usuario;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,6 +15,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +24,16 @@ import java.util.Optional;
  * Proporciona operaciones CRUD y consultas personalizadas
  */
 @Repository
-public interface OrdenTrabajoRepository extends JpaRepository<OrdenTrabajo, Long> {
+public interface OrdenTrabajoRepository extends JpaRepository<OrdenTrabajo, Long>, JpaSpecificationExecutor<OrdenTrabajo> {
+
+    // Proyección de resumen: solo las columnas de OrdenTrabajoSummaryDTO, sin cargar entidades
+    String SELECT_RESUMEN = "SELECT new com.tallermoto.dto.OrdenTrabajoSummaryDTO(" +
+           "o.idOrden, o.numeroOrden, m.placa, m.marca, c.nombre, ma.nombreCompleto, " +
+           "o.fechaIngreso, o.fechaEstimadaEntrega, o.estado, o.prioridad, o.totalOrden, o.estadoPago) " +
+           "FROM OrdenTrabajo o " +
+           "JOIN o.moto m " +
+           "JOIN m.cliente c " +
+           "LEFT JOIN o.mecanicoAsignado ma ";
 
     // Consultas por número de orden (campo único con índice)
     Optional<OrdenTrabajo> findByNumeroOrden(String numeroOrden);
@@ -195,4 +209,104 @@ public interface OrdenTrabajoRepository extends JpaRepository<OrdenTrabajo, Long
            "LEFT JOIN FETCH o.mecanicoAsignado ma " +
            "ORDER BY o.fechaIngreso DESC")
     List<OrdenTrabajo> findAllWithRelations();
+
+    // Carga de una página de órdenes con relaciones a partir de sus IDs
+    @Query("SELECT o FROM OrdenTrabajo o " +
+           "LEFT JOIN FETCH o.moto m " +
+           "LEFT JOIN FETCH m.cliente c " +
+           "LEFT JOIN FETCH o.usuarioCreador uc " +
+           "LEFT JOIN FETCH o.mecanicoAsignado ma " +
+           "WHERE o.idOrden IN :ids")
+    List<OrdenTrabajo> findAllWithRelationsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Paginación por cursor (keyset) sobre idx_ordenes_fecha_ingreso (fecha_ingreso DESC, id_orden DESC)
+    // Cada fila es [idOrden, fechaIngreso]: el cursor siguiente se arma con la última, aunque la orden ya no exista
+    @Query("SELECT o.idOrden, o.fechaIngreso FROM OrdenTrabajo o " +
+           "WHERE (:estado IS NULL OR o.estado = :estado) " +
+           "AND (:prioridad IS NULL OR o.prioridad = :prioridad) " +
+           "AND (:idMecanico IS NULL OR o.mecanicoAsignado.idUsuario = :idMecanico) " +
+           "ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<Object[]> findIdsPrimeraPagina(@Param("estado") String estado,
+                                        @Param("prioridad") String prioridad,
+                                        @Param("idMecanico") Long idMecanico,
+                                        Pageable pageable);
+
+    @Query("SELECT o.idOrden, o.fechaIngreso FROM OrdenTrabajo o " +
+           "WHERE (:estado IS NULL OR o.estado = :estado) " +
+           "AND (:prioridad IS NULL OR o.prioridad = :prioridad) " +
+           "AND (:idMecanico IS NULL OR o.mecanicoAsignado.idUsuario = :idMecanico) " +
+           "AND o.fechaIngreso <= :fechaCursor " +
+           "AND (o.fechaIngreso < :fechaCursor OR o.idOrden < :idCursor) " +
+           "ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<Object[]> findIdsDespuesDeCursor(@Param("estado") String estado,
+                                          @Param("prioridad") String prioridad,
+                                          @Param("idMecanico") Long idMecanico,
+                                          @Param("fechaCursor") LocalDateTime fechaCursor,
+                                          @Param("idCursor") Long idCursor,
+                                          Pageable pageable);
+
+    // Paginación por offset: solo IDs, las relaciones se cargan después para la página
+    @Query(value = "SELECT o.idOrden FROM OrdenTrabajo o",
+           countQuery = "SELECT COUNT(o) FROM OrdenTrabajo o")
+    Page<Long> findIdsPaginados(Pageable pageable);
+
+    // Listados resumidos (proyección a OrdenTrabajoSummaryDTO)
+    @Query(SELECT_RESUMEN + "ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<OrdenTrabajoSummaryDTO> findAllResumen();
+
+    @Query(SELECT_RESUMEN + "WHERE o.estado = :estado ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<OrdenTrabajoSummaryDTO> findResumenByEstado(@Param("estado") String estado);
+
+    @Query(SELECT_RESUMEN + "WHERE ma.idUsuario = :idMecanico ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<OrdenTrabajoSummaryDTO> findResumenByMecanico(@Param("idMecanico") Long idMecanico);
+
+    @Query(SELECT_RESUMEN + "WHERE o.fechaIngreso BETWEEN :fechaDesde AND :fechaHasta " +
+           "ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<OrdenTrabajoSummaryDTO> findResumenByFechaIngresoBetween(@Param("fechaDesde") LocalDateTime fechaDesde,
+                                                                  @Param("fechaHasta") LocalDateTime fechaHasta);
+
+    @Query(SELECT_RESUMEN +
+           "WHERE o.numeroOrden LIKE UPPER(CONCAT('%', :busqueda, '%')) OR " +
+           "LOWER(o.descripcionProblema) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
+           "LOWER(o.diagnostico) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
+           "LOWER(c.nombre) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
+           "m.placa LIKE UPPER(CONCAT('%', :busqueda, '%')) " +
+           "ORDER BY o.fechaIngreso DESC, o.idOrden DESC")
+    List<OrdenTrabajoSummaryDTO> buscarResumen(@Param("busqueda") String busqueda);
+
+    @Query(SELECT_RESUMEN + "WHERE o.idOrden IN :ids")
+    List<OrdenTrabajoSummaryDTO> findResumenByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Órdenes creadas o modificadas desde la marca de agua (sincronización incremental)
+    @Query(SELECT_RESUMEN + "WHERE o.updatedAt >= :desde ORDER BY o.updatedAt, o.idOrden")
+    List<OrdenTrabajoSummaryDTO> findResumenModificadasDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
+
+    // Búsqueda de texto completo + trigramas. Cada rama del UNION usa su propio índice GIN
+    // (busqueda_tsv, numero_orden, motos.placa, clientes.nombre); el ranking se calcula solo sobre los candidatos
+    String CANDIDATOS_BUSQUEDA = "WITH q AS (SELECT websearch_to_tsquery('spanish', :busqueda) AS tsq), " +
+           "candidatos AS (" +
+           "SELECT o.id_orden FROM ordenes_trabajo o, q WHERE o.busqueda_tsv @@ q.tsq " +
+           "UNION SELECT o.id_orden FROM ordenes_trabajo o WHERE o.numero_orden ILIKE :patron " +
+           "UNION SELECT o.id_orden FROM ordenes_trabajo o JOIN motos m ON o.id_moto = m.id_moto WHERE m.placa ILIKE :patron " +
+           "UNION SELECT o.id_orden FROM ordenes_trabajo o JOIN motos m ON o.id_moto = m.id_moto " +
+           "JOIN clientes c ON m.id_cliente = c.id_cliente WHERE c.nombre ILIKE :patron) ";
+
+    @Query(value = CANDIDATOS_BUSQUEDA +
+           "SELECT o.id_orden FROM candidatos x " +
+           "JOIN ordenes_trabajo o ON o.id_orden = x.id_orden " +
+           "JOIN motos m ON o.id_moto = m.id_moto " +
+           "JOIN clientes c ON m.id_cliente = c.id_cliente " +
+           "CROSS JOIN q " +
+           "ORDER BY ts_rank_cd(o.busqueda_tsv, q.tsq) + " +
+           "GREATEST(similarity(o.numero_orden, :busqueda), similarity(m.placa, :busqueda), similarity(c.nombre, :busqueda)) DESC, " +
+           "o.fecha_ingreso DESC, o.id_orden DESC " +
+           "LIMIT :limite OFFSET :desplazamiento", nativeQuery = true)
+    List<Long> buscarIdsTextoCompleto(@Param("busqueda") String busqueda,
+                                      @Param("patron") String patron,
+                                      @Param("limite") int limite,
+                                      @Param("desplazamiento") long desplazamiento);
+
+    @Query(value = CANDIDATOS_BUSQUEDA + "SELECT COUNT(*) FROM candidatos", nativeQuery = true)
+    long contarBusquedaTextoCompleto(@Param("busqueda") String busqueda,
+                                     @Param("patron") String patron);
 }
@@ -1,7 +1,9 @@
 package com.tallermoto.repository;
 
+import com.tallermoto.dto.PagoLineaDTO;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Pago;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -140,4 +142,16 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
            "ORDER BY p.monto DESC " +
            "LIMIT :limite", nativeQuery = true)
     List<Pago> findPagosMayorMontoDesde(@Param("fechaDesde") LocalDateTime fechaDesde, @Param("limite") Integer limite);
+
+    // Pagos de una orden como proyección (detalle completo de orden)
+    @Query("SELECT new com.tallermoto.dto.PagoLineaDTO(p.idPago, p.ordenTrabajo.idOrden, p.monto, p.fechaPago, " +
+           "p.metodo, p.referencia, p.observaciones) " +
+           "FROM Pago p WHERE p.ordenTrabajo.idOrden = :idOrden ORDER BY p.fechaPago, p.idPago")
+    List<PagoLineaDTO> findLineasByIdOrden(@Param("idOrden") Long idOrden);
+
+    // Pagos creados o modificados desde la marca de agua (sincronización incremental)
+    @Query("SELECT new com.tallermoto.dto.PagoLineaDTO(p.idPago, p.ordenTrabajo.idOrden, p.monto, p.fechaPago, " +
+           "p.metodo, p.referencia, p.observaciones) " +
+           "FROM Pago p WHERE p.updatedAt >= :desde ORDER BY p.updatedAt, p.idPago")
+    List<PagoLineaDTO> findLineasModificadasDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
 }
@@ -1,6 +1,7 @@
 package com.tallermoto.repository;
 
 import com.tallermoto.entity.Repuesto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -153,4 +154,8 @@ public interface RepuestoRepository extends JpaRepository<Repuesto, Long> {
     
     @Query(value = "SELECT * FROM repuestos WHERE stock_actual > 0 AND stock_actual <= :cantidad AND activo = true ORDER BY stock_actual ASC", nativeQuery = true)
     List<Repuesto> findRepuestosConStockLimitado(@Param("cantidad") Integer cantidad);
+
+    // Repuestos creados o modificados desde la marca de agua (sincronización incremental)
+    @Query("SELECT r FROM Repuesto r WHERE r.updatedAt >= :desde ORDER BY r.updatedAt, r.idRepuesto")
+    List<Repuesto> findModificadosDesde(@Param("desde") LocalDateTime desde, Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package com.tallermoto.repository;
 
+import com.tallermoto.dto.UsoRepuestoLineaDTO;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Repuesto;
 import com.tallermoto.entity.UsoRepuesto;
@@ -129,4 +130,11 @@ public interface UsoRepuestoRepository extends JpaRepository<UsoRepuesto, Long>
            "WHERE u.created_at >= :fechaDesde " +
            "ORDER BY u.subtotal DESC", nativeQuery = true)
     List<UsoRepuesto> findUsosMayorSubtotalDesde(@Param("fechaDesde") LocalDateTime fechaDesde);
+
+    // Repuestos utilizados en una orden como proyección (detalle completo de orden)
+    @Query("SELECT new com.tallermoto.dto.UsoRepuestoLineaDTO(u.idUso, r.idRepuesto, r.codigo, r.nombre, " +
+           "u.cantidad, u.precioUnitario, u.subtotal, u.createdAt) " +
+           "FROM UsoRepuesto u JOIN u.repuesto r " +
+           "WHERE u.ordenTrabajo.idOrden = :idOrden ORDER BY u.createdAt, u.idUso")
+    List<UsoRepuestoLineaDTO> findLineasByIdOrden(@Param("idOrden") Long idOrden);
 }
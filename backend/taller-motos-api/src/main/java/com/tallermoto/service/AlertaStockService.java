@@ -0,0 +1,376 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.AlertaStockDTO;
+import com.tallermoto.dto.ResumenAlertasStockDTO;
+import com.tallermoto.event.RepuestoModificadoEvent;
+import com.tallermoto.event.StockModificadoEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de alertas de stock bajo
+ *
+ * El conjunto de repuestos activos en o bajo su stock mínimo se mantiene en memoria: se carga al arrancar
+ * desde el índice parcial idx_repuestos_stock_bajo y después se actualiza con cada cambio de stock confirmado
+ * (StockModificadoEvent) y cada cambio de datos de un repuesto (RepuestoModificadoEvent). Cada cambio evalúa
+ * solo el umbral del repuesto afectado; el tablero y la pantalla de alertas leen el conjunto sin consultar la tabla.
+ *
+ * Un cambio se aplica si su stock anterior coincide con el que se conoce; si no (avisos de transacciones
+ * concurrentes que llegan desordenados, o un repuesto que aún no se seguía) se relee la fila. Una conciliación
+ * periódica contra el índice parcial corrige cualquier desvío restante.
+ *
+ * Cuando un repuesto cruza el umbral (ENTRA_BAJO, AGOTADO, SALE_BAJO) se avisa a los suscriptores por
+ * Server-Sent Events con DifusorSse, el mismo reparto por colas acotadas que usan los eventos de órdenes
+ */
+@Service
+public class AlertaStockService {
+
+    public static final String NIVEL_NORMAL = "NORMAL";
+    public static final String NIVEL_BAJO = "BAJO";
+    public static final String NIVEL_AGOTADO = "AGOTADO";
+
+    public static final String EVENTO_ENTRA_BAJO = "ENTRA_BAJO";
+    public static final String EVENTO_AGOTADO = "AGOTADO";
+    public static final String EVENTO_SALE_BAJO = "SALE_BAJO";
+    public static final String EVENTO_RESINCRONIZAR = "RESINCRONIZAR";
+    public static final String NOMBRE_EVENTO = "alerta-stock";
+
+    private static final int CAPACIDAD_SUSCRIPTOR = 256;
+    private static final int MAXIMO_SUSCRIPTORES = 100;
+    private static final int HILOS_ENVIO = 2;
+
+    private static final String SQL_UMBRALES =
+            "SELECT id_repuesto, codigo, nombre, categoria, stock_actual, stock_minimo, activo FROM repuestos ";
+
+    // Misma condición que el índice parcial idx_repuestos_stock_bajo: solo recorre los repuestos en o bajo el mínimo
+    private static final String SQL_STOCK_BAJO = SQL_UMBRALES + "WHERE activo AND stock_actual <= stock_minimo";
+
+    private static final String SQL_REPUESTOS = SQL_UMBRALES + "WHERE id_repuesto IN (:ids)";
+
+    private static final Comparator<AlertaStockDTO> ORDEN_ALERTAS = Comparator
+            .comparing(AlertaStockDTO::getCategoria, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(AlertaStockDTO::getNombre);
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Umbrales conocidos; todo repuesto del conjunto de stock bajo está aquí. Se accede con el bloqueo
+    private final Object bloqueo = new Object();
+    private final Map<Long, Umbral> umbrales = new HashMap<>();
+
+    // Conjunto de stock bajo (incluye agotados): se lee sin bloqueo
+    private final Map<Long, AlertaStockDTO> bajoMinimo = new ConcurrentHashMap<>();
+    private volatile int agotados;
+
+    // Todos los suscriptores reciben todas las alertas: no hay datos por suscriptor
+    private final DifusorSse<AlertaStockDTO, Void> difusor = new DifusorSse<>("alertas-stock-envio", HILOS_ENVIO,
+            NOMBRE_EVENTO, "alertas", CAPACIDAD_SUSCRIPTOR, MAXIMO_SUSCRIPTORES,
+            () -> new AlertaStockDTO(null, null, null, null, null, null, null, EVENTO_RESINCRONIZAR, LocalDateTime.now()));
+
+    // ===============================
+    // CICLO DE VIDA
+    // ===============================
+
+    /**
+     * Cargar el conjunto inicial desde el índice parcial
+     */
+    @PostConstruct
+    public void iniciar() {
+        Map<Long, Umbral> iniciales = leer(SQL_STOCK_BAJO, new MapSqlParameterSource());
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (bloqueo) {
+            for (Umbral umbral : iniciales.values()) {
+                reemplazar(umbral.idRepuesto, umbral, ahora, null);
+            }
+        }
+        System.out.println("Alertas de stock: " + bajoMinimo.size() + " repuestos en o bajo el mínimo (" +
+                agotados + " agotados)");
+    }
+
+    @PreDestroy
+    public void detener() {
+        difusor.detener();
+    }
+
+    // ===============================
+    // CONSULTAS
+    // ===============================
+
+    /**
+     * Repuestos activos en o bajo su stock mínimo, por categoría y nombre
+     */
+    public List<AlertaStockDTO> obtenerAlertas() {
+        List<AlertaStockDTO> alertas = new ArrayList<>(bajoMinimo.values());
+        alertas.sort(ORDEN_ALERTAS);
+        return alertas;
+    }
+
+    /**
+     * Contadores del conjunto de stock bajo
+     */
+    public ResumenAlertasStockDTO obtenerResumen() {
+        return new ResumenAlertasStockDTO(bajoMinimo.size(), agotados);
+    }
+
+    // ===============================
+    // RECEPCIÓN DE CAMBIOS (ya confirmados)
+    // ===============================
+
+    /**
+     * Cambios de stock: el libro de movimientos publica este evento tras el commit
+     */
+    @EventListener
+    public void alModificarStock(StockModificadoEvent evento) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AlertaStockDTO> alertas = new ArrayList<>();
+        Set<Long> releer = new LinkedHashSet<>();
+
+        synchronized (bloqueo) {
+            for (StockModificadoEvent.Cambio cambio : evento.getCambios()) {
+                Long idRepuesto = cambio.getIdRepuesto();
+                if (releer.contains(idRepuesto)) {
+                    continue;
+                }
+                Umbral umbral = umbrales.get(idRepuesto);
+                if (umbral == null || umbral.stock != cambio.getStockAnterior()) {
+                    releer.add(idRepuesto);
+                    continue;
+                }
+                String nivelAnterior = umbral.nivel();
+                umbral.stock = cambio.getStockNuevo();
+                umbral.modificado = System.nanoTime();
+                reflejar(umbral, nivelAnterior, ahora, alertas);
+            }
+        }
+
+        if (!releer.isEmpty()) {
+            Map<Long, Umbral> leidos = leer(SQL_REPUESTOS, new MapSqlParameterSource("ids", releer));
+            synchronized (bloqueo) {
+                for (Long idRepuesto : releer) {
+                    reemplazar(idRepuesto, leidos.get(idRepuesto), ahora, alertas);
+                }
+            }
+        }
+        notificar(alertas);
+    }
+
+    /**
+     * Cambios de datos del repuesto (stock mínimo, estado activo, eliminación)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarRepuesto(RepuestoModificadoEvent evento) {
+        Umbral leido = RepuestoModificadoEvent.ELIMINADO.equals(evento.getTipo()) ? null
+                : leer(SQL_REPUESTOS, new MapSqlParameterSource("ids", List.of(evento.getIdRepuesto())))
+                        .get(evento.getIdRepuesto());
+        List<AlertaStockDTO> alertas = new ArrayList<>();
+        synchronized (bloqueo) {
+            reemplazar(evento.getIdRepuesto(), leido, LocalDateTime.now(), alertas);
+        }
+        notificar(alertas);
+    }
+
+    // ===============================
+    // CONCILIACIÓN
+    // ===============================
+
+    /**
+     * Comparar el conjunto en memoria con el índice parcial y corregir las diferencias
+     * No se tocan los repuestos que cambiaron mientras se leía la base de datos
+     */
+    @Scheduled(fixedDelayString = "${app.alertas.reconciliacion-ms:300000}",
+            initialDelayString = "${app.alertas.reconciliacion-ms:300000}")
+    public void conciliar() {
+        long inicio = System.nanoTime();
+        Map<Long, Umbral> enBase = leer(SQL_STOCK_BAJO, new MapSqlParameterSource());
+
+        List<Long> sobrantes = bajoMinimo.keySet().stream().filter(id -> !enBase.containsKey(id)).toList();
+        if (!sobrantes.isEmpty()) {
+            Map<Long, Umbral> releidos = leer(SQL_REPUESTOS, new MapSqlParameterSource("ids", sobrantes));
+            for (Long idRepuesto : sobrantes) {
+                // Un sobrante que ya no existe se conserva como null: se quita del conjunto
+                enBase.put(idRepuesto, releidos.get(idRepuesto));
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AlertaStockDTO> alertas = new ArrayList<>();
+        int corregidos = 0;
+        synchronized (bloqueo) {
+            for (Map.Entry<Long, Umbral> entrada : enBase.entrySet()) {
+                Umbral actual = umbrales.get(entrada.getKey());
+                if (actual != null && actual.modificado > inicio) {
+                    continue;
+                }
+                if (actual == null || entrada.getValue() == null || !actual.mismoEstado(entrada.getValue())) {
+                    corregidos++;
+                }
+                reemplazar(entrada.getKey(), entrada.getValue(), ahora, alertas);
+            }
+        }
+        if (corregidos > 0) {
+            System.out.println("Alertas de stock: conciliación corrigió " + corregidos + " repuestos");
+        }
+        notificar(alertas);
+    }
+
+    // ===============================
+    // EVALUACIÓN DE UMBRALES (con el bloqueo)
+    // ===============================
+
+    /**
+     * Sustituir el umbral por la fila leída (null: repuesto eliminado) y evaluar la transición
+     * Un repuesto desconocido estaba fuera del conjunto de stock bajo
+     */
+    private void reemplazar(Long idRepuesto, Umbral leido, LocalDateTime fecha, List<AlertaStockDTO> alertas) {
+        Umbral actual = umbrales.get(idRepuesto);
+        String nivelAnterior = actual != null ? actual.nivel() : NIVEL_NORMAL;
+        if (leido == null) {
+            umbrales.remove(idRepuesto);
+            if (actual != null) {
+                actual.activo = false;
+                reflejar(actual, nivelAnterior, fecha, alertas);
+            }
+            return;
+        }
+        leido.modificado = System.nanoTime();
+        umbrales.put(idRepuesto, leido);
+        reflejar(leido, nivelAnterior, fecha, alertas);
+    }
+
+    /**
+     * Actualizar el conjunto de stock bajo y, si cambió el nivel, agregar la alerta de la transición
+     * @param alertas null para no generar alertas (carga inicial)
+     */
+    private void reflejar(Umbral umbral, String nivelAnterior, LocalDateTime fecha, List<AlertaStockDTO> alertas) {
+        String nivel = umbral.nivel();
+        if (NIVEL_NORMAL.equals(nivel)) {
+            bajoMinimo.remove(umbral.idRepuesto);
+        } else {
+            bajoMinimo.put(umbral.idRepuesto, umbral.aAlerta(nivel, null, fecha));
+        }
+        if (nivel.equals(nivelAnterior)) {
+            return;
+        }
+        agotados += (NIVEL_AGOTADO.equals(nivel) ? 1 : 0) - (NIVEL_AGOTADO.equals(nivelAnterior) ? 1 : 0);
+        if (alertas != null) {
+            String evento = NIVEL_AGOTADO.equals(nivel) ? EVENTO_AGOTADO
+                    : NIVEL_BAJO.equals(nivel) ? EVENTO_ENTRA_BAJO : EVENTO_SALE_BAJO;
+            alertas.add(umbral.aAlerta(nivel, evento, fecha));
+        }
+    }
+
+    private Map<Long, Umbral> leer(String sql, MapSqlParameterSource parametros) {
+        Map<Long, Umbral> leidos = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, parametros, rs -> {
+            Umbral umbral = new Umbral(
+                    rs.getLong("id_repuesto"),
+                    rs.getString("codigo"),
+                    rs.getString("nombre"),
+                    rs.getString("categoria"),
+                    rs.getInt("stock_minimo"),
+                    rs.getBoolean("activo"));
+            umbral.stock = rs.getInt("stock_actual");
+            leidos.put(umbral.idRepuesto, umbral);
+        });
+        return leidos;
+    }
+
+    // ===============================
+    // SUSCRIPCIÓN Y ENVÍO
+    // ===============================
+
+    /**
+     * Abrir un canal de alertas; el cliente carga el conjunto con obtenerAlertas() y luego aplica las transiciones
+     */
+    public SseEmitter suscribir() {
+        return difusor.suscribir(null);
+    }
+
+    public int contarSuscriptores() {
+        return difusor.contar();
+    }
+
+    /**
+     * Mantener vivas las conexiones y cerrar las que llevan demasiado tiempo bloqueadas en un envío
+     */
+    @Scheduled(fixedDelayString = "${app.eventos.latido-ms:25000}")
+    public void enviarLatidos() {
+        difusor.enviarLatidos();
+    }
+
+    /**
+     * Nunca bloquea a quien cambió el stock: solo encola y programa el envío
+     */
+    private void notificar(List<AlertaStockDTO> alertas) {
+        if (alertas.isEmpty() || difusor.estaVacio()) {
+            return;
+        }
+        for (AlertaStockDTO alerta : alertas) {
+            difusor.publicar(alerta, suscriptor -> true);
+        }
+        difusor.programarEnvios();
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    /**
+     * Umbral y stock conocido de un repuesto; se modifica solo con el bloqueo
+     */
+    private static final class Umbral {
+
+        private final Long idRepuesto;
+        private final String codigo;
+        private final String nombre;
+        private final String categoria;
+        private final int stockMinimo;
+        private boolean activo;
+        private int stock;
+        private long modificado;
+
+        private Umbral(Long idRepuesto, String codigo, String nombre, String categoria, int stockMinimo, boolean activo) {
+            this.idRepuesto = idRepuesto;
+            this.codigo = codigo;
+            this.nombre = nombre;
+            this.categoria = categoria;
+            this.stockMinimo = stockMinimo;
+            this.activo = activo;
+        }
+
+        // Misma condición que el índice parcial; los inactivos no generan alertas
+        private String nivel() {
+            if (!activo || stock > stockMinimo) {
+                return NIVEL_NORMAL;
+            }
+            return stock <= 0 ? NIVEL_AGOTADO : NIVEL_BAJO;
+        }
+
+        private boolean mismoEstado(Umbral otro) {
+            return stock == otro.stock && stockMinimo == otro.stockMinimo && activo == otro.activo;
+        }
+
+        private AlertaStockDTO aAlerta(String nivel, String evento, LocalDateTime fecha) {
+            return new AlertaStockDTO(idRepuesto, codigo, nombre, categoria, stock, stockMinimo, nivel, evento, fecha);
+        }
+    }
+}
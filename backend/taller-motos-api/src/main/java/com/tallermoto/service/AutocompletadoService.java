@@ -0,0 +1,491 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.SugerenciaCatalogoDTO;
+import com.tallermoto.event.RepuestoModificadoEvent;
+import com.tallermoto.event.ServicioModificadoEvent;
+import com.tallermoto.event.StockModificadoEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de autocompletado del catálogo (repuestos y servicios activos)
+ *
+ * Un trie en memoria por tipo (repuestos y servicios) sobre las palabras de código y nombre, en minúsculas y sin
+ * acentos ("Bujía" se encuentra con "buj" o "BUJI"); el código se indexa además completo sin separadores ("FIL-001"
+ * con "fil0"). Cada hoja apunta a los elementos del catálogo, que llevan stock y precio para mostrar la
+ * disponibilidad sin otra consulta.
+ * Una búsqueda baja por el prefijo en el trie del tipo pedido (o en ambos a la vez) y recorre el subárbol en orden
+ * alfabético hasta completar el límite, así que no depende del tamaño del catálogo.
+ *
+ * Se carga al arrancar y se mantiene con los eventos del catálogo (tras el commit): los cambios de datos releen
+ * el elemento; los de stock se aplican si su stock anterior coincide con el conocido y, si no, también se releen
+ */
+@Service
+public class AutocompletadoService {
+
+    public static final String TIPO_REPUESTO = "REPUESTO";
+    public static final String TIPO_SERVICIO = "SERVICIO";
+    public static final int LIMITE_MAXIMO = 50;
+
+    // Elementos distintos revisados como máximo en una búsqueda de varias palabras
+    private static final int MAXIMO_CANDIDATOS = 2000;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String SQL_REPUESTOS =
+            "SELECT id_repuesto, codigo, nombre, categoria, stock_actual, stock_minimo, precio_unitario " +
+            "FROM repuestos WHERE activo ";
+
+    private static final String SQL_SERVICIOS =
+            "SELECT id_servicio, codigo, nombre, categoria, precio_base FROM servicios WHERE activo ";
+
+    private static final String FILTRO_REPUESTOS = "AND id_repuesto IN (:ids)";
+    private static final String FILTRO_SERVICIO = "AND id_servicio = :idServicio";
+    private static final String FILTRO_CATEGORIAS = "AND categoria IN (:categorias)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Un trie por tipo y elementos indexados por id; se accede con el bloqueo
+    private final Object bloqueo = new Object();
+    private final Map<String, Nodo> raices = Map.of(TIPO_REPUESTO, new Nodo(), TIPO_SERVICIO, new Nodo());
+    private final Map<Long, Elemento> repuestos = new HashMap<>();
+    private final Map<Long, Elemento> servicios = new HashMap<>();
+
+    // ===============================
+    // CARGA
+    // ===============================
+
+    @PostConstruct
+    public void iniciar() {
+        List<Elemento> leidos = leerRepuestos(SQL_REPUESTOS, new MapSqlParameterSource());
+        leidos.addAll(leerServicios(SQL_SERVICIOS, new MapSqlParameterSource()));
+        String resumen;
+        synchronized (bloqueo) {
+            for (Elemento elemento : leidos) {
+                agregar(elemento);
+            }
+            resumen = repuestos.size() + " repuestos y " + servicios.size() + " servicios";
+        }
+        System.out.println("Índice de autocompletado cargado: " + resumen);
+    }
+
+    // ===============================
+    // BÚSQUEDA
+    // ===============================
+
+    /**
+     * Sugerencias cuyo código o nombre tienen palabras que empiezan con cada palabra del texto
+     * @param tipo TIPO_REPUESTO, TIPO_SERVICIO o null para ambos
+     */
+    public List<SugerenciaCatalogoDTO> sugerir(String texto, String tipo, int limite) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda es obligatorio");
+        }
+        if (tipo != null && !TIPO_REPUESTO.equals(tipo) && !TIPO_SERVICIO.equals(tipo)) {
+            throw new IllegalArgumentException("Tipo no válido: " + tipo);
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+
+        List<String> palabras = palabras(texto);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+        // Se recorre la palabra más larga (la más selectiva); las demás filtran
+        String principal = palabras.get(0);
+        for (String palabra : palabras) {
+            if (palabra.length() > principal.length()) {
+                principal = palabra;
+            }
+        }
+
+        List<SugerenciaCatalogoDTO> sugerencias = new ArrayList<>();
+        synchronized (bloqueo) {
+            List<Nodo> nodos = new ArrayList<>(2);
+            for (String tipoBuscado : tipo != null ? List.of(tipo) : List.of(TIPO_REPUESTO, TIPO_SERVICIO)) {
+                Nodo nodo = raices.get(tipoBuscado);
+                for (int i = 0; i < principal.length() && nodo != null; i++) {
+                    nodo = nodo.hijo(principal.charAt(i));
+                }
+                if (nodo != null) {
+                    nodos.add(nodo);
+                }
+            }
+            if (nodos.isEmpty()) {
+                return sugerencias;
+            }
+            Busqueda busqueda = new Busqueda(palabras, limite);
+            recorrer(nodos, busqueda);
+            for (Elemento elemento : busqueda.encontrados) {
+                sugerencias.add(elemento.aDTO());
+            }
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Recorrido en profundidad en orden alfabético de uno o dos tries a la vez (mismo prefijo en ambos);
+     * devuelve false cuando ya no hay que seguir. Un elemento que aparece en varias hojas se revisa una sola vez
+     */
+    private boolean recorrer(List<Nodo> nodos, Busqueda busqueda) {
+        for (Nodo nodo : nodos) {
+            if (nodo.elementos == null) {
+                continue;
+            }
+            for (Elemento elemento : nodo.elementos) {
+                if (!busqueda.revisados.add(elemento)) {
+                    continue;
+                }
+                if (busqueda.revisados.size() > MAXIMO_CANDIDATOS) {
+                    return false;
+                }
+                if (busqueda.admite(elemento)) {
+                    busqueda.encontrados.add(elemento);
+                    if (busqueda.encontrados.size() >= busqueda.limite) {
+                        return false;
+                    }
+                }
+            }
+        }
+        if (nodos.size() == 1) {
+            for (Nodo hijo : nodos.get(0).hijos) {
+                if (!recorrer(List.of(hijo), busqueda)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Dos tries: se mezclan las letras de ambos y se baja junto por las que comparten
+        Nodo primero = nodos.get(0);
+        Nodo segundo = nodos.get(1);
+        int i = 0;
+        int j = 0;
+        while (i < primero.letras.length || j < segundo.letras.length) {
+            List<Nodo> siguientes;
+            if (j == segundo.letras.length || (i < primero.letras.length && primero.letras[i] < segundo.letras[j])) {
+                siguientes = List.of(primero.hijos[i++]);
+            } else if (i == primero.letras.length || segundo.letras[j] < primero.letras[i]) {
+                siguientes = List.of(segundo.hijos[j++]);
+            } else {
+                siguientes = List.of(primero.hijos[i++], segundo.hijos[j++]);
+            }
+            if (!recorrer(siguientes, busqueda)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===============================
+    // RECEPCIÓN DE CAMBIOS (ya confirmados)
+    // ===============================
+
+    @EventListener
+    public void alModificarStock(StockModificadoEvent evento) {
+        Set<Long> releer = new LinkedHashSet<>();
+        synchronized (bloqueo) {
+            for (StockModificadoEvent.Cambio cambio : evento.getCambios()) {
+                Elemento elemento = repuestos.get(cambio.getIdRepuesto());
+                if (elemento == null || releer.contains(elemento.id)) {
+                    // Repuesto inactivo (no indexado) o ya pendiente de releer
+                    continue;
+                }
+                if (elemento.stock != cambio.getStockAnterior()) {
+                    releer.add(elemento.id);
+                    continue;
+                }
+                elemento.stock = cambio.getStockNuevo();
+            }
+        }
+        if (!releer.isEmpty()) {
+            reemplazarRepuestos(releer);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarRepuesto(RepuestoModificadoEvent evento) {
+        reemplazarRepuestos(Set.of(evento.getIdRepuesto()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarServicio(ServicioModificadoEvent evento) {
+        if (evento.getIdServicio() != null) {
+            List<Elemento> leidos = leerServicios(SQL_SERVICIOS + FILTRO_SERVICIO,
+                    new MapSqlParameterSource("idServicio", evento.getIdServicio()));
+            synchronized (bloqueo) {
+                quitar(servicios.get(evento.getIdServicio()));
+                leidos.forEach(this::agregar);
+            }
+            return;
+        }
+
+        // Cambio masivo por categoría: se releen todos los servicios de las categorías afectadas
+        Set<String> categorias = new LinkedHashSet<>(evento.getCategorias());
+        categorias.remove(null);
+        if (categorias.isEmpty()) {
+            return;
+        }
+        List<Elemento> leidos = leerServicios(SQL_SERVICIOS + FILTRO_CATEGORIAS,
+                new MapSqlParameterSource("categorias", categorias));
+        synchronized (bloqueo) {
+            for (Elemento actual : new ArrayList<>(servicios.values())) {
+                if (categorias.contains(actual.categoria)) {
+                    quitar(actual);
+                }
+            }
+            leidos.forEach(this::agregar);
+        }
+    }
+
+    private void reemplazarRepuestos(Set<Long> ids) {
+        List<Elemento> leidos = leerRepuestos(SQL_REPUESTOS + FILTRO_REPUESTOS, new MapSqlParameterSource("ids", ids));
+        synchronized (bloqueo) {
+            for (Long idRepuesto : ids) {
+                quitar(repuestos.get(idRepuesto));
+            }
+            leidos.forEach(this::agregar);
+        }
+    }
+
+    // ===============================
+    // TRIE (con el bloqueo)
+    // ===============================
+
+    private void agregar(Elemento elemento) {
+        (TIPO_REPUESTO.equals(elemento.tipo) ? repuestos : servicios).put(elemento.id, elemento);
+        for (String palabra : elemento.palabras) {
+            Nodo nodo = raices.get(elemento.tipo);
+            for (int i = 0; i < palabra.length(); i++) {
+                nodo = nodo.hijoCreando(palabra.charAt(i));
+            }
+            if (nodo.elementos == null) {
+                nodo.elementos = new ArrayList<>(1);
+            }
+            nodo.elementos.add(elemento);
+        }
+    }
+
+    /**
+     * Quitar un elemento (null: no estaba indexado) y podar las ramas que quedan vacías
+     */
+    private void quitar(Elemento elemento) {
+        if (elemento == null) {
+            return;
+        }
+        (TIPO_REPUESTO.equals(elemento.tipo) ? repuestos : servicios).remove(elemento.id);
+        for (String palabra : elemento.palabras) {
+            quitar(raices.get(elemento.tipo), palabra, 0, elemento);
+        }
+    }
+
+    private void quitar(Nodo nodo, String palabra, int posicion, Elemento elemento) {
+        if (posicion == palabra.length()) {
+            if (nodo.elementos != null) {
+                nodo.elementos.remove(elemento);
+                if (nodo.elementos.isEmpty()) {
+                    nodo.elementos = null;
+                }
+            }
+            return;
+        }
+        char letra = palabra.charAt(posicion);
+        Nodo hijo = nodo.hijo(letra);
+        if (hijo == null) {
+            return;
+        }
+        quitar(hijo, palabra, posicion + 1, elemento);
+        if (hijo.elementos == null && hijo.hijos.length == 0) {
+            nodo.quitarHijo(letra);
+        }
+    }
+
+    // ===============================
+    // LECTURA Y NORMALIZACIÓN
+    // ===============================
+
+    private List<Elemento> leerRepuestos(String sql, MapSqlParameterSource parametros) {
+        return new ArrayList<>(namedParameterJdbcTemplate.query(sql, parametros, (rs, fila) -> {
+            Elemento elemento = new Elemento(TIPO_REPUESTO, rs.getLong("id_repuesto"), rs.getString("codigo"),
+                    rs.getString("nombre"), rs.getString("categoria"), rs.getInt("stock_minimo"),
+                    rs.getBigDecimal("precio_unitario"));
+            elemento.stock = rs.getInt("stock_actual");
+            return elemento;
+        }));
+    }
+
+    private List<Elemento> leerServicios(String sql, MapSqlParameterSource parametros) {
+        return new ArrayList<>(namedParameterJdbcTemplate.query(sql, parametros, (rs, fila) ->
+                new Elemento(TIPO_SERVICIO, rs.getLong("id_servicio"), rs.getString("codigo"), rs.getString("nombre"),
+                        rs.getString("categoria"), null, rs.getBigDecimal("precio_base"))));
+    }
+
+    /**
+     * Minúsculas sin acentos ni diéresis (la ñ queda como n)
+     */
+    static String plegar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+        for (String palabra : SEPARADORES.split(plegar(texto))) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    /**
+     * Nodo del trie: letras ordenadas con sus hijos en arreglos paralelos (búsqueda binaria)
+     */
+    private static final class Nodo {
+
+        private static final char[] SIN_LETRAS = new char[0];
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+        private char[] letras = SIN_LETRAS;
+        private Nodo[] hijos = SIN_HIJOS;
+        private List<Elemento> elementos;
+
+        private Nodo hijo(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            return posicion >= 0 ? hijos[posicion] : null;
+        }
+
+        private Nodo hijoCreando(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion >= 0) {
+                return hijos[posicion];
+            }
+            int insercion = -posicion - 1;
+            char[] nuevasLetras = new char[letras.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, insercion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, insercion);
+            System.arraycopy(letras, insercion, nuevasLetras, insercion + 1, letras.length - insercion);
+            System.arraycopy(hijos, insercion, nuevosHijos, insercion + 1, hijos.length - insercion);
+            Nodo hijo = new Nodo();
+            nuevasLetras[insercion] = letra;
+            nuevosHijos[insercion] = hijo;
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return hijo;
+        }
+
+        private void quitarHijo(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion < 0) {
+                return;
+            }
+            char[] nuevasLetras = new char[letras.length - 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, posicion);
+            System.arraycopy(letras, posicion + 1, nuevasLetras, posicion, letras.length - posicion - 1);
+            System.arraycopy(hijos, posicion + 1, nuevosHijos, posicion, hijos.length - posicion - 1);
+            letras = nuevasLetras.length == 0 ? SIN_LETRAS : nuevasLetras;
+            hijos = nuevosHijos.length == 0 ? SIN_HIJOS : nuevosHijos;
+        }
+    }
+
+    /**
+     * Repuesto o servicio indexado; el stock (solo repuestos) se modifica con el bloqueo
+     */
+    private static final class Elemento {
+
+        private final String tipo;
+        private final Long id;
+        private final String codigo;
+        private final String nombre;
+        private final String categoria;
+        private final Integer stockMinimo;
+        private final BigDecimal precio;
+        private final Set<String> palabras = new LinkedHashSet<>();
+        private int stock;
+
+        private Elemento(String tipo, Long id, String codigo, String nombre, String categoria, Integer stockMinimo,
+                         BigDecimal precio) {
+            this.tipo = tipo;
+            this.id = id;
+            this.codigo = codigo;
+            this.nombre = nombre;
+            this.categoria = categoria;
+            this.stockMinimo = stockMinimo;
+            this.precio = precio;
+            List<String> palabrasCodigo = AutocompletadoService.palabras(codigo);
+            palabras.add(String.join("", palabrasCodigo));
+            palabras.addAll(palabrasCodigo);
+            palabras.addAll(AutocompletadoService.palabras(nombre));
+            palabras.remove("");
+        }
+
+        private SugerenciaCatalogoDTO aDTO() {
+            return new SugerenciaCatalogoDTO(tipo, id, codigo, nombre, categoria,
+                    TIPO_REPUESTO.equals(tipo) ? stock : null, stockMinimo, precio);
+        }
+    }
+
+    /**
+     * Estado de una búsqueda: palabras a cumplir, elementos ya revisados y resultados en orden
+     */
+    private static final class Busqueda {
+
+        private final List<String> palabras;
+        private final int limite;
+        private final Set<Elemento> revisados = new HashSet<>();
+        private final List<Elemento> encontrados = new ArrayList<>();
+
+        private Busqueda(List<String> palabras, int limite) {
+            this.palabras = palabras;
+            this.limite = limite;
+        }
+
+        private boolean admite(Elemento elemento) {
+            for (String palabra : palabras) {
+                boolean presente = false;
+                for (String propia : elemento.palabras) {
+                    if (propia.startsWith(palabra)) {
+                        presente = true;
+                        break;
+                    }
+                }
+                if (!presente) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.tallermoto.service;
+
+import com.tallermoto.entity.Repuesto;
+import com.tallermoto.entity.Servicio;
+import com.tallermoto.event.RepuestoModificadoEvent;
+import com.tallermoto.event.ServicioModificadoEvent;
+import com.tallermoto.event.StockModificadoEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché versionada de los catálogos de repuestos y servicios
+ *
+ * Cada catálogo lleva un número de versión que solo crece (parte de la hora de arranque, así tampoco retrocede
+ * entre reinicios) y guarda el resultado de las consultas más usadas. Cada resultado conserva la versión con la
+ * que se leyó, que se entrega como ETag: mientras la entrada siga en caché, un If-None-Match igual se responde
+ * con 304 sin tocar la base de datos.
+ *
+ * La invalidación es precisa y ocurre tras el commit: un cambio de servicio descarta el listado completo,
+ * las categorías activas y solo las consultas de las categorías afectadas; un cambio de datos de un repuesto
+ * descarta sus dos consultas y un cambio de stock solo el listado completo (las categorías no dependen del stock).
+ *
+ * Una lectura que se cruza con una invalidación no deja su resultado en caché: tras guardarlo se comprueba que
+ * la versión no haya cambiado desde que empezó a leer y, si cambió, se retira
+ */
+@Service
+public class CatalogoService {
+
+    public static final String CATALOGO_REPUESTOS = "repuestos";
+    public static final String CATALOGO_SERVICIOS = "servicios";
+
+    // Claves de las consultas guardadas
+    private static final String TODOS = "todos";
+    private static final String CATEGORIAS_ACTIVAS = "categorias-activas";
+    private static final String POR_CATEGORIA = "categoria:";
+    private static final String ACTIVOS_POR_CATEGORIA = "activos-categoria:";
+    private static final String POR_CATEGORIA_ORDENADOS = "categoria-ordenados:";
+    private static final String POR_CATEGORIA_POR_PRECIO = "categoria-por-precio:";
+
+    @Autowired
+    private RepuestoService repuestoService;
+
+    @Autowired
+    private ServicioService servicioService;
+
+    private final Catalogo repuestos = new Catalogo(CATALOGO_REPUESTOS);
+    private final Catalogo servicios = new Catalogo(CATALOGO_SERVICIOS);
+
+    // ===============================
+    // CONSULTAS DE REPUESTOS
+    // ===============================
+
+    public Entrada<List<Repuesto>> obtenerRepuestos() {
+        return obtener(repuestos, TODOS, repuestoService::obtenerTodosLosRepuestos);
+    }
+
+    public Entrada<List<String>> obtenerCategoriasRepuestos() {
+        return obtener(repuestos, CATEGORIAS_ACTIVAS, repuestoService::obtenerCategoriasActivas);
+    }
+
+    // ===============================
+    // CONSULTAS DE SERVICIOS
+    // ===============================
+
+    public Entrada<List<Servicio>> obtenerServicios() {
+        return obtener(servicios, TODOS, servicioService::obtenerTodos);
+    }
+
+    public Entrada<List<String>> obtenerCategoriasServicios() {
+        return obtener(servicios, CATEGORIAS_ACTIVAS, servicioService::obtenerCategoriasActivas);
+    }
+
+    public Entrada<List<Servicio>> obtenerServiciosPorCategoria(String categoria) {
+        return obtener(servicios, POR_CATEGORIA + categoria, () -> servicioService.obtenerPorCategoria(categoria));
+    }
+
+    public Entrada<List<Servicio>> obtenerServiciosActivosPorCategoria(String categoria) {
+        return obtener(servicios, ACTIVOS_POR_CATEGORIA + categoria,
+                () -> servicioService.obtenerActivosPorCategoria(categoria));
+    }
+
+    public Entrada<List<Servicio>> obtenerServiciosPorCategoriaOrdenados(String categoria) {
+        return obtener(servicios, POR_CATEGORIA_ORDENADOS + categoria,
+                () -> servicioService.obtenerPorCategoriaOrdenados(categoria));
+    }
+
+    public Entrada<List<Servicio>> obtenerServiciosPorCategoriaPorPrecio(String categoria) {
+        return obtener(servicios, POR_CATEGORIA_POR_PRECIO + categoria,
+                () -> servicioService.obtenerPorCategoriaPorPrecio(categoria));
+    }
+
+    // ===============================
+    // RESPUESTA HTTP
+    // ===============================
+
+    /**
+     * Responder una consulta del catálogo en caché: 304 sin cuerpo si el cliente ya tiene esa versión
+     * no-cache obliga al navegador a revalidar con If-None-Match en cada uso
+     */
+    public static <T> ResponseEntity<T> responder(Entrada<T> entrada, String siNoCoincide) {
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (coincide(siNoCoincide, entrada.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entrada.getEtag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(entrada.getEtag()).cacheControl(cacheControl).body(entrada.getValor());
+    }
+
+    /**
+     * Indica si el encabezado If-None-Match incluye el ETag (acepta listas, "*" y etiquetas débiles)
+     */
+    static boolean coincide(String siNoCoincide, String etag) {
+        if (siNoCoincide == null || siNoCoincide.isBlank()) {
+            return false;
+        }
+        for (String etiqueta : siNoCoincide.split(",")) {
+            String valor = etiqueta.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if ("*".equals(valor) || etag.equals(valor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===============================
+    // INVALIDACIÓN (cambios ya confirmados)
+    // ===============================
+
+    @EventListener
+    public void alModificarStock(StockModificadoEvent evento) {
+        invalidar(repuestos, TODOS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarRepuesto(RepuestoModificadoEvent evento) {
+        invalidar(repuestos, TODOS, CATEGORIAS_ACTIVAS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarServicio(ServicioModificadoEvent evento) {
+        servicios.version.incrementAndGet();
+        servicios.entradas.remove(TODOS);
+        servicios.entradas.remove(CATEGORIAS_ACTIVAS);
+        for (String categoria : evento.getCategorias()) {
+            if (categoria == null) {
+                continue;
+            }
+            servicios.entradas.remove(POR_CATEGORIA + categoria);
+            servicios.entradas.remove(ACTIVOS_POR_CATEGORIA + categoria);
+            servicios.entradas.remove(POR_CATEGORIA_ORDENADOS + categoria);
+            servicios.entradas.remove(POR_CATEGORIA_POR_PRECIO + categoria);
+        }
+    }
+
+    // ===============================
+    // CACHÉ
+    // ===============================
+
+    /**
+     * Devolver la entrada guardada o leerla; solo se guarda si ninguna invalidación se cruzó con la lectura
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Entrada<T> obtener(Catalogo catalogo, String clave, Supplier<T> cargar) {
+        Entrada<T> guardada = (Entrada<T>) catalogo.entradas.get(clave);
+        if (guardada != null) {
+            return guardada;
+        }
+        long version = catalogo.version.get();
+        Entrada<T> leida = new Entrada<>('"' + catalogo.nombre + "-" + version + '"', cargar.get());
+        catalogo.entradas.put(clave, leida);
+        if (catalogo.version.get() != version) {
+            catalogo.entradas.remove(clave, leida);
+        }
+        return leida;
+    }
+
+    /**
+     * Primero se incrementa la versión y después se retiran las claves (ver obtener)
+     */
+    private void invalidar(Catalogo catalogo, String... claves) {
+        catalogo.version.incrementAndGet();
+        for (String clave : claves) {
+            catalogo.entradas.remove(clave);
+        }
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    private static final class Catalogo {
+
+        private final String nombre;
+        private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+        private final Map<String, Entrada<?>> entradas = new ConcurrentHashMap<>();
+
+        private Catalogo(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    /**
+     * Resultado guardado de una consulta con su ETag; el valor no debe modificarse
+     */
+    public static final class Entrada<T> {
+
+        private final String etag;
+        private final T valor;
+
+        private Entrada(String etag, T valor) {
+            this.etag = etag;
+            this.valor = valor;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public T getValor() {
+            return valor;
+        }
+    }
+}
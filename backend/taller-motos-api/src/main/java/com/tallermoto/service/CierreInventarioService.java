@@ -0,0 +1,263 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.DiferenciaCierreDTO;
+import com.tallermoto.dto.StockHistoricoDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Servicio de cierres diarios de inventario (repuesto_cierres)
+ *
+ * Cada día se guarda el saldo de cada repuesto al final del día anterior y su precio en ese momento.
+ * El cierre de un día parte del cierre del día previo más los movimientos del día, así que solo lee
+ * los movimientos de un día. El primer cierre, sin cierre previo, se obtiene del stock actual menos
+ * los movimientos posteriores.
+ *
+ * El stock a una fecha se calcula desde el cierre anterior más cercano sumando solo los movimientos
+ * posteriores a él. Si no hay cierre anterior, se usa el primer cierre posterior (o el stock actual)
+ * restando los movimientos intermedios. El costo de la consulta depende de la distancia al cierre
+ * y no del tamaño de repuesto_movimientos.
+ *
+ * Los movimientos llegan a repuesto_movimientos después del commit (LibroMovimientosService) con la fecha en
+ * que se registraron; si se escriben o se reprocesan después de cerrado su día, ese cierre quedaría desfasado.
+ * Por eso cada generación recalcula además los últimos app.cierres.dias-recalculo días (DO UPDATE), y
+ * verificarCierres compara el último cierre con el stock actual para detectar lo que quede fuera de esa ventana.
+ *
+ * Los cierres diarios se conservan app.cierres.retencion-dias; los de fin de mes se conservan siempre
+ */
+@Service
+@Transactional(readOnly = true)
+public class CierreInventarioService {
+
+    private static final String SQL_ULTIMO_CIERRE =
+            "SELECT MAX(fecha_cierre) FROM repuesto_cierres";
+
+    private static final String SQL_PRIMER_CIERRE =
+            "SELECT MIN(fecha_cierre) FROM repuesto_cierres";
+
+    // Cierre de un día: cierre previo + movimientos del día; sin cierre previo, stock actual - movimientos desde el fin del día
+    private static final String SQL_GENERAR_CIERRE =
+            "INSERT INTO repuesto_cierres (id_repuesto, fecha_cierre, stock, precio_unitario) " +
+            "SELECT r.id_repuesto, :fecha, " +
+            "CASE WHEN c.id_repuesto IS NOT NULL THEN c.stock + COALESCE(m.delta_dia, 0) " +
+            "ELSE r.stock_actual - COALESCE(m.delta_total, 0) + COALESCE(m.delta_dia, 0) END, " +
+            "r.precio_unitario " +
+            "FROM repuestos r " +
+            "LEFT JOIN repuesto_cierres c ON c.id_repuesto = r.id_repuesto AND c.fecha_cierre = :fechaAnterior " +
+            "LEFT JOIN (SELECT id_repuesto, " +
+            "SUM(stock_nuevo - stock_anterior) FILTER (WHERE fecha_movimiento < :finDia) AS delta_dia, " +
+            "SUM(stock_nuevo - stock_anterior) AS delta_total " +
+            "FROM repuesto_movimientos WHERE fecha_movimiento >= :inicioDia GROUP BY id_repuesto) m " +
+            "ON m.id_repuesto = r.id_repuesto " +
+            "WHERE r.created_at < :finDia " +
+            "ON CONFLICT (id_repuesto, fecha_cierre) DO UPDATE SET stock = EXCLUDED.stock " +
+            "WHERE repuesto_cierres.stock <> EXCLUDED.stock";
+
+    // Último cierre de cada repuesto contra el stock actual menos los movimientos posteriores al cierre
+    private static final String SQL_DIFERENCIAS_CIERRE =
+            "SELECT r.id_repuesto, r.codigo, c.fecha_cierre, c.stock AS stock_cierre, " +
+            "r.stock_actual - COALESCE(m.delta, 0) AS stock_calculado " +
+            "FROM repuestos r " +
+            "JOIN LATERAL (SELECT fecha_cierre, stock FROM repuesto_cierres WHERE id_repuesto = r.id_repuesto " +
+            "ORDER BY fecha_cierre DESC LIMIT 1) c ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT SUM(stock_nuevo - stock_anterior) AS delta FROM repuesto_movimientos " +
+            "WHERE id_repuesto = r.id_repuesto AND fecha_movimiento >= c.fecha_cierre + 1) m ON TRUE " +
+            "WHERE c.stock <> r.stock_actual - COALESCE(m.delta, 0) " +
+            "ORDER BY r.id_repuesto";
+
+    // Se conservan los cierres de fin de mes
+    private static final String SQL_PURGAR_CIERRES =
+            "DELETE FROM repuesto_cierres WHERE fecha_cierre < ? " +
+            "AND fecha_cierre <> CAST(date_trunc('month', fecha_cierre) + INTERVAL '1 month' - INTERVAL '1 day' AS DATE)";
+
+    // Stock a un instante: cierre anterior + movimientos hasta el instante, o bien
+    // (cierre posterior o stock actual) - movimientos posteriores al instante
+    private static final String SQL_STOCK_EN_FECHA =
+            "SELECT r.id_repuesto, r.codigo, r.nombre, " +
+            "COALESCE(a.fecha_cierre, p.fecha_cierre) AS fecha_cierre_base, " +
+            "CASE WHEN a.fecha_cierre IS NOT NULL THEN a.stock + adelante.delta " +
+            "ELSE COALESCE(p.stock, r.stock_actual) - atras.delta END AS stock, " +
+            "COALESCE(a.precio_unitario, p.precio_unitario, r.precio_unitario) AS precio_unitario, " +
+            "adelante.movimientos + atras.movimientos AS movimientos " +
+            "FROM repuestos r " +
+            "LEFT JOIN LATERAL (SELECT fecha_cierre, stock, precio_unitario FROM repuesto_cierres " +
+            "WHERE id_repuesto = r.id_repuesto AND fecha_cierre <= :diaAnterior " +
+            "ORDER BY fecha_cierre DESC LIMIT 1) a ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT fecha_cierre, stock, precio_unitario FROM repuesto_cierres " +
+            "WHERE a.fecha_cierre IS NULL AND id_repuesto = r.id_repuesto AND fecha_cierre > :diaAnterior " +
+            "ORDER BY fecha_cierre LIMIT 1) p ON TRUE " +
+            "CROSS JOIN LATERAL (SELECT COALESCE(SUM(stock_nuevo - stock_anterior), 0) AS delta, COUNT(*) AS movimientos " +
+            "FROM repuesto_movimientos WHERE a.fecha_cierre IS NOT NULL AND id_repuesto = r.id_repuesto " +
+            "AND fecha_movimiento >= a.fecha_cierre + 1 AND fecha_movimiento <= :instante) adelante " +
+            "CROSS JOIN LATERAL (SELECT COALESCE(SUM(stock_nuevo - stock_anterior), 0) AS delta, COUNT(*) AS movimientos " +
+            "FROM repuesto_movimientos WHERE a.fecha_cierre IS NULL AND id_repuesto = r.id_repuesto " +
+            "AND fecha_movimiento > :instante " +
+            "AND (p.fecha_cierre IS NULL OR fecha_movimiento < p.fecha_cierre + 1)) atras ";
+
+    private static final String FILTRO_REPUESTO = "WHERE r.id_repuesto = :idRepuesto";
+
+    private static final String FILTRO_INVENTARIO = "WHERE r.created_at <= :instante ORDER BY r.codigo";
+
+    private static final String FILTRO_CATEGORIA =
+            "WHERE r.categoria = :categoria AND r.created_at <= :instante ORDER BY r.id_repuesto";
+
+    @Value("${app.cierres.retencion-dias:400}")
+    private int diasRetencion;
+
+    @Value("${app.cierres.dias-recalculo:3}")
+    private int diasRecalculo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // ===============================
+    // CONSULTAS A UNA FECHA
+    // ===============================
+
+    /**
+     * Stock y valorización de un repuesto en un instante pasado
+     */
+    public Optional<StockHistoricoDTO> obtenerStockEnFecha(Long idRepuesto, LocalDateTime instante) {
+        MapSqlParameterSource parametros = parametrosInstante(instante).addValue("idRepuesto", idRepuesto);
+        return namedParameterJdbcTemplate.query(SQL_STOCK_EN_FECHA + FILTRO_REPUESTO, parametros, mapper(instante))
+                .stream().findFirst();
+    }
+
+    /**
+     * Stock y valorización de todos los repuestos existentes en un instante pasado
+     */
+    public List<StockHistoricoDTO> obtenerInventarioEnFecha(LocalDateTime instante) {
+        return namedParameterJdbcTemplate.query(SQL_STOCK_EN_FECHA + FILTRO_INVENTARIO, parametrosInstante(instante),
+                mapper(instante));
+    }
+
+    /**
+     * Stock y valorización en un instante pasado de los repuestos de una categoría, por ID de repuesto
+     */
+    public List<StockHistoricoDTO> obtenerCategoriaEnFecha(String categoria, LocalDateTime instante) {
+        return namedParameterJdbcTemplate.query(SQL_STOCK_EN_FECHA + FILTRO_CATEGORIA,
+                parametrosInstante(instante).addValue("categoria", categoria), mapper(instante));
+    }
+
+    // ===============================
+    // GENERACIÓN Y PURGA DE CIERRES
+    // ===============================
+
+    /**
+     * Generar los cierres que falten hasta ayer (uno por día, en orden, cada uno sobre el anterior)
+     * y recalcular los de los últimos app.cierres.dias-recalculo días por los movimientos escritos tarde.
+     * Sin cierres previos se genera solo el de ayer
+     * @return cantidad de cierres de repuesto generados o corregidos
+     */
+    @Transactional
+    @Scheduled(cron = "${app.cierres.cron:0 10 0 * * *}")
+    public int generarCierresPendientes() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        LocalDate ultimo = jdbcTemplate.queryForObject(SQL_ULTIMO_CIERRE, LocalDate.class);
+        LocalDate fecha = ayer;
+        if (ultimo != null) {
+            LocalDate primero = jdbcTemplate.queryForObject(SQL_PRIMER_CIERRE, LocalDate.class);
+            LocalDate inicioRecalculo = ayer.minusDays(Math.max(diasRecalculo, 1) - 1L);
+            fecha = ultimo.plusDays(1).isBefore(inicioRecalculo) ? ultimo.plusDays(1) : inicioRecalculo;
+            if (fecha.isBefore(primero)) {
+                fecha = primero;
+            }
+        }
+
+        int generados = 0;
+        for (; !fecha.isAfter(ayer); fecha = fecha.plusDays(1)) {
+            generados += generarCierre(fecha);
+        }
+        if (generados > 0) {
+            System.out.println("Cierres de inventario generados o corregidos: " + generados + " (hasta " + ayer + ")");
+        }
+
+        List<DiferenciaCierreDTO> diferencias = verificarCierres();
+        if (!diferencias.isEmpty()) {
+            System.err.println("Cierres de inventario que no cuadran con el stock actual: " + diferencias.size() +
+                    " (p. ej. " + diferencias.get(0) + ")");
+        }
+        return generados;
+    }
+
+    /**
+     * Repuestos cuyo último cierre no coincide con el stock actual menos los movimientos posteriores al cierre
+     * Una diferencia pasajera puede deberse a movimientos aún en la cola del libro; una persistente indica
+     * un cierre desfasado fuera de la ventana de recálculo
+     */
+    public List<DiferenciaCierreDTO> verificarCierres() {
+        return jdbcTemplate.query(SQL_DIFERENCIAS_CIERRE, (rs, fila) -> new DiferenciaCierreDTO(
+                rs.getLong("id_repuesto"),
+                rs.getString("codigo"),
+                rs.getDate("fecha_cierre").toLocalDate(),
+                rs.getInt("stock_cierre"),
+                rs.getInt("stock_calculado")));
+    }
+
+    /**
+     * Purgar los cierres diarios fuera de la retención (los de fin de mes se conservan)
+     */
+    @Transactional
+    @Scheduled(cron = "${app.cierres.purga.cron:0 20 4 * * *}")
+    public void purgarCierres() {
+        int purgados = jdbcTemplate.update(SQL_PURGAR_CIERRES, Date.valueOf(LocalDate.now().minusDays(diasRetencion)));
+        if (purgados > 0) {
+            System.out.println("Cierres de inventario purgados: " + purgados);
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private int generarCierre(LocalDate fecha) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("fecha", fecha)
+                .addValue("fechaAnterior", fecha.minusDays(1))
+                .addValue("inicioDia", fecha.atStartOfDay())
+                .addValue("finDia", fecha.plusDays(1).atStartOfDay());
+        return namedParameterJdbcTemplate.update(SQL_GENERAR_CIERRE, parametros);
+    }
+
+    // El cierre de un día vale al inicio del día siguiente: el último cierre utilizable es el del día anterior al instante
+    private MapSqlParameterSource parametrosInstante(LocalDateTime instante) {
+        return new MapSqlParameterSource()
+                .addValue("instante", instante)
+                .addValue("diaAnterior", instante.toLocalDate().minusDays(1));
+    }
+
+    private RowMapper<StockHistoricoDTO> mapper(LocalDateTime instante) {
+        return (rs, fila) -> {
+            int stock = rs.getInt("stock");
+            BigDecimal precio = rs.getBigDecimal("precio_unitario");
+            Date fechaCierre = rs.getDate("fecha_cierre_base");
+            return new StockHistoricoDTO(
+                    rs.getLong("id_repuesto"),
+                    rs.getString("codigo"),
+                    rs.getString("nombre"),
+                    instante,
+                    stock,
+                    precio,
+                    precio.multiply(BigDecimal.valueOf(stock)),
+                    fechaCierre != null ? fechaCierre.toLocalDate() : null,
+                    rs.getLong("movimientos"));
+        };
+    }
+}
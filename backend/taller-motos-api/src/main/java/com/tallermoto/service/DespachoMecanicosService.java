@@ -0,0 +1,451 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.CargaMecanicoDTO;
+import com.tallermoto.dto.OrdenTrabajoSummaryDTO;
+import com.tallermoto.dto.ResultadoTransicionDTO;
+import com.tallermoto.event.OrdenModificadaEvent;
+import com.tallermoto.event.OrdenesModificadasEvent;
+import com.tallermoto.repository.OrdenTrabajoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Servicio de despacho de órdenes a mecánicos
+ * Mantiene en memoria la cola de órdenes activas sin mecánico (por prioridad, fecha de ingreso y
+ * minutos estimados) y la carga de cada mecánico. Se reconstruye desde la base de datos al arrancar
+ * y después se actualiza orden por orden con cada OrdenModificadaEvent confirmado
+ */
+@Service
+public class DespachoMecanicosService {
+
+    private static final int LIMITE_COLA_DEFECTO = 20;
+    private static final int LIMITE_COLA_MAXIMO = 200;
+
+    // Menor rango = se atiende antes
+    private static final Map<String, Integer> RANGO_PRIORIDAD = Map.of(
+            "URGENTE", 0, "ALTA", 1, "NORMAL", 2, "BAJA", 3);
+
+    // Órdenes activas (las que ocupan a un mecánico o esperan uno) con sus minutos estimados
+    // %s permite restringir la consulta a una o varias órdenes
+    private static final String SQL_ORDENES_ACTIVAS =
+            "SELECT o.id_orden, o.prioridad, o.fecha_ingreso, o.version, o.id_mecanico_asignado, " +
+            "u.nombre_completo AS nombre_mecanico, COALESCE(SUM(s.tiempo_estimado_minutos), 0) AS minutos " +
+            "FROM ordenes_trabajo o " +
+            "LEFT JOIN usuarios u ON u.id_usuario = o.id_mecanico_asignado " +
+            "LEFT JOIN detalle_orden d ON d.id_orden = o.id_orden " +
+            "LEFT JOIN servicios s ON s.id_servicio = d.id_servicio " +
+            "WHERE o.estado IN ('RECIBIDA', 'DIAGNOSTICADA', 'EN_PROCESO') %s " +
+            "GROUP BY o.id_orden, u.nombre_completo";
+
+    private static final String SQL_TODAS = String.format(SQL_ORDENES_ACTIVAS, "");
+    private static final String SQL_UNA = String.format(SQL_ORDENES_ACTIVAS, "AND o.id_orden = ?");
+    private static final String SQL_VARIAS = String.format(SQL_ORDENES_ACTIVAS, "AND o.id_orden IN (:ids)");
+
+    private static final String SQL_MECANICOS =
+            "SELECT id_usuario, nombre_completo FROM usuarios WHERE rol = 'MECANICO' AND activo = TRUE";
+
+    private static final String SQL_MECANICO_ACTIVO =
+            "SELECT EXISTS (SELECT 1 FROM usuarios WHERE id_usuario = ? AND rol = 'MECANICO' AND activo = TRUE)";
+
+    private static final Comparator<OrdenEnCola> ORDEN_COLA = Comparator
+            .comparingInt((OrdenEnCola o) -> RANGO_PRIORIDAD.getOrDefault(o.prioridad, RANGO_PRIORIDAD.size()))
+            .thenComparing(o -> o.fechaIngreso)
+            .thenComparingLong(o -> o.minutos)
+            .thenComparingLong(o -> o.idOrden);
+
+    private static final Comparator<CargaMecanico> ORDEN_CARGA = Comparator
+            .comparingLong((CargaMecanico c) -> c.minutos)
+            .thenComparingInt(c -> c.ordenes)
+            .thenComparingLong(c -> c.idMecanico);
+
+    private static final RowMapper<OrdenEnCola> MAPEO_ORDEN = (rs, rowNum) -> new OrdenEnCola(
+            rs.getLong("id_orden"),
+            rs.getString("prioridad"),
+            rs.getTimestamp("fecha_ingreso").toLocalDateTime(),
+            rs.getLong("minutos"),
+            rs.getLong("version"),
+            rs.getObject("id_mecanico_asignado", Long.class),
+            rs.getString("nombre_mecanico"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private OrdenTransicionService ordenTransicionService;
+
+    @Autowired
+    private OrdenTrabajoRepository ordenTrabajoRepository;
+
+    // Estado en memoria, protegido por el monitor de este servicio
+    private final Map<Long, OrdenEnCola> ordenes = new HashMap<>();
+    private final TreeSet<OrdenEnCola> pendientes = new TreeSet<>(ORDEN_COLA);
+    private final Map<Long, CargaMecanico> cargas = new HashMap<>();
+    private final TreeSet<CargaMecanico> mecanicosPorCarga = new TreeSet<>(ORDEN_CARGA);
+
+    // ===============================
+    // CONSTRUCCIÓN Y ACTUALIZACIÓN
+    // ===============================
+
+    /**
+     * Reconstruir la cola y las cargas desde la base de datos (2 consultas)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        ordenes.clear();
+        pendientes.clear();
+        cargas.clear();
+        mecanicosPorCarga.clear();
+
+        jdbcTemplate.query(SQL_MECANICOS, rs -> {
+            CargaMecanico carga = new CargaMecanico(rs.getLong("id_usuario"), rs.getString("nombre_completo"), true);
+            cargas.put(carga.idMecanico, carga);
+            mecanicosPorCarga.add(carga);
+        });
+        for (OrdenEnCola orden : jdbcTemplate.query(SQL_TODAS, MAPEO_ORDEN)) {
+            agregar(orden);
+        }
+        System.out.println("Despacho de mecánicos reconstruido: " + pendientes.size() + " órdenes pendientes, " +
+                mecanicosPorCarga.size() + " mecánicos activos");
+    }
+
+    /**
+     * Reconstrucción periódica: incorpora altas y bajas de mecánicos y corrige cualquier cambio no notificado
+     */
+    @Scheduled(cron = "${app.despacho.reconstruccion.cron:0 0 * * * *}")
+    public void reconstruirProgramado() {
+        reconstruir();
+    }
+
+    /**
+     * Aplicar el cambio de una orden una vez confirmado (una consulta por la orden afectada)
+     * Los cambios que no afectan la asignación (pagos) también incrementan la versión: si la orden está
+     * en memoria se relee igual, para que asignarSiguiente no envíe una versión vencida
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrden(OrdenModificadaEvent evento) {
+        if (OrdenModificadaEvent.afectaAsignacion(evento.getTipo()) || estaEnMemoria(evento.getIdOrden())) {
+            refrescarOrden(evento.getIdOrden());
+        }
+    }
+
+    /**
+     * Aplicar los cambios de una operación masiva una vez confirmada (una consulta para todo el lote)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrdenes(OrdenesModificadasEvent evento) {
+        if (OrdenModificadaEvent.afectaAsignacion(evento.getTipo())) {
+            refrescarOrdenes(evento.getIdsOrden());
+            return;
+        }
+        List<Long> enMemoria = new ArrayList<>();
+        for (Long idOrden : evento.getIdsOrden()) {
+            if (estaEnMemoria(idOrden)) {
+                enMemoria.add(idOrden);
+            }
+        }
+        refrescarOrdenes(enMemoria);
+    }
+
+    /**
+     * Releer una orden y reubicarla en la cola o en la carga de su mecánico
+     */
+    public synchronized void refrescarOrden(Long idOrden) {
+        quitar(idOrden);
+        List<OrdenEnCola> filas = jdbcTemplate.query(SQL_UNA, MAPEO_ORDEN, idOrden);
+        if (!filas.isEmpty()) {
+            agregar(filas.get(0));
+        }
+    }
+
+    /**
+     * Releer varias órdenes y reubicarlas
+     */
+    public synchronized void refrescarOrdenes(Collection<Long> idsOrden) {
+        if (idsOrden.isEmpty()) {
+            return;
+        }
+        for (Long idOrden : idsOrden) {
+            quitar(idOrden);
+        }
+        for (OrdenEnCola orden : namedParameterJdbcTemplate.query(SQL_VARIAS,
+                new MapSqlParameterSource("ids", idsOrden), MAPEO_ORDEN)) {
+            agregar(orden);
+        }
+    }
+
+    // ===============================
+    // CONSULTAS
+    // ===============================
+
+    /**
+     * Siguiente orden a atender (la primera de la cola)
+     */
+    public Optional<OrdenTrabajoSummaryDTO> obtenerSiguienteOrden() {
+        Long idOrden;
+        synchronized (this) {
+            idOrden = pendientes.isEmpty() ? null : pendientes.first().idOrden;
+        }
+        if (idOrden == null) {
+            return Optional.empty();
+        }
+        return ordenTrabajoRepository.findResumenByIdIn(List.of(idOrden)).stream().findFirst();
+    }
+
+    /**
+     * Primeras órdenes de la cola, en orden de atención
+     */
+    public List<OrdenTrabajoSummaryDTO> obtenerCola(Integer limite) {
+        int tamanio = limite == null || limite <= 0 ? LIMITE_COLA_DEFECTO : Math.min(limite, LIMITE_COLA_MAXIMO);
+        List<Long> ids = new ArrayList<>(tamanio);
+        synchronized (this) {
+            Iterator<OrdenEnCola> iterador = pendientes.iterator();
+            while (iterador.hasNext() && ids.size() < tamanio) {
+                ids.add(iterador.next().idOrden);
+            }
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, OrdenTrabajoSummaryDTO> resumenPorId = new HashMap<>();
+        for (OrdenTrabajoSummaryDTO resumen : ordenTrabajoRepository.findResumenByIdIn(ids)) {
+            resumenPorId.put(resumen.getIdOrden(), resumen);
+        }
+        List<OrdenTrabajoSummaryDTO> cola = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            OrdenTrabajoSummaryDTO resumen = resumenPorId.get(id);
+            if (resumen != null) {
+                cola.add(resumen);
+            }
+        }
+        return cola;
+    }
+
+    /**
+     * Cantidad de órdenes esperando mecánico
+     */
+    public synchronized int contarPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Carga actual de los mecánicos, del menos al más ocupado
+     */
+    public synchronized List<CargaMecanicoDTO> obtenerCargas() {
+        List<CargaMecanico> ordenadas = new ArrayList<>(cargas.values());
+        ordenadas.sort(ORDEN_CARGA);
+        List<CargaMecanicoDTO> resultado = new ArrayList<>(ordenadas.size());
+        for (CargaMecanico carga : ordenadas) {
+            resultado.add(new CargaMecanicoDTO(carga.idMecanico, carga.nombre, carga.ordenes, carga.minutos));
+        }
+        return resultado;
+    }
+
+    // ===============================
+    // ASIGNACIÓN AUTOMÁTICA
+    // ===============================
+
+    /**
+     * Asignar la primera orden de la cola al mecánico indicado o, si no se indica, al menos cargado
+     * La elección se hace en memoria y se persiste con el UPDATE condicional por versión:
+     * si la orden cambió mientras tanto, se relee y se informa el conflicto
+     */
+    public ResultadoTransicionDTO asignarSiguiente(Long idMecanico) {
+        OrdenEnCola orden;
+        CargaMecanico carga;
+        synchronized (this) {
+            if (idMecanico != null) {
+                carga = cargas.get(idMecanico);
+                if (carga == null || !carga.elegible) {
+                    throw new IllegalArgumentException("El usuario " + idMecanico + " no es un mecánico activo");
+                }
+            } else {
+                if (mecanicosPorCarga.isEmpty()) {
+                    throw new IllegalStateException("No hay mecánicos activos");
+                }
+                carga = mecanicosPorCarga.first();
+            }
+            if (pendientes.isEmpty()) {
+                throw new IllegalStateException("No hay órdenes pendientes de asignar");
+            }
+
+            // Se reserva en memoria para que una asignación concurrente no elija la misma orden
+            orden = pendientes.first();
+            quitar(orden.idOrden);
+            agregar(orden.conMecanico(carga.idMecanico, carga.nombre));
+        }
+
+        try {
+            return ordenTransicionService.asignarMecanico(orden.idOrden, carga.idMecanico, orden.version);
+        } catch (IllegalArgumentException e) {
+            // El rechazo puede ser por la orden (ya no existe: al releerla sale de la cola) o por el mecánico;
+            // solo si el mecánico fue dado de baja después de elegirlo deja de recibir asignaciones
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_MECANICO_ACTIVO, Boolean.class, carga.idMecanico))) {
+                descartarMecanico(carga.idMecanico);
+            }
+            refrescarOrden(orden.idOrden);
+            throw e;
+        } catch (RuntimeException e) {
+            refrescarOrden(orden.idOrden);
+            throw e;
+        }
+    }
+
+    /**
+     * Repartir hasta "maximo" órdenes de la cola entre los mecánicos menos cargados
+     */
+    public List<ResultadoTransicionDTO> asignarPendientes(int maximo) {
+        List<ResultadoTransicionDTO> resultados = new ArrayList<>();
+        int intentos = 0;
+        while (intentos < maximo && hayAsignacionPosible()) {
+            intentos++;
+            try {
+                resultados.add(asignarSiguiente(null));
+            } catch (OptimisticLockingFailureException e) {
+                // La orden cambió mientras se asignaba: ya fue releída, se sigue con la próxima
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Rechazo de esta orden o de este mecánico (orden eliminada o en estado final, mecánico dado de baja):
+                // ambos ya fueron releídos, se sigue con la próxima. La cola vacía se detecta en la condición del bucle
+                System.err.println("Asignación automática omitida: " + e.getMessage());
+            }
+        }
+        return resultados;
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private synchronized boolean hayAsignacionPosible() {
+        return !pendientes.isEmpty() && !mecanicosPorCarga.isEmpty();
+    }
+
+    private synchronized boolean estaEnMemoria(Long idOrden) {
+        return ordenes.containsKey(idOrden);
+    }
+
+    private void agregar(OrdenEnCola orden) {
+        ordenes.put(orden.idOrden, orden);
+        if (orden.idMecanico == null) {
+            pendientes.add(orden);
+        } else {
+            ajustarCarga(orden.idMecanico, orden.nombreMecanico, 1, orden.minutos);
+        }
+    }
+
+    private void quitar(Long idOrden) {
+        OrdenEnCola anterior = ordenes.remove(idOrden);
+        if (anterior == null) {
+            return;
+        }
+        if (anterior.idMecanico == null) {
+            pendientes.remove(anterior);
+        } else {
+            ajustarCarga(anterior.idMecanico, anterior.nombreMecanico, -1, -anterior.minutos);
+        }
+    }
+
+    private synchronized void descartarMecanico(long idMecanico) {
+        CargaMecanico carga = cargas.get(idMecanico);
+        if (carga == null || !carga.elegible) {
+            return;
+        }
+        mecanicosPorCarga.remove(carga);
+        if (carga.ordenes > 0) {
+            CargaMecanico descartada = new CargaMecanico(carga.idMecanico, carga.nombre, false);
+            descartada.ordenes = carga.ordenes;
+            descartada.minutos = carga.minutos;
+            cargas.put(idMecanico, descartada);
+        } else {
+            cargas.remove(idMecanico);
+        }
+    }
+
+    private void ajustarCarga(Long idMecanico, String nombre, int deltaOrdenes, long deltaMinutos) {
+        CargaMecanico carga = cargas.get(idMecanico);
+        if (carga == null) {
+            // Orden asignada a un usuario que no es mecánico activo: se contabiliza, pero no recibe asignaciones
+            carga = new CargaMecanico(idMecanico, nombre, false);
+            cargas.put(idMecanico, carga);
+        }
+        if (carga.elegible) {
+            mecanicosPorCarga.remove(carga);
+        }
+        carga.ordenes += deltaOrdenes;
+        carga.minutos += deltaMinutos;
+        if (carga.elegible) {
+            mecanicosPorCarga.add(carga);
+        } else if (carga.ordenes <= 0) {
+            cargas.remove(idMecanico);
+        }
+    }
+
+    /**
+     * Orden activa tal como la ve el despacho (inmutable: se reemplaza en cada cambio)
+     */
+    private static final class OrdenEnCola {
+        private final long idOrden;
+        private final String prioridad;
+        private final LocalDateTime fechaIngreso;
+        private final long minutos;
+        private final long version;
+        private final Long idMecanico;
+        private final String nombreMecanico;
+
+        private OrdenEnCola(long idOrden, String prioridad, LocalDateTime fechaIngreso, long minutos, long version,
+                            Long idMecanico, String nombreMecanico) {
+            this.idOrden = idOrden;
+            this.prioridad = prioridad;
+            this.fechaIngreso = fechaIngreso;
+            this.minutos = minutos;
+            this.version = version;
+            this.idMecanico = idMecanico;
+            this.nombreMecanico = nombreMecanico;
+        }
+
+        private OrdenEnCola conMecanico(Long idMecanico, String nombreMecanico) {
+            return new OrdenEnCola(idOrden, prioridad, fechaIngreso, minutos, version, idMecanico, nombreMecanico);
+        }
+    }
+
+    /**
+     * Carga acumulada de un mecánico (se saca de mecanicosPorCarga antes de modificarla)
+     */
+    private static final class CargaMecanico {
+        private final long idMecanico;
+        private final String nombre;
+        private final boolean elegible;
+        private int ordenes;
+        private long minutos;
+
+        private CargaMecanico(long idMecanico, String nombre, boolean elegible) {
+            this.idMecanico = idMecanico;
+            this.nombre = nombre;
+            this.elegible = elegible;
+        }
+    }
+}
@@ -3,16 +3,22 @@ package com.tallermoto.service;
 import com.tallermoto.entity.DetalleOrden;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Servicio;
+import com.tallermoto.event.OrdenModificadaEvent;
 import com.tallermoto.repository.DetalleOrdenRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -23,9 +29,28 @@ import java.util.Optional;
 @Transactional
 public class DetalleOrdenService {
 
+    // Copia en una sola sentencia los servicios de una orden a otra (los ya presentes en destino se omiten)
+    private static final String SQL_CLONAR_DETALLES =
+            "INSERT INTO detalle_orden (id_orden, id_servicio, precio_aplicado, observaciones) " +
+            "SELECT :idDestino, d.id_servicio, " +
+            "CASE WHEN :preciosActuales THEN s.precio_base ELSE d.precio_aplicado END, d.observaciones " +
+            "FROM detalle_orden d JOIN servicios s ON s.id_servicio = d.id_servicio " +
+            "WHERE d.id_orden = :idOrigen ORDER BY d.id_detalle " +
+            "ON CONFLICT (id_orden, id_servicio) DO NOTHING " +
+            "RETURNING id_detalle, precio_aplicado";
+
     @Autowired
     private DetalleOrdenRepository detalleOrdenRepository;
 
+    @Autowired
+    private OrdenTotalesService ordenTotalesService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
     // ===============================
     // OPERACIONES CRUD BÁSICAS
     // ===============================
@@ -42,7 +67,10 @@ public class DetalleOrdenService {
                 detalleOrden.getServicio().getIdServicio());
         }
         
-        return detalleOrdenRepository.save(detalleOrden);
+        DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleGuardado), detalleGuardado.getPrecioAplicado());
+        notificarCambioServicios(idOrdenDe(detalleGuardado));
+        return detalleGuardado;
     }
 
     /**
@@ -79,6 +107,8 @@ public class DetalleOrdenService {
         }
 
         DetalleOrden detalleOrden = detalleOrdenExistente.get();
+        Long idOrdenAnterior = idOrdenDe(detalleOrden);
+        BigDecimal precioAnterior = detalleOrden.getPrecioAplicado();
         
         // Validar constraint UNIQUE si se está cambiando orden o servicio
         if (!detalleOrden.getOrdenTrabajo().equals(detalleOrdenActualizado.getOrdenTrabajo()) ||
@@ -103,17 +133,26 @@ public class DetalleOrdenService {
         }
         detalleOrden.setObservaciones(detalleOrdenActualizado.getObservaciones());
 
-        return detalleOrdenRepository.save(detalleOrden);
+        DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
+        // Ajustar totales: se retira el importe anterior y se suma el nuevo (pueden ser órdenes distintas)
+        ordenTotalesService.aplicarDeltaServicios(idOrdenAnterior, negar(precioAnterior));
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleGuardado), detalleGuardado.getPrecioAplicado());
+        notificarCambioServicios(idOrdenAnterior);
+        if (!Objects.equals(idOrdenAnterior, idOrdenDe(detalleGuardado))) {
+            notificarCambioServicios(idOrdenDe(detalleGuardado));
+        }
+        return detalleGuardado;
     }
 
     /**
      * Eliminar detalle de orden permanentemente
      */
     public void eliminarDetalleOrden(Long id) {
-        if (!detalleOrdenRepository.existsById(id)) {
-            throw new IllegalArgumentException("No se encontró el detalle de orden con ID: " + id);
-        }
-        detalleOrdenRepository.deleteById(id);
+        DetalleOrden detalleOrden = detalleOrdenRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("No se encontró el detalle de orden con ID: " + id));
+        detalleOrdenRepository.delete(detalleOrden);
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleOrden), negar(detalleOrden.getPrecioAplicado()));
+        notificarCambioServicios(idOrdenDe(detalleOrden));
     }
 
     // ===============================
@@ -391,7 +430,10 @@ public class DetalleOrdenService {
         }
         
         DetalleOrden detalleOrden = new DetalleOrden(ordenTrabajo, servicio, precioAplicado, observaciones);
-        return detalleOrdenRepository.save(detalleOrden);
+        DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleGuardado), precioAplicado);
+        notificarCambioServicios(idOrdenDe(detalleGuardado));
+        return detalleGuardado;
     }
 
     /**
@@ -404,6 +446,8 @@ public class DetalleOrdenService {
         }
         
         detalleOrdenRepository.delete(detalleOrden.get());
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleOrden.get()), negar(detalleOrden.get().getPrecioAplicado()));
+        notificarCambioServicios(idOrdenDe(detalleOrden.get()));
     }
 
     /**
@@ -416,8 +460,12 @@ public class DetalleOrdenService {
         }
         
         DetalleOrden detalleOrden = detalleOrdenOpt.get();
+        BigDecimal precioAnterior = detalleOrden.getPrecioAplicado();
         detalleOrden.setPrecioAplicado(nuevoPrecio);
-        return detalleOrdenRepository.save(detalleOrden);
+        DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
+        ordenTotalesService.aplicarDeltaServicios(idOrdenDe(detalleGuardado), diferencia(nuevoPrecio, precioAnterior));
+        notificarCambioServicios(idOrdenDe(detalleGuardado));
+        return detalleGuardado;
     }
 
     /**
@@ -451,22 +499,68 @@ public class DetalleOrdenService {
     public void eliminarTodosLosDetallesDeOrden(OrdenTrabajo ordenTrabajo) {
         List<DetalleOrden> detalles = detalleOrdenRepository.findByOrdenTrabajo(ordenTrabajo);
         detalleOrdenRepository.deleteAll(detalles);
+        ordenTotalesService.aplicarDeltaServicios(ordenTrabajo.getIdOrden(), negar(sumarPrecios(detalles)));
+        notificarCambioServicios(ordenTrabajo.getIdOrden());
     }
 
     /**
      * Clonar detalles de una orden a otra orden
      */
     public List<DetalleOrden> clonarDetallesAOtraOrden(OrdenTrabajo ordenOrigen, OrdenTrabajo ordenDestino) {
-        List<DetalleOrden> detallesOrigen = detalleOrdenRepository.findByOrdenTrabajo(ordenOrigen);
-        List<DetalleOrden> detallesNuevos = detallesOrigen.stream()
-                .map(detalle -> new DetalleOrden(
-                    ordenDestino,
-                    detalle.getServicio(),
-                    detalle.getPrecioAplicado(),
-                    detalle.getObservaciones()
-                ))
-                .toList();
-        
-        return detalleOrdenRepository.saveAll(detallesNuevos);
+        List<Long> idsNuevos = clonarDetalles(ordenOrigen.getIdOrden(), ordenDestino.getIdOrden(), false);
+        return detalleOrdenRepository.findAllById(idsNuevos);
+    }
+
+    /**
+     * Copiar los servicios de una orden a otra con un único INSERT ... SELECT
+     * @param preciosActuales true para aplicar el precio base vigente del servicio en lugar del de la orden origen
+     * @return ids de los detalles creados
+     */
+    public List<Long> clonarDetalles(Long idOrdenOrigen, Long idOrdenDestino, boolean preciosActuales) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idOrigen", idOrdenOrigen)
+                .addValue("idDestino", idOrdenDestino)
+                .addValue("preciosActuales", preciosActuales);
+        List<Long> idsNuevos = new ArrayList<>();
+        BigDecimal[] importe = {BigDecimal.ZERO};
+        namedParameterJdbcTemplate.query(SQL_CLONAR_DETALLES, parametros, rs -> {
+            idsNuevos.add(rs.getLong("id_detalle"));
+            importe[0] = importe[0].add(rs.getBigDecimal("precio_aplicado"));
+        });
+
+        if (!idsNuevos.isEmpty()) {
+            ordenTotalesService.aplicarDeltaServicios(idOrdenDestino, importe[0]);
+            notificarCambioServicios(idOrdenDestino);
+        }
+        return idsNuevos;
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES DE TOTALES
+    // ===============================
+
+    private void notificarCambioServicios(Long idOrden) {
+        if (idOrden != null) {
+            eventPublisher.publishEvent(new OrdenModificadaEvent(idOrden, OrdenModificadaEvent.SERVICIOS));
+        }
+    }
+
+    private Long idOrdenDe(DetalleOrden detalleOrden) {
+        return detalleOrden.getOrdenTrabajo() != null ? detalleOrden.getOrdenTrabajo().getIdOrden() : null;
+    }
+
+    private BigDecimal sumarPrecios(List<DetalleOrden> detalles) {
+        return detalles.stream()
+                .map(DetalleOrden::getPrecioAplicado)
+                .filter(precio -> precio != null)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private BigDecimal diferencia(BigDecimal nuevo, BigDecimal anterior) {
+        return (nuevo != null ? nuevo : BigDecimal.ZERO).subtract(anterior != null ? anterior : BigDecimal.ZERO);
+    }
+
+    private BigDecimal negar(BigDecimal importe) {
+        return importe != null ? importe.negate() : null;
     }
 }
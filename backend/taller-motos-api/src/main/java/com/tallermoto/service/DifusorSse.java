@@ -0,0 +1,244 @@
+package com.tallermoto.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Reparto de eventos a suscriptores Server-Sent Events (lo usan OrdenEventosService y AlertaStockService)
+ *
+ * Quien publica solo hace offer() sobre la cola acotada de cada suscriptor y nunca se bloquea.
+ * Un pool pequeño hace los envíos, como máximo LOTE_ENVIO por turno para no acaparar un hilo.
+ * Si un suscriptor no consume a tiempo se descartan sus eventos más antiguos y se le envía el evento de
+ * resincronización; si un envío queda bloqueado más de ENVIO_BLOQUEADO_MS se cierra la conexión.
+ *
+ * @param <T> evento que se envía (se serializa como JSON)
+ * @param <D> datos de cada suscriptor con los que quien publica decide si le interesa un evento
+ */
+final class DifusorSse<T, D> {
+
+    private static final int LOTE_ENVIO = 64;
+    private static final long TIMEOUT_CONEXION_MS = 30 * 60 * 1000L;
+    private static final long ENVIO_BLOQUEADO_MS = 30 * 1000L;
+
+    private final String nombreEvento;
+    private final String descripcion;
+    private final int capacidadSuscriptor;
+    private final int maximoSuscriptores;
+    private final Supplier<T> resincronizar;
+
+    private final Set<Suscriptor<T, D>> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicInteger contadorHilos = new AtomicInteger();
+    private final ExecutorService envios;
+
+    /**
+     * @param nombreHilos prefijo de los hilos de envío
+     * @param descripcion qué se difunde, para los mensajes de error ("eventos", "alertas")
+     * @param resincronizar evento que se envía a un suscriptor que perdió eventos
+     */
+    DifusorSse(String nombreHilos, int hilos, String nombreEvento, String descripcion, int capacidadSuscriptor,
+               int maximoSuscriptores, Supplier<T> resincronizar) {
+        this.nombreEvento = nombreEvento;
+        this.descripcion = descripcion;
+        this.capacidadSuscriptor = capacidadSuscriptor;
+        this.maximoSuscriptores = maximoSuscriptores;
+        this.resincronizar = resincronizar;
+        this.envios = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, nombreHilos + "-" + contadorHilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Abrir un canal
+     * @throws IllegalStateException si se alcanzó el máximo de suscriptores
+     */
+    SseEmitter suscribir(D datos) {
+        if (suscriptores.size() >= maximoSuscriptores) {
+            throw new IllegalStateException("Se alcanzó el máximo de conexiones de " + descripcion);
+        }
+        SseEmitter emisor = new SseEmitter(TIMEOUT_CONEXION_MS);
+        Suscriptor<T, D> suscriptor = new Suscriptor<>(emisor, datos, capacidadSuscriptor);
+        emisor.onCompletion(() -> suscriptores.remove(suscriptor));
+        emisor.onTimeout(() -> cerrar(suscriptor, null));
+        emisor.onError(error -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        return emisor;
+    }
+
+    int contar() {
+        return suscriptores.size();
+    }
+
+    boolean estaVacio() {
+        return suscriptores.isEmpty();
+    }
+
+    /**
+     * Encolar el evento para los suscriptores interesados, sin enviarlo todavía (ver programarEnvios)
+     */
+    void publicar(T evento, Predicate<D> interesado) {
+        for (Suscriptor<T, D> suscriptor : suscriptores) {
+            if (interesado.test(suscriptor.datos)) {
+                suscriptor.ofrecer(evento);
+            }
+        }
+    }
+
+    /**
+     * Programar el envío de los suscriptores con eventos encolados
+     */
+    void programarEnvios() {
+        for (Suscriptor<T, D> suscriptor : suscriptores) {
+            if (!suscriptor.cola.isEmpty()) {
+                programarEnvio(suscriptor);
+            }
+        }
+    }
+
+    /**
+     * Pedir a todos los suscriptores que resincronicen (p. ej. se perdieron eventos antes de repartirlos)
+     */
+    void resincronizarTodos() {
+        for (Suscriptor<T, D> suscriptor : suscriptores) {
+            suscriptor.desbordado.set(true);
+            programarEnvio(suscriptor);
+        }
+    }
+
+    /**
+     * Mantener vivas las conexiones y cerrar las que llevan demasiado tiempo bloqueadas en un envío
+     */
+    void enviarLatidos() {
+        long ahora = System.currentTimeMillis();
+        for (Suscriptor<T, D> suscriptor : suscriptores) {
+            long inicio = suscriptor.envioIniciado;
+            if (inicio > 0 && ahora - inicio > ENVIO_BLOQUEADO_MS) {
+                cerrar(suscriptor, new IOException("Consumidor lento: envío bloqueado"));
+                continue;
+            }
+            suscriptor.latidoPendiente = true;
+            programarEnvio(suscriptor);
+        }
+    }
+
+    void detener() {
+        for (Suscriptor<T, D> suscriptor : suscriptores) {
+            cerrar(suscriptor, null);
+        }
+        envios.shutdownNow();
+    }
+
+    // ===============================
+    // ENVÍO
+    // ===============================
+
+    private void programarEnvio(Suscriptor<T, D> suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            try {
+                envios.execute(() -> enviar(suscriptor));
+            } catch (RejectedExecutionException e) {
+                suscriptor.enviando.set(false);
+            }
+        }
+    }
+
+    /**
+     * Enviar como máximo LOTE_ENVIO eventos y ceder el hilo; si quedan eventos se vuelve a programar
+     */
+    private void enviar(Suscriptor<T, D> suscriptor) {
+        try {
+            suscriptor.envioIniciado = System.currentTimeMillis();
+            if (suscriptor.desbordado.getAndSet(false)) {
+                suscriptor.cola.clear();
+                enviarEvento(suscriptor, resincronizar.get());
+            }
+            for (int i = 0; i < LOTE_ENVIO; i++) {
+                T evento = suscriptor.cola.poll();
+                if (evento == null) {
+                    break;
+                }
+                enviarEvento(suscriptor, evento);
+            }
+            if (suscriptor.latidoPendiente) {
+                suscriptor.latidoPendiente = false;
+                suscriptor.emisor.send(SseEmitter.event().comment("latido"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            cerrar(suscriptor, null);
+        } finally {
+            suscriptor.envioIniciado = 0;
+            suscriptor.enviando.set(false);
+        }
+        if (!suscriptor.cola.isEmpty() && suscriptores.contains(suscriptor)) {
+            programarEnvio(suscriptor);
+        }
+    }
+
+    private void enviarEvento(Suscriptor<T, D> suscriptor, T evento) throws IOException {
+        suscriptor.emisor.send(SseEmitter.event()
+                .id(String.valueOf(secuencia.incrementAndGet()))
+                .name(nombreEvento)
+                .data(evento, MediaType.APPLICATION_JSON));
+    }
+
+    private void cerrar(Suscriptor<T, D> suscriptor, Throwable causa) {
+        if (suscriptores.remove(suscriptor)) {
+            try {
+                if (causa != null) {
+                    suscriptor.emisor.completeWithError(causa);
+                } else {
+                    suscriptor.emisor.complete();
+                }
+            } catch (RuntimeException e) {
+                // La conexión ya estaba cerrada
+            }
+        }
+    }
+
+    // ===============================
+    // SUSCRIPTOR
+    // ===============================
+
+    private static final class Suscriptor<T, D> {
+
+        private final SseEmitter emisor;
+        private final D datos;
+        private final BlockingQueue<T> cola;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean desbordado = new AtomicBoolean();
+        private volatile boolean latidoPendiente;
+        private volatile long envioIniciado;
+
+        private Suscriptor(SseEmitter emisor, D datos, int capacidad) {
+            this.emisor = emisor;
+            this.datos = datos;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+        }
+
+        /**
+         * Agregar sin bloquear; si la cola está llena se descarta lo más antiguo y se pide resincronizar
+         */
+        private void ofrecer(T evento) {
+            while (!cola.offer(evento)) {
+                cola.poll();
+                desbordado.set(true);
+            }
+        }
+    }
+}
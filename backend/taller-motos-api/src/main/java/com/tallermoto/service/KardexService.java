@@ -0,0 +1,287 @@
+package com.tallermoto.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tallermoto.dto.KardexMovimientoDTO;
+import com.tallermoto.dto.StockHistoricoDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Servicio del kardex (tarjeta de existencias) de repuestos
+ *
+ * Recorre repuesto_movimientos de un repuesto o de una categoría con un cursor de solo avance (tamaño de
+ * lectura fijo, dentro de una transacción de solo lectura) y escribe cada línea directamente en la respuesta,
+ * en CSV o NDJSON, calculando el saldo acumulado y su valorización al pasar. La memoria usada no depende
+ * del largo del historial.
+ *
+ * Con fecha desde, el saldo inicial de cada repuesto se obtiene de los cierres diarios; sin ella, del stock
+ * anterior de su primer movimiento. El precio de cada línea es el del cierre del día anterior al movimiento
+ * (el vigente ese día), o el actual si ese cierre ya se purgó.
+ */
+@Service
+public class KardexService {
+
+    public static final String FORMATO_CSV = "csv";
+    public static final String FORMATO_NDJSON = "ndjson";
+    public static final String TIPO_SALDO_INICIAL = "SALDO_INICIAL";
+
+    private static final int TAMANO_LECTURA = 500;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private static final String CABECERA_CSV =
+            "id_movimiento,id_repuesto,codigo,nombre,fecha,tipo_movimiento,referencia,usuario,cantidad,variacion," +
+            "saldo,stock_registrado,precio_unitario,valor_movimiento,valor_saldo";
+
+    private static final String SQL_KARDEX =
+            "SELECT m.id_movimiento, m.id_repuesto, r.codigo, r.nombre, m.fecha_movimiento, m.tipo_movimiento, " +
+            "m.cantidad, m.stock_anterior, m.stock_nuevo, m.referencia, u.nombre_completo, " +
+            "COALESCE(c.precio_unitario, r.precio_unitario) AS precio_unitario " +
+            "FROM repuesto_movimientos m " +
+            "JOIN repuestos r ON r.id_repuesto = m.id_repuesto " +
+            "LEFT JOIN usuarios u ON u.id_usuario = m.usuario_movimiento " +
+            "LEFT JOIN repuesto_cierres c ON c.id_repuesto = m.id_repuesto " +
+            "AND c.fecha_cierre = CAST(m.fecha_movimiento AS DATE) - 1 ";
+
+    private static final String FILTRO_REPUESTO = "WHERE m.id_repuesto = :idRepuesto ";
+    private static final String FILTRO_CATEGORIA = "WHERE r.categoria = :categoria ";
+    private static final String FILTRO_DESDE = "AND m.fecha_movimiento > :desde ";
+    private static final String FILTRO_HASTA = "AND m.fecha_movimiento <= :hasta ";
+    private static final String ORDEN = "ORDER BY m.id_repuesto, m.fecha_movimiento, m.id_movimiento";
+
+    private static final String SQL_EXISTE_REPUESTO = "SELECT COUNT(*) FROM repuestos WHERE id_repuesto = ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CierreInventarioService cierreInventarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Plantilla propia con tamaño de lectura fijo: dentro de una transacción PostgreSQL usa un cursor
+    private NamedParameterJdbcTemplate cursor;
+    private TransactionTemplate lectura;
+
+    @PostConstruct
+    public void iniciar() {
+        JdbcTemplate plantilla = new JdbcTemplate(dataSource);
+        plantilla.setFetchSize(TAMANO_LECTURA);
+        cursor = new NamedParameterJdbcTemplate(plantilla);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    /**
+     * Validar la consulta y preparar la escritura del kardex
+     * Los saldos iniciales se calculan aquí (antes de empezar a responder); los movimientos se leen al escribir
+     * @param idRepuesto repuesto a listar; excluyente con categoria
+     * @param categoria categoría a listar (un kardex por repuesto, uno tras otro)
+     */
+    public StreamingResponseBody prepararKardex(Long idRepuesto, String categoria, LocalDateTime desde,
+                                                LocalDateTime hasta, String formato) {
+        if ((idRepuesto == null) == (categoria == null || categoria.isBlank())) {
+            throw new IllegalArgumentException("Debe indicar un repuesto o una categoría");
+        }
+        if (!FORMATO_CSV.equals(formato) && !FORMATO_NDJSON.equals(formato)) {
+            throw new IllegalArgumentException("Formato no válido: " + formato);
+        }
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SQL_KARDEX);
+        TreeMap<Long, StockHistoricoDTO> saldosIniciales = new TreeMap<>();
+        if (idRepuesto != null) {
+            Integer existe = jdbcTemplate.queryForObject(SQL_EXISTE_REPUESTO, Integer.class, idRepuesto);
+            if (existe == null || existe == 0) {
+                throw new IllegalArgumentException("No se encontró el repuesto con ID: " + idRepuesto);
+            }
+            sql.append(FILTRO_REPUESTO);
+            parametros.addValue("idRepuesto", idRepuesto);
+            if (desde != null) {
+                cierreInventarioService.obtenerStockEnFecha(idRepuesto, desde)
+                        .ifPresent(saldo -> saldosIniciales.put(saldo.getIdRepuesto(), saldo));
+            }
+        } else {
+            sql.append(FILTRO_CATEGORIA);
+            parametros.addValue("categoria", categoria);
+            if (desde != null) {
+                for (StockHistoricoDTO saldo : cierreInventarioService.obtenerCategoriaEnFecha(categoria, desde)) {
+                    saldosIniciales.put(saldo.getIdRepuesto(), saldo);
+                }
+            }
+        }
+        if (desde != null) {
+            sql.append(FILTRO_DESDE);
+            parametros.addValue("desde", Timestamp.valueOf(desde));
+        }
+        if (hasta != null) {
+            sql.append(FILTRO_HASTA);
+            parametros.addValue("hasta", Timestamp.valueOf(hasta));
+        }
+        sql.append(ORDEN);
+
+        boolean csv = FORMATO_CSV.equals(formato);
+        return salida -> {
+            Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+            if (csv) {
+                escritor.write(CABECERA_CSV);
+                escritor.write('\n');
+            }
+            Recorrido recorrido = new Recorrido(escritor, csv, saldosIniciales);
+            try {
+                lectura.executeWithoutResult(estado ->
+                        cursor.query(sql.toString(), parametros, rs -> {
+                            recorrido.movimiento(
+                                    rs.getLong("id_movimiento"),
+                                    rs.getLong("id_repuesto"),
+                                    rs.getString("codigo"),
+                                    rs.getString("nombre"),
+                                    rs.getTimestamp("fecha_movimiento").toLocalDateTime(),
+                                    rs.getString("tipo_movimiento"),
+                                    rs.getString("referencia"),
+                                    rs.getString("nombre_completo"),
+                                    rs.getInt("cantidad"),
+                                    rs.getInt("stock_anterior"),
+                                    rs.getInt("stock_nuevo"),
+                                    rs.getBigDecimal("precio_unitario"));
+                        }));
+                recorrido.terminar();
+            } catch (UncheckedIOException e) {
+                // El cliente cerró la conexión: la lectura ya se canceló
+                throw e.getCause();
+            }
+            escritor.flush();
+        };
+    }
+
+    /**
+     * Estado de la escritura: repuesto en curso, su saldo y los saldos iniciales pendientes de escribir
+     */
+    private final class Recorrido {
+
+        private final Writer escritor;
+        private final boolean csv;
+        private final Iterator<Map.Entry<Long, StockHistoricoDTO>> pendientes;
+        private Map.Entry<Long, StockHistoricoDTO> siguiente;
+        private Long idActual;
+        private int saldo;
+
+        private Recorrido(Writer escritor, boolean csv, TreeMap<Long, StockHistoricoDTO> saldosIniciales) {
+            this.escritor = escritor;
+            this.csv = csv;
+            this.pendientes = saldosIniciales.entrySet().iterator();
+            this.siguiente = pendientes.hasNext() ? pendientes.next() : null;
+        }
+
+        private void movimiento(long idMovimiento, long idRepuesto, String codigo, String nombre, LocalDateTime fecha,
+                                String tipo, String referencia, String usuario, int cantidad, int stockAnterior,
+                                int stockNuevo, BigDecimal precio) {
+            if (idActual == null || idActual != idRepuesto) {
+                // Repuestos sin movimientos en el período (anteriores a este): solo su saldo inicial
+                escribirSaldosInicialesHasta(idRepuesto - 1);
+                idActual = idRepuesto;
+                if (siguiente != null && siguiente.getKey() == idRepuesto) {
+                    saldo = siguiente.getValue().getStock();
+                    escribirSaldoInicial(siguiente.getValue());
+                    avanzar();
+                } else {
+                    saldo = stockAnterior;
+                }
+            }
+            int variacion = stockNuevo - stockAnterior;
+            saldo += variacion;
+            escribir(new KardexMovimientoDTO(idMovimiento, idRepuesto, codigo, nombre, fecha, tipo, referencia, usuario,
+                    cantidad, variacion, saldo, stockNuevo, precio,
+                    precio.multiply(BigDecimal.valueOf(variacion)), precio.multiply(BigDecimal.valueOf(saldo))));
+        }
+
+        private void terminar() {
+            escribirSaldosInicialesHasta(Long.MAX_VALUE);
+        }
+
+        private void escribirSaldosInicialesHasta(long idRepuesto) {
+            while (siguiente != null && siguiente.getKey() <= idRepuesto) {
+                escribirSaldoInicial(siguiente.getValue());
+                avanzar();
+            }
+        }
+
+        private void escribirSaldoInicial(StockHistoricoDTO inicial) {
+            escribir(new KardexMovimientoDTO(null, inicial.getIdRepuesto(), inicial.getCodigo(), inicial.getNombre(),
+                    inicial.getFecha(), TIPO_SALDO_INICIAL, null, null, null, null, inicial.getStock(), null,
+                    inicial.getPrecioUnitario(), null, inicial.getValor()));
+        }
+
+        private void avanzar() {
+            siguiente = pendientes.hasNext() ? pendientes.next() : null;
+        }
+
+        private void escribir(KardexMovimientoDTO linea) {
+            try {
+                if (csv) {
+                    escribirCsv(linea);
+                } else {
+                    escritor.write(objectMapper.writeValueAsString(linea));
+                }
+                escritor.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void escribirCsv(KardexMovimientoDTO linea) throws IOException {
+            Object[] campos = {linea.getIdMovimiento(), linea.getIdRepuesto(), linea.getCodigo(), linea.getNombre(),
+                    linea.getFecha(), linea.getTipoMovimiento(), linea.getReferencia(), linea.getUsuario(),
+                    linea.getCantidad(), linea.getVariacion(), linea.getSaldo(), linea.getStockRegistrado(),
+                    linea.getPrecioUnitario(), linea.getValorMovimiento(), linea.getValorSaldo()};
+            for (int i = 0; i < campos.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                if (campos[i] != null) {
+                    escritor.write(campoCsv(campos[i].toString()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Campo CSV: entre comillas (duplicando las internas) solo si contiene separadores, comillas o saltos de línea
+     */
+    static String campoCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
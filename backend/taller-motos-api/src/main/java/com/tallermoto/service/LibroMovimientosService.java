@@ -0,0 +1,667 @@
+package com.tallermoto.service;
+
+import com.tallermoto.event.StockModificadoEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Libro de movimientos de inventario con escritura diferida
+ *
+ * Los cambios de stock no insertan su movimiento en la misma sentencia: lo entregan a este servicio.
+ * Antes del commit de la transacción que cambió el stock, los movimientos se anotan en un diario local
+ * (archivo de solo anexado sincronizado a disco). Tras el commit pasan a una cola acotada, y un hilo propio
+ * la vacía en lotes JDBC cuando junta un lote completo o vence el intervalo.
+ *
+ * Cada movimiento lleva un id_diario único, así que reintentar un lote no duplica filas, y el id de la
+ * transacción que lo originó. La tabla está particionada por fecha: la unicidad es sobre (id_diario,
+ * fecha_movimiento), y basta porque el diario conserva la fecha original de cada movimiento. Al arrancar se reprocesa el diario e insertan solo los movimientos cuya
+ * transacción consta como confirmada (txid_status). Así no se pierden los que quedaron en la cola
+ * ni se registran los de transacciones revertidas.
+ *
+ * El diario se reparte en segmentos; un segmento cerrado se borra cuando todos sus movimientos
+ * están en la base de datos o se descartaron.
+ *
+ * Al encolar los movimientos confirmados se publica un StockModificadoEvent, así quienes siguen el stock
+ * (alertas, autocompletado) se enteran del cambio sin esperar a que el lote llegue a la base de datos.
+ * El pronóstico de consumo, que se guarda en la base de datos, se actualiza en cambio dentro de la transacción
+ * de cada lote y solo con los movimientos que el lote inserta por primera vez.
+ */
+@Service
+public class LibroMovimientosService {
+
+    private static final long TAMANO_SEGMENTO = 4L * 1024 * 1024;
+    private static final String PREFIJO_SEGMENTO = "libro-";
+    private static final String EXTENSION_SEGMENTO = ".log";
+    private static final int LOTE_ESTADOS = 1000;
+    private static final int LONGITUD_REFERENCIA = 100;
+
+    // Movimientos anotados fuera de una transacción: la sentencia ya estaba confirmada al anotarlos
+    private static final long SIN_TRANSACCION = 0L;
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO repuesto_movimientos (id_repuesto, tipo_movimiento, cantidad, stock_anterior, stock_nuevo, " +
+            "referencia, usuario_movimiento, fecha_movimiento, id_diario) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id_diario, fecha_movimiento) DO NOTHING";
+
+    // Movimientos del lote ya insertados (reproceso del diario o reintento tras un commit sin respuesta)
+    private static final String SQL_YA_INSERTADOS =
+            "SELECT id_diario FROM repuesto_movimientos " +
+            "WHERE id_diario IN (:ids) AND fecha_movimiento BETWEEN :desde AND :hasta";
+
+    private static final String SQL_TRANSACCION_ACTUAL = "SELECT txid_current()";
+
+    private static final String SQL_ESTADOS_TRANSACCION =
+            "SELECT x AS xid, txid_status(x) AS estado FROM unnest(CAST(ARRAY[:xids] AS BIGINT[])) AS x";
+
+    @Value("${app.libro.directorio:data/libro-movimientos}")
+    private String directorio;
+
+    @Value("${app.libro.lote:500}")
+    private int tamanoLote;
+
+    @Value("${app.libro.intervalo-ms:200}")
+    private long intervaloMs;
+
+    @Value("${app.libro.capacidad:10000}")
+    private int capacidad;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PronosticoConsumoService pronosticoConsumoService;
+
+    private final Object bloqueoDiario = new Object();
+    private final AtomicLong secuenciaSegmentos = new AtomicLong();
+
+    private BlockingQueue<Movimiento> cola;
+    private Path carpeta;
+    private Segmento segmentoActual;
+    private Thread escritor;
+    private volatile boolean activo = true;
+
+    // ===============================
+    // CICLO DE VIDA
+    // ===============================
+
+    /**
+     * Reprocesar el diario pendiente y arrancar el hilo escritor
+     * Se ejecuta antes que cualquier servicio que lea repuesto_movimientos al arrancar (p. ej. la recuperación de reservas)
+     */
+    @PostConstruct
+    public void iniciar() {
+        try {
+            carpeta = Paths.get(directorio);
+            Files.createDirectories(carpeta);
+            reprocesarDiario();
+            synchronized (bloqueoDiario) {
+                segmentoActual = abrirSegmento();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo abrir el diario de movimientos en " + directorio, e);
+        }
+        cola = new ArrayBlockingQueue<>(capacidad);
+        escritor = new Thread(this::ejecutarEscritor, "libro-movimientos");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Vaciar la cola antes de apagar; lo que no se pueda escribir queda en el diario para el próximo arranque
+     */
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (bloqueoDiario) {
+            segmentoActual.cerrar();
+        }
+    }
+
+    // ===============================
+    // REGISTRO DE MOVIMIENTOS
+    // ===============================
+
+    /**
+     * Registrar un movimiento de inventario
+     * Dentro de una transacción se anota en el diario antes del commit y se encola solo si la transacción se confirma;
+     * si la anotación falla, la transacción se revierte (no hay cambio de stock sin movimiento).
+     * Sin transacción el cambio de stock ya está confirmado: si la anotación falla el movimiento se encola igual,
+     * pero sin respaldo en el diario, y se lanza IllegalStateException para que quien registra no lo dé por durable
+     */
+    public void registrar(Long idRepuesto, String tipoMovimiento, int cantidad, int stockAnterior, int stockNuevo,
+                          String referencia, Long idUsuario) {
+        String referenciaCorta = referencia != null && referencia.length() > LONGITUD_REFERENCIA
+                ? referencia.substring(0, LONGITUD_REFERENCIA) : referencia;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Sin transacción la sentencia que cambió el stock ya se confirmó
+            List<Movimiento> movimientos = List.of(new Movimiento(UUID.randomUUID(), SIN_TRANSACCION, idRepuesto,
+                    tipoMovimiento, cantidad, stockAnterior, stockNuevo, referenciaCorta, idUsuario, LocalDateTime.now()));
+            IOException errorDiario = null;
+            try {
+                anotar(movimientos);
+            } catch (IOException e) {
+                errorDiario = e;
+            }
+            encolar(movimientos);
+            publicar(movimientos);
+            if (errorDiario != null) {
+                throw new IllegalStateException("No se pudo anotar el movimiento de inventario en el diario; " +
+                        "se perderá si la aplicación se detiene antes de escribirlo", errorDiario);
+            }
+            return;
+        }
+
+        PendientesTransaccion pendientes = (PendientesTransaccion) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null) {
+            Long xid = jdbcTemplate.queryForObject(SQL_TRANSACCION_ACTUAL, Long.class);
+            pendientes = new PendientesTransaccion(xid);
+            TransactionSynchronizationManager.bindResource(this, pendientes);
+            TransactionSynchronizationManager.registerSynchronization(pendientes);
+        }
+        pendientes.movimientos.add(new Movimiento(UUID.randomUUID(), pendientes.xid, idRepuesto, tipoMovimiento,
+                cantidad, stockAnterior, stockNuevo, referenciaCorta, idUsuario, LocalDateTime.now()));
+    }
+
+    /**
+     * Movimientos aceptados que todavía no están en la base de datos
+     */
+    public int obtenerPendientes() {
+        return cola.size();
+    }
+
+    // ===============================
+    // DIARIO LOCAL
+    // ===============================
+
+    /**
+     * Anexar los movimientos al segmento actual y forzarlos a disco (una escritura por transacción)
+     */
+    private void anotar(List<Movimiento> movimientos) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        for (Movimiento movimiento : movimientos) {
+            texto.append(movimiento.aLinea()).append('\n');
+        }
+        ByteBuffer contenido = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+
+        synchronized (bloqueoDiario) {
+            if (segmentoActual.tamano >= TAMANO_SEGMENTO) {
+                segmentoActual.cerrar();
+                segmentoActual = abrirSegmento();
+            }
+            Segmento segmento = segmentoActual;
+            segmento.pendientes.addAndGet(movimientos.size());
+            for (Movimiento movimiento : movimientos) {
+                movimiento.segmento = segmento;
+            }
+            segmento.tamano += contenido.remaining();
+            while (contenido.hasRemaining()) {
+                segmento.canal.write(contenido);
+            }
+            segmento.canal.force(false);
+        }
+    }
+
+    /**
+     * Los movimientos ya escritos o descartados dejan de retener su segmento
+     */
+    private void liberarSegmentos(List<Movimiento> movimientos) {
+        Map<Segmento, Integer> porSegmento = new HashMap<>();
+        for (Movimiento movimiento : movimientos) {
+            if (movimiento.segmento != null) {
+                porSegmento.merge(movimiento.segmento, 1, Integer::sum);
+            }
+        }
+        porSegmento.forEach(Segmento::liberar);
+    }
+
+    private Segmento abrirSegmento() throws IOException {
+        String nombre = String.format("%s%013d-%06d%s", PREFIJO_SEGMENTO, System.currentTimeMillis(),
+                secuenciaSegmentos.incrementAndGet(), EXTENSION_SEGMENTO);
+        Path ruta = carpeta.resolve(nombre);
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return new Segmento(ruta, canal);
+    }
+
+    /**
+     * Insertar los movimientos de transacciones confirmadas que quedaron en el diario y borrar los segmentos
+     */
+    private void reprocesarDiario() throws IOException {
+        List<Path> segmentos;
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            segmentos = archivos
+                    .filter(ruta -> ruta.getFileName().toString().startsWith(PREFIJO_SEGMENTO))
+                    .filter(ruta -> ruta.getFileName().toString().endsWith(EXTENSION_SEGMENTO))
+                    .sorted()
+                    .toList();
+        }
+        if (segmentos.isEmpty()) {
+            return;
+        }
+
+        List<Movimiento> anotados = new ArrayList<>();
+        int ilegibles = 0;
+        for (Path segmento : segmentos) {
+            // Lo que sigue al último salto de línea quedó a medio escribir aunque tenga todos los campos
+            String[] lineas = new String(Files.readAllBytes(segmento), StandardCharsets.UTF_8).split("\n", -1);
+            for (int i = 0; i < lineas.length; i++) {
+                String linea = lineas[i];
+                Movimiento movimiento = i < lineas.length - 1 ? Movimiento.desdeLinea(linea) : null;
+                if (movimiento != null) {
+                    anotados.add(movimiento);
+                } else if (!linea.isEmpty()) {
+                    // Línea incompleta o dañada: su escritura no terminó, así que no se confirmó con ella
+                    ilegibles++;
+                }
+            }
+        }
+
+        Map<Long, String> estados = consultarEstadosTransaccion(anotados);
+        List<Movimiento> confirmados = new ArrayList<>();
+        boolean hayEnCurso = false;
+        for (Movimiento movimiento : anotados) {
+            String estado = movimiento.xid == SIN_TRANSACCION ? "committed" : estados.get(movimiento.xid);
+            if ("committed".equals(estado)) {
+                confirmados.add(movimiento);
+            } else if ("in progress".equals(estado)) {
+                hayEnCurso = true;
+            }
+        }
+        for (int desde = 0; desde < confirmados.size(); desde += tamanoLote) {
+            insertarAislando(confirmados.subList(desde, Math.min(desde + tamanoLote, confirmados.size())));
+        }
+
+        if (hayEnCurso) {
+            // Se conservan los segmentos: se volverán a revisar en el próximo arranque (la inserción es idempotente)
+            System.err.println("Diario de movimientos con transacciones aún en curso; se conserva para el próximo arranque");
+        } else {
+            for (Path segmento : segmentos) {
+                Files.deleteIfExists(segmento);
+            }
+        }
+        System.out.println("Diario de movimientos reprocesado: " + confirmados.size() + " de " + anotados.size() +
+                " movimientos de transacciones confirmadas" + (ilegibles > 0 ? ", " + ilegibles + " líneas ilegibles" : ""));
+    }
+
+    private Map<Long, String> consultarEstadosTransaccion(List<Movimiento> movimientos) {
+        Set<Long> xids = new HashSet<>();
+        for (Movimiento movimiento : movimientos) {
+            if (movimiento.xid != SIN_TRANSACCION) {
+                xids.add(movimiento.xid);
+            }
+        }
+        Map<Long, String> estados = new HashMap<>();
+        List<Long> pendientes = new ArrayList<>(xids);
+        for (int desde = 0; desde < pendientes.size(); desde += LOTE_ESTADOS) {
+            List<Long> bloque = pendientes.subList(desde, Math.min(desde + LOTE_ESTADOS, pendientes.size()));
+            namedParameterJdbcTemplate.query(SQL_ESTADOS_TRANSACCION, new MapSqlParameterSource("xids", bloque), rs -> {
+                estados.put(rs.getLong("xid"), rs.getString("estado"));
+            });
+        }
+        return estados;
+    }
+
+    // ===============================
+    // ESCRITURA POR LOTES
+    // ===============================
+
+    private void encolar(List<Movimiento> movimientos) {
+        try {
+            for (Movimiento movimiento : movimientos) {
+                // Cola acotada: si la base de datos no da abasto, quien registra espera (contrapresión)
+                cola.put(movimiento);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Movimientos sin encolar por interrupción; quedan en el diario hasta el próximo arranque");
+        }
+    }
+
+    /**
+     * Avisar de los movimientos confirmados; un error de un consumidor no afecta al libro
+     */
+    private void publicar(List<Movimiento> movimientos) {
+        try {
+            eventPublisher.publishEvent(new StockModificadoEvent(aCambios(movimientos)));
+        } catch (RuntimeException e) {
+            System.err.println("Error al publicar cambios de stock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: un lote sale al completarse o al vencer el intervalo desde su primer movimiento
+     */
+    private void ejecutarEscritor() {
+        List<Movimiento> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Movimiento primero = cola.poll(intervaloMs, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                while (lote.size() < tamanoLote) {
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanoLote || restante <= 0) {
+                        break;
+                    }
+                    Movimiento siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                escribirConReintentos(lote);
+                lote.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void escribirConReintentos(List<Movimiento> lote) throws InterruptedException {
+        while (true) {
+            try {
+                insertarAislando(lote);
+                liberarSegmentos(lote);
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error al escribir movimientos en la base de datos (se reintentará): " + e.getMessage());
+                if (!activo) {
+                    // Al apagar no se reintenta: el lote sigue en el diario
+                    return;
+                }
+                Thread.sleep(intervaloMs * 5);
+            }
+        }
+    }
+
+    /**
+     * Insertar un lote; si alguna fila viola una restricción (p. ej. repuesto eliminado) se inserta fila a fila
+     * y se descartan solo las que fallan, para que una fila no bloquee el libro
+     */
+    private void insertarAislando(List<Movimiento> lote) {
+        try {
+            insertar(lote);
+        } catch (DataIntegrityViolationException e) {
+            for (Movimiento movimiento : lote) {
+                try {
+                    insertar(List.of(movimiento));
+                } catch (DataIntegrityViolationException ex) {
+                    System.err.println("Movimiento descartado del libro (" + movimiento.idDiario + "): " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Insertar los movimientos del lote que aún no están en la base de datos e incorporar su consumo al pronóstico,
+     * todo en una transacción
+     */
+    private void insertar(List<Movimiento> lote) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            List<Movimiento> nuevos = sinInsertar(lote);
+            if (nuevos.isEmpty()) {
+                return;
+            }
+            List<Object[]> filas = new ArrayList<>(nuevos.size());
+            for (Movimiento movimiento : nuevos) {
+                filas.add(new Object[] {movimiento.idRepuesto, movimiento.tipoMovimiento, movimiento.cantidad,
+                        movimiento.stockAnterior, movimiento.stockNuevo, movimiento.referencia, movimiento.idUsuario,
+                        Timestamp.valueOf(movimiento.fecha), movimiento.idDiario});
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+            pronosticoConsumoService.registrarConsumo(aCambios(nuevos));
+        });
+    }
+
+    private List<Movimiento> sinInsertar(List<Movimiento> lote) {
+        List<UUID> ids = new ArrayList<>(lote.size());
+        LocalDateTime desde = lote.get(0).fecha;
+        LocalDateTime hasta = desde;
+        for (Movimiento movimiento : lote) {
+            ids.add(movimiento.idDiario);
+            desde = movimiento.fecha.isBefore(desde) ? movimiento.fecha : desde;
+            hasta = movimiento.fecha.isAfter(hasta) ? movimiento.fecha : hasta;
+        }
+        MapSqlParameterSource parametros = new MapSqlParameterSource("ids", ids)
+                .addValue("desde", Timestamp.valueOf(desde))
+                .addValue("hasta", Timestamp.valueOf(hasta));
+        Set<UUID> insertados = new HashSet<>(
+                namedParameterJdbcTemplate.queryForList(SQL_YA_INSERTADOS, parametros, UUID.class));
+        if (insertados.isEmpty()) {
+            return lote;
+        }
+        List<Movimiento> nuevos = new ArrayList<>(lote.size() - insertados.size());
+        for (Movimiento movimiento : lote) {
+            if (!insertados.contains(movimiento.idDiario)) {
+                nuevos.add(movimiento);
+            }
+        }
+        return nuevos;
+    }
+
+    private static List<StockModificadoEvent.Cambio> aCambios(List<Movimiento> movimientos) {
+        List<StockModificadoEvent.Cambio> cambios = new ArrayList<>(movimientos.size());
+        for (Movimiento movimiento : movimientos) {
+            cambios.add(new StockModificadoEvent.Cambio(movimiento.idRepuesto, movimiento.tipoMovimiento,
+                    movimiento.cantidad, movimiento.stockAnterior, movimiento.stockNuevo, movimiento.referencia,
+                    movimiento.fecha));
+        }
+        return cambios;
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    /**
+     * Movimientos registrados en la transacción actual
+     */
+    private final class PendientesTransaccion implements TransactionSynchronization {
+
+        private final long xid;
+        private final List<Movimiento> movimientos = new ArrayList<>();
+
+        private PendientesTransaccion(long xid) {
+            this.xid = xid;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            try {
+                anotar(movimientos);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo anotar el movimiento de inventario en el diario", e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int estadoTransaccion) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LibroMovimientosService.this);
+            if (estadoTransaccion == STATUS_COMMITTED) {
+                encolar(movimientos);
+                publicar(movimientos);
+            } else if (estadoTransaccion == STATUS_ROLLED_BACK) {
+                liberarSegmentos(movimientos);
+            }
+            // STATUS_UNKNOWN: quedan en el diario y se resuelven con txid_status al reprocesarlo
+        }
+    }
+
+    /**
+     * Segmento del diario; se borra cuando está cerrado y no retiene movimientos
+     */
+    private static final class Segmento {
+
+        private final Path ruta;
+        private final FileChannel canal;
+        private final AtomicInteger pendientes = new AtomicInteger();
+        private final AtomicBoolean eliminado = new AtomicBoolean();
+        private volatile boolean cerrado;
+        private long tamano;
+
+        private Segmento(Path ruta, FileChannel canal) {
+            this.ruta = ruta;
+            this.canal = canal;
+        }
+
+        private void liberar(int cantidad) {
+            if (pendientes.addAndGet(-cantidad) == 0 && cerrado) {
+                eliminar();
+            }
+        }
+
+        private void cerrar() {
+            cerrado = true;
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el segmento del diario " + ruta + ": " + e.getMessage());
+            }
+            if (pendientes.get() == 0) {
+                eliminar();
+            }
+        }
+
+        private void eliminar() {
+            if (eliminado.compareAndSet(false, true)) {
+                try {
+                    Files.deleteIfExists(ruta);
+                } catch (IOException e) {
+                    System.err.println("Error al borrar el segmento del diario " + ruta + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Movimiento de inventario pendiente de escribir; en el diario ocupa una línea separada por tabuladores
+     * (visible en el paquete para las pruebas del formato)
+     */
+    static final class Movimiento {
+
+        private final UUID idDiario;
+        private final long xid;
+        private final Long idRepuesto;
+        private final String tipoMovimiento;
+        private final int cantidad;
+        private final int stockAnterior;
+        private final int stockNuevo;
+        private final String referencia;
+        private final Long idUsuario;
+        private final LocalDateTime fecha;
+        private Segmento segmento;
+
+        Movimiento(UUID idDiario, long xid, Long idRepuesto, String tipoMovimiento, int cantidad,
+                   int stockAnterior, int stockNuevo, String referencia, Long idUsuario, LocalDateTime fecha) {
+            this.idDiario = idDiario;
+            this.xid = xid;
+            this.idRepuesto = idRepuesto;
+            this.tipoMovimiento = tipoMovimiento;
+            this.cantidad = cantidad;
+            this.stockAnterior = stockAnterior;
+            this.stockNuevo = stockNuevo;
+            this.referencia = referencia;
+            this.idUsuario = idUsuario;
+            this.fecha = fecha;
+        }
+
+        String aLinea() {
+            return String.join("\t", idDiario.toString(), String.valueOf(xid), String.valueOf(idRepuesto),
+                    tipoMovimiento, String.valueOf(cantidad), String.valueOf(stockAnterior), String.valueOf(stockNuevo),
+                    idUsuario != null ? idUsuario.toString() : "", fecha.toString(),
+                    referencia != null ? escapar(referencia) : "\\0");
+        }
+
+        /**
+         * @return el movimiento, o null si la línea está incompleta o dañada
+         */
+        static Movimiento desdeLinea(String linea) {
+            String[] campos = linea.split("\t", -1);
+            if (campos.length != 10) {
+                return null;
+            }
+            try {
+                return new Movimiento(UUID.fromString(campos[0]), Long.parseLong(campos[1]), Long.valueOf(campos[2]),
+                        campos[3], Integer.parseInt(campos[4]), Integer.parseInt(campos[5]), Integer.parseInt(campos[6]),
+                        "\\0".equals(campos[9]) ? null : desescapar(campos[9]),
+                        campos[7].isEmpty() ? null : Long.valueOf(campos[7]), LocalDateTime.parse(campos[8]));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static String escapar(String texto) {
+            return texto.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String desescapar(String texto) {
+            StringBuilder resultado = new StringBuilder(texto.length());
+            for (int i = 0; i < texto.length(); i++) {
+                char caracter = texto.charAt(i);
+                if (caracter == '\\' && i + 1 < texto.length()) {
+                    char siguiente = texto.charAt(++i);
+                    resultado.append(siguiente == 't' ? '\t' : siguiente == 'n' ? '\n' : siguiente == 'r' ? '\r' : siguiente);
+                } else {
+                    resultado.append(caracter);
+                }
+            }
+            return resultado.toString();
+        }
+    }
+}
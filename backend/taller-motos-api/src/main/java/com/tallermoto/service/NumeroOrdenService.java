@@ -0,0 +1,43 @@
+package com.tallermoto.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Servicio para la asignación de números de orden
+ * Reserva bloques de la secuencia seq_numero_orden y reparte los números en memoria,
+ * de modo que solo una de cada TAMANIO_BLOQUE órdenes consulta la base de datos
+ */
+@Service
+public class NumeroOrdenService {
+
+    // Debe coincidir con el INCREMENT BY de seq_numero_orden en schema.sql
+    static final long TAMANIO_BLOQUE = 50;
+
+    private static final String PREFIJO = "ORD-";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long siguiente = 0;
+    private long limite = 0;
+
+    /**
+     * Obtener el siguiente número de orden (ORD-000001, ORD-000002, ...)
+     * Los números son únicos entre instancias; un bloque sin agotar al reiniciar deja un hueco
+     */
+    public String siguienteNumeroOrden() {
+        return PREFIJO + String.format("%06d", siguienteValor());
+    }
+
+    private synchronized long siguienteValor() {
+        if (siguiente >= limite) {
+            // nextval es atómico y no transaccional: cada llamada reserva un bloque exclusivo
+            Long inicioBloque = jdbcTemplate.queryForObject("SELECT nextval('seq_numero_orden')", Long.class);
+            siguiente = inicioBloque;
+            limite = inicioBloque + TAMANIO_BLOQUE;
+        }
+        return siguiente++;
+    }
+}
@@ -0,0 +1,114 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.CreateOrdenTrabajoDTO;
+import com.tallermoto.dto.OrdenDetalleCompletoDTO;
+import com.tallermoto.entity.OrdenTrabajo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio para clonar las líneas de una orden de trabajo
+ * Copia servicios y repuestos con sentencias INSERT ... SELECT (una por tipo de línea),
+ * ajustando stock, movimientos y totales en la misma transacción
+ */
+@Service
+@Transactional
+public class OrdenClonacionService {
+
+    private static final List<String> ESTADOS_FINALES = List.of("ENTREGADA", "CANCELADA");
+
+    private static final String SQL_ESTADOS =
+            "SELECT id_orden, estado FROM ordenes_trabajo WHERE id_orden IN (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private OrdenTrabajoService ordenTrabajoService;
+
+    @Autowired
+    private DetalleOrdenService detalleOrdenService;
+
+    @Autowired
+    private UsoRepuestoService usoRepuestoService;
+
+    @Autowired
+    private OrdenDetalleCompletoService ordenDetalleCompletoService;
+
+    /**
+     * Copiar los servicios (y opcionalmente los repuestos) de una orden a otra existente
+     * @return la orden destino completa tras la copia
+     */
+    public OrdenDetalleCompletoDTO clonarLineas(Long idOrdenOrigen, Long idOrdenDestino,
+                                                boolean incluirRepuestos, boolean preciosActuales) {
+        if (idOrdenOrigen.equals(idOrdenDestino)) {
+            throw new IllegalArgumentException("La orden origen y la orden destino deben ser distintas");
+        }
+        validarOrdenes(idOrdenOrigen, idOrdenDestino);
+
+        copiarLineas(idOrdenOrigen, idOrdenDestino, incluirRepuestos, preciosActuales);
+        return ordenDetalleCompletoService.obtenerDetalleCompleto(idOrdenDestino);
+    }
+
+    /**
+     * Crear una orden nueva usando otra como plantilla (por ejemplo, un mantenimiento estándar)
+     * Las líneas se copian con los precios vigentes del catálogo
+     * @return la orden creada completa
+     */
+    public OrdenDetalleCompletoDTO crearDesdePlantilla(Long idOrdenPlantilla, CreateOrdenTrabajoDTO datosOrden,
+                                                       boolean incluirRepuestos) {
+        validarOrdenes(idOrdenPlantilla, null);
+
+        OrdenTrabajo nuevaOrden = ordenTrabajoService.crearOrdenTrabajoDesdeDTO(datosOrden);
+        entityManager.flush();
+
+        copiarLineas(idOrdenPlantilla, nuevaOrden.getIdOrden(), incluirRepuestos, true);
+        return ordenDetalleCompletoService.obtenerDetalleCompleto(nuevaOrden.getIdOrden());
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private void copiarLineas(Long idOrdenOrigen, Long idOrdenDestino, boolean incluirRepuestos, boolean preciosActuales) {
+        detalleOrdenService.clonarDetalles(idOrdenOrigen, idOrdenDestino, preciosActuales);
+        if (incluirRepuestos) {
+            usoRepuestoService.clonarUsos(idOrdenOrigen, idOrdenDestino, preciosActuales);
+        }
+        // Los totales y líneas se escribieron por JDBC: se descarta cualquier entidad ya cargada
+        entityManager.clear();
+    }
+
+    private void validarOrdenes(Long idOrdenOrigen, Long idOrdenDestino) {
+        List<Long> ids = idOrdenDestino != null ? List.of(idOrdenOrigen, idOrdenDestino) : List.of(idOrdenOrigen);
+        Map<Long, String> estados = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_ESTADOS, new MapSqlParameterSource("ids", ids), rs -> {
+            estados.put(rs.getLong("id_orden"), rs.getString("estado"));
+        });
+
+        if (!estados.containsKey(idOrdenOrigen)) {
+            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrdenOrigen);
+        }
+        if (idOrdenDestino != null) {
+            String estadoDestino = estados.get(idOrdenDestino);
+            if (estadoDestino == null) {
+                throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrdenDestino);
+            }
+            if (ESTADOS_FINALES.contains(estadoDestino)) {
+                throw new IllegalStateException("La orden " + idOrdenDestino + " está " + estadoDestino + " y no admite nuevas líneas");
+            }
+        }
+    }
+}
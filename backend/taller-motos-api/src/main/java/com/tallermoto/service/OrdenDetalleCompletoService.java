@@ -0,0 +1,71 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.DetalleOrdenLineaDTO;
+import com.tallermoto.dto.OrdenDetalleCompletoDTO;
+import com.tallermoto.dto.OrdenHistorialLineaDTO;
+import com.tallermoto.dto.OrdenTrabajoResponseDTO;
+import com.tallermoto.dto.PagoLineaDTO;
+import com.tallermoto.dto.UsoRepuestoLineaDTO;
+import com.tallermoto.entity.OrdenTrabajo;
+import com.tallermoto.repository.DetalleOrdenRepository;
+import com.tallermoto.repository.OrdenHistorialRepository;
+import com.tallermoto.repository.OrdenTrabajoRepository;
+import com.tallermoto.repository.PagoRepository;
+import com.tallermoto.repository.UsoRepuestoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Servicio para construir la vista completa de una orden de trabajo
+ * Reúne cabecera, servicios, repuestos, pagos e historial con una consulta fija por sección,
+ * sin importar cuántas líneas tenga la orden
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrdenDetalleCompletoService {
+
+    @Autowired
+    private OrdenTrabajoRepository ordenTrabajoRepository;
+
+    @Autowired
+    private DetalleOrdenRepository detalleOrdenRepository;
+
+    @Autowired
+    private UsoRepuestoRepository usoRepuestoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private OrdenHistorialRepository ordenHistorialRepository;
+
+    /**
+     * Obtener la orden con todas sus líneas en una sola operación (5 consultas)
+     */
+    public OrdenDetalleCompletoDTO obtenerDetalleCompleto(Long idOrden) {
+        // Cabecera con moto, cliente, mecánico y usuario creador en una sola consulta
+        List<OrdenTrabajo> ordenes = ordenTrabajoRepository.findAllWithRelationsByIdIn(List.of(idOrden));
+        if (ordenes.isEmpty()) {
+            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
+        }
+        OrdenTrabajoResponseDTO orden = new OrdenTrabajoResponseDTO(ordenes.get(0));
+
+        List<DetalleOrdenLineaDTO> servicios = detalleOrdenRepository.findLineasByIdOrden(idOrden);
+        List<UsoRepuestoLineaDTO> repuestos = usoRepuestoRepository.findLineasByIdOrden(idOrden);
+        List<PagoLineaDTO> pagos = pagoRepository.findLineasByIdOrden(idOrden);
+        List<OrdenHistorialLineaDTO> historial = ordenHistorialRepository.findLineasByIdOrden(idOrden);
+
+        BigDecimal totalPagado = pagos.stream()
+                .map(PagoLineaDTO::getMonto)
+                .filter(monto -> monto != null)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalOrden = orden.getTotalOrden() != null ? orden.getTotalOrden() : BigDecimal.ZERO;
+
+        return new OrdenDetalleCompletoDTO(orden, servicios, repuestos, pagos, historial,
+                totalPagado, totalOrden.subtract(totalPagado));
+    }
+}
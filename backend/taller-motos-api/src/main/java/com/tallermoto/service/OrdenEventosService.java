@@ -0,0 +1,268 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.CambioOrdenDTO;
+import com.tallermoto.event.OrdenModificadaEvent;
+import com.tallermoto.event.OrdenesModificadasEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio de eventos en vivo de órdenes de trabajo (Server-Sent Events)
+ * Reemplaza el sondeo periódico de los tableros: cada cambio confirmado se envía a los suscriptores interesados.
+ *
+ * El camino de escritura solo hace un offer() no bloqueante sobre una cola acotada tras el commit.
+ * Un hilo distribuidor agrupa los eventos, lee el estado de las órdenes con una consulta por lote
+ * y lo reparte entre los suscriptores con DifusorSse (colas acotadas por suscriptor y pool de envío).
+ * Si un suscriptor no consume a tiempo se descartan sus eventos más antiguos y se le envía
+ * un evento RESINCRONIZAR para que recargue (por ejemplo con /api/sincronizacion/cambios)
+ */
+@Service
+public class OrdenEventosService {
+
+    public static final String TIPO_RESINCRONIZAR = "RESINCRONIZAR";
+    public static final String NOMBRE_EVENTO = "orden";
+
+    public static final String ROL_ADMIN = "ADMIN";
+    public static final String ROL_RECEPCIONISTA = "RECEPCIONISTA";
+    public static final String ROL_MECANICO = "MECANICO";
+
+    private static final int CAPACIDAD_PENDIENTES = 10000;
+    private static final int CAPACIDAD_SUSCRIPTOR = 256;
+    private static final int MAXIMO_SUSCRIPTORES = 200;
+    private static final int LOTE_DISTRIBUCION = 500;
+    private static final int HILOS_ENVIO = 4;
+
+    private static final List<String> ESTADOS_FINALES = List.of("ENTREGADA", "CANCELADA");
+
+    private static final String SQL_ORDENES =
+            "SELECT id_orden, numero_orden, estado, prioridad, estado_pago, id_mecanico_asignado " +
+            "FROM ordenes_trabajo WHERE id_orden IN (:ids)";
+
+    private static final String SQL_MECANICOS_ACTIVOS =
+            "SELECT id_orden, id_mecanico_asignado FROM ordenes_trabajo " +
+            "WHERE id_mecanico_asignado IS NOT NULL AND estado NOT IN (:finales)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Cola entre el camino de escritura y el distribuidor
+    private final BlockingQueue<OrdenModificadaEvent> pendientes = new ArrayBlockingQueue<>(CAPACIDAD_PENDIENTES);
+    private final AtomicBoolean pendientesDesbordados = new AtomicBoolean();
+
+    private final DifusorSse<CambioOrdenDTO, Filtro> difusor = new DifusorSse<>("eventos-ordenes-envio", HILOS_ENVIO,
+            NOMBRE_EVENTO, "eventos", CAPACIDAD_SUSCRIPTOR, MAXIMO_SUSCRIPTORES,
+            () -> new CambioOrdenDTO(TIPO_RESINCRONIZAR, null, null, null, null, null, null, LocalDateTime.now()));
+
+    // Último mecánico conocido por orden: permite avisar al mecánico al que se le quitó una orden
+    private final Map<Long, Long> mecanicoPorOrden = new ConcurrentHashMap<>();
+
+    private Thread distribuidor;
+
+    @PostConstruct
+    public void iniciar() {
+        distribuidor = new Thread(this::distribuirContinuamente, "eventos-ordenes-distribuidor");
+        distribuidor.setDaemon(true);
+        distribuidor.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        distribuidor.interrupt();
+        difusor.detener();
+    }
+
+    // ===============================
+    // SUSCRIPCIÓN
+    // ===============================
+
+    /**
+     * Abrir un canal de eventos
+     * @param rol rol del usuario (ADMIN, RECEPCIONISTA o MECANICO)
+     * @param idMecanico filtra las órdenes de un mecánico; obligatorio para el rol MECANICO
+     */
+    public SseEmitter suscribir(String rol, Long idMecanico) {
+        String rolNormalizado = rol != null ? rol.trim().toUpperCase() : ROL_ADMIN;
+        if (!List.of(ROL_ADMIN, ROL_RECEPCIONISTA, ROL_MECANICO).contains(rolNormalizado)) {
+            throw new IllegalArgumentException("Rol no válido: " + rol);
+        }
+        if (ROL_MECANICO.equals(rolNormalizado) && idMecanico == null) {
+            throw new IllegalArgumentException("El rol MECANICO requiere el ID del mecánico");
+        }
+        synchronized (difusor) {
+            if (difusor.estaVacio()) {
+                // Sin suscriptores no se siguen los cambios: se recarga la asignación actual
+                cargarMecanicosActivos();
+            }
+            return difusor.suscribir(new Filtro(rolNormalizado, idMecanico));
+        }
+    }
+
+    public int contarSuscriptores() {
+        return difusor.contar();
+    }
+
+    // ===============================
+    // RECEPCIÓN DE CAMBIOS (tras el commit)
+    // ===============================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrden(OrdenModificadaEvent evento) {
+        encolar(evento);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrdenes(OrdenesModificadasEvent evento) {
+        for (Long idOrden : evento.getIdsOrden()) {
+            encolar(new OrdenModificadaEvent(idOrden, evento.getTipo()));
+        }
+    }
+
+    /**
+     * Nunca bloquea: si la cola está llena se marca el desborde y todos los suscriptores resincronizan
+     */
+    private void encolar(OrdenModificadaEvent evento) {
+        if (difusor.estaVacio()) {
+            return;
+        }
+        if (!pendientes.offer(evento)) {
+            pendientesDesbordados.set(true);
+        }
+    }
+
+    // ===============================
+    // DISTRIBUCIÓN
+    // ===============================
+
+    private void distribuirContinuamente() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<OrdenModificadaEvent> lote = new ArrayList<>();
+                lote.add(pendientes.take());
+                pendientes.drainTo(lote, LOTE_DISTRIBUCION - 1);
+                distribuir(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("Error al distribuir eventos de órdenes: " + e.getMessage());
+            }
+        }
+    }
+
+    private void distribuir(List<OrdenModificadaEvent> lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (pendientesDesbordados.getAndSet(false)) {
+            difusor.resincronizarTodos();
+        }
+
+        // Un mismo cambio repetido en el lote se envía una sola vez
+        Map<String, OrdenModificadaEvent> unicos = new LinkedHashMap<>();
+        for (OrdenModificadaEvent evento : lote) {
+            unicos.putIfAbsent(evento.getIdOrden() + ":" + evento.getTipo(), evento);
+        }
+
+        Map<Long, CambioOrdenDTO> estados = leerOrdenes(
+                unicos.values().stream().map(OrdenModificadaEvent::getIdOrden).distinct().toList());
+
+        for (OrdenModificadaEvent evento : unicos.values()) {
+            CambioOrdenDTO fila = estados.get(evento.getIdOrden());
+            CambioOrdenDTO cambio = fila != null
+                    ? new CambioOrdenDTO(evento.getTipo(), fila.getIdOrden(), fila.getNumeroOrden(), fila.getEstado(),
+                            fila.getPrioridad(), fila.getEstadoPago(), fila.getIdMecanico(), ahora)
+                    : new CambioOrdenDTO(evento.getTipo(), evento.getIdOrden(), null, null, null, null, null, ahora);
+
+            Long mecanicoAnterior = actualizarMecanico(cambio);
+            difusor.publicar(cambio, filtro -> filtro.acepta(cambio, mecanicoAnterior));
+        }
+        difusor.programarEnvios();
+    }
+
+    private Map<Long, CambioOrdenDTO> leerOrdenes(List<Long> ids) {
+        Map<Long, CambioOrdenDTO> estados = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_ORDENES, new MapSqlParameterSource("ids", ids), rs -> {
+            long idMecanico = rs.getLong("id_mecanico_asignado");
+            estados.put(rs.getLong("id_orden"), new CambioOrdenDTO(null,
+                    rs.getLong("id_orden"),
+                    rs.getString("numero_orden"),
+                    rs.getString("estado"),
+                    rs.getString("prioridad"),
+                    rs.getString("estado_pago"),
+                    rs.wasNull() ? null : idMecanico,
+                    null));
+        });
+        return estados;
+    }
+
+    /**
+     * Registrar el mecánico actual de la orden y devolver el que tenía antes
+     */
+    private Long actualizarMecanico(CambioOrdenDTO cambio) {
+        boolean seguir = cambio.getIdMecanico() != null && !ESTADOS_FINALES.contains(cambio.getEstado());
+        return seguir
+                ? mecanicoPorOrden.put(cambio.getIdOrden(), cambio.getIdMecanico())
+                : mecanicoPorOrden.remove(cambio.getIdOrden());
+    }
+
+    private void cargarMecanicosActivos() {
+        mecanicoPorOrden.clear();
+        namedParameterJdbcTemplate.query(SQL_MECANICOS_ACTIVOS, new MapSqlParameterSource("finales", ESTADOS_FINALES), rs -> {
+            mecanicoPorOrden.put(rs.getLong("id_orden"), rs.getLong("id_mecanico_asignado"));
+        });
+    }
+
+    // ===============================
+    // ENVÍO
+    // ===============================
+
+    /**
+     * Mantener vivas las conexiones y cerrar las que llevan demasiado tiempo bloqueadas en un envío
+     */
+    @Scheduled(fixedDelayString = "${app.eventos.latido-ms:25000}")
+    public void enviarLatidos() {
+        difusor.enviarLatidos();
+    }
+
+    // ===============================
+    // FILTRO DE SUSCRIPCIÓN
+    // ===============================
+
+    private static final class Filtro {
+
+        private final String rol;
+        private final Long idMecanico;
+
+        private Filtro(String rol, Long idMecanico) {
+            this.rol = rol;
+            this.idMecanico = idMecanico;
+        }
+
+        private boolean acepta(CambioOrdenDTO cambio, Long mecanicoAnterior) {
+            // Los pagos no interesan al mecánico
+            if (ROL_MECANICO.equals(rol) && !OrdenModificadaEvent.afectaAsignacion(cambio.getTipo())) {
+                return false;
+            }
+            if (idMecanico == null) {
+                return true;
+            }
+            return idMecanico.equals(cambio.getIdMecanico()) || idMecanico.equals(mecanicoAnterior);
+        }
+    }
+}
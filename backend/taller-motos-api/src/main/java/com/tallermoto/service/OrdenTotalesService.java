@@ -0,0 +1,127 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.DiferenciaTotalesDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Servicio para el mantenimiento de los totales de las órdenes de trabajo
+ * Los totales se ajustan con deltas en la misma transacción que modifica detalles o usos de repuesto,
+ * y un proceso periódico verifica y corrige cualquier desviación respecto a las líneas
+ */
+@Service
+@Transactional
+public class OrdenTotalesService {
+
+    private static final String SQL_DELTA_SERVICIOS =
+            "UPDATE ordenes_trabajo SET total_servicios = total_servicios + ?, total_orden = total_orden + ? " +
+            "WHERE id_orden = ?";
+
+    private static final String SQL_DELTA_REPUESTOS =
+            "UPDATE ordenes_trabajo SET total_repuestos = total_repuestos + ?, total_orden = total_orden + ? " +
+            "WHERE id_orden = ?";
+
+    private static final String SQL_ESTABLECER =
+            "UPDATE ordenes_trabajo SET total_servicios = ?, total_repuestos = ?, total_orden = ? WHERE id_orden = ?";
+
+    // Totales recalculados desde las líneas, solo para las órdenes cuyo valor almacenado difiere
+    private static final String SQL_DIFERENCIAS =
+            "SELECT o.id_orden, o.total_servicios, COALESCE(s.total, 0) AS servicios_calculado, " +
+            "o.total_repuestos, COALESCE(r.total, 0) AS repuestos_calculado, o.total_orden " +
+            "FROM ordenes_trabajo o " +
+            "LEFT JOIN (SELECT id_orden, SUM(precio_aplicado) AS total FROM detalle_orden GROUP BY id_orden) s " +
+            "ON s.id_orden = o.id_orden " +
+            "LEFT JOIN (SELECT id_orden, SUM(subtotal) AS total FROM uso_repuesto GROUP BY id_orden) r " +
+            "ON r.id_orden = o.id_orden " +
+            "WHERE o.total_servicios <> COALESCE(s.total, 0) " +
+            "OR o.total_repuestos <> COALESCE(r.total, 0) " +
+            "OR o.total_orden <> COALESCE(s.total, 0) + COALESCE(r.total, 0)";
+
+    // Solo corrige si los totales siguen siendo los leídos: si un delta concurrente los cambió, la orden se omite
+    private static final String SQL_REPARAR =
+            "UPDATE ordenes_trabajo o SET total_servicios = c.servicios_calculado, " +
+            "total_repuestos = c.repuestos_calculado, " +
+            "total_orden = c.servicios_calculado + c.repuestos_calculado " +
+            "FROM (" + SQL_DIFERENCIAS + ") c WHERE o.id_orden = c.id_orden " +
+            "AND o.total_servicios = c.total_servicios AND o.total_repuestos = c.total_repuestos";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ===============================
+    // AJUSTES INCREMENTALES
+    // ===============================
+
+    /**
+     * Sumar (o restar, con delta negativo) un importe al total de servicios de la orden
+     */
+    public void aplicarDeltaServicios(Long idOrden, BigDecimal delta) {
+        if (idOrden == null || delta == null || delta.signum() == 0) {
+            return;
+        }
+        jdbcTemplate.update(SQL_DELTA_SERVICIOS, delta, delta, idOrden);
+    }
+
+    /**
+     * Sumar (o restar, con delta negativo) un importe al total de repuestos de la orden
+     */
+    public void aplicarDeltaRepuestos(Long idOrden, BigDecimal delta) {
+        if (idOrden == null || delta == null || delta.signum() == 0) {
+            return;
+        }
+        jdbcTemplate.update(SQL_DELTA_REPUESTOS, delta, delta, idOrden);
+    }
+
+    /**
+     * Establecer los totales de la orden de forma explícita
+     */
+    public void establecerTotales(Long idOrden, BigDecimal totalServicios, BigDecimal totalRepuestos, BigDecimal totalOrden) {
+        int filas = jdbcTemplate.update(SQL_ESTABLECER, totalServicios, totalRepuestos, totalOrden, idOrden);
+        if (filas == 0) {
+            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
+        }
+    }
+
+    // ===============================
+    // VERIFICACIÓN Y REPARACIÓN
+    // ===============================
+
+    /**
+     * Órdenes cuyos totales almacenados no coinciden con la suma de sus líneas
+     */
+    @Transactional(readOnly = true)
+    public List<DiferenciaTotalesDTO> verificarTotales() {
+        return jdbcTemplate.query(SQL_DIFERENCIAS, (rs, rowNum) -> new DiferenciaTotalesDTO(
+                rs.getLong("id_orden"),
+                rs.getBigDecimal("total_servicios"),
+                rs.getBigDecimal("servicios_calculado"),
+                rs.getBigDecimal("total_repuestos"),
+                rs.getBigDecimal("repuestos_calculado"),
+                rs.getBigDecimal("total_orden")));
+    }
+
+    /**
+     * Corregir los totales de todas las órdenes con desviación
+     * @return número de órdenes corregidas
+     */
+    public int repararTotales() {
+        return jdbcTemplate.update(SQL_REPARAR);
+    }
+
+    /**
+     * Verificación programada (por defecto cada noche)
+     */
+    @Scheduled(cron = "${app.totales.verificacion.cron:0 30 3 * * *}")
+    public void verificarYRepararProgramado() {
+        int corregidas = repararTotales();
+        if (corregidas > 0) {
+            System.err.println("Totales de órdenes corregidos por desviación: " + corregidas);
+        }
+    }
+}
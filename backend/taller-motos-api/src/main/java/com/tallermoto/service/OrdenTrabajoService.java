@@ -1,21 +1,39 @@
 package com.tallermoto.service;
 
 import com.tallermoto.dto.CreateOrdenTrabajoDTO;
+import com.tallermoto.dto.CursorPageDTO;
+import com.tallermoto.dto.OrdenTrabajoFiltroDTO;
+import com.tallermoto.dto.OrdenTrabajoSummaryDTO;
 import com.tallermoto.entity.Moto;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Usuario;
+import com.tallermoto.event.OrdenModificadaEvent;
 import com.tallermoto.repository.OrdenTrabajoRepository;
+import com.tallermoto.specification.OrdenTrabajoSpecification;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Servicio para la gestión de órdenes de trabajo
@@ -25,6 +43,14 @@ import java.util.Optional;
 @Transactional
 public class OrdenTrabajoService {
 
+    private static final int LIMITE_CURSOR_DEFECTO = 20;
+    private static final int LIMITE_CURSOR_MAXIMO = 100;
+    private static final int TAMANIO_FILTRO_MAXIMO = 100;
+
+    // Campos por los que se permite ordenar el filtro dinámico (todos con índice)
+    private static final Set<String> CAMPOS_ORDEN_FILTRO = Set.of(
+            "idOrden", "numeroOrden", "fechaIngreso", "estado", "prioridad", "estadoPago");
+
     @Autowired
     private OrdenTrabajoRepository ordenTrabajoRepository;
     
@@ -34,6 +60,18 @@ public class OrdenTrabajoService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private NumeroOrdenService numeroOrdenService;
+
+    @Autowired
+    private OrdenTransicionService ordenTransicionService;
+
+    @Autowired
+    private OrdenTotalesService ordenTotalesService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ===============================
     // OPERACIONES CRUD BÁSICAS
     // ===============================
@@ -70,8 +108,13 @@ public class OrdenTrabajoService {
         if (ordenTrabajo.getEstadoPago() == null || ordenTrabajo.getEstadoPago().isEmpty()) {
             ordenTrabajo.setEstadoPago("PENDIENTE");
         }
+        if (ordenTrabajo.getNumeroOrden() == null || ordenTrabajo.getNumeroOrden().isBlank()) {
+            ordenTrabajo.setNumeroOrden(numeroOrdenService.siguienteNumeroOrden());
+        }
         
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        OrdenTrabajo ordenGuardada = ordenTrabajoRepository.save(ordenTrabajo);
+        eventPublisher.publishEvent(new OrdenModificadaEvent(ordenGuardada.getIdOrden(), OrdenModificadaEvent.CREADA));
+        return ordenGuardada;
     }
 
     /**
@@ -127,10 +170,106 @@ public class OrdenTrabajoService {
 
     /**
      * Obtener órdenes de trabajo con paginación
+     * Primero pagina solo los IDs y luego carga las relaciones de esa página
      */
     @Transactional(readOnly = true)
     public Page<OrdenTrabajo> obtenerOrdenesTrabajosPaginadas(Pageable pageable) {
-        return ordenTrabajoRepository.findAll(pageable);
+        Sort orden = pageable.getSort().isSorted()
+                ? pageable.getSort()
+                : Sort.by(Sort.Direction.DESC, "fechaIngreso");
+        if (orden.getOrderFor("idOrden") == null) {
+            // Desempate estable para que ninguna orden se repita ni se pierda entre páginas
+            orden = orden.and(Sort.by(Sort.Direction.DESC, "idOrden"));
+        }
+
+        Page<Long> ids = ordenTrabajoRepository.findIdsPaginados(
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), orden));
+        return new PageImpl<>(cargarConRelacionesEnOrden(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Obtener órdenes de trabajo paginadas por cursor (fecha_ingreso, id_orden)
+     * Cada página es un rango del índice idx_ordenes_fecha_ingreso, por lo que el costo
+     * no depende de la profundidad de la página ni del tamaño de la tabla
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrdenTrabajo> obtenerOrdenesPorCursor(String cursor, Integer limite,
+                                                               String estado, String prioridad, Long idMecanico) {
+        int tamanio = limite == null ? LIMITE_CURSOR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_CURSOR_MAXIMO));
+        String filtroEstado = estado == null || estado.isBlank() ? null : estado;
+        String filtroPrioridad = prioridad == null || prioridad.isBlank() ? null : prioridad;
+
+        // Se pide un registro extra para saber si existe una página siguiente
+        Pageable ventana = PageRequest.of(0, tamanio + 1);
+
+        List<Object[]> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = ordenTrabajoRepository.findIdsPrimeraPagina(filtroEstado, filtroPrioridad, idMecanico, ventana);
+        } else {
+            String[] posicion = decodificarCursor(cursor);
+            filas = ordenTrabajoRepository.findIdsDespuesDeCursor(filtroEstado, filtroPrioridad, idMecanico,
+                    LocalDateTime.parse(posicion[0]), Long.valueOf(posicion[1]), ventana);
+        }
+
+        boolean hayMas = filas.size() > tamanio;
+        List<Object[]> pagina = hayMas ? filas.subList(0, tamanio) : filas;
+        List<Long> ids = new ArrayList<>(pagina.size());
+        for (Object[] fila : pagina) {
+            ids.add((Long) fila[0]);
+        }
+        List<OrdenTrabajo> ordenes = cargarConRelacionesEnOrden(ids);
+
+        // El cursor sale de la consulta de IDs y no de las órdenes cargadas: una orden eliminada entre
+        // ambas consultas no debe retroceder el cursor (ni dejar la página vacía sin posición)
+        String siguienteCursor = null;
+        if (hayMas) {
+            Object[] ultima = pagina.get(pagina.size() - 1);
+            siguienteCursor = codificarCursor((LocalDateTime) ultima[1], (Long) ultima[0]);
+        }
+        return new CursorPageDTO<>(ordenes, siguienteCursor, hayMas);
+    }
+
+    /**
+     * Carga las órdenes con sus relaciones respetando el orden de los IDs recibidos
+     */
+    private List<OrdenTrabajo> cargarConRelacionesEnOrden(List<Long> ids) {
+        List<OrdenTrabajo> resultado = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return resultado;
+        }
+
+        Map<Long, OrdenTrabajo> ordenesPorId = new HashMap<>();
+        for (OrdenTrabajo orden : ordenTrabajoRepository.findAllWithRelationsByIdIn(ids)) {
+            ordenesPorId.put(orden.getIdOrden(), orden);
+        }
+        for (Long id : ids) {
+            OrdenTrabajo orden = ordenesPorId.get(id);
+            if (orden != null) {
+                resultado.add(orden);
+            }
+        }
+        return resultado;
+    }
+
+    private String codificarCursor(LocalDateTime fechaIngreso, Long idOrden) {
+        String posicion = fechaIngreso + "|" + idOrden;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(posicion.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String posicion = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = posicion.split("\\|");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            // Validar el formato antes de usarlo en la consulta
+            LocalDateTime.parse(partes[0]);
+            Long.valueOf(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
     }
 
     /**
@@ -143,6 +282,28 @@ public class OrdenTrabajoService {
         }
 
         OrdenTrabajo ordenTrabajo = ordenTrabajoExistente.get();
+
+        // Un PUT preparado sobre una versión anterior no sobrescribe los cambios de otro usuario
+        if (ordenTrabajoActualizada.getVersion() != null && !ordenTrabajoActualizada.getVersion().equals(ordenTrabajo.getVersion())) {
+            throw new OptimisticLockingFailureException("La orden " + id + " fue modificada por otro usuario (versión actual: " + ordenTrabajo.getVersion() + ")");
+        }
+        // El estado solo cambia con OrdenTransicionService.cambiarEstado, que valida la transición y registra el historial
+        if (ordenTrabajoActualizada.getEstado() != null && !ordenTrabajoActualizada.getEstado().equals(ordenTrabajo.getEstado())) {
+            throw new IllegalStateException("El estado de la orden se cambia con PATCH /api/ordenes-trabajo/" + id + "/estado");
+        }
+        // Igual que el estado: prioridad, mecánico y estado de pago pasan por OrdenTransicionService
+        // (validaciones, mecánico activo e historial)
+        if (ordenTrabajoActualizada.getPrioridad() != null && !ordenTrabajoActualizada.getPrioridad().equals(ordenTrabajo.getPrioridad())) {
+            throw new IllegalStateException("La prioridad de la orden se cambia con PATCH /api/ordenes-trabajo/" + id + "/prioridad");
+        }
+        if (ordenTrabajoActualizada.getMecanicoAsignado() != null && !Objects.equals(
+                ordenTrabajoActualizada.getMecanicoAsignado().getIdUsuario(),
+                ordenTrabajo.getMecanicoAsignado() != null ? ordenTrabajo.getMecanicoAsignado().getIdUsuario() : null)) {
+            throw new IllegalStateException("El mecánico de la orden se asigna con PATCH /api/ordenes-trabajo/" + id + "/mecanico");
+        }
+        if (ordenTrabajoActualizada.getEstadoPago() != null && !ordenTrabajoActualizada.getEstadoPago().equals(ordenTrabajo.getEstadoPago())) {
+            throw new IllegalStateException("El estado de pago de la orden se cambia con PATCH /api/ordenes-trabajo/" + id + "/estado-pago");
+        }
         
         // Validar número de orden único si se está cambiando
         if (ordenTrabajoActualizada.getNumeroOrden() != null && 
@@ -162,38 +323,20 @@ public class OrdenTrabajoService {
         if (ordenTrabajoActualizada.getUsuarioCreador() != null) {
             ordenTrabajo.setUsuarioCreador(ordenTrabajoActualizada.getUsuarioCreador());
         }
-        if (ordenTrabajoActualizada.getMecanicoAsignado() != null) {
-            ordenTrabajo.setMecanicoAsignado(ordenTrabajoActualizada.getMecanicoAsignado());
-        }
         if (ordenTrabajoActualizada.getFechaIngreso() != null) {
             ordenTrabajo.setFechaIngreso(ordenTrabajoActualizada.getFechaIngreso());
         }
         ordenTrabajo.setFechaEstimadaEntrega(ordenTrabajoActualizada.getFechaEstimadaEntrega());
-        if (ordenTrabajoActualizada.getEstado() != null) {
-            ordenTrabajo.setEstado(ordenTrabajoActualizada.getEstado());
-        }
-        if (ordenTrabajoActualizada.getPrioridad() != null) {
-            ordenTrabajo.setPrioridad(ordenTrabajoActualizada.getPrioridad());
-        }
         if (ordenTrabajoActualizada.getDescripcionProblema() != null) {
             ordenTrabajo.setDescripcionProblema(ordenTrabajoActualizada.getDescripcionProblema());
         }
         ordenTrabajo.setDiagnostico(ordenTrabajoActualizada.getDiagnostico());
         ordenTrabajo.setObservaciones(ordenTrabajoActualizada.getObservaciones());
-        if (ordenTrabajoActualizada.getTotalServicios() != null) {
-            ordenTrabajo.setTotalServicios(ordenTrabajoActualizada.getTotalServicios());
-        }
-        if (ordenTrabajoActualizada.getTotalRepuestos() != null) {
-            ordenTrabajo.setTotalRepuestos(ordenTrabajoActualizada.getTotalRepuestos());
-        }
-        if (ordenTrabajoActualizada.getTotalOrden() != null) {
-            ordenTrabajo.setTotalOrden(ordenTrabajoActualizada.getTotalOrden());
-        }
-        if (ordenTrabajoActualizada.getEstadoPago() != null) {
-            ordenTrabajo.setEstadoPago(ordenTrabajoActualizada.getEstadoPago());
-        }
+        // Los totales no se copian: los mantiene OrdenTotalesService a partir de detalles y usos de repuesto
 
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        OrdenTrabajo ordenGuardada = ordenTrabajoRepository.save(ordenTrabajo);
+        eventPublisher.publishEvent(new OrdenModificadaEvent(id, OrdenModificadaEvent.ACTUALIZADA));
+        return ordenGuardada;
     }
 
     /**
@@ -204,6 +347,7 @@ public class OrdenTrabajoService {
             throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + id);
         }
         ordenTrabajoRepository.deleteById(id);
+        eventPublisher.publishEvent(new OrdenModificadaEvent(id, OrdenModificadaEvent.ELIMINADA));
     }
 
     // ===============================
@@ -770,50 +914,141 @@ public class OrdenTrabajoService {
         return ordenTrabajoRepository.buscarOrdenes(busqueda);
     }
 
+    // ===============================
+    // FILTRO DINÁMICO
+    // ===============================
+
+    /**
+     * Filtrar órdenes de trabajo por cualquier combinación de criterios, con paginación y orden
+     * Todo el filtrado se resuelve en una única consulta SQL (más la de conteo)
+     */
+    @Transactional(readOnly = true)
+    public Page<OrdenTrabajo> filtrarOrdenes(OrdenTrabajoFiltroDTO filtro, Pageable pageable) {
+        Sort orden = pageable.getSort().isSorted()
+                ? pageable.getSort()
+                : Sort.by(Sort.Direction.DESC, "fechaIngreso");
+        for (Sort.Order campo : orden) {
+            if (!CAMPOS_ORDEN_FILTRO.contains(campo.getProperty())) {
+                throw new IllegalArgumentException("No se permite ordenar por: " + campo.getProperty());
+            }
+        }
+        if (orden.getOrderFor("idOrden") == null) {
+            orden = orden.and(Sort.by(Sort.Direction.DESC, "idOrden"));
+        }
+
+        int tamanio = Math.min(pageable.getPageSize(), TAMANIO_FILTRO_MAXIMO);
+        return ordenTrabajoRepository.findAll(OrdenTrabajoSpecification.desdeFiltro(filtro),
+                PageRequest.of(pageable.getPageNumber(), tamanio, orden));
+    }
+
+    // ===============================
+    // LISTADOS RESUMIDOS (PROYECCIONES)
+    // ===============================
+
+    /**
+     * Listado resumido de todas las órdenes de trabajo
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenTrabajoSummaryDTO> obtenerResumenOrdenes() {
+        return ordenTrabajoRepository.findAllResumen();
+    }
+
+    /**
+     * Listado resumido de órdenes por estado
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenTrabajoSummaryDTO> obtenerResumenPorEstado(String estado) {
+        return ordenTrabajoRepository.findResumenByEstado(estado);
+    }
+
+    /**
+     * Listado resumido de órdenes asignadas a un mecánico
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenTrabajoSummaryDTO> obtenerResumenPorMecanico(Long idMecanico) {
+        return ordenTrabajoRepository.findResumenByMecanico(idMecanico);
+    }
+
+    /**
+     * Listado resumido de órdenes ingresadas en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenTrabajoSummaryDTO> obtenerResumenEnRangoDeFechas(LocalDateTime fechaDesde, LocalDateTime fechaHasta) {
+        return ordenTrabajoRepository.findResumenByFechaIngresoBetween(fechaDesde, fechaHasta);
+    }
+
+    /**
+     * Búsqueda general con resultado resumido
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenTrabajoSummaryDTO> buscarResumen(String busqueda) {
+        return ordenTrabajoRepository.buscarResumen(busqueda);
+    }
+
+    /**
+     * Búsqueda de texto completo y por fragmentos (placa, número de orden, cliente),
+     * ordenada por relevancia y paginada
+     */
+    @Transactional(readOnly = true)
+    public Page<OrdenTrabajoSummaryDTO> buscarOrdenesTextoCompleto(String busqueda, Pageable pageable) {
+        if (busqueda == null || busqueda.isBlank()) {
+            throw new IllegalArgumentException("El término de búsqueda es obligatorio");
+        }
+        String termino = busqueda.trim();
+        String patron = "%" + escaparPatronLike(termino) + "%";
+
+        long total = ordenTrabajoRepository.contarBusquedaTextoCompleto(termino, patron);
+        if (total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(new ArrayList<>(), pageable, total);
+        }
+
+        List<Long> ids = ordenTrabajoRepository.buscarIdsTextoCompleto(termino, patron, pageable.getPageSize(), pageable.getOffset());
+        Map<Long, OrdenTrabajoSummaryDTO> resumenPorId = new HashMap<>();
+        for (OrdenTrabajoSummaryDTO resumen : ordenTrabajoRepository.findResumenByIdIn(ids)) {
+            resumenPorId.put(resumen.getIdOrden(), resumen);
+        }
+        List<OrdenTrabajoSummaryDTO> contenido = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            OrdenTrabajoSummaryDTO resumen = resumenPorId.get(id);
+            if (resumen != null) {
+                contenido.add(resumen);
+            }
+        }
+        return new PageImpl<>(contenido, pageable, total);
+    }
+
+    private String escaparPatronLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     // ===============================
     // OPERACIONES ESPECIALIZADAS
     // ===============================
 
     /**
      * Asignar mecánico a orden de trabajo
+     * Se aplica como UPDATE condicional y queda registrado en el historial
      */
     public OrdenTrabajo asignarMecanico(Long idOrden, Usuario mecanico) {
-        Optional<OrdenTrabajo> ordenTrabajoOpt = ordenTrabajoRepository.findById(idOrden);
-        if (ordenTrabajoOpt.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
-        }
-        
-        OrdenTrabajo ordenTrabajo = ordenTrabajoOpt.get();
-        ordenTrabajo.setMecanicoAsignado(mecanico);
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        ordenTransicionService.asignarMecanico(idOrden, mecanico != null ? mecanico.getIdUsuario() : null, null);
+        return obtenerOrdenActualizada(idOrden);
     }
 
     /**
      * Cambiar estado de orden de trabajo
+     * Valida la transición y queda registrado en el historial
      */
     public OrdenTrabajo cambiarEstado(Long idOrden, String nuevoEstado) {
-        Optional<OrdenTrabajo> ordenTrabajoOpt = ordenTrabajoRepository.findById(idOrden);
-        if (ordenTrabajoOpt.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
-        }
-        
-        OrdenTrabajo ordenTrabajo = ordenTrabajoOpt.get();
-        ordenTrabajo.setEstado(nuevoEstado);
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        ordenTransicionService.cambiarEstado(idOrden, nuevoEstado, null, null);
+        return obtenerOrdenActualizada(idOrden);
     }
 
     /**
      * Cambiar prioridad de orden de trabajo
      */
     public OrdenTrabajo cambiarPrioridad(Long idOrden, String nuevaPrioridad) {
-        Optional<OrdenTrabajo> ordenTrabajoOpt = ordenTrabajoRepository.findById(idOrden);
-        if (ordenTrabajoOpt.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
-        }
-        
-        OrdenTrabajo ordenTrabajo = ordenTrabajoOpt.get();
-        ordenTrabajo.setPrioridad(nuevaPrioridad);
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        ordenTransicionService.cambiarPrioridad(idOrden, nuevaPrioridad, null);
+        return obtenerOrdenActualizada(idOrden);
     }
 
     /**
@@ -846,31 +1081,23 @@ public class OrdenTrabajoService {
 
     /**
      * Actualizar totales de la orden
+     * Establece los valores de forma explícita; en el flujo normal se ajustan solos con cada línea
      */
     public OrdenTrabajo actualizarTotales(Long idOrden, BigDecimal totalServicios, BigDecimal totalRepuestos, BigDecimal totalOrden) {
-        Optional<OrdenTrabajo> ordenTrabajoOpt = ordenTrabajoRepository.findById(idOrden);
-        if (ordenTrabajoOpt.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
-        }
-        
-        OrdenTrabajo ordenTrabajo = ordenTrabajoOpt.get();
-        ordenTrabajo.setTotalServicios(totalServicios);
-        ordenTrabajo.setTotalRepuestos(totalRepuestos);
-        ordenTrabajo.setTotalOrden(totalOrden);
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        ordenTotalesService.establecerTotales(idOrden, totalServicios, totalRepuestos, totalOrden);
+        return obtenerOrdenActualizada(idOrden);
     }
 
     /**
      * Cambiar estado de pago
      */
     public OrdenTrabajo cambiarEstadoPago(Long idOrden, String nuevoEstadoPago) {
-        Optional<OrdenTrabajo> ordenTrabajoOpt = ordenTrabajoRepository.findById(idOrden);
-        if (ordenTrabajoOpt.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
-        }
-        
-        OrdenTrabajo ordenTrabajo = ordenTrabajoOpt.get();
-        ordenTrabajo.setEstadoPago(nuevoEstadoPago);
-        return ordenTrabajoRepository.save(ordenTrabajo);
+        ordenTransicionService.cambiarEstadoPago(idOrden, nuevoEstadoPago, null);
+        return obtenerOrdenActualizada(idOrden);
+    }
+
+    private OrdenTrabajo obtenerOrdenActualizada(Long idOrden) {
+        return ordenTrabajoRepository.findById(idOrden)
+            .orElseThrow(() -> new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden));
     }
 }
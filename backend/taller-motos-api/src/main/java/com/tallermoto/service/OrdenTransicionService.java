@@ -0,0 +1,449 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.ResultadoLoteOrdenDTO;
+import com.tallermoto.dto.ResultadoTransicionDTO;
+import com.tallermoto.event.OrdenModificadaEvent;
+import com.tallermoto.event.OrdenesModificadasEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Servicio de transiciones de órdenes de trabajo
+ * Cada cambio (estado, prioridad, mecánico, estado de pago) se aplica con una única sentencia:
+ * UPDATE condicional sobre el estado y la versión esperados + INSERT en orden_historial
+ */
+@Service
+@Transactional
+public class OrdenTransicionService {
+
+    // Transiciones de estado permitidas (estado actual -> estados siguientes)
+    private static final Map<String, Set<String>> TRANSICIONES = Map.of(
+            "RECIBIDA", Set.of("DIAGNOSTICADA", "EN_PROCESO", "CANCELADA"),
+            "DIAGNOSTICADA", Set.of("EN_PROCESO", "CANCELADA"),
+            "EN_PROCESO", Set.of("COMPLETADA", "CANCELADA"),
+            "COMPLETADA", Set.of("ENTREGADA", "EN_PROCESO"),
+            "ENTREGADA", Set.of(),
+            "CANCELADA", Set.of());
+
+    // Estados en los que ya no se admite cambiar prioridad ni mecánico
+    private static final List<String> ESTADOS_FINALES = List.of("ENTREGADA", "CANCELADA");
+
+    private static final Set<String> PRIORIDADES = Set.of("BAJA", "NORMAL", "ALTA", "URGENTE");
+    private static final Set<String> ESTADOS_PAGO = Set.of("PENDIENTE", "PARCIAL", "COMPLETO");
+
+    // Estados desde los que se puede llegar a cada estado (inverso de TRANSICIONES)
+    private static final Map<String, List<String>> ORIGENES = calcularOrigenes();
+
+    // %1$s columna modificada, %2$s condición adicional, %3$s expresión del comentario del historial
+    private static final String SQL_CAMBIO =
+            "WITH anterior AS (" +
+            "SELECT id_orden, estado, CAST(%1$s AS TEXT) AS valor_anterior " +
+            "FROM ordenes_trabajo WHERE id_orden = :idOrden FOR UPDATE), " +
+            "actualizada AS (" +
+            "UPDATE ordenes_trabajo o SET %1$s = :valorNuevo, version = o.version + 1 " +
+            "FROM anterior a " +
+            "WHERE o.id_orden = a.id_orden " +
+            "AND (CAST(:versionEsperada AS BIGINT) IS NULL OR o.version = :versionEsperada) " +
+            "AND %2$s " +
+            "RETURNING o.id_orden, o.version, o.estado, a.estado AS estado_anterior, a.valor_anterior), " +
+            "historial AS (" +
+            "INSERT INTO orden_historial (id_orden, estado_anterior, estado_nuevo, comentario, usuario_cambio, fecha_cambio) " +
+            "SELECT id_orden, estado_anterior, estado, %3$s, :idUsuario, CURRENT_TIMESTAMP FROM actualizada) " +
+            "SELECT id_orden, version, estado, valor_anterior FROM actualizada";
+
+    private static final String SQL_ESTADO = String.format(SQL_CAMBIO,
+            "estado",
+            "a.estado IN (:estadosOrigen)",
+            "CAST(:comentario AS TEXT)");
+
+    private static final String SQL_PRIORIDAD = String.format(SQL_CAMBIO,
+            "prioridad",
+            "a.estado NOT IN (:estadosFinales) AND a.valor_anterior IS DISTINCT FROM :valorNuevo",
+            "CONCAT('Prioridad: ', COALESCE(valor_anterior, '-'), ' -> ', :valorNuevo)");
+
+    private static final String SQL_MECANICO = String.format(SQL_CAMBIO,
+            "id_mecanico_asignado",
+            "a.estado NOT IN (:estadosFinales) " +
+            "AND a.valor_anterior IS DISTINCT FROM CAST(CAST(:valorNuevo AS BIGINT) AS TEXT) " +
+            "AND (CAST(:valorNuevo AS BIGINT) IS NULL OR EXISTS (SELECT 1 FROM usuarios u " +
+            "WHERE u.id_usuario = :valorNuevo AND u.rol = 'MECANICO' AND u.activo = TRUE))",
+            "CONCAT('Mecánico: ', COALESCE(valor_anterior, '-'), ' -> ', COALESCE(CAST(CAST(:valorNuevo AS BIGINT) AS TEXT), '-'))");
+
+    private static final String SQL_ESTADO_PAGO = String.format(SQL_CAMBIO,
+            "estado_pago",
+            "a.valor_anterior IS DISTINCT FROM :valorNuevo",
+            "CONCAT('Estado de pago: ', COALESCE(valor_anterior, '-'), ' -> ', :valorNuevo)");
+
+    // Tipo de evento publicado según la columna modificada
+    private static final Map<String, String> TIPOS_EVENTO = Map.of(
+            "estado", OrdenModificadaEvent.ESTADO,
+            "prioridad", OrdenModificadaEvent.PRIORIDAD,
+            "id_mecanico_asignado", OrdenModificadaEvent.MECANICO,
+            "estado_pago", OrdenModificadaEvent.ESTADO_PAGO);
+
+    private static final String SQL_ESTADO_ACTUAL =
+            "SELECT estado, version, CAST(%s AS TEXT) AS valor FROM ordenes_trabajo WHERE id_orden = :idOrden";
+
+    // ----- Operaciones masivas -----
+
+    private static final int LIMITE_LOTE = 500;
+
+    // Bloqueo en orden de id para que dos lotes concurrentes no se bloqueen mutuamente; %s columna modificada
+    private static final String SQL_LOTE_BLOQUEO =
+            "SELECT id_orden, estado, CAST(%s AS TEXT) AS valor FROM ordenes_trabajo " +
+            "WHERE id_orden IN (:ids) ORDER BY id_orden FOR UPDATE";
+
+    private static final String SQL_LOTE_ACTUALIZAR =
+            "UPDATE ordenes_trabajo SET %s = :valorNuevo, version = version + 1 WHERE id_orden IN (:ids) " +
+            "RETURNING id_orden, version, estado";
+
+    private static final String SQL_HISTORIAL =
+            "INSERT INTO orden_historial (id_orden, estado_anterior, estado_nuevo, comentario, usuario_cambio, fecha_cambio) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private static final int[] TIPOS_HISTORIAL = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT};
+
+    private static final String SQL_MECANICO_ACTIVO =
+            "SELECT COUNT(*) FROM usuarios WHERE id_usuario = :idMecanico AND rol = 'MECANICO' AND activo = TRUE";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ===============================
+    // REGLAS DE TRANSICIÓN
+    // ===============================
+
+    /**
+     * Indica si se permite pasar de un estado a otro
+     */
+    public static boolean esTransicionPermitida(String estadoActual, String estadoNuevo) {
+        return TRANSICIONES.getOrDefault(estadoActual, Collections.emptySet()).contains(estadoNuevo);
+    }
+
+    /**
+     * Estados a los que se puede pasar desde el estado indicado
+     */
+    public static Set<String> obtenerEstadosSiguientes(String estadoActual) {
+        return TRANSICIONES.getOrDefault(estadoActual, Collections.emptySet());
+    }
+
+    /**
+     * Estados desde los que se puede llegar al estado indicado
+     */
+    public static List<String> obtenerEstadosOrigen(String estadoNuevo) {
+        return ORIGENES.getOrDefault(estadoNuevo, Collections.emptyList());
+    }
+
+    // ===============================
+    // CAMBIOS ATÓMICOS
+    // ===============================
+
+    /**
+     * Cambiar el estado de la orden validando la transición
+     */
+    public ResultadoTransicionDTO cambiarEstado(Long idOrden, String nuevoEstado, Long versionEsperada, String comentario) {
+        if (!TRANSICIONES.containsKey(nuevoEstado)) {
+            throw new IllegalArgumentException("Estado no válido: " + nuevoEstado);
+        }
+        List<String> origenes = obtenerEstadosOrigen(nuevoEstado);
+        if (origenes.isEmpty()) {
+            throw new IllegalStateException("No se puede pasar una orden al estado " + nuevoEstado);
+        }
+
+        MapSqlParameterSource parametros = parametrosBase(idOrden, versionEsperada)
+                .addValue("valorNuevo", nuevoEstado, Types.VARCHAR)
+                .addValue("estadosOrigen", origenes)
+                .addValue("comentario", comentario, Types.VARCHAR);
+        return ejecutar(SQL_ESTADO, parametros, idOrden, "estado", nuevoEstado, versionEsperada);
+    }
+
+    /**
+     * Cambiar la prioridad de la orden
+     */
+    public ResultadoTransicionDTO cambiarPrioridad(Long idOrden, String nuevaPrioridad, Long versionEsperada) {
+        if (!PRIORIDADES.contains(nuevaPrioridad)) {
+            throw new IllegalArgumentException("Prioridad no válida: " + nuevaPrioridad);
+        }
+
+        MapSqlParameterSource parametros = parametrosBase(idOrden, versionEsperada)
+                .addValue("valorNuevo", nuevaPrioridad, Types.VARCHAR)
+                .addValue("estadosFinales", ESTADOS_FINALES);
+        return ejecutar(SQL_PRIORIDAD, parametros, idOrden, "prioridad", nuevaPrioridad, versionEsperada);
+    }
+
+    /**
+     * Asignar (o quitar, con null) el mecánico de la orden
+     */
+    public ResultadoTransicionDTO asignarMecanico(Long idOrden, Long idMecanico, Long versionEsperada) {
+        MapSqlParameterSource parametros = parametrosBase(idOrden, versionEsperada)
+                .addValue("valorNuevo", idMecanico, Types.BIGINT)
+                .addValue("estadosFinales", ESTADOS_FINALES);
+        String valorNuevo = idMecanico != null ? idMecanico.toString() : null;
+        return ejecutar(SQL_MECANICO, parametros, idOrden, "id_mecanico_asignado", valorNuevo, versionEsperada);
+    }
+
+    /**
+     * Cambiar el estado de pago de la orden
+     */
+    public ResultadoTransicionDTO cambiarEstadoPago(Long idOrden, String nuevoEstadoPago, Long versionEsperada) {
+        if (!ESTADOS_PAGO.contains(nuevoEstadoPago)) {
+            throw new IllegalArgumentException("Estado de pago no válido: " + nuevoEstadoPago);
+        }
+
+        MapSqlParameterSource parametros = parametrosBase(idOrden, versionEsperada)
+                .addValue("valorNuevo", nuevoEstadoPago, Types.VARCHAR);
+        return ejecutar(SQL_ESTADO_PAGO, parametros, idOrden, "estado_pago", nuevoEstadoPago, versionEsperada);
+    }
+
+    // ===============================
+    // CAMBIOS MASIVOS
+    // ===============================
+
+    /**
+     * Cambiar el estado de varias órdenes; las que no admiten la transición se informan como rechazadas
+     */
+    public List<ResultadoLoteOrdenDTO> cambiarEstadoLote(List<Long> idsOrden, String nuevoEstado, String comentario) {
+        if (!TRANSICIONES.containsKey(nuevoEstado)) {
+            throw new IllegalArgumentException("Estado no válido: " + nuevoEstado);
+        }
+        return aplicarLote(idsOrden, "estado", nuevoEstado, Types.VARCHAR, nuevoEstado,
+                (estado, valorActual) -> esTransicionPermitida(estado, nuevoEstado) ? null
+                        : "Transición de estado no permitida: " + estado + " -> " + nuevoEstado,
+                valorAnterior -> comentario);
+    }
+
+    /**
+     * Cambiar la prioridad de varias órdenes
+     */
+    public List<ResultadoLoteOrdenDTO> cambiarPrioridadLote(List<Long> idsOrden, String nuevaPrioridad) {
+        if (!PRIORIDADES.contains(nuevaPrioridad)) {
+            throw new IllegalArgumentException("Prioridad no válida: " + nuevaPrioridad);
+        }
+        return aplicarLote(idsOrden, "prioridad", nuevaPrioridad, Types.VARCHAR, nuevaPrioridad,
+                this::rechazarSiFinal,
+                valorAnterior -> "Prioridad: " + valorOGuion(valorAnterior) + " -> " + nuevaPrioridad);
+    }
+
+    /**
+     * Asignar (o quitar, con null) el mismo mecánico a varias órdenes
+     */
+    public List<ResultadoLoteOrdenDTO> asignarMecanicoLote(List<Long> idsOrden, Long idMecanico) {
+        if (idMecanico != null) {
+            Long activos = namedParameterJdbcTemplate.queryForObject(SQL_MECANICO_ACTIVO,
+                    new MapSqlParameterSource("idMecanico", idMecanico), Long.class);
+            if (activos == null || activos == 0) {
+                throw new IllegalArgumentException("El usuario " + idMecanico + " no es un mecánico activo");
+            }
+        }
+        String valorNuevo = idMecanico != null ? idMecanico.toString() : null;
+        return aplicarLote(idsOrden, "id_mecanico_asignado", idMecanico, Types.BIGINT, valorNuevo,
+                this::rechazarSiFinal,
+                valorAnterior -> "Mecánico: " + valorOGuion(valorAnterior) + " -> " + valorOGuion(valorNuevo));
+    }
+
+    /**
+     * Cambiar el estado de pago de varias órdenes
+     */
+    public List<ResultadoLoteOrdenDTO> cambiarEstadoPagoLote(List<Long> idsOrden, String nuevoEstadoPago) {
+        if (!ESTADOS_PAGO.contains(nuevoEstadoPago)) {
+            throw new IllegalArgumentException("Estado de pago no válido: " + nuevoEstadoPago);
+        }
+        return aplicarLote(idsOrden, "estado_pago", nuevoEstadoPago, Types.VARCHAR, nuevoEstadoPago,
+                (estado, valorActual) -> null,
+                valorAnterior -> "Estado de pago: " + valorOGuion(valorAnterior) + " -> " + nuevoEstadoPago);
+    }
+
+    /**
+     * Aplica un cambio a un lote con un número fijo de sentencias:
+     * SELECT ... FOR UPDATE de todas las órdenes, un UPDATE sobre las aplicables y un INSERT por lotes JDBC del historial
+     * @param motivoRechazo (estado, valor actual) -> motivo si la orden no admite el cambio, o null
+     * @param comentario valor anterior -> comentario del historial
+     */
+    private List<ResultadoLoteOrdenDTO> aplicarLote(List<Long> idsOrden, String columna, Object valorParametro, int tipoSql,
+                                                    String valorNuevo, BiFunction<String, String, String> motivoRechazo,
+                                                    Function<String, String> comentario) {
+        List<Long> ids = normalizarLote(idsOrden);
+
+        Map<Long, Map<String, Object>> actuales = new HashMap<>();
+        for (Map<String, Object> fila : namedParameterJdbcTemplate.queryForList(
+                String.format(SQL_LOTE_BLOQUEO, columna), new MapSqlParameterSource("ids", ids))) {
+            actuales.put(((Number) fila.get("id_orden")).longValue(), fila);
+        }
+
+        Map<Long, ResultadoLoteOrdenDTO> resultados = new LinkedHashMap<>();
+        List<Long> aplicables = new ArrayList<>();
+        for (Long id : ids) {
+            Map<String, Object> actual = actuales.get(id);
+            if (actual == null) {
+                resultados.put(id, new ResultadoLoteOrdenDTO(id, ResultadoLoteOrdenDTO.NO_ENCONTRADA, null, valorNuevo,
+                        null, "No se encontró la orden de trabajo con ID: " + id));
+                continue;
+            }
+            String estado = (String) actual.get("estado");
+            String valorActual = (String) actual.get("valor");
+            if (Objects.equals(valorActual, valorNuevo)) {
+                resultados.put(id, new ResultadoLoteOrdenDTO(id, ResultadoLoteOrdenDTO.SIN_CAMBIOS, valorActual, valorNuevo,
+                        null, null));
+                continue;
+            }
+            String motivo = motivoRechazo.apply(estado, valorActual);
+            if (motivo != null) {
+                resultados.put(id, new ResultadoLoteOrdenDTO(id, ResultadoLoteOrdenDTO.RECHAZADO, valorActual, valorNuevo,
+                        null, motivo));
+                continue;
+            }
+            aplicables.add(id);
+            resultados.put(id, new ResultadoLoteOrdenDTO(id, ResultadoLoteOrdenDTO.APLICADO, valorActual, valorNuevo,
+                    null, null));
+        }
+
+        if (!aplicables.isEmpty()) {
+            MapSqlParameterSource parametros = new MapSqlParameterSource("ids", aplicables)
+                    .addValue("valorNuevo", valorParametro, tipoSql);
+            Map<Long, String> estadosNuevos = new HashMap<>();
+            namedParameterJdbcTemplate.query(String.format(SQL_LOTE_ACTUALIZAR, columna), parametros, rs -> {
+                long id = rs.getLong("id_orden");
+                resultados.get(id).setVersion(rs.getLong("version"));
+                estadosNuevos.put(id, rs.getString("estado"));
+            });
+
+            Long idUsuario = usuarioService.obtenerIdUsuarioActual();
+            List<Object[]> historial = new ArrayList<>(aplicables.size());
+            for (Long id : aplicables) {
+                historial.add(new Object[]{
+                        id,
+                        actuales.get(id).get("estado"),
+                        estadosNuevos.get(id),
+                        comentario.apply(resultados.get(id).getValorAnterior()),
+                        idUsuario});
+            }
+            namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(SQL_HISTORIAL, historial, TIPOS_HISTORIAL);
+            eventPublisher.publishEvent(new OrdenesModificadasEvent(aplicables, TIPOS_EVENTO.get(columna)));
+        }
+        return new ArrayList<>(resultados.values());
+    }
+
+    private List<Long> normalizarLote(List<Long> idsOrden) {
+        if (idsOrden == null || idsOrden.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una orden");
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : idsOrden) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una orden");
+        }
+        if (ids.size() > LIMITE_LOTE) {
+            throw new IllegalArgumentException("No se pueden procesar más de " + LIMITE_LOTE + " órdenes por operación");
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private String rechazarSiFinal(String estado, String valorActual) {
+        return ESTADOS_FINALES.contains(estado) ? "La orden está " + estado + " y no admite cambios" : null;
+    }
+
+    private static String valorOGuion(String valor) {
+        return valor != null ? valor : "-";
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private MapSqlParameterSource parametrosBase(Long idOrden, Long versionEsperada) {
+        return new MapSqlParameterSource()
+                .addValue("idOrden", idOrden, Types.BIGINT)
+                .addValue("versionEsperada", versionEsperada, Types.BIGINT)
+                .addValue("idUsuario", usuarioService.obtenerIdUsuarioActual(), Types.BIGINT);
+    }
+
+    private ResultadoTransicionDTO ejecutar(String sql, MapSqlParameterSource parametros, Long idOrden,
+                                            String columna, String valorNuevo, Long versionEsperada) {
+        List<ResultadoTransicionDTO> filas = namedParameterJdbcTemplate.query(sql, parametros,
+                (rs, rowNum) -> new ResultadoTransicionDTO(
+                        rs.getLong("id_orden"),
+                        columna,
+                        rs.getString("valor_anterior"),
+                        valorNuevo,
+                        rs.getString("estado"),
+                        rs.getLong("version")));
+        if (!filas.isEmpty()) {
+            eventPublisher.publishEvent(new OrdenModificadaEvent(idOrden, TIPOS_EVENTO.get(columna)));
+            return filas.get(0);
+        }
+        return diagnosticarRechazo(idOrden, columna, valorNuevo, versionEsperada);
+    }
+
+    /**
+     * El UPDATE no afectó filas: se lee la orden una vez para informar el motivo exacto
+     * Si el valor ya era el solicitado, se devuelve el estado actual sin error
+     */
+    private ResultadoTransicionDTO diagnosticarRechazo(Long idOrden, String columna, String valorNuevo, Long versionEsperada) {
+        List<Map<String, Object>> filas = namedParameterJdbcTemplate.queryForList(
+                String.format(SQL_ESTADO_ACTUAL, columna),
+                new MapSqlParameterSource("idOrden", idOrden));
+        if (filas.isEmpty()) {
+            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
+        }
+
+        Map<String, Object> actual = filas.get(0);
+        String estado = (String) actual.get("estado");
+        Long version = ((Number) actual.get("version")).longValue();
+        String valorActual = (String) actual.get("valor");
+
+        if (versionEsperada != null && !versionEsperada.equals(version)) {
+            throw new OptimisticLockingFailureException("La orden " + idOrden + " fue modificada por otro usuario (versión actual: " + version + ")");
+        }
+        if ("estado".equals(columna)) {
+            throw new IllegalStateException("Transición de estado no permitida: " + estado + " -> " + valorNuevo);
+        }
+        if (valorNuevo == null ? valorActual == null : valorNuevo.equals(valorActual)) {
+            return new ResultadoTransicionDTO(idOrden, columna, valorActual, valorNuevo, estado, version);
+        }
+        if (ESTADOS_FINALES.contains(estado) && !"estado_pago".equals(columna)) {
+            throw new IllegalStateException("La orden está " + estado + " y no admite cambios de " + columna);
+        }
+        throw new IllegalArgumentException("El usuario " + valorNuevo + " no es un mecánico activo");
+    }
+
+    private static Map<String, List<String>> calcularOrigenes() {
+        Map<String, Set<String>> origenes = new HashMap<>();
+        TRANSICIONES.forEach((origen, destinos) -> {
+            for (String destino : destinos) {
+                origenes.computeIfAbsent(destino, d -> new HashSet<>()).add(origen);
+            }
+        });
+        Map<String, List<String>> resultado = new HashMap<>();
+        origenes.forEach((destino, estados) -> resultado.put(destino, List.copyOf(estados)));
+        return Collections.unmodifiableMap(resultado);
+    }
+}
@@ -2,8 +2,10 @@ package com.tallermoto.service;
 
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Pago;
+import com.tallermoto.event.OrdenModificadaEvent;
 import com.tallermoto.repository.PagoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,13 +25,18 @@ public class PagoService {
     @Autowired
     private PagoRepository pagoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ========== OPERACIONES CRUD ==========
 
     /**
      * Guarda un nuevo pago
      */
     public Pago guardarPago(Pago pago) {
-        return pagoRepository.save(pago);
+        Pago pagoGuardado = pagoRepository.save(pago);
+        notificarPago(pagoGuardado);
+        return pagoGuardado;
     }
 
     /**
@@ -52,14 +59,19 @@ public class PagoService {
      * Actualiza un pago existente
      */
     public Pago actualizarPago(Pago pago) {
-        return pagoRepository.save(pago);
+        Pago pagoActualizado = pagoRepository.save(pago);
+        notificarPago(pagoActualizado);
+        return pagoActualizado;
     }
 
     /**
      * Elimina un pago por ID
      */
     public void eliminarPago(Long id) {
-        pagoRepository.deleteById(id);
+        pagoRepository.findById(id).ifPresent(pago -> {
+            pagoRepository.delete(pago);
+            notificarPago(pago);
+        });
     }
 
     /**
@@ -460,4 +472,15 @@ public class PagoService {
     public long contarTotalPagos() {
         return pagoRepository.count();
     }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Publicar el cambio de saldo de la orden (se entrega a los oyentes tras el commit)
+     */
+    private void notificarPago(Pago pago) {
+        if (pago.getOrdenTrabajo() != null && pago.getOrdenTrabajo().getIdOrden() != null) {
+            eventPublisher.publishEvent(new OrdenModificadaEvent(pago.getOrdenTrabajo().getIdOrden(), OrdenModificadaEvent.PAGO));
+        }
+    }
 }
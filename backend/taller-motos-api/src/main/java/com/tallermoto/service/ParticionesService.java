@@ -0,0 +1,266 @@
+package com.tallermoto.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servicio de mantenimiento de las tablas históricas particionadas por mes
+ * (repuesto_movimientos por fecha_movimiento y orden_historial por fecha_cambio)
+ *
+ * Crea por adelantado las particiones de los próximos meses (app.particiones.meses-adelante) con la función
+ * crear_particion_mensual de la base de datos. Las particiones más antiguas que la retención de su tabla se separan
+ * (DETACH), se exportan a un CSV comprimido (gzip) en app.particiones.archivo.directorio y se eliminan.
+ * Si el proceso se interrumpe tras separar una partición, la siguiente ejecución la encuentra separada y termina
+ * de archivarla; el archivo se escribe en un temporal, se sincroniza a disco y se renombra al final (sincronizando
+ * también el directorio), así nunca queda uno incompleto y la tabla solo se elimina cuando el archivo es durable.
+ *
+ * Las consultas por rango de fechas solo leen las particiones de los meses que abarcan.
+ * Los movimientos archivados dejan de contar para el stock a una fecha anterior a la retención:
+ * en esos meses solo son exactos los cierres de fin de mes (que se conservan siempre)
+ */
+@Service
+public class ParticionesService {
+
+    public static final String TABLA_MOVIMIENTOS = "repuesto_movimientos";
+    public static final String TABLA_HISTORIAL = "orden_historial";
+
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("uuuu_MM");
+    private static final String PATRON_PARTICION = "_[0-9]{4}_[0-9]{2}$";
+    private static final String EXTENSION_ARCHIVO = ".csv.gz";
+
+    private static final int TAMANO_LECTURA = 1000;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private static final String SQL_CREAR_PARTICION = "SELECT crear_particion_mensual(?, ?)";
+
+    private static final String SQL_EXISTE = "SELECT to_regclass(?) IS NOT NULL";
+
+    // Particiones mensuales de una tabla: adjuntas o ya separadas por un archivado que no terminó
+    private static final String SQL_PARTICIONES =
+            "SELECT relname, relispartition FROM pg_class " +
+            "WHERE relkind = 'r' AND relnamespace = CAST(current_schema() AS regnamespace) AND relname ~ ? " +
+            "ORDER BY relname";
+
+    // Los nombres se validan contra el patrón de partición antes de usarse en estas sentencias
+    private static final String SQL_SEPARAR = "ALTER TABLE %s DETACH PARTITION %s";
+    private static final String SQL_LEER = "SELECT * FROM %s";
+    private static final String SQL_ELIMINAR = "DROP TABLE %s";
+
+    @Value("${app.particiones.meses-adelante:3}")
+    private int mesesAdelante;
+
+    @Value("${app.particiones.retencion-meses.movimientos:24}")
+    private int retencionMovimientos;
+
+    @Value("${app.particiones.retencion-meses.historial:24}")
+    private int retencionHistorial;
+
+    @Value("${app.particiones.archivo.directorio:data/archivo-historicos}")
+    private String directorioArchivo;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Lectura por lotes para exportar: dentro de una transacción PostgreSQL usa un cursor
+    private JdbcTemplate cursor;
+    private TransactionTemplate lectura;
+
+    @PostConstruct
+    public void iniciar() {
+        cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(TAMANO_LECTURA);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        // Sin las particiones del mes las filas caen en la partición por defecto: no se impide el arranque
+        try {
+            mantenerParticiones();
+        } catch (RuntimeException e) {
+            System.err.println("No se pudieron mantener las particiones al arrancar: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crear las particiones que falten y archivar las que superen la retención
+     * @return acciones realizadas (CREADA / ARCHIVADA y el nombre de la partición)
+     */
+    @Scheduled(cron = "${app.particiones.cron:0 40 4 * * *}")
+    public synchronized List<String> mantenerParticiones() {
+        List<String> acciones = new ArrayList<>();
+        YearMonth mesActual = YearMonth.now();
+        mantenerTabla(TABLA_MOVIMIENTOS, retencionMovimientos, mesActual, acciones);
+        mantenerTabla(TABLA_HISTORIAL, retencionHistorial, mesActual, acciones);
+        if (!acciones.isEmpty()) {
+            System.out.println("Mantenimiento de particiones: " + String.join(", ", acciones));
+        }
+        return acciones;
+    }
+
+    private void mantenerTabla(String tabla, int mesesRetencion, YearMonth mesActual, List<String> acciones) {
+        crearParticiones(tabla, mesActual, acciones);
+        // Retención 0: no se archiva nunca
+        if (mesesRetencion > 0) {
+            archivarParticiones(tabla, mesActual.minusMonths(mesesRetencion), acciones);
+        }
+    }
+
+    // ===============================
+    // CREACIÓN
+    // ===============================
+
+    private void crearParticiones(String tabla, YearMonth mesActual, List<String> acciones) {
+        for (int i = 0; i <= mesesAdelante; i++) {
+            YearMonth mes = mesActual.plusMonths(i);
+            String nombre = nombre(tabla, mes);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_EXISTE, Boolean.class, nombre))) {
+                continue;
+            }
+            jdbcTemplate.queryForObject(SQL_CREAR_PARTICION, String.class, tabla, Date.valueOf(mes.atDay(1)));
+            acciones.add("CREADA " + nombre);
+        }
+    }
+
+    // ===============================
+    // ARCHIVADO
+    // ===============================
+
+    /**
+     * Archivar las particiones de los meses anteriores al límite (el mes límite se conserva)
+     */
+    private void archivarParticiones(String tabla, YearMonth limite, List<String> acciones) {
+        List<Map<String, Object>> particiones = jdbcTemplate.queryForList(SQL_PARTICIONES,
+                "^" + tabla + PATRON_PARTICION);
+        for (Map<String, Object> particion : particiones) {
+            String nombre = (String) particion.get("relname");
+            YearMonth mes = YearMonth.parse(nombre.substring(tabla.length() + 1), FORMATO_MES);
+            if (!mes.isBefore(limite)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(particion.get("relispartition"))) {
+                jdbcTemplate.execute(String.format(SQL_SEPARAR, tabla, nombre));
+            }
+            long filas = exportar(nombre);
+            jdbcTemplate.execute(String.format(SQL_ELIMINAR, nombre));
+            acciones.add("ARCHIVADA " + nombre + " (" + filas + " filas)");
+        }
+    }
+
+    /**
+     * Exportar una tabla separada a <directorio>/<nombre>.csv.gz (con encabezado; NULL como campo vacío)
+     */
+    private long exportar(String nombre) {
+        Path directorio = Paths.get(directorioArchivo);
+        Path destino = directorio.resolve(nombre + EXTENSION_ARCHIVO);
+        Path temporal = directorio.resolve(nombre + EXTENSION_ARCHIVO + ".tmp");
+        try {
+            Files.createDirectories(directorio);
+            Long filas;
+            try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+                 GZIPOutputStream comprimido = new GZIPOutputStream(archivo, TAMANO_BUFFER);
+                 Writer escritor = new BufferedWriter(new OutputStreamWriter(comprimido, StandardCharsets.UTF_8),
+                         TAMANO_BUFFER)) {
+                ResultSetExtractor<Long> exportador = rs -> {
+                    try {
+                        ResultSetMetaData columnas = rs.getMetaData();
+                        int total = columnas.getColumnCount();
+                        escribirFila(escritor, total, columnas::getColumnName);
+                        long leidas = 0;
+                        while (rs.next()) {
+                            escribirFila(escritor, total, rs::getString);
+                            leidas++;
+                        }
+                        return leidas;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                filas = lectura.execute(estado -> cursor.query(String.format(SQL_LEER, nombre), exportador));
+                // El trailer gzip (CRC y tamaño) se escribe en finish(): debe estar en el archivo antes del fsync
+                escritor.flush();
+                comprimido.finish();
+                archivo.getFD().sync();
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // El renombrado es durable recién cuando se sincroniza el directorio: antes de eso no se elimina la tabla
+            sincronizarDirectorio(directorio);
+            return filas != null ? filas : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo archivar la partición " + nombre, e);
+        }
+    }
+
+    private static void sincronizarDirectorio(Path directorio) throws IOException {
+        // Windows no permite abrir un directorio como canal: allí el renombrado ya se confirma en el sistema de archivos
+        if (System.getProperty("os.name", "").startsWith("Windows")) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        }
+    }
+
+    private static void escribirFila(Writer escritor, int columnas, Columna columna) throws IOException {
+        for (int i = 1; i <= columnas; i++) {
+            if (i > 1) {
+                escritor.write(',');
+            }
+            String valor;
+            try {
+                valor = columna.valor(i);
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+            if (valor != null) {
+                // Texto vacío entre comillas para distinguirlo de NULL
+                escritor.write(valor.isEmpty() ? "\"\"" : KardexService.campoCsv(valor));
+            }
+        }
+        escritor.write('\n');
+    }
+
+    private static String nombre(String tabla, YearMonth mes) {
+        return tabla + "_" + mes.format(FORMATO_MES);
+    }
+
+    @FunctionalInterface
+    private interface Columna {
+        String valor(int indice) throws SQLException;
+    }
+}
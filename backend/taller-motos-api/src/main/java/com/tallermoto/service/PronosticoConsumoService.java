@@ -0,0 +1,345 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.SugerenciaReposicionDTO;
+import com.tallermoto.event.StockModificadoEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Servicio de pronóstico de consumo de repuestos y sugerencias de reposición
+ *
+ * Cada repuesto tiene una tasa de consumo diaria suavizada exponencialmente (repuesto_consumo). El consumo neto
+ * del día en curso se acumula en un balde; al pasar al día siguiente el balde se incorpora a la tasa y a la
+ * varianza, y los días sin movimientos cuentan como consumo cero. Consumo neto = SALIDA menos las ENTRADAS que
+ * deshacen una salida (devoluciones de órdenes y liberaciones de reservas); las compras y los ajustes no cuentan.
+ *
+ * El libro de movimientos entrega cada lote que escribe en repuesto_movimientos (registrarConsumo) y el consumo se
+ * incorpora en la misma transacción, leyendo solo las filas de los repuestos del lote: se confirma junto con los
+ * movimientos, así que no se pierde si la aplicación se detiene y un lote reintentado o reprocesado desde el
+ * diario no se cuenta dos veces. Nunca se recorre repuesto_movimientos, salvo la carga inicial acotada a
+ * app.pronostico.dias-semilla cuando la tabla está vacía.
+ *
+ * Sugerencia de reposición, con plazo de entrega L y cobertura R (días):
+ * punto de reorden = tasa × L + z × desviación × √L (nunca menor que el stock mínimo);
+ * stock objetivo = tasa × (L + R) + z × desviación × √L; se sugiere pedir hasta el objetivo
+ * cuando el stock está en o bajo el punto de reorden
+ */
+@Service
+public class PronosticoConsumoService {
+
+    private static final String TIPO_SALIDA = "SALIDA";
+    private static final String TIPO_ENTRADA = "ENTRADA";
+
+    // Días sin movimientos que se incorporan como máximo: después la tasa ya es prácticamente cero
+    private static final int MAXIMO_DIAS_INCORPORADOS = 3650;
+
+    private static final String SQL_HAY_ESTADOS = "SELECT EXISTS (SELECT 1 FROM repuesto_consumo)";
+
+    // Se bloquean las filas hasta el commit del lote: la lectura y reescritura no debe solaparse con otra escritura
+    private static final String SQL_ESTADOS =
+            "SELECT id_repuesto, dia_actual, consumo_dia, tasa, varianza, dias_observados " +
+            "FROM repuesto_consumo WHERE id_repuesto IN (:ids) FOR UPDATE";
+
+    // Un repuesto eliminado entre el movimiento y la escritura se ignora
+    private static final String SQL_GUARDAR =
+            "INSERT INTO repuesto_consumo (id_repuesto, dia_actual, consumo_dia, tasa, varianza, dias_observados, updated_at) " +
+            "SELECT ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP WHERE EXISTS (SELECT 1 FROM repuestos WHERE id_repuesto = ?) " +
+            "ON CONFLICT (id_repuesto) DO UPDATE SET dia_actual = EXCLUDED.dia_actual, " +
+            "consumo_dia = EXCLUDED.consumo_dia, tasa = EXCLUDED.tasa, varianza = EXCLUDED.varianza, " +
+            "dias_observados = EXCLUDED.dias_observados, updated_at = EXCLUDED.updated_at";
+
+    // Carga inicial: consumo neto por repuesto y día en la ventana de semilla (usa idx_movimientos_fecha)
+    private static final String SQL_SEMILLA =
+            "SELECT id_repuesto, CAST(fecha_movimiento AS DATE) AS dia, " +
+            "SUM(CASE WHEN tipo_movimiento = 'SALIDA' THEN cantidad " +
+            "WHEN tipo_movimiento = 'ENTRADA' AND (referencia LIKE :devolucion OR referencia LIKE :liberacion) " +
+            "THEN -cantidad ELSE 0 END) AS consumo " +
+            "FROM repuesto_movimientos WHERE fecha_movimiento >= :desde " +
+            "GROUP BY id_repuesto, CAST(fecha_movimiento AS DATE)";
+
+    private static final String SQL_SUGERENCIAS =
+            "SELECT r.id_repuesto, r.codigo, r.nombre, r.categoria, r.stock_actual, r.stock_minimo, " +
+            "c.dia_actual, c.consumo_dia, c.tasa, c.varianza, c.dias_observados " +
+            "FROM repuestos r LEFT JOIN repuesto_consumo c ON c.id_repuesto = r.id_repuesto ";
+
+    // Repuestos con consumo registrado o ya en o bajo el mínimo
+    private static final String FILTRO_SUGERENCIAS =
+            "WHERE r.activo AND (c.id_repuesto IS NOT NULL OR r.stock_actual <= r.stock_minimo) ORDER BY r.codigo";
+
+    private static final String FILTRO_REPUESTO = "WHERE r.id_repuesto = :idRepuesto";
+
+    @Value("${app.pronostico.alfa:0.1}")
+    private double alfa;
+
+    @Value("${app.pronostico.plazo-entrega-dias:7}")
+    private int plazoEntregaDias;
+
+    @Value("${app.pronostico.cobertura-dias:30}")
+    private int coberturaDias;
+
+    @Value("${app.pronostico.factor-servicio:1.65}")
+    private double factorServicio;
+
+    @Value("${app.pronostico.dias-semilla:90}")
+    private int diasSemilla;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // ===============================
+    // CICLO DE VIDA
+    // ===============================
+
+    /**
+     * Con la tabla vacía (primer arranque) se siembran las tasas con los últimos app.pronostico.dias-semilla días
+     */
+    @PostConstruct
+    public void iniciar() {
+        if (alfa <= 0 || alfa > 1) {
+            throw new IllegalStateException("app.pronostico.alfa debe estar entre 0 (excluido) y 1: " + alfa);
+        }
+        if (diasSemilla <= 0 || Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_HAY_ESTADOS, Boolean.class))) {
+            return;
+        }
+        LocalDate desde = LocalDate.now().minusDays(diasSemilla);
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("desde", desde.atStartOfDay())
+                .addValue("devolucion", UsoRepuestoService.REFERENCIA_DEVOLUCION + "%")
+                .addValue("liberacion", ReservaStockService.PREFIJO_LIBERACION + "%");
+        Map<Long, TreeMap<LocalDate, Integer>> porRepuesto = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_SEMILLA, parametros, rs -> {
+            porRepuesto.computeIfAbsent(rs.getLong("id_repuesto"), id -> new TreeMap<>())
+                    .put(rs.getDate("dia").toLocalDate(), rs.getInt("consumo"));
+        });
+        transactionTemplate.executeWithoutResult(estado -> guardar(porRepuesto, desde));
+        System.out.println("Pronóstico de consumo sembrado con " + porRepuesto.size() + " repuestos (desde " + desde + ")");
+    }
+
+    // ===============================
+    // RECEPCIÓN DE MOVIMIENTOS (escritos por el libro)
+    // ===============================
+
+    /**
+     * Incorporar el consumo de los movimientos que el libro acaba de insertar en repuesto_movimientos
+     * Se llama dentro de la transacción del lote: si esta se revierte, el consumo también
+     */
+    public void registrarConsumo(List<StockModificadoEvent.Cambio> cambios) {
+        Map<Long, TreeMap<LocalDate, Integer>> porRepuesto = new HashMap<>();
+        for (StockModificadoEvent.Cambio cambio : cambios) {
+            int consumo = consumoNeto(cambio);
+            if (consumo != 0) {
+                porRepuesto.computeIfAbsent(cambio.getIdRepuesto(), id -> new TreeMap<>())
+                        .merge(cambio.getFecha().toLocalDate(), consumo, Integer::sum);
+            }
+        }
+        guardar(porRepuesto, null);
+    }
+
+    private int consumoNeto(StockModificadoEvent.Cambio cambio) {
+        if (TIPO_SALIDA.equals(cambio.getTipoMovimiento())) {
+            return cambio.getCantidad();
+        }
+        String referencia = cambio.getReferencia();
+        if (TIPO_ENTRADA.equals(cambio.getTipoMovimiento()) && referencia != null
+                && (referencia.startsWith(UsoRepuestoService.REFERENCIA_DEVOLUCION)
+                || referencia.startsWith(ReservaStockService.PREFIJO_LIBERACION))) {
+            return -cambio.getCantidad();
+        }
+        return 0;
+    }
+
+    // ===============================
+    // ESCRITURA
+    // ===============================
+
+    /**
+     * @param inicioSinEstado día desde el que se cuentan los repuestos sin fila (días previos sin consumo);
+     *                        null para empezar en su primer día con movimientos
+     */
+    private void guardar(Map<Long, TreeMap<LocalDate, Integer>> porRepuesto, LocalDate inicioSinEstado) {
+        if (porRepuesto.isEmpty()) {
+            return;
+        }
+        Map<Long, Estado> estados = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_ESTADOS, new MapSqlParameterSource("ids", porRepuesto.keySet()), rs -> {
+            estados.put(rs.getLong("id_repuesto"), leerEstado(rs));
+        });
+
+        List<Object[]> filas = new ArrayList<>(porRepuesto.size());
+        for (Map.Entry<Long, TreeMap<LocalDate, Integer>> entrada : porRepuesto.entrySet()) {
+            Estado estado = estados.get(entrada.getKey());
+            if (estado == null) {
+                estado = new Estado(inicioSinEstado != null ? inicioSinEstado : entrada.getValue().firstKey());
+            }
+            for (Map.Entry<LocalDate, Integer> dia : entrada.getValue().entrySet()) {
+                // Un movimiento de un día ya cerrado (llegó tarde) se suma al día en curso
+                avanzar(estado, dia.getKey());
+                estado.consumoDia += dia.getValue();
+            }
+            filas.add(new Object[] {entrada.getKey(), Date.valueOf(estado.dia), estado.consumoDia, estado.tasa,
+                    estado.varianza, estado.diasObservados, entrada.getKey()});
+        }
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, filas);
+    }
+
+    // ===============================
+    // SUGERENCIAS DE REPOSICIÓN
+    // ===============================
+
+    /**
+     * Sugerencias para los repuestos activos con consumo registrado o en o bajo el mínimo
+     * @param soloReordenar devolver solo los que hay que pedir
+     * @param plazoDias plazo de entrega en días; null usa app.pronostico.plazo-entrega-dias
+     */
+    public List<SugerenciaReposicionDTO> obtenerSugerencias(boolean soloReordenar, Integer plazoDias) {
+        int plazo = validarPlazo(plazoDias);
+        LocalDate hoy = LocalDate.now();
+        List<SugerenciaReposicionDTO> sugerencias = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SQL_SUGERENCIAS + FILTRO_SUGERENCIAS, new MapSqlParameterSource(), rs -> {
+            SugerenciaReposicionDTO sugerencia = sugerir(rs, plazo, hoy);
+            if (!soloReordenar || sugerencia.getReordenar()) {
+                sugerencias.add(sugerencia);
+            }
+        });
+        return sugerencias;
+    }
+
+    /**
+     * Pronóstico y sugerencia de un repuesto (sin consumo registrado la tasa es cero)
+     */
+    public Optional<SugerenciaReposicionDTO> obtenerSugerencia(Long idRepuesto, Integer plazoDias) {
+        int plazo = validarPlazo(plazoDias);
+        LocalDate hoy = LocalDate.now();
+        return namedParameterJdbcTemplate.query(SQL_SUGERENCIAS + FILTRO_REPUESTO,
+                new MapSqlParameterSource("idRepuesto", idRepuesto), (rs, fila) -> sugerir(rs, plazo, hoy))
+                .stream().findFirst();
+    }
+
+    private int validarPlazo(Integer plazoDias) {
+        if (plazoDias == null) {
+            return plazoEntregaDias;
+        }
+        if (plazoDias < 0 || plazoDias > 365) {
+            throw new IllegalArgumentException("El plazo de entrega debe estar entre 0 y 365 días");
+        }
+        return plazoDias;
+    }
+
+    private SugerenciaReposicionDTO sugerir(ResultSet rs, int plazo, LocalDate hoy) throws SQLException {
+        int stock = rs.getInt("stock_actual");
+        int stockMinimo = rs.getInt("stock_minimo");
+
+        // La tasa guardada llega hasta el último día con movimientos: se proyecta a hoy sin escribirla
+        Estado estado = rs.getDate("dia_actual") != null ? leerEstado(rs) : new Estado(hoy);
+        avanzar(estado, hoy);
+        double tasa = estado.tasa;
+        double desviacion = Math.sqrt(estado.varianza);
+
+        double seguridad = factorServicio * desviacion * Math.sqrt(plazo);
+        int puntoReorden = Math.max(stockMinimo, (int) Math.ceil(tasa * plazo + seguridad));
+        int stockObjetivo = Math.max(puntoReorden, (int) Math.ceil(tasa * (plazo + coberturaDias) + seguridad));
+        int cantidad = stock <= puntoReorden ? Math.max(0, stockObjetivo - stock) : 0;
+
+        return new SugerenciaReposicionDTO(
+                rs.getLong("id_repuesto"),
+                rs.getString("codigo"),
+                rs.getString("nombre"),
+                rs.getString("categoria"),
+                stock,
+                stockMinimo,
+                BigDecimal.valueOf(tasa).setScale(2, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(desviacion).setScale(2, RoundingMode.HALF_UP),
+                estado.diasObservados,
+                plazo,
+                puntoReorden,
+                stockObjetivo,
+                cantidad,
+                tasa > 0 ? BigDecimal.valueOf(stock / tasa).setScale(1, RoundingMode.HALF_UP) : null,
+                cantidad > 0,
+                hoy);
+    }
+
+    // ===============================
+    // SUAVIZADO EXPONENCIAL
+    // ===============================
+
+    /**
+     * Cerrar los días anteriores a 'dia': se incorpora el día en curso y los días sin movimientos como consumo cero
+     */
+    private void avanzar(Estado estado, LocalDate dia) {
+        if (!dia.isAfter(estado.dia)) {
+            return;
+        }
+        long dias = Math.min(ChronoUnit.DAYS.between(estado.dia, dia), MAXIMO_DIAS_INCORPORADOS);
+        incorporar(estado, Math.max(estado.consumoDia, 0));
+        for (long i = 1; i < dias; i++) {
+            incorporar(estado, 0);
+        }
+        estado.dia = dia;
+        estado.consumoDia = 0;
+    }
+
+    private void incorporar(Estado estado, double consumo) {
+        if (estado.diasObservados == 0) {
+            estado.tasa = consumo;
+            estado.varianza = 0;
+        } else {
+            double desvio = consumo - estado.tasa;
+            estado.tasa += alfa * desvio;
+            estado.varianza = (1 - alfa) * (estado.varianza + alfa * desvio * desvio);
+        }
+        estado.diasObservados++;
+    }
+
+    private Estado leerEstado(ResultSet rs) throws SQLException {
+        Estado estado = new Estado(rs.getDate("dia_actual").toLocalDate());
+        estado.consumoDia = rs.getInt("consumo_dia");
+        estado.tasa = rs.getDouble("tasa");
+        estado.varianza = rs.getDouble("varianza");
+        estado.diasObservados = rs.getInt("dias_observados");
+        return estado;
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    private static final class Estado {
+
+        private LocalDate dia;
+        private int consumoDia;
+        private double tasa;
+        private double varianza;
+        private int diasObservados;
+
+        private Estado(LocalDate dia) {
+            this.dia = dia;
+        }
+    }
+}
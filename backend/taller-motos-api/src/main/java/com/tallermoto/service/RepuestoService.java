@@ -1,10 +1,16 @@
 package com.tallermoto.service;
 
+import com.tallermoto.dto.CambioStockDTO;
 import com.tallermoto.entity.Repuesto;
+import com.tallermoto.event.RepuestoModificadoEvent;
 import com.tallermoto.repository.RepuestoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +27,53 @@ import java.util.Optional;
 @Transactional
 public class RepuestoService {
 
+    // Cambios de stock en una sola sentencia por repuesto: la fila queda bloqueada por el UPDATE
+    // y la condición se evalúa sobre el valor vigente. Si la condición no se cumple (o el repuesto no existe)
+    // no se devuelve ninguna fila. El movimiento se entrega después al libro de movimientos
+    private static final String SQL_DESCONTAR_STOCK =
+            "UPDATE repuestos SET stock_actual = stock_actual - :cantidad " +
+            "WHERE id_repuesto = :idRepuesto AND stock_actual >= :cantidad " +
+            "RETURNING id_repuesto, stock_actual + :cantidad AS stock_anterior, stock_actual AS stock_nuevo";
+
+    private static final String SQL_REPONER_STOCK =
+            "UPDATE repuestos SET stock_actual = stock_actual + :cantidad " +
+            "WHERE id_repuesto = :idRepuesto " +
+            "RETURNING id_repuesto, stock_actual - :cantidad AS stock_anterior, stock_actual AS stock_nuevo";
+
+    // El ajuste fija un valor absoluto: el stock anterior se lee con bloqueo dentro de la misma sentencia
+    private static final String SQL_AJUSTAR_STOCK =
+            "WITH anterior AS (" +
+            "SELECT id_repuesto, stock_actual FROM repuestos WHERE id_repuesto = :idRepuesto FOR UPDATE) " +
+            "UPDATE repuestos r SET stock_actual = :nuevoStock FROM anterior a " +
+            "WHERE r.id_repuesto = a.id_repuesto " +
+            "RETURNING r.id_repuesto, a.stock_actual AS stock_anterior, r.stock_actual AS stock_nuevo";
+
+    private static final String SQL_STOCK_ACTUAL =
+            "SELECT stock_actual FROM repuestos WHERE id_repuesto = :idRepuesto";
+
+    private static final RowMapper<CambioStockDTO> CAMBIO_STOCK_MAPPER = (rs, fila) -> new CambioStockDTO(
+            rs.getLong("id_repuesto"),
+            rs.getInt("stock_anterior"),
+            rs.getInt("stock_nuevo"));
+
     @Autowired
     private RepuestoRepository repuestoRepository;
 
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private LibroMovimientosService libroMovimientosService;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ===============================
     // OPERACIONES CRUD BÁSICAS
     // ===============================
@@ -48,7 +98,9 @@ public class RepuestoService {
             repuesto.setActivo(true);
         }
         
-        return repuestoRepository.save(repuesto);
+        Repuesto guardado = repuestoRepository.save(repuesto);
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(guardado.getIdRepuesto(), RepuestoModificadoEvent.CREADO));
+        return guardado;
     }
 
     /**
@@ -77,6 +129,8 @@ public class RepuestoService {
 
     /**
      * Actualizar repuesto
+     * El stock no se modifica por aquí (stockActual se ignora): un valor leído antes de un consumo concurrente
+     * lo desharía. Los cambios de stock van por reponerStock, descontarStock o ajustarStock
      */
     public Repuesto actualizarRepuesto(Long id, Repuesto repuestoActualizado) {
         Optional<Repuesto> repuestoExistente = repuestoRepository.findById(id);
@@ -98,11 +152,11 @@ public class RepuestoService {
         repuesto.setNombre(repuestoActualizado.getNombre());
         repuesto.setDescripcion(repuestoActualizado.getDescripcion());
         repuesto.setCategoria(repuestoActualizado.getCategoria());
-        repuesto.setStockActual(repuestoActualizado.getStockActual());
         repuesto.setStockMinimo(repuestoActualizado.getStockMinimo());
         repuesto.setPrecioUnitario(repuestoActualizado.getPrecioUnitario());
         repuesto.setActivo(repuestoActualizado.getActivo());
 
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(id, RepuestoModificadoEvent.ACTUALIZADO));
         return repuestoRepository.save(repuesto);
     }
 
@@ -118,6 +172,7 @@ public class RepuestoService {
         Repuesto repuestoEntity = repuesto.get();
         repuestoEntity.setActivo(false);
         repuestoRepository.save(repuestoEntity);
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(id, RepuestoModificadoEvent.ACTUALIZADO));
     }
 
     /**
@@ -128,6 +183,7 @@ public class RepuestoService {
             throw new IllegalArgumentException("No se encontró el repuesto con ID: " + id);
         }
         repuestoRepository.deleteById(id);
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(id, RepuestoModificadoEvent.ELIMINADO));
     }
 
     // ===============================
@@ -591,51 +647,79 @@ public class RepuestoService {
     // ===============================
 
     /**
-     * Actualizar stock de un repuesto
+     * Actualizar stock de un repuesto (ajuste a un valor absoluto)
      */
     public Repuesto actualizarStock(Long id, Integer nuevoStock) {
-        Optional<Repuesto> repuesto = repuestoRepository.findById(id);
-        if (repuesto.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + id);
-        }
-        
-        Repuesto repuestoEntity = repuesto.get();
-        repuestoEntity.setStockActual(nuevoStock);
-        return repuestoRepository.save(repuestoEntity);
+        return obtenerRepuestoActualizado(ajustarStock(id, nuevoStock, "Ajuste de inventario"));
     }
 
     /**
      * Incrementar stock de un repuesto
      */
     public Repuesto incrementarStock(Long id, Integer cantidad) {
-        Optional<Repuesto> repuesto = repuestoRepository.findById(id);
-        if (repuesto.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + id);
-        }
-        
-        Repuesto repuestoEntity = repuesto.get();
-        repuestoEntity.setStockActual(repuestoEntity.getStockActual() + cantidad);
-        return repuestoRepository.save(repuestoEntity);
+        return obtenerRepuestoActualizado(reponerStock(id, cantidad, "Entrada de inventario"));
     }
 
     /**
      * Decrementar stock de un repuesto
      */
     public Repuesto decrementarStock(Long id, Integer cantidad) {
-        Optional<Repuesto> repuesto = repuestoRepository.findById(id);
-        if (repuesto.isEmpty()) {
-            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + id);
+        return obtenerRepuestoActualizado(descontarStock(id, cantidad, "Salida de inventario"));
+    }
+
+    /**
+     * Descontar stock solo si alcanza, en una sola sentencia (UPDATE ... WHERE stock_actual >= cantidad)
+     * Dos descuentos simultáneos del mismo repuesto se serializan en la fila: nunca se vende de más.
+     * Tampoco se vende lo reservado y aún no confirmado: ReservaStockService.apartarSalidaDirecta lo rechaza
+     */
+    public CambioStockDTO descontarStock(Long idRepuesto, Integer cantidad, String referencia) {
+        validarCantidad(cantidad);
+        List<CambioStockDTO> resultado = namedParameterJdbcTemplate.query(SQL_DESCONTAR_STOCK,
+                parametrosStock(idRepuesto).addValue("cantidad", cantidad), CAMBIO_STOCK_MAPPER);
+        if (resultado.isEmpty()) {
+            // Solo en el caso de fallo se consulta el stock para informar el motivo
+            List<Integer> stock = namedParameterJdbcTemplate.queryForList(SQL_STOCK_ACTUAL,
+                    new MapSqlParameterSource("idRepuesto", idRepuesto), Integer.class);
+            if (stock.isEmpty()) {
+                throw new IllegalArgumentException("No se encontró el repuesto con ID: " + idRepuesto);
+            }
+            throw new IllegalArgumentException(String.format("Stock insuficiente. Disponible: %d, Solicitado: %d",
+                    stock.get(0), cantidad));
         }
-        
-        Repuesto repuestoEntity = repuesto.get();
-        int nuevoStock = repuestoEntity.getStockActual() - cantidad;
-        
-        if (nuevoStock < 0) {
-            throw new IllegalArgumentException("No hay suficiente stock. Stock actual: " + repuestoEntity.getStockActual() + ", cantidad solicitada: " + cantidad);
+        reservaStockService.apartarSalidaDirecta(idRepuesto, cantidad);
+        return registrarMovimiento(resultado.get(0), "SALIDA", cantidad, referencia);
+    }
+
+    /**
+     * Devolver stock al inventario en una sola sentencia
+     */
+    public CambioStockDTO reponerStock(Long idRepuesto, Integer cantidad, String referencia) {
+        validarCantidad(cantidad);
+        List<CambioStockDTO> resultado = namedParameterJdbcTemplate.query(SQL_REPONER_STOCK,
+                parametrosStock(idRepuesto).addValue("cantidad", cantidad), CAMBIO_STOCK_MAPPER);
+        if (resultado.isEmpty()) {
+            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + idRepuesto);
         }
-        
-        repuestoEntity.setStockActual(nuevoStock);
-        return repuestoRepository.save(repuestoEntity);
+        return registrarMovimiento(resultado.get(0), "ENTRADA", cantidad, referencia);
+    }
+
+    /**
+     * Fijar el stock a un valor absoluto en una sola sentencia (registra un movimiento de AJUSTE si cambia)
+     */
+    public CambioStockDTO ajustarStock(Long idRepuesto, Integer nuevoStock, String referencia) {
+        if (nuevoStock == null || nuevoStock < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+        List<CambioStockDTO> resultado = namedParameterJdbcTemplate.query(SQL_AJUSTAR_STOCK,
+                parametrosStock(idRepuesto).addValue("nuevoStock", nuevoStock), CAMBIO_STOCK_MAPPER);
+        if (resultado.isEmpty()) {
+            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + idRepuesto);
+        }
+        CambioStockDTO cambio = resultado.get(0);
+        if (cambio.getStockNuevo().equals(cambio.getStockAnterior())) {
+            return cambio;
+        }
+        return registrarMovimiento(cambio, "AJUSTE", cambio.getStockNuevo() - cambio.getStockAnterior(), referencia);
     }
 
     /**
@@ -649,6 +733,7 @@ public class RepuestoService {
         
         Repuesto repuestoEntity = repuesto.get();
         repuestoEntity.setActivo(true);
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(id, RepuestoModificadoEvent.ACTUALIZADO));
         return repuestoRepository.save(repuestoEntity);
     }
 
@@ -663,6 +748,38 @@ public class RepuestoService {
         
         Repuesto repuestoEntity = repuesto.get();
         repuestoEntity.setActivo(false);
+        eventPublisher.publishEvent(new RepuestoModificadoEvent(id, RepuestoModificadoEvent.ACTUALIZADO));
         return repuestoRepository.save(repuestoEntity);
     }
+
+    // ===============================
+    // MÉTODOS AUXILIARES DE STOCK
+    // ===============================
+
+    private MapSqlParameterSource parametrosStock(Long idRepuesto) {
+        return new MapSqlParameterSource("idRepuesto", idRepuesto);
+    }
+
+    /**
+     * Entregar el movimiento del cambio al libro de movimientos (se escribe tras el commit)
+     */
+    private CambioStockDTO registrarMovimiento(CambioStockDTO cambio, String tipoMovimiento, int cantidad, String referencia) {
+        libroMovimientosService.registrar(cambio.getIdRepuesto(), tipoMovimiento, cantidad, cambio.getStockAnterior(),
+                cambio.getStockNuevo(), referencia, usuarioService.obtenerIdUsuarioActual());
+        return cambio;
+    }
+
+    private void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+    }
+
+    // La entidad se lee después del cambio por SQL; si ya estaba cargada se le asigna el stock devuelto
+    private Repuesto obtenerRepuestoActualizado(CambioStockDTO cambio) {
+        Repuesto repuesto = repuestoRepository.findById(cambio.getIdRepuesto())
+                .orElseThrow(() -> new IllegalArgumentException("No se encontró el repuesto con ID: " + cambio.getIdRepuesto()));
+        repuesto.setStockActual(cambio.getStockNuevo());
+        return repuesto;
+    }
 }
@@ -0,0 +1,679 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.DisponibilidadRepuestoDTO;
+import com.tallermoto.dto.ReservaStockDTO;
+import com.tallermoto.event.OrdenModificadaEvent;
+import com.tallermoto.event.OrdenesModificadasEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servicio de reservas de stock en memoria para repuestos de alta rotación
+ *
+ * Reservar no toca la base de datos: cada repuesto tiene su propio contador (CAS sobre AtomicLong,
+ * un repuesto no bloquea a otro) y la reserva se concede si alcanza lo disponible.
+ * Un proceso programado confirma las reservas por lotes con una sola sentencia (UPDATE condicional
+ * agregado por repuesto; los movimientos SALIDA "RESERVA #id" van al libro de movimientos), de modo que la fila de cada repuesto
+ * se bloquea una vez por lote y no una vez por reserva.
+ *
+ * Las reservas vencidas, canceladas o de órdenes CANCELADAS/eliminadas se liberan (ENTRADA "LIBERA #id").
+ * Al consumir, el uso se registra enlazado a la reserva sin volver a descontar stock.
+ *
+ * Las salidas directas (usos de repuesto sin reserva, consumos por lote, clonaciones, salidas de inventario)
+ * pasan por apartarSalidaDirecta tras su descuento condicional: si invadirían lo reservado y aún no confirmado
+ * se rechazan y su transacción se revierte. Así una reserva concedida no se vende por otra vía antes de
+ * confirmarse. Queda un único caso sin cubrir: la primera reserva de un repuesto (la que crea su contador)
+ * mientras una salida directa de ese repuesto aún no se confirma; esa reserva puede terminar RECHAZADA.
+ *
+ * Tras un reinicio, las reservas confirmadas que no se liberaron ni consumieron se reconstruyen
+ * desde repuesto_movimientos. Los movimientos "RESERVA #id" llegan a la tabla de forma diferida por el libro
+ * de movimientos; LibroMovimientosService.iniciar (@PostConstruct) reprocesa su diario e inserta los
+ * pendientes antes de que recuperar se ejecute (ApplicationReadyEvent), así que la consulta los ve todos.
+ * Las no confirmadas se pierden sin efecto sobre el stock.
+ *
+ * La base de datos sigue siendo la autoridad: si la confirmación no alcanza, la reserva queda RECHAZADA
+ * y el contador se resincroniza con stock_actual
+ */
+@Service
+public class ReservaStockService {
+
+    // Estados de una reserva
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String CONFIRMANDO = "CONFIRMANDO";
+    public static final String CONFIRMADA = "CONFIRMADA";
+    public static final String CONSUMIENDO = "CONSUMIENDO";
+    public static final String CONSUMIDA = "CONSUMIDA";
+    public static final String LIBERANDO = "LIBERANDO";
+    public static final String LIBERADA = "LIBERADA";
+    public static final String RECHAZADA = "RECHAZADA";
+
+    private static final int LOTE_MAXIMO = 200;
+
+    private static final String PREFIJO_RESERVA = "RESERVA #";
+    static final String PREFIJO_LIBERACION = "LIBERA #";
+    private static final Pattern PATRON_REFERENCIA = Pattern.compile("#(\\d+) orden (\\d+)");
+
+    // Fila por reserva del lote; se completa con VALUES (...), (...)
+    private static final String FILA_LOTE =
+            "(CAST(:r%1$d AS BIGINT), CAST(:p%1$d AS BIGINT), CAST(:c%1$d AS INTEGER), CAST(:o%1$d AS BIGINT), CAST(:u%1$d AS BIGINT))";
+
+    // Confirmación: bloquea los repuestos en orden de id, descuenta el total del lote por repuesto solo si alcanza
+    // y devuelve el stock intermedio de cada reserva (suma acumulada por repuesto) para su movimiento en el libro
+    private static final String SQL_CONFIRMAR =
+            "WITH q (id_reserva, id_repuesto, cantidad, id_orden, id_usuario) AS (VALUES %s), " +
+            "total AS (SELECT id_repuesto, SUM(cantidad) AS cantidad FROM q GROUP BY id_repuesto), " +
+            "bloqueo AS (SELECT r.id_repuesto FROM repuestos r JOIN total t ON t.id_repuesto = r.id_repuesto " +
+            "ORDER BY r.id_repuesto FOR UPDATE OF r), " +
+            "cambio AS (UPDATE repuestos r SET stock_actual = r.stock_actual - t.cantidad " +
+            "FROM total t JOIN bloqueo b ON b.id_repuesto = t.id_repuesto " +
+            "WHERE r.id_repuesto = t.id_repuesto AND r.stock_actual >= t.cantidad " +
+            "RETURNING r.id_repuesto, r.stock_actual + t.cantidad AS stock_inicial), " +
+            "linea AS (SELECT q.id_reserva, q.id_repuesto, q.cantidad, q.id_orden, q.id_usuario, " +
+            "c.stock_inicial - SUM(q.cantidad) OVER (PARTITION BY q.id_repuesto ORDER BY q.id_reserva) AS stock_nuevo " +
+            "FROM q JOIN cambio c ON c.id_repuesto = q.id_repuesto) " +
+            "SELECT id_reserva, id_repuesto, stock_nuevo FROM linea";
+
+    // Liberación de reservas ya confirmadas: devuelve el total por repuesto; cada reserva genera una ENTRADA en el libro
+    private static final String SQL_LIBERAR =
+            "WITH q (id_reserva, id_repuesto, cantidad, id_orden, id_usuario) AS (VALUES %s), " +
+            "total AS (SELECT id_repuesto, SUM(cantidad) AS cantidad FROM q GROUP BY id_repuesto), " +
+            "bloqueo AS (SELECT r.id_repuesto FROM repuestos r JOIN total t ON t.id_repuesto = r.id_repuesto " +
+            "ORDER BY r.id_repuesto FOR UPDATE OF r), " +
+            "cambio AS (UPDATE repuestos r SET stock_actual = r.stock_actual + t.cantidad " +
+            "FROM total t JOIN bloqueo b ON b.id_repuesto = t.id_repuesto WHERE r.id_repuesto = t.id_repuesto " +
+            "RETURNING r.id_repuesto, r.stock_actual - t.cantidad AS stock_inicial), " +
+            "linea AS (SELECT q.id_reserva, q.id_repuesto, q.cantidad, q.id_orden, q.id_usuario, " +
+            "c.stock_inicial + SUM(q.cantidad) OVER (PARTITION BY q.id_repuesto ORDER BY q.id_reserva) AS stock_nuevo " +
+            "FROM q JOIN cambio c ON c.id_repuesto = q.id_repuesto) " +
+            "SELECT id_reserva, id_repuesto, stock_nuevo FROM linea";
+
+    private static final String SQL_STOCK =
+            "SELECT id_repuesto, stock_actual FROM repuestos WHERE id_repuesto IN (:ids)";
+
+    private static final String SQL_ESTADO_ORDEN =
+            "SELECT estado FROM ordenes_trabajo WHERE id_orden = :idOrden";
+
+    // Reservas confirmadas que no tienen liberación ni uso asociado
+    private static final String SQL_RECUPERAR =
+            "SELECT m.id_repuesto, m.cantidad, m.usuario_movimiento, m.fecha_movimiento, m.referencia " +
+            "FROM repuesto_movimientos m " +
+            "WHERE m.tipo_movimiento = 'SALIDA' AND m.referencia LIKE '" + PREFIJO_RESERVA + "%' " +
+            "AND m.fecha_movimiento >= :desde " +
+            "AND NOT EXISTS (SELECT 1 FROM repuesto_movimientos l WHERE l.tipo_movimiento = 'ENTRADA' " +
+            "AND l.fecha_movimiento >= m.fecha_movimiento " +
+            "AND l.referencia = '" + PREFIJO_LIBERACION + "' || SUBSTRING(m.referencia FROM " + (PREFIJO_RESERVA.length() + 1) + ")) " +
+            "AND NOT EXISTS (SELECT 1 FROM uso_repuesto u " +
+            "WHERE u.id_reserva = CAST(SUBSTRING(m.referencia FROM '#([0-9]+)') AS BIGINT))";
+
+    @Value("${app.reservas.vigencia-minutos:30}")
+    private long minutosVigencia;
+
+    @Value("${app.reservas.recuperacion-dias:7}")
+    private int diasRecuperacion;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LibroMovimientosService libroMovimientosService;
+
+    // Diferido: UsoRepuestoService usa este servicio para apartar sus salidas directas
+    @Lazy
+    @Autowired
+    private UsoRepuestoService usoRepuestoService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> reservasPorOrden = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Reserva> porConfirmar = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Reserva> porLiberar = new ConcurrentLinkedQueue<>();
+
+    // Ids únicos entre reinicios sin consultar la base de datos
+    private final AtomicLong secuencia = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    // ===============================
+    // RESERVAS
+    // ===============================
+
+    /**
+     * Reservar stock de un repuesto para una orden (en memoria, sin bloquear la fila del repuesto)
+     */
+    public ReservaStockDTO reservar(Long idRepuesto, Integer cantidad, Long idOrden) {
+        if (idRepuesto == null || idOrden == null) {
+            throw new IllegalArgumentException("El repuesto y la orden son obligatorios");
+        }
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+
+        Contador contador = obtenerContador(idRepuesto);
+        while (true) {
+            long disponible = contador.disponible.get();
+            if (disponible < cantidad) {
+                throw new IllegalStateException(String.format("Stock insuficiente. Disponible: %d, Solicitado: %d",
+                        disponible, cantidad));
+            }
+            if (contador.disponible.compareAndSet(disponible, disponible - cantidad)) {
+                break;
+            }
+        }
+        contador.sinConfirmar.add(cantidad);
+
+        Reserva reserva = new Reserva(secuencia.incrementAndGet(), idRepuesto, idOrden, cantidad,
+                usuarioService.obtenerIdUsuarioActual(), LocalDateTime.now().plusMinutes(minutosVigencia), PENDIENTE);
+        registrar(reserva);
+        porConfirmar.add(reserva);
+        return reserva.aDTO(null);
+    }
+
+    /**
+     * Liberar una reserva (cancelación explícita)
+     */
+    public ReservaStockDTO liberar(Long idReserva) {
+        Reserva reserva = reservas.get(idReserva);
+        if (reserva == null) {
+            throw new IllegalArgumentException("No se encontró la reserva con ID: " + idReserva);
+        }
+        liberar(reserva);
+        return reserva.aDTO(null);
+    }
+
+    /**
+     * Consumir una reserva: registra el uso en la orden sin volver a descontar stock
+     * Si la reserva aún no estaba confirmada se confirma en esta misma transacción
+     */
+    @Transactional
+    public ReservaStockDTO consumir(Long idReserva) {
+        Reserva reserva = reservas.get(idReserva);
+        if (reserva == null) {
+            throw new IllegalArgumentException("No se encontró la reserva con ID: " + idReserva);
+        }
+
+        final boolean confirmarAhora;
+        synchronized (reserva) {
+            if (PENDIENTE.equals(reserva.estado)) {
+                reserva.estado = CONFIRMANDO;
+                confirmarAhora = true;
+            } else if (CONFIRMADA.equals(reserva.estado)) {
+                reserva.estado = CONSUMIENDO;
+                confirmarAhora = false;
+            } else {
+                throw new IllegalStateException("La reserva " + idReserva + " está " + reserva.estado);
+            }
+        }
+
+        if (confirmarAhora) {
+            confirmarLote(List.of(reserva));
+            synchronized (reserva) {
+                if (!CONFIRMADA.equals(reserva.estado)) {
+                    throw new IllegalStateException("La reserva " + idReserva + " está " + reserva.estado);
+                }
+                reserva.estado = CONSUMIENDO;
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estadoTransaccion) {
+                synchronized (reserva) {
+                    if (estadoTransaccion == STATUS_COMMITTED) {
+                        reserva.estado = CONSUMIDA;
+                        desregistrar(reserva);
+                    } else if (confirmarAhora) {
+                        // La confirmación se revirtió junto con el uso: vuelve a estar pendiente
+                        reserva.estado = PENDIENTE;
+                        obtenerContador(reserva.idRepuesto).sinConfirmar.add(reserva.cantidad);
+                        porConfirmar.add(reserva);
+                    } else {
+                        reserva.estado = CONFIRMADA;
+                    }
+                }
+            }
+        });
+
+        Long idUso = usoRepuestoService.registrarUsoReservado(reserva.idOrden, reserva.idRepuesto, reserva.cantidad,
+                reserva.idReserva);
+        return new ReservaStockDTO(reserva.idReserva, reserva.idRepuesto, reserva.idOrden, reserva.cantidad,
+                CONSUMIDA, reserva.venceEn, idUso);
+    }
+
+    /**
+     * Apartar en el contador una salida de stock que no viene de una reserva, ya descontada de stock_actual
+     * en la transacción actual (la fila del repuesto sigue bloqueada hasta el commit)
+     * Solo los repuestos con contador tienen reservas que proteger. Si la salida no cabe en lo disponible
+     * (stock menos lo reservado sin confirmar) se rechaza para que la transacción se revierta;
+     * si la transacción se revierte por otro motivo, lo apartado vuelve al contador
+     */
+    public void apartarSalidaDirecta(Long idRepuesto, int cantidad) {
+        Contador contador = contadores.get(idRepuesto);
+        if (contador == null || cantidad <= 0) {
+            return;
+        }
+        while (true) {
+            long disponible = contador.disponible.get();
+            if (disponible < cantidad) {
+                throw new IllegalArgumentException(String.format(
+                        "Stock insuficiente: %d unidad(es) del repuesto %d están reservadas. Disponible: %d, Solicitado: %d",
+                        contador.sinConfirmar.sum(), idRepuesto, Math.max(disponible, 0), cantidad));
+            }
+            if (contador.disponible.compareAndSet(disponible, disponible - cantidad)) {
+                break;
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Sin transacción el descuento ya está confirmado
+            return;
+        }
+        contador.enCurso.add(cantidad);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estadoTransaccion) {
+                contador.enCurso.add(-cantidad);
+                if (estadoTransaccion != STATUS_COMMITTED) {
+                    contador.disponible.addAndGet(cantidad);
+                }
+            }
+        });
+    }
+
+    // ===============================
+    // CONSULTAS
+    // ===============================
+
+    public List<ReservaStockDTO> obtenerReservasDeOrden(Long idOrden) {
+        List<ReservaStockDTO> resultado = new ArrayList<>();
+        for (Long idReserva : reservasPorOrden.getOrDefault(idOrden, Set.of())) {
+            Reserva reserva = reservas.get(idReserva);
+            if (reserva != null) {
+                resultado.add(reserva.aDTO(null));
+            }
+        }
+        return resultado;
+    }
+
+    public DisponibilidadRepuestoDTO obtenerDisponibilidad(Long idRepuesto) {
+        Contador contador = obtenerContador(idRepuesto);
+        int activas = (int) reservas.values().stream().filter(r -> r.idRepuesto.equals(idRepuesto)).count();
+        return new DisponibilidadRepuestoDTO(idRepuesto, contador.disponible.get(), contador.sinConfirmar.sum(), activas);
+    }
+
+    // ===============================
+    // PROCESOS PROGRAMADOS
+    // ===============================
+
+    /**
+     * Confirmar y liberar en la base de datos las reservas acumuladas (una sentencia por lote)
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.confirmacion-ms:200}")
+    public void procesarPendientes() {
+        List<Reserva> lote;
+        while (!(lote = tomarLote(porConfirmar, PENDIENTE, CONFIRMANDO)).isEmpty()) {
+            try {
+                confirmarLote(lote);
+            } catch (RuntimeException e) {
+                System.err.println("Error al confirmar reservas de stock: " + e.getMessage());
+                devolverACola(lote, CONFIRMANDO, PENDIENTE, porConfirmar);
+                break;
+            }
+        }
+        while (!(lote = tomarLote(porLiberar, LIBERANDO, LIBERANDO)).isEmpty()) {
+            try {
+                liberarLote(lote);
+            } catch (RuntimeException e) {
+                System.err.println("Error al liberar reservas de stock: " + e.getMessage());
+                devolverACola(lote, LIBERANDO, LIBERANDO, porLiberar);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Liberar las reservas vencidas
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.vencimiento-ms:30000}")
+    public void liberarVencidas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Reserva reserva : reservas.values()) {
+            if (reserva.venceEn.isBefore(ahora)) {
+                liberar(reserva);
+            }
+        }
+    }
+
+    /**
+     * Alinear los contadores con stock_actual (cambios hechos fuera de las reservas)
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.resincronizacion-ms:60000}")
+    public void resincronizarContadores() {
+        if (!contadores.isEmpty()) {
+            resincronizar(contadores.keySet());
+        }
+    }
+
+    /**
+     * Reconstruir las reservas confirmadas que quedaron abiertas antes de un reinicio
+     * Corre tras LibroMovimientosService.iniciar, que ya insertó los movimientos que quedaron en su diario:
+     * las SALIDA "RESERVA #id" confirmadas antes del reinicio están en repuesto_movimientos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperar() {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("desde", LocalDateTime.now().minusDays(diasRecuperacion));
+        List<Reserva> recuperadas = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SQL_RECUPERAR, parametros, rs -> {
+            Matcher matcher = PATRON_REFERENCIA.matcher(rs.getString("referencia"));
+            if (matcher.find()) {
+                LocalDateTime fecha = rs.getTimestamp("fecha_movimiento").toLocalDateTime();
+                recuperadas.add(new Reserva(Long.parseLong(matcher.group(1)), rs.getLong("id_repuesto"),
+                        Long.parseLong(matcher.group(2)), rs.getInt("cantidad"), rs.getLong("usuario_movimiento"),
+                        fecha.plusMinutes(minutosVigencia), CONFIRMADA));
+            }
+        });
+        for (Reserva reserva : recuperadas) {
+            registrar(reserva);
+            secuencia.accumulateAndGet(reserva.idReserva, Math::max);
+        }
+        if (!recuperadas.isEmpty()) {
+            System.out.println("Reservas de stock recuperadas: " + recuperadas.size());
+        }
+    }
+
+    // ===============================
+    // CANCELACIÓN DE ÓRDENES
+    // ===============================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrden(OrdenModificadaEvent evento) {
+        revisarOrden(evento.getIdOrden(), evento.getTipo());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarOrdenes(OrdenesModificadasEvent evento) {
+        for (Long idOrden : evento.getIdsOrden()) {
+            revisarOrden(idOrden, evento.getTipo());
+        }
+    }
+
+    /**
+     * Liberar las reservas de una orden eliminada o cancelada
+     * Solo consulta la base de datos si la orden tiene reservas
+     */
+    private void revisarOrden(Long idOrden, String tipo) {
+        Set<Long> ids = reservasPorOrden.get(idOrden);
+        if (ids == null || ids.isEmpty() || !OrdenModificadaEvent.afectaAsignacion(tipo)) {
+            return;
+        }
+        boolean liberar = OrdenModificadaEvent.ELIMINADA.equals(tipo);
+        if (!liberar) {
+            List<String> estado = namedParameterJdbcTemplate.queryForList(SQL_ESTADO_ORDEN,
+                    new MapSqlParameterSource("idOrden", idOrden), String.class);
+            liberar = estado.isEmpty() || "CANCELADA".equals(estado.get(0));
+        }
+        if (liberar) {
+            for (Long idReserva : List.copyOf(ids)) {
+                Reserva reserva = reservas.get(idReserva);
+                if (reserva != null) {
+                    liberar(reserva);
+                }
+            }
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private void liberar(Reserva reserva) {
+        synchronized (reserva) {
+            switch (reserva.estado) {
+                case PENDIENTE -> {
+                    // Nunca llegó a la base de datos: basta con devolverla al contador
+                    reserva.estado = LIBERADA;
+                    Contador contador = obtenerContador(reserva.idRepuesto);
+                    contador.sinConfirmar.add(-reserva.cantidad);
+                    contador.disponible.addAndGet(reserva.cantidad);
+                    desregistrar(reserva);
+                }
+                case CONFIRMANDO -> reserva.liberarAlConfirmar = true;
+                case CONFIRMADA -> {
+                    reserva.estado = LIBERANDO;
+                    porLiberar.add(reserva);
+                }
+                default -> {
+                    // Ya consumida, liberada o en proceso de serlo
+                }
+            }
+        }
+    }
+
+    private void confirmarLote(List<Reserva> lote) {
+        Map<Long, Integer> confirmadas = ejecutarLote(SQL_CONFIRMAR, lote, true);
+        Set<Long> repuestosARevisar = new HashSet<>();
+
+        // Repuestos cuyo total no alcanzó: se reintenta reserva por reserva para aceptar las que sí caben
+        List<Reserva> sinConfirmar = lote.stream().filter(r -> !confirmadas.containsKey(r.idReserva)).toList();
+        if (lote.size() > 1) {
+            for (Reserva reserva : sinConfirmar) {
+                confirmadas.putAll(ejecutarLote(SQL_CONFIRMAR, List.of(reserva), true));
+            }
+        }
+
+        for (Reserva reserva : lote) {
+            Contador contador = obtenerContador(reserva.idRepuesto);
+            contador.sinConfirmar.add(-reserva.cantidad);
+            repuestosARevisar.add(reserva.idRepuesto);
+            synchronized (reserva) {
+                if (confirmadas.containsKey(reserva.idReserva)) {
+                    reserva.estado = CONFIRMADA;
+                    if (reserva.liberarAlConfirmar) {
+                        reserva.estado = LIBERANDO;
+                        porLiberar.add(reserva);
+                    }
+                } else {
+                    reserva.estado = RECHAZADA;
+                    desregistrar(reserva);
+                    System.err.println("Reserva de stock rechazada por falta de stock: " + reserva.idReserva);
+                }
+            }
+        }
+        resincronizar(repuestosARevisar);
+    }
+
+    private void liberarLote(List<Reserva> lote) {
+        Map<Long, Integer> liberadas = ejecutarLote(SQL_LIBERAR, lote, false);
+        Set<Long> repuestosARevisar = new HashSet<>();
+        for (Reserva reserva : lote) {
+            repuestosARevisar.add(reserva.idRepuesto);
+            synchronized (reserva) {
+                reserva.estado = LIBERADA;
+                desregistrar(reserva);
+            }
+            if (!liberadas.containsKey(reserva.idReserva)) {
+                System.err.println("Reserva liberada sin repuesto asociado: " + reserva.idReserva);
+            }
+        }
+        resincronizar(repuestosARevisar);
+    }
+
+    /**
+     * Ejecutar la sentencia de confirmación o liberación para un lote y entregar al libro un movimiento por reserva
+     * Se ejecuta en su propia transacción para que los movimientos queden anotados en el diario antes del commit
+     * @param confirmacion true para la confirmación (SALIDA "RESERVA #id"), false para la liberación (ENTRADA "LIBERA #id")
+     * @return id de reserva procesada -> stock resultante
+     */
+    private Map<Long, Integer> ejecutarLote(String plantilla, List<Reserva> lote, boolean confirmacion) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        Map<Long, Reserva> porId = new HashMap<>();
+        List<String> filas = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Reserva reserva = lote.get(i);
+            porId.put(reserva.idReserva, reserva);
+            filas.add(String.format(FILA_LOTE, i));
+            parametros.addValue("r" + i, reserva.idReserva)
+                    .addValue("p" + i, reserva.idRepuesto)
+                    .addValue("c" + i, reserva.cantidad)
+                    .addValue("o" + i, reserva.idOrden)
+                    .addValue("u" + i, reserva.idUsuario);
+        }
+        Map<Long, Integer> procesadas = new HashMap<>();
+        transactionTemplate.executeWithoutResult(estado -> {
+            namedParameterJdbcTemplate.query(String.format(plantilla, String.join(", ", filas)), parametros, rs -> {
+                procesadas.put(rs.getLong("id_reserva"), rs.getInt("stock_nuevo"));
+            });
+            for (Map.Entry<Long, Integer> procesada : procesadas.entrySet()) {
+                Reserva reserva = porId.get(procesada.getKey());
+                int stockNuevo = procesada.getValue();
+                if (confirmacion) {
+                    libroMovimientosService.registrar(reserva.idRepuesto, "SALIDA", reserva.cantidad,
+                            stockNuevo + reserva.cantidad, stockNuevo,
+                            PREFIJO_RESERVA + reserva.idReserva + " orden " + reserva.idOrden, reserva.idUsuario);
+                } else {
+                    libroMovimientosService.registrar(reserva.idRepuesto, "ENTRADA", reserva.cantidad,
+                            stockNuevo - reserva.cantidad, stockNuevo,
+                            PREFIJO_LIBERACION + reserva.idReserva + " orden " + reserva.idOrden, reserva.idUsuario);
+                }
+            }
+        });
+        return procesadas;
+    }
+
+    private List<Reserva> tomarLote(ConcurrentLinkedQueue<Reserva> cola, String estadoEsperado, String estadoNuevo) {
+        List<Reserva> lote = new ArrayList<>();
+        Reserva reserva;
+        while (lote.size() < LOTE_MAXIMO && (reserva = cola.poll()) != null) {
+            synchronized (reserva) {
+                // Las reservas liberadas o consumidas mientras esperaban se descartan
+                if (estadoEsperado.equals(reserva.estado)) {
+                    reserva.estado = estadoNuevo;
+                    lote.add(reserva);
+                }
+            }
+        }
+        return lote;
+    }
+
+    private void devolverACola(List<Reserva> lote, String estadoActual, String estadoAnterior,
+                               ConcurrentLinkedQueue<Reserva> cola) {
+        for (Reserva reserva : lote) {
+            synchronized (reserva) {
+                if (estadoActual.equals(reserva.estado)) {
+                    reserva.estado = estadoAnterior;
+                }
+            }
+            cola.add(reserva);
+        }
+    }
+
+    /**
+     * disponible = stock_actual - reservado sin confirmar - salidas directas aún sin confirmar
+     */
+    private void resincronizar(Collection<Long> idsRepuesto) {
+        namedParameterJdbcTemplate.query(SQL_STOCK, new MapSqlParameterSource("ids", idsRepuesto), rs -> {
+            Contador contador = contadores.get(rs.getLong("id_repuesto"));
+            if (contador != null) {
+                contador.disponible.set(rs.getLong("stock_actual") - contador.sinConfirmar.sum() - contador.enCurso.sum());
+            }
+        });
+    }
+
+    private Contador obtenerContador(Long idRepuesto) {
+        Contador contador = contadores.get(idRepuesto);
+        if (contador != null) {
+            return contador;
+        }
+        List<Long> stock = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SQL_STOCK, new MapSqlParameterSource("ids", List.of(idRepuesto)),
+                rs -> { stock.add(rs.getLong("stock_actual")); });
+        if (stock.isEmpty()) {
+            throw new IllegalArgumentException("No se encontró el repuesto con ID: " + idRepuesto);
+        }
+        Contador nuevo = new Contador(stock.get(0));
+        Contador existente = contadores.putIfAbsent(idRepuesto, nuevo);
+        return existente != null ? existente : nuevo;
+    }
+
+    private void registrar(Reserva reserva) {
+        reservas.put(reserva.idReserva, reserva);
+        reservasPorOrden.computeIfAbsent(reserva.idOrden, k -> ConcurrentHashMap.newKeySet()).add(reserva.idReserva);
+    }
+
+    private void desregistrar(Reserva reserva) {
+        reservas.remove(reserva.idReserva);
+        reservasPorOrden.computeIfPresent(reserva.idOrden, (k, ids) -> {
+            ids.remove(reserva.idReserva);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Contador por repuesto: cada repuesto es independiente (sin bloqueo global)
+    private static final class Contador {
+        private final AtomicLong disponible;
+        private final LongAdder sinConfirmar = new LongAdder();
+        // Salidas directas apartadas cuya transacción aún no termina (stock_actual confirmado todavía no las refleja)
+        private final LongAdder enCurso = new LongAdder();
+
+        private Contador(long stockInicial) {
+            this.disponible = new AtomicLong(stockInicial);
+        }
+    }
+
+    // Las transiciones de estado se hacen con el monitor de la propia reserva
+    private static final class Reserva {
+        private final Long idReserva;
+        private final Long idRepuesto;
+        private final Long idOrden;
+        private final Integer cantidad;
+        private final Long idUsuario;
+        private final LocalDateTime venceEn;
+        private String estado;
+        private boolean liberarAlConfirmar;
+
+        private Reserva(Long idReserva, Long idRepuesto, Long idOrden, Integer cantidad, Long idUsuario,
+                        LocalDateTime venceEn, String estado) {
+            this.idReserva = idReserva;
+            this.idRepuesto = idRepuesto;
+            this.idOrden = idOrden;
+            this.cantidad = cantidad;
+            this.idUsuario = idUsuario;
+            this.venceEn = venceEn;
+            this.estado = estado;
+        }
+
+        private synchronized ReservaStockDTO aDTO(Long idUso) {
+            return new ReservaStockDTO(idReserva, idRepuesto, idOrden, cantidad, estado, venceEn, idUso);
+        }
+    }
+}
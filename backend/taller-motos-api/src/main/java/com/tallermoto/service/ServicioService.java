@@ -1,13 +1,17 @@
 package com.tallermoto.service;
 
 import com.tallermoto.entity.Servicio;
+import com.tallermoto.event.ServicioModificadoEvent;
 import com.tallermoto.repository.ServicioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,9 @@ public class ServicioService {
     @Autowired
     private ServicioRepository servicioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // =====================================================
     // OPERACIONES CRUD BÁSICAS
     // =====================================================
@@ -51,7 +58,9 @@ public class ServicioService {
             throw new IllegalArgumentException("El código ya existe: " + servicio.getCodigo());
         }
 
-        return servicioRepository.save(servicio);
+        Servicio guardado = servicioRepository.save(servicio);
+        publicarCambio(guardado.getIdServicio(), ServicioModificadoEvent.CREADO, guardado.getCategoria());
+        return guardado;
     }
 
     /**
@@ -67,6 +76,8 @@ public class ServicioService {
             throw new IllegalArgumentException("El código ya existe: " + servicioActualizado.getCodigo());
         }
 
+        String categoriaAnterior = servicioExistente.getCategoria();
+
         // Actualizar campos
         servicioExistente.setCodigo(servicioActualizado.getCodigo());
         servicioExistente.setNombre(servicioActualizado.getNombre());
@@ -76,6 +87,7 @@ public class ServicioService {
         servicioExistente.setTiempoEstimadoMinutos(servicioActualizado.getTiempoEstimadoMinutos());
         servicioExistente.setActivo(servicioActualizado.getActivo());
 
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, categoriaAnterior, servicioActualizado.getCategoria());
         return servicioRepository.save(servicioExistente);
     }
 
@@ -88,16 +100,24 @@ public class ServicioService {
         
         servicio.setActivo(false);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
      * Eliminar servicio permanentemente
      */
     public void eliminarPermanente(Long id) {
-        if (!servicioRepository.existsById(id)) {
-            throw new IllegalArgumentException("Servicio no encontrado con ID: " + id);
-        }
+        Servicio servicio = servicioRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Servicio no encontrado con ID: " + id));
         servicioRepository.deleteById(id);
+        publicarCambio(id, ServicioModificadoEvent.ELIMINADO, servicio.getCategoria());
+    }
+
+    /**
+     * Avisar del cambio (se entrega tras el commit) con las categorías afectadas, sin repetir
+     */
+    private void publicarCambio(Long idServicio, String tipo, String... categorias) {
+        eventPublisher.publishEvent(new ServicioModificadoEvent(idServicio, tipo, new LinkedHashSet<>(Arrays.asList(categorias))));
     }
 
     // =====================================================
@@ -497,6 +517,7 @@ public class ServicioService {
         
         servicio.setActivo(nuevoEstado);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
@@ -512,6 +533,7 @@ public class ServicioService {
         
         servicio.setPrecioBase(nuevoPrecio);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
@@ -527,6 +549,7 @@ public class ServicioService {
         
         servicio.setTiempoEstimadoMinutos(nuevoTiempo);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
@@ -543,6 +566,7 @@ public class ServicioService {
         
         servicio.setCodigo(nuevoCodigo);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
@@ -552,8 +576,10 @@ public class ServicioService {
         Servicio servicio = servicioRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Servicio no encontrado con ID: " + id));
         
+        String categoriaAnterior = servicio.getCategoria();
         servicio.setCategoria(nuevaCategoria);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, categoriaAnterior, nuevaCategoria);
     }
 
     /**
@@ -565,6 +591,7 @@ public class ServicioService {
         
         servicio.setDescripcion(nuevaDescripcion);
         servicioRepository.save(servicio);
+        publicarCambio(id, ServicioModificadoEvent.ACTUALIZADO, servicio.getCategoria());
     }
 
     /**
@@ -580,6 +607,7 @@ public class ServicioService {
         }
         
         servicioRepository.saveAll(servicios);
+        publicarCambio(null, ServicioModificadoEvent.ACTUALIZADO, categoria);
     }
 
     /**
@@ -0,0 +1,197 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.RegistroEliminadoDTO;
+import com.tallermoto.dto.SincronizacionDTO;
+import com.tallermoto.repository.ClienteRepository;
+import com.tallermoto.repository.MotoRepository;
+import com.tallermoto.repository.OrdenTrabajoRepository;
+import com.tallermoto.repository.PagoRepository;
+import com.tallermoto.repository.RepuestoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Servicio de sincronización incremental para clientes con réplica local (tablero, app móvil)
+ * En lugar de recargar listas completas, el cliente pide los registros con updated_at >= su marca de agua
+ * y las marcas de borrado registradas por trigger en registros_eliminados.
+ *
+ * La marca de agua no es "ahora": es el inicio de la transacción abierta más antigua de otras sesiones.
+ * updated_at toma CURRENT_TIMESTAMP (inicio de la transacción que escribe), así que una fila que todavía
+ * no era visible al consultar queda siempre en o después de la marca devuelta y llega en la siguiente consulta.
+ * Algunos registros pueden llegar repetidos; el cliente los aplica por id
+ */
+@Service
+@Transactional(readOnly = true)
+public class SincronizacionService {
+
+    public static final String ENTIDAD_ORDEN = "ORDEN";
+    public static final String ENTIDAD_CLIENTE = "CLIENTE";
+    public static final String ENTIDAD_MOTO = "MOTO";
+    public static final String ENTIDAD_REPUESTO = "REPUESTO";
+    public static final String ENTIDAD_PAGO = "PAGO";
+
+    public static final Set<String> ENTIDADES = Set.of(
+            ENTIDAD_ORDEN, ENTIDAD_CLIENTE, ENTIDAD_MOTO, ENTIDAD_REPUESTO, ENTIDAD_PAGO);
+
+    // Máximo de registros por entidad en una respuesta; si se supera, el cliente debe recargar completo
+    private static final int LIMITE_POR_ENTIDAD = 2000;
+
+    private static final String SQL_MARCA_AGUA =
+            "SELECT LEAST(LOCALTIMESTAMP, COALESCE(MIN(xact_start)::timestamp, LOCALTIMESTAMP)) " +
+            "FROM pg_stat_activity " +
+            "WHERE datname = current_database() AND pid <> pg_backend_pid() " +
+            "AND xact_start IS NOT NULL AND backend_type = 'client backend'";
+
+    private static final String SQL_ELIMINADOS =
+            "SELECT entidad, id_registro, eliminado_en FROM registros_eliminados " +
+            "WHERE eliminado_en >= :desde AND entidad IN (:entidades) " +
+            "ORDER BY eliminado_en, id_registro_eliminado LIMIT :limite";
+
+    private static final String SQL_PURGAR_ELIMINADOS =
+            "DELETE FROM registros_eliminados WHERE eliminado_en < ?";
+
+    @Value("${app.sincronizacion.retencion-dias:30}")
+    private int diasRetencion;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private OrdenTrabajoRepository ordenTrabajoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private MotoRepository motoRepository;
+
+    @Autowired
+    private RepuestoRepository repuestoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    // ===============================
+    // CONSULTAS
+    // ===============================
+
+    /**
+     * Marca de agua segura para la siguiente consulta incremental
+     */
+    public LocalDateTime obtenerMarcaAgua() {
+        return jdbcTemplate.queryForObject(SQL_MARCA_AGUA, LocalDateTime.class);
+    }
+
+    /**
+     * Cambios desde la marca de agua indicada
+     * @param desde marca de agua devuelta por la consulta anterior (null = primera sincronización)
+     * @param entidades entidades a incluir (null o vacío = todas)
+     */
+    public SincronizacionDTO obtenerCambios(LocalDateTime desde, Collection<String> entidades) {
+        Set<String> incluidas = normalizarEntidades(entidades);
+
+        // La marca se toma antes de leer: lo que se confirme durante la lectura vuelve a llegar la próxima vez
+        SincronizacionDTO cambios = new SincronizacionDTO(obtenerMarcaAgua());
+        if (desde == null || desde.isBefore(LocalDateTime.now().minusDays(diasRetencion))) {
+            // Sin marca previa, o anterior a las marcas de borrado conservadas: no se puede garantizar el delta
+            cambios.setReinicioRequerido(true);
+            return cambios;
+        }
+
+        Pageable pagina = PageRequest.of(0, LIMITE_POR_ENTIDAD + 1);
+        if (incluidas.contains(ENTIDAD_ORDEN)) {
+            cambios.setOrdenes(ordenTrabajoRepository.findResumenModificadasDesde(desde, pagina));
+        }
+        if (incluidas.contains(ENTIDAD_CLIENTE)) {
+            cambios.setClientes(clienteRepository.findModificadosDesde(desde, pagina));
+        }
+        if (incluidas.contains(ENTIDAD_MOTO)) {
+            cambios.setMotos(motoRepository.findModificadasDesde(desde, pagina));
+        }
+        if (incluidas.contains(ENTIDAD_REPUESTO)) {
+            cambios.setRepuestos(repuestoRepository.findModificadosDesde(desde, pagina));
+        }
+        if (incluidas.contains(ENTIDAD_PAGO)) {
+            cambios.setPagos(pagoRepository.findLineasModificadasDesde(desde, pagina));
+        }
+        cambios.setEliminados(obtenerEliminados(desde, incluidas));
+
+        if (excedeLimite(cambios.getOrdenes()) || excedeLimite(cambios.getClientes())
+                || excedeLimite(cambios.getMotos()) || excedeLimite(cambios.getRepuestos())
+                || excedeLimite(cambios.getPagos()) || excedeLimite(cambios.getEliminados())) {
+            // Demasiados cambios para un delta: es más barato recargar que aplicar un lote truncado
+            SincronizacionDTO reinicio = new SincronizacionDTO(cambios.getMarcaAgua());
+            reinicio.setReinicioRequerido(true);
+            return reinicio;
+        }
+        return cambios;
+    }
+
+    // ===============================
+    // MANTENIMIENTO
+    // ===============================
+
+    /**
+     * Eliminar marcas de borrado más antiguas que la retención configurada
+     * Los clientes con una marca de agua anterior reciben reinicioRequerido
+     */
+    @Transactional
+    @Scheduled(cron = "${app.sincronizacion.purga.cron:0 15 4 * * *}")
+    public void purgarEliminados() {
+        int purgados = jdbcTemplate.update(SQL_PURGAR_ELIMINADOS, LocalDateTime.now().minusDays(diasRetencion));
+        if (purgados > 0) {
+            System.out.println("Marcas de borrado purgadas: " + purgados);
+        }
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES
+    // ===============================
+
+    private List<RegistroEliminadoDTO> obtenerEliminados(LocalDateTime desde, Set<String> entidades) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("desde", desde)
+                .addValue("entidades", entidades)
+                .addValue("limite", LIMITE_POR_ENTIDAD + 1);
+        return namedParameterJdbcTemplate.query(SQL_ELIMINADOS, parametros, (rs, fila) -> new RegistroEliminadoDTO(
+                rs.getString("entidad"),
+                rs.getLong("id_registro"),
+                rs.getTimestamp("eliminado_en").toLocalDateTime()));
+    }
+
+    private Set<String> normalizarEntidades(Collection<String> entidades) {
+        if (entidades == null || entidades.isEmpty()) {
+            return ENTIDADES;
+        }
+        Set<String> normalizadas = new HashSet<>();
+        for (String entidad : entidades) {
+            String valor = entidad.trim().toUpperCase();
+            if (!ENTIDADES.contains(valor)) {
+                throw new IllegalArgumentException("Entidad no sincronizable: " + entidad);
+            }
+            normalizadas.add(valor);
+        }
+        return normalizadas;
+    }
+
+    private boolean excedeLimite(List<?> registros) {
+        return registros.size() > LIMITE_POR_ENTIDAD;
+    }
+}
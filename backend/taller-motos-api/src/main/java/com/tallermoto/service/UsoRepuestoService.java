@@ -1,21 +1,26 @@
 package com.tallermoto.service;
 
+import com.tallermoto.dto.LineaConsumoDTO;
+import com.tallermoto.dto.UsoRepuestoLineaDTO;
 import com.tallermoto.entity.OrdenTrabajo;
 import com.tallermoto.entity.Repuesto;
-import com.tallermoto.entity.RepuestoMovimiento;
 import com.tallermoto.entity.UsoRepuesto;
-import com.tallermoto.entity.Usuario;
 import com.tallermoto.repository.UsoRepuestoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +32,88 @@ import java.util.Optional;
 @Transactional
 public class UsoRepuestoService {
 
+    private static final List<String> ESTADOS_FINALES = List.of("ENTREGADA", "CANCELADA");
+
+    private static final String REFERENCIA_USO = "Uso en orden: ";
+    static final String REFERENCIA_DEVOLUCION = "Devolución de orden: ";
+
+    // Uso de un repuesto ya descontado por una reserva: precio vigente del catálogo
+    private static final String SQL_USO_RESERVADO =
+            "INSERT INTO uso_repuesto (id_orden, id_repuesto, cantidad, precio_unitario, id_reserva) " +
+            "SELECT :idOrden, id_repuesto, :cantidad, precio_unitario, :idReserva FROM repuestos WHERE id_repuesto = :idRepuesto " +
+            "RETURNING id_uso, subtotal";
+
+    private static final String SQL_NUMERO_ORDEN =
+            "SELECT numero_orden FROM ordenes_trabajo WHERE id_orden = :idOrden";
+
+    // Salidas de stock aplicadas por la sentencia, como arreglos paralelos por repuesto (se repiten en cada fila)
+    // para entregarlas al libro de movimientos
+    private static final String COLUMNAS_SALIDAS =
+            "(SELECT ARRAY_AGG(id_repuesto ORDER BY id_repuesto) FROM descontado) AS salida_repuestos, " +
+            "(SELECT ARRAY_AGG(CAST(cantidad AS INTEGER) ORDER BY id_repuesto) FROM descontado) AS salida_cantidades, " +
+            "(SELECT ARRAY_AGG(CAST(stock_anterior AS INTEGER) ORDER BY id_repuesto) FROM descontado) AS salida_anteriores, " +
+            "(SELECT ARRAY_AGG(stock_nuevo ORDER BY id_repuesto) FROM descontado) AS salida_nuevos ";
+
+    // Copia en una sola sentencia los repuestos de una orden a otra:
+    // bloquea los repuestos en orden de id, descuenta el stock solo si alcanza e inserta los usos.
+    // Si algún repuesto no tiene stock suficiente, descontados < requeridos
+    private static final String SQL_CLONAR_USOS =
+            "WITH requerido AS (" +
+            "SELECT r.id_repuesto, q.cantidad FROM repuestos r " +
+            "JOIN (SELECT id_repuesto, SUM(cantidad) AS cantidad FROM uso_repuesto " +
+            "WHERE id_orden = :idOrigen GROUP BY id_repuesto) q ON q.id_repuesto = r.id_repuesto " +
+            "ORDER BY r.id_repuesto FOR UPDATE OF r), " +
+            "descontado AS (" +
+            "UPDATE repuestos r SET stock_actual = r.stock_actual - q.cantidad " +
+            "FROM requerido q WHERE r.id_repuesto = q.id_repuesto AND r.stock_actual >= q.cantidad " +
+            "RETURNING r.id_repuesto, q.cantidad, r.stock_actual + q.cantidad AS stock_anterior, r.stock_actual AS stock_nuevo), " +
+            "insertados AS (" +
+            "INSERT INTO uso_repuesto (id_orden, id_repuesto, cantidad, precio_unitario) " +
+            "SELECT :idDestino, u.id_repuesto, u.cantidad, " +
+            "CASE WHEN :preciosActuales THEN r.precio_unitario ELSE u.precio_unitario END " +
+            "FROM uso_repuesto u JOIN repuestos r ON r.id_repuesto = u.id_repuesto " +
+            "WHERE u.id_orden = :idOrigen ORDER BY u.id_uso " +
+            "RETURNING id_uso, subtotal) " +
+            "SELECT i.id_uso, i.subtotal, " +
+            "(SELECT COUNT(*) FROM requerido) AS requeridos, (SELECT COUNT(*) FROM descontado) AS descontados, " +
+            "(SELECT numero_orden FROM ordenes_trabajo WHERE id_orden = :idDestino) AS numero_orden, " +
+            COLUMNAS_SALIDAS +
+            "FROM insertados i";
+
+    private static final String FILA_CONSUMO =
+            "(%1$d, CAST(:r%1$d AS BIGINT), CAST(:c%1$d AS INTEGER), CAST(:p%1$d AS DECIMAL(10,2)))";
+
+    // Consumo de varios repuestos en una orden con una sola sentencia: igual que la clonación, pero con las líneas
+    // recibidas en una lista VALUES. Devuelve siempre una fila con los contadores (aunque no se inserte nada)
+    // para distinguir orden inexistente o cerrada, repuestos inexistentes y stock insuficiente
+    private static final String SQL_CONSUMO_LOTE =
+            "WITH q (linea, id_repuesto, cantidad, precio_unitario) AS (VALUES %s), " +
+            "orden AS (" +
+            "SELECT id_orden, numero_orden, estado FROM ordenes_trabajo WHERE id_orden = :idOrden), " +
+            "abierta AS (" +
+            "SELECT id_orden, numero_orden FROM orden WHERE estado NOT IN ('ENTREGADA', 'CANCELADA')), " +
+            "requerido AS (" +
+            "SELECT r.id_repuesto, t.cantidad FROM repuestos r " +
+            "JOIN (SELECT id_repuesto, SUM(cantidad) AS cantidad FROM q GROUP BY id_repuesto) t ON t.id_repuesto = r.id_repuesto " +
+            "WHERE EXISTS (SELECT 1 FROM abierta) " +
+            "ORDER BY r.id_repuesto FOR UPDATE OF r), " +
+            "descontado AS (" +
+            "UPDATE repuestos r SET stock_actual = r.stock_actual - q.cantidad " +
+            "FROM requerido q WHERE r.id_repuesto = q.id_repuesto AND r.stock_actual >= q.cantidad " +
+            "RETURNING r.id_repuesto, q.cantidad, r.stock_actual + q.cantidad AS stock_anterior, r.stock_actual AS stock_nuevo), " +
+            "insertados AS (" +
+            "INSERT INTO uso_repuesto (id_orden, id_repuesto, cantidad, precio_unitario) " +
+            "SELECT a.id_orden, q.id_repuesto, q.cantidad, COALESCE(q.precio_unitario, r.precio_unitario) " +
+            "FROM q JOIN repuestos r ON r.id_repuesto = q.id_repuesto CROSS JOIN abierta a ORDER BY q.linea " +
+            "RETURNING id_uso, id_repuesto, cantidad, precio_unitario, subtotal, created_at) " +
+            "SELECT (SELECT estado FROM orden) AS estado_orden, " +
+            "(SELECT COUNT(DISTINCT id_repuesto) FROM q) AS solicitados, " +
+            "(SELECT COUNT(*) FROM requerido) AS requeridos, (SELECT COUNT(*) FROM descontado) AS descontados, " +
+            "(SELECT numero_orden FROM abierta) AS numero_orden, " + COLUMNAS_SALIDAS + ", " +
+            "i.id_uso, i.id_repuesto, r.codigo, r.nombre, i.cantidad, i.precio_unitario, i.subtotal, i.created_at " +
+            "FROM (SELECT 1) c LEFT JOIN insertados i ON TRUE LEFT JOIN repuestos r ON r.id_repuesto = i.id_repuesto " +
+            "ORDER BY i.id_uso";
+
     @Autowired
     private UsoRepuestoRepository usoRepuestoRepository;
 
@@ -34,13 +121,19 @@ public class UsoRepuestoService {
     private RepuestoService repuestoService;
 
     @Autowired
-    private RepuestoMovimientoService repuestoMovimientoService;
+    private UsuarioService usuarioService;
 
     @Autowired
-    private OrdenTrabajoService ordenTrabajoService;
+    private OrdenTotalesService ordenTotalesService;
 
     @Autowired
-    private UsuarioService usuarioService;
+    private LibroMovimientosService libroMovimientosService;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     // ===============================
     // OPERACIONES CRUD BÁSICAS
@@ -51,107 +144,27 @@ public class UsoRepuestoService {
      * AUTOMÁTICAMENTE descuenta el stock del repuesto utilizado
      * y registra el movimiento de inventario
      * 
-     * 🔧 SOLUCIÓN ROBUSTA: Recarga la entidad desde BD para evitar datos inconsistentes
+     * El descuento es una sola sentencia condicional: dos mecánicos que toman el mismo repuesto
+     * a la vez se serializan en la fila y el segundo falla si el stock ya no alcanza
      */
     public UsoRepuesto crearUsoRepuesto(UsoRepuesto usoRepuesto) {
-        // 🔧 SOLUCIÓN: Recargar la entidad desde la BD para asegurar datos frescos y consistentes
         Repuesto repuesto = usoRepuesto.getRepuesto();
         if (repuesto == null || repuesto.getIdRepuesto() == null) {
             throw new IllegalArgumentException("El repuesto es obligatorio y debe tener un ID válido");
         }
-        
-        // Recargar desde la base de datos para obtener datos actuales y completos
+        if (usoRepuesto.getCantidad() == null || usoRepuesto.getCantidad() <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+        }
+
+        // Descontar stock y entregar el movimiento de salida al libro
+        repuestoService.descontarStock(repuesto.getIdRepuesto(), usoRepuesto.getCantidad(),
+                REFERENCIA_USO + numeroOrdenDe(idOrdenDe(usoRepuesto)));
+
+        // Recargar la entidad ya con el stock descontado para la respuesta
         Repuesto repuestoDesdeBD = repuestoService.obtenerRepuestoPorId(repuesto.getIdRepuesto())
             .orElseThrow(() -> new IllegalArgumentException("El repuesto con ID " + repuesto.getIdRepuesto() + " no existe"));
-        
-        System.out.println("🔍 Repuesto desde BD - ID: " + repuestoDesdeBD.getIdRepuesto() + 
-                          ", Stock actual: " + repuestoDesdeBD.getStockActual() + 
-                          ", Cantidad solicitada: " + usoRepuesto.getCantidad());
-        
-        // Validar stock con datos frescos de la BD
-        if (repuestoDesdeBD.getStockActual() == null) {
-            throw new IllegalStateException("El repuesto no tiene stock definido en la base de datos");
-        }
-        
-        int stockAnterior = repuestoDesdeBD.getStockActual();
-        
-        if (stockAnterior < usoRepuesto.getCantidad()) {
-            throw new IllegalArgumentException(
-                String.format("Stock insuficiente. Disponible: %d, Solicitado: %d", 
-                    stockAnterior, usoRepuesto.getCantidad())
-            );
-        }
-        
-        // Descontar stock automáticamente
-        int nuevoStock = stockAnterior - usoRepuesto.getCantidad();
-        repuestoDesdeBD.setStockActual(nuevoStock);
-        repuestoService.actualizarRepuesto(repuestoDesdeBD.getIdRepuesto(), repuestoDesdeBD);
-        
-        // Actualizar la referencia en el UsoRepuesto con la entidad fresca
         usoRepuesto.setRepuesto(repuestoDesdeBD);
         
-        // Registrar movimiento de inventario
-        try {
-            // Obtener número de orden completo
-            String numeroOrden = "N/A";
-            if (usoRepuesto.getOrdenTrabajo() != null && usoRepuesto.getOrdenTrabajo().getIdOrden() != null) {
-                try {
-                    OrdenTrabajo ordenCompleta = ordenTrabajoService.obtenerOrdenTrabajoPorId(
-                        usoRepuesto.getOrdenTrabajo().getIdOrden()).orElse(null);
-                    if (ordenCompleta != null && ordenCompleta.getNumeroOrden() != null) {
-                        numeroOrden = ordenCompleta.getNumeroOrden();
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error al obtener número de orden: " + e.getMessage());
-                }
-            }
-            
-            // Obtener usuario autenticado
-            Usuario usuarioAutenticado = null;
-            try {
-                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                if (authentication != null && authentication.isAuthenticated() 
-                    && !authentication.getName().equals("anonymousUser")) {
-                    // Buscar el usuario real en la base de datos por username
-                    String username = authentication.getName();
-                    usuarioAutenticado = usuarioService.buscarPorUsername(username).orElse(null);
-                    
-                    // Si no se encuentra en la BD, crear uno temporal
-                    if (usuarioAutenticado == null) {
-                        usuarioAutenticado = new Usuario();
-                        usuarioAutenticado.setIdUsuario(1L); // ID temporal
-                        usuarioAutenticado.setNombreCompleto("Usuario: " + username);
-                        usuarioAutenticado.setUsername(username);
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error al obtener usuario autenticado: " + e.getMessage());
-            }
-            
-            // Si no se pudo obtener el usuario autenticado, usar usuario sistema
-            if (usuarioAutenticado == null) {
-                usuarioAutenticado = new Usuario();
-                usuarioAutenticado.setIdUsuario(1L);
-                usuarioAutenticado.setNombreCompleto("Sistema");
-                usuarioAutenticado.setUsername("sistema");
-            }
-            
-            RepuestoMovimiento movimiento = new RepuestoMovimiento();
-            movimiento.setRepuesto(repuestoDesdeBD);
-            movimiento.setTipoMovimiento("SALIDA");
-            movimiento.setCantidad(usoRepuesto.getCantidad());
-            movimiento.setStockAnterior(stockAnterior);
-            movimiento.setStockNuevo(nuevoStock);
-            movimiento.setReferencia("Uso en orden: " + numeroOrden);
-            movimiento.setFechaMovimiento(LocalDateTime.now());
-            movimiento.setUsuarioMovimiento(usuarioAutenticado);
-            
-            repuestoMovimientoService.guardarMovimiento(movimiento);
-        } catch (Exception e) {
-            // Log del error pero no fallar la operación principal
-            System.err.println("Error al registrar movimiento de inventario: " + e.getMessage());
-        }
-        
         // Calcular subtotal automáticamente si no está definido
         if (usoRepuesto.getSubtotal() == null && usoRepuesto.getPrecioUnitario() != null) {
             BigDecimal subtotal = usoRepuesto.getPrecioUnitario()
@@ -159,7 +172,9 @@ public class UsoRepuestoService {
             usoRepuesto.setSubtotal(subtotal);
         }
         
-        return usoRepuestoRepository.save(usoRepuesto);
+        UsoRepuesto usoGuardado = usoRepuestoRepository.save(usoRepuesto);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado));
+        return usoGuardado;
     }
 
     /**
@@ -196,6 +211,10 @@ public class UsoRepuestoService {
         }
 
         UsoRepuesto usoRepuesto = usoRepuestoExistente.get();
+        Long idOrdenAnterior = idOrdenDe(usoRepuesto);
+        BigDecimal importeAnterior = importeDe(usoRepuesto);
+        Long idRepuestoAnterior = usoRepuesto.getRepuesto().getIdRepuesto();
+        int cantidadAnterior = usoRepuesto.getCantidad();
         
         // Actualizar campos (el subtotal se calcula automáticamente por ser GENERATED ALWAYS)
         if (usoRepuestoActualizado.getOrdenTrabajo() != null) {
@@ -211,17 +230,26 @@ public class UsoRepuestoService {
             usoRepuesto.setPrecioUnitario(usoRepuestoActualizado.getPrecioUnitario());
         }
 
-        return usoRepuestoRepository.save(usoRepuesto);
+        moverStock(idRepuestoAnterior, cantidadAnterior, usoRepuesto.getRepuesto().getIdRepuesto(),
+                usoRepuesto.getCantidad(), idOrdenDe(usoRepuesto));
+
+        UsoRepuesto usoGuardado = usoRepuestoRepository.save(usoRepuesto);
+        // Ajustar totales: se retira el importe anterior y se suma el nuevo (pueden ser órdenes distintas)
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenAnterior, importeAnterior.negate());
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado));
+        return usoGuardado;
     }
 
     /**
      * Eliminar uso de repuesto permanentemente
+     * El stock consumido vuelve al inventario
      */
     public void eliminarUsoRepuesto(Long id) {
-        if (!usoRepuestoRepository.existsById(id)) {
-            throw new IllegalArgumentException("No se encontró el uso de repuesto con ID: " + id);
-        }
-        usoRepuestoRepository.deleteById(id);
+        UsoRepuesto usoRepuesto = usoRepuestoRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("No se encontró el uso de repuesto con ID: " + id));
+        moverStock(usoRepuesto.getRepuesto().getIdRepuesto(), usoRepuesto.getCantidad(), null, 0, idOrdenDe(usoRepuesto));
+        usoRepuestoRepository.delete(usoRepuesto);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoRepuesto), importeDe(usoRepuesto).negate());
     }
 
     // ===============================
@@ -566,8 +594,11 @@ public class UsoRepuestoService {
      * Agregar repuesto a orden de trabajo
      */
     public UsoRepuesto agregarRepuestoAOrden(OrdenTrabajo ordenTrabajo, Repuesto repuesto, Integer cantidad, BigDecimal precioUnitario) {
+        moverStock(null, 0, repuesto.getIdRepuesto(), cantidad, ordenTrabajo.getIdOrden());
         UsoRepuesto usoRepuesto = new UsoRepuesto(ordenTrabajo, repuesto, cantidad, precioUnitario);
-        return usoRepuestoRepository.save(usoRepuesto);
+        UsoRepuesto usoGuardado = usoRepuestoRepository.save(usoRepuesto);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado));
+        return usoGuardado;
     }
 
     /**
@@ -580,8 +611,13 @@ public class UsoRepuestoService {
         }
         
         UsoRepuesto usoRepuesto = usoRepuestoOpt.get();
+        BigDecimal importeAnterior = importeDe(usoRepuesto);
+        Long idRepuesto = usoRepuesto.getRepuesto().getIdRepuesto();
+        moverStock(idRepuesto, usoRepuesto.getCantidad(), idRepuesto, nuevaCantidad, idOrdenDe(usoRepuesto));
         usoRepuesto.setCantidad(nuevaCantidad);
-        return usoRepuestoRepository.save(usoRepuesto);
+        UsoRepuesto usoGuardado = usoRepuestoRepository.save(usoRepuesto);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado).subtract(importeAnterior));
+        return usoGuardado;
     }
 
     /**
@@ -594,8 +630,11 @@ public class UsoRepuestoService {
         }
         
         UsoRepuesto usoRepuesto = usoRepuestoOpt.get();
+        BigDecimal importeAnterior = importeDe(usoRepuesto);
         usoRepuesto.setPrecioUnitario(nuevoPrecio);
-        return usoRepuestoRepository.save(usoRepuesto);
+        UsoRepuesto usoGuardado = usoRepuestoRepository.save(usoRepuesto);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado).subtract(importeAnterior));
+        return usoGuardado;
     }
 
     /**
@@ -611,27 +650,146 @@ public class UsoRepuestoService {
 
     /**
      * Eliminar todos los usos de repuesto de una orden
+     * El stock consumido vuelve al inventario (una sentencia por repuesto)
      */
     public void eliminarTodosLosUsosDeOrden(OrdenTrabajo ordenTrabajo) {
         List<UsoRepuesto> usos = usoRepuestoRepository.findByOrdenTrabajo(ordenTrabajo);
+        for (UsoRepuesto uso : usos) {
+            moverStock(uso.getRepuesto().getIdRepuesto(), uso.getCantidad(), null, 0, ordenTrabajo.getIdOrden());
+        }
         usoRepuestoRepository.deleteAll(usos);
+        ordenTotalesService.aplicarDeltaRepuestos(ordenTrabajo.getIdOrden(), sumarImportes(usos).negate());
     }
 
     /**
      * Clonar usos de repuesto de una orden a otra orden
+     * Descuenta el stock y registra los movimientos de salida
      */
     public List<UsoRepuesto> clonarUsosAOtraOrden(OrdenTrabajo ordenOrigen, OrdenTrabajo ordenDestino) {
-        List<UsoRepuesto> usosOrigen = usoRepuestoRepository.findByOrdenTrabajo(ordenOrigen);
-        List<UsoRepuesto> usosNuevos = usosOrigen.stream()
-                .map(uso -> new UsoRepuesto(
-                    ordenDestino,
-                    uso.getRepuesto(),
-                    uso.getCantidad(),
-                    uso.getPrecioUnitario()
-                ))
-                .toList();
-        
-        return usoRepuestoRepository.saveAll(usosNuevos);
+        List<Long> idsNuevos = clonarUsos(ordenOrigen.getIdOrden(), ordenDestino.getIdOrden(), false);
+        return usoRepuestoRepository.findAllById(idsNuevos);
+    }
+
+    /**
+     * Copiar los repuestos de una orden a otra con una única sentencia (stock y usos); los movimientos van al libro
+     * Todo o nada: si algún repuesto no tiene stock suficiente se lanza la excepción y la transacción se revierte
+     * @param preciosActuales true para aplicar el precio unitario vigente del repuesto en lugar del de la orden origen
+     * @return ids de los usos creados
+     */
+    public List<Long> clonarUsos(Long idOrdenOrigen, Long idOrdenDestino, boolean preciosActuales) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idOrigen", idOrdenOrigen)
+                .addValue("idDestino", idOrdenDestino)
+                .addValue("preciosActuales", preciosActuales);
+        Long idUsuario = usuarioService.obtenerIdUsuarioActual();
+        List<Long> idsNuevos = new ArrayList<>();
+        BigDecimal[] importe = {BigDecimal.ZERO};
+        long[] faltantes = {0};
+        namedParameterJdbcTemplate.query(SQL_CLONAR_USOS, parametros, rs -> {
+            if (idsNuevos.isEmpty()) {
+                registrarSalidas(rs, idUsuario);
+            }
+            idsNuevos.add(rs.getLong("id_uso"));
+            importe[0] = importe[0].add(rs.getBigDecimal("subtotal"));
+            faltantes[0] = rs.getLong("requeridos") - rs.getLong("descontados");
+        });
+
+        if (faltantes[0] > 0) {
+            throw new IllegalArgumentException("Stock insuficiente para clonar los repuestos de la orden " + idOrdenOrigen +
+                    " (" + faltantes[0] + " repuesto(s) sin stock suficiente)");
+        }
+        ordenTotalesService.aplicarDeltaRepuestos(idOrdenDestino, importe[0]);
+        return idsNuevos;
+    }
+
+    /**
+     * Registrar varios repuestos consumidos en una orden con un número fijo de viajes a la base de datos:
+     * el usuario actual, una sentencia que descuenta el stock por repuesto e inserta los usos,
+     * y la actualización de los totales de la orden (los movimientos de salida van al libro de movimientos)
+     * Todo o nada: si la orden está cerrada, falta algún repuesto o alguno no tiene stock suficiente
+     * se lanza la excepción y la transacción se revierte
+     * @return las líneas creadas, en el orden recibido
+     */
+    public List<UsoRepuestoLineaDTO> registrarUsosLote(Long idOrden, List<LineaConsumoDTO> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un repuesto");
+        }
+        MapSqlParameterSource parametros = new MapSqlParameterSource("idOrden", idOrden);
+        Long idUsuario = usuarioService.obtenerIdUsuarioActual();
+        List<String> filas = new ArrayList<>();
+        for (int i = 0; i < lineas.size(); i++) {
+            LineaConsumoDTO linea = lineas.get(i);
+            if (linea.getIdRepuesto() == null) {
+                throw new IllegalArgumentException("El repuesto es obligatorio en la línea " + (i + 1));
+            }
+            if (linea.getCantidad() == null || linea.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor a cero en la línea " + (i + 1));
+            }
+            filas.add(String.format(FILA_CONSUMO, i));
+            parametros.addValue("r" + i, linea.getIdRepuesto())
+                    .addValue("c" + i, linea.getCantidad())
+                    .addValue("p" + i, linea.getPrecioUnitario());
+        }
+
+        List<UsoRepuestoLineaDTO> creadas = new ArrayList<>();
+        String[] estadoOrden = {null};
+        long[] contadores = new long[3];
+        namedParameterJdbcTemplate.query(String.format(SQL_CONSUMO_LOTE, String.join(", ", filas)), parametros, rs -> {
+            if (estadoOrden[0] == null) {
+                registrarSalidas(rs, idUsuario);
+            }
+            estadoOrden[0] = rs.getString("estado_orden");
+            contadores[0] = rs.getLong("solicitados");
+            contadores[1] = rs.getLong("requeridos");
+            contadores[2] = rs.getLong("descontados");
+            long idUso = rs.getLong("id_uso");
+            if (!rs.wasNull()) {
+                Timestamp creado = rs.getTimestamp("created_at");
+                creadas.add(new UsoRepuestoLineaDTO(idUso, rs.getLong("id_repuesto"), rs.getString("codigo"),
+                        rs.getString("nombre"), rs.getInt("cantidad"), rs.getBigDecimal("precio_unitario"),
+                        rs.getBigDecimal("subtotal"), creado != null ? creado.toLocalDateTime() : null));
+            }
+        });
+
+        if (estadoOrden[0] == null) {
+            throw new IllegalArgumentException("No se encontró la orden de trabajo con ID: " + idOrden);
+        }
+        if (ESTADOS_FINALES.contains(estadoOrden[0])) {
+            throw new IllegalStateException("La orden " + idOrden + " está " + estadoOrden[0] + " y no admite nuevos repuestos");
+        }
+        if (contadores[1] < contadores[0]) {
+            throw new IllegalArgumentException((contadores[0] - contadores[1]) + " repuesto(s) del lote no existen");
+        }
+        if (contadores[2] < contadores[1]) {
+            throw new IllegalArgumentException("Stock insuficiente para " + (contadores[1] - contadores[2]) +
+                    " repuesto(s) del lote");
+        }
+
+        BigDecimal importe = creadas.stream()
+                .map(UsoRepuestoLineaDTO::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        ordenTotalesService.aplicarDeltaRepuestos(idOrden, importe);
+        return creadas;
+    }
+
+    /**
+     * Registrar el uso de un repuesto ya descontado por una reserva confirmada (no toca el stock)
+     * El uso queda enlazado a la reserva para que la recuperación no la vuelva a considerar pendiente
+     * @return id del uso creado
+     */
+    public Long registrarUsoReservado(Long idOrden, Long idRepuesto, Integer cantidad, Long idReserva) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idOrden", idOrden)
+                .addValue("idRepuesto", idRepuesto)
+                .addValue("cantidad", cantidad)
+                .addValue("idReserva", idReserva);
+        List<Object[]> insertado = namedParameterJdbcTemplate.query(SQL_USO_RESERVADO, parametros,
+                (rs, fila) -> new Object[] {rs.getLong("id_uso"), rs.getBigDecimal("subtotal")});
+        if (insertado.isEmpty()) {
+            throw new IllegalArgumentException("El repuesto con ID " + idRepuesto + " no existe");
+        }
+        ordenTotalesService.aplicarDeltaRepuestos(idOrden, (BigDecimal) insertado.get(0)[1]);
+        return (Long) insertado.get(0)[0];
     }
 
     /**
@@ -654,8 +812,12 @@ public class UsoRepuestoService {
         if (usoExistente.isPresent()) {
             // Incrementar cantidad existente
             UsoRepuesto uso = usoExistente.get();
+            BigDecimal importeAnterior = importeDe(uso);
+            moverStock(null, 0, repuesto.getIdRepuesto(), cantidadAdicional, ordenTrabajo.getIdOrden());
             uso.setCantidad(uso.getCantidad() + cantidadAdicional);
-            return usoRepuestoRepository.save(uso);
+            UsoRepuesto usoGuardado = usoRepuestoRepository.save(uso);
+            ordenTotalesService.aplicarDeltaRepuestos(idOrdenDe(usoGuardado), importeDe(usoGuardado).subtract(importeAnterior));
+            return usoGuardado;
         } else {
             // Crear nuevo uso
             return agregarRepuestoAOrden(ordenTrabajo, repuesto, cantidadAdicional, repuesto.getPrecioUnitario());
@@ -698,4 +860,85 @@ public class UsoRepuestoService {
             return false;
         }
     }
+
+    // ===============================
+    // MÉTODOS AUXILIARES DE STOCK
+    // ===============================
+
+    /**
+     * Llevar el stock de (repuestoAnterior, cantidadAnterior) a (repuestoNuevo, cantidadNueva)
+     * Con el mismo repuesto se aplica solo la diferencia; con repuestos distintos se devuelve
+     * lo anterior y se descuenta lo nuevo. Cada cambio es una sentencia condicional por repuesto
+     */
+    private void moverStock(Long idRepuestoAnterior, int cantidadAnterior, Long idRepuestoNuevo, int cantidadNueva,
+                            Long idOrden) {
+        if (idRepuestoAnterior != null && idRepuestoAnterior.equals(idRepuestoNuevo)) {
+            cantidadNueva -= cantidadAnterior;
+            cantidadAnterior = 0;
+            if (cantidadNueva < 0) {
+                cantidadAnterior = -cantidadNueva;
+                cantidadNueva = 0;
+            }
+        }
+        if (idRepuestoAnterior != null && cantidadAnterior > 0) {
+            repuestoService.reponerStock(idRepuestoAnterior, cantidadAnterior, REFERENCIA_DEVOLUCION + numeroOrdenDe(idOrden));
+        }
+        if (idRepuestoNuevo != null && cantidadNueva > 0) {
+            repuestoService.descontarStock(idRepuestoNuevo, cantidadNueva, REFERENCIA_USO + numeroOrdenDe(idOrden));
+        }
+    }
+
+    /**
+     * Entregar al libro de movimientos las salidas de stock aplicadas por una sentencia de usos
+     * (columnas de COLUMNAS_SALIDAS, se leen de la primera fila)
+     * Cada salida se aparta en las reservas: si invade lo reservado sin confirmar se rechaza y la transacción se revierte
+     */
+    private void registrarSalidas(ResultSet rs, Long idUsuario) throws SQLException {
+        Array repuestos = rs.getArray("salida_repuestos");
+        if (repuestos == null) {
+            return;
+        }
+        Object[] ids = (Object[]) repuestos.getArray();
+        Object[] cantidades = (Object[]) rs.getArray("salida_cantidades").getArray();
+        Object[] anteriores = (Object[]) rs.getArray("salida_anteriores").getArray();
+        Object[] nuevos = (Object[]) rs.getArray("salida_nuevos").getArray();
+        String referencia = REFERENCIA_USO + rs.getString("numero_orden");
+        for (int i = 0; i < ids.length; i++) {
+            long idRepuesto = ((Number) ids[i]).longValue();
+            int cantidad = ((Number) cantidades[i]).intValue();
+            reservaStockService.apartarSalidaDirecta(idRepuesto, cantidad);
+            libroMovimientosService.registrar(idRepuesto, "SALIDA", cantidad,
+                    ((Number) anteriores[i]).intValue(), ((Number) nuevos[i]).intValue(), referencia, idUsuario);
+        }
+    }
+
+    private String numeroOrdenDe(Long idOrden) {
+        if (idOrden == null) {
+            return "N/A";
+        }
+        return namedParameterJdbcTemplate.queryForList(SQL_NUMERO_ORDEN, new MapSqlParameterSource("idOrden", idOrden), String.class)
+                .stream().findFirst().orElse("N/A");
+    }
+
+    // ===============================
+    // MÉTODOS AUXILIARES DE TOTALES
+    // ===============================
+
+    private Long idOrdenDe(UsoRepuesto usoRepuesto) {
+        return usoRepuesto.getOrdenTrabajo() != null ? usoRepuesto.getOrdenTrabajo().getIdOrden() : null;
+    }
+
+    // Mismo cálculo que la columna generada subtotal (cantidad * precio_unitario)
+    private BigDecimal importeDe(UsoRepuesto usoRepuesto) {
+        if (usoRepuesto.getCantidad() == null || usoRepuesto.getPrecioUnitario() == null) {
+            return BigDecimal.ZERO;
+        }
+        return usoRepuesto.getPrecioUnitario().multiply(BigDecimal.valueOf(usoRepuesto.getCantidad()));
+    }
+
+    private BigDecimal sumarImportes(List<UsoRepuesto> usos) {
+        return usos.stream()
+                .map(this::importeDe)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
 }
@@ -6,7 +6,11 @@ import com.tallermoto.dto.UsuarioResponseDTO;
 import com.tallermoto.entity.Usuario;
 import com.tallermoto.mapper.UsuarioMapper;
 import com.tallermoto.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +36,24 @@ public class UsuarioService {
     @Autowired
     private UsuarioMapper usuarioMapper;
 
+    // Usuario al que se atribuyen los cambios cuando no hay sesión autenticada
+    @Value("${app.usuarios.sistema:admin}")
+    private String usernameSistema;
+
+    private Long idUsuarioSistema;
+
+    /**
+     * Resolver el usuario sistema al arrancar; si no existe la aplicación no inicia
+     */
+    @PostConstruct
+    void resolverUsuarioSistema() {
+        idUsuarioSistema = usuarioRepository.findByUsername(usernameSistema)
+                .map(Usuario::getIdUsuario)
+                .orElseThrow(() -> new IllegalStateException("No existe el usuario sistema '" + usernameSistema +
+                        "' (app.usuarios.sistema): crearlo o configurar un usuario existente"));
+        System.out.println("Usuario sistema: " + usernameSistema + " (id " + idUsuarioSistema + ")");
+    }
+
     // =====================================================
     // OPERACIONES CRUD BÁSICAS
     // =====================================================
@@ -492,4 +514,20 @@ public class UsuarioService {
     public Optional<Usuario> obtenerParaAutenticacion(String username) {
         return usuarioRepository.findByUsernameAndActivo(username, true);
     }
+
+    /**
+     * Obtener el ID del usuario autenticado en la petición actual
+     * Si no hay sesión o el usuario no existe en la BD, se usa el usuario sistema (app.usuarios.sistema)
+     */
+    @Transactional(readOnly = true)
+    public Long obtenerIdUsuarioActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getName())) {
+            return usuarioRepository.findByUsername(authentication.getName())
+                    .map(Usuario::getIdUsuario)
+                    .orElse(idUsuarioSistema);
+        }
+        return idUsuarioSistema;
+    }
 }
@@ -0,0 +1,258 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.ValorizacionCategoriaDTO;
+import com.tallermoto.dto.ValorizacionInventarioDTO;
+import com.tallermoto.event.RepuestoModificadoEvent;
+import com.tallermoto.event.StockModificadoEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Servicio de valorización del inventario por categoría
+ *
+ * Mantiene en memoria, por categoría, la cantidad de repuestos, las unidades en stock, el valor (stock × precio)
+ * y los repuestos activos en stock bajo y agotados. Los totales se reconstruyen con una sola lectura de repuestos
+ * al arrancar y luego se actualizan por diferencias: cada cambio de stock (StockModificadoEvent) o de datos del
+ * repuesto (RepuestoModificadoEvent: precio, categoría, mínimo, estado) resta el aporte anterior del repuesto y suma
+ * el nuevo. Por eso se conserva un resumen de cada repuesto; el valor se lleva en centavos.
+ *
+ * Un cambio de stock se aplica si su stock anterior coincide con el conocido; si no, se relee la fila.
+ * Una reconstrucción diaria (app.valorizacion.reconstruccion.cron) descarta cualquier desvío acumulado
+ */
+@Service
+public class ValorizacionInventarioService {
+
+    public static final String SIN_CATEGORIA = "Sin categoría";
+
+    private static final String SQL_REPUESTOS =
+            "SELECT id_repuesto, categoria, stock_actual, stock_minimo, precio_unitario, activo FROM repuestos ";
+
+    private static final String FILTRO_IDS = "WHERE id_repuesto IN (:ids)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Resumen por repuesto y totales por categoría (orden alfabético); se accede con el bloqueo
+    private final Object bloqueo = new Object();
+    private final Map<Long, Linea> lineas = new HashMap<>();
+    private final Map<String, Totales> categorias = new TreeMap<>();
+
+    // ===============================
+    // RECONSTRUCCIÓN
+    // ===============================
+
+    @PostConstruct
+    public void iniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Recalcular todos los totales desde la base de datos
+     * Se conservan los repuestos que cambiaron mientras se leía la tabla
+     */
+    @Scheduled(cron = "${app.valorizacion.reconstruccion.cron:0 30 4 * * *}")
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        Map<Long, Linea> leidas = leer(SQL_REPUESTOS, new MapSqlParameterSource());
+
+        int totalCategorias;
+        synchronized (bloqueo) {
+            for (Linea actual : lineas.values()) {
+                if (actual.modificado > inicio) {
+                    leidas.put(actual.idRepuesto, actual);
+                }
+            }
+            lineas.clear();
+            categorias.clear();
+            for (Linea linea : leidas.values()) {
+                lineas.put(linea.idRepuesto, linea);
+                aportar(linea, 1);
+            }
+            totalCategorias = categorias.size();
+        }
+        System.out.println("Valorización de inventario reconstruida: " + leidas.size() + " repuestos en " +
+                totalCategorias + " categorías");
+    }
+
+    // ===============================
+    // CONSULTA
+    // ===============================
+
+    /**
+     * Valorización total y por categoría
+     */
+    public ValorizacionInventarioDTO obtenerValorizacion() {
+        List<ValorizacionCategoriaDTO> detalle = new ArrayList<>();
+        Totales total = new Totales();
+        synchronized (bloqueo) {
+            for (Map.Entry<String, Totales> entrada : categorias.entrySet()) {
+                Totales totales = entrada.getValue();
+                detalle.add(new ValorizacionCategoriaDTO(entrada.getKey(), totales.repuestos, totales.unidades,
+                        BigDecimal.valueOf(totales.valorCentavos, 2), totales.stockBajo, totales.agotados));
+                total.acumular(totales);
+            }
+        }
+        return new ValorizacionInventarioDTO(total.repuestos, total.unidades, BigDecimal.valueOf(total.valorCentavos, 2),
+                total.stockBajo, total.agotados, detalle, LocalDateTime.now());
+    }
+
+    // ===============================
+    // RECEPCIÓN DE CAMBIOS (ya confirmados)
+    // ===============================
+
+    @EventListener
+    public void alModificarStock(StockModificadoEvent evento) {
+        Set<Long> releer = new LinkedHashSet<>();
+        synchronized (bloqueo) {
+            for (StockModificadoEvent.Cambio cambio : evento.getCambios()) {
+                Long idRepuesto = cambio.getIdRepuesto();
+                if (releer.contains(idRepuesto)) {
+                    continue;
+                }
+                Linea linea = lineas.get(idRepuesto);
+                if (linea == null || linea.stock != cambio.getStockAnterior()) {
+                    releer.add(idRepuesto);
+                    continue;
+                }
+                aportar(linea, -1);
+                linea.stock = cambio.getStockNuevo();
+                linea.modificado = System.nanoTime();
+                aportar(linea, 1);
+            }
+        }
+
+        if (!releer.isEmpty()) {
+            Map<Long, Linea> leidas = leer(SQL_REPUESTOS + FILTRO_IDS, new MapSqlParameterSource("ids", releer));
+            synchronized (bloqueo) {
+                for (Long idRepuesto : releer) {
+                    reemplazar(idRepuesto, leidas.get(idRepuesto));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarRepuesto(RepuestoModificadoEvent evento) {
+        Linea leida = RepuestoModificadoEvent.ELIMINADO.equals(evento.getTipo()) ? null
+                : leer(SQL_REPUESTOS + FILTRO_IDS, new MapSqlParameterSource("ids", List.of(evento.getIdRepuesto())))
+                        .get(evento.getIdRepuesto());
+        synchronized (bloqueo) {
+            reemplazar(evento.getIdRepuesto(), leida);
+        }
+    }
+
+    // ===============================
+    // TOTALES (con el bloqueo)
+    // ===============================
+
+    /**
+     * Sustituir el aporte de un repuesto por el de la fila leída (null: repuesto eliminado)
+     */
+    private void reemplazar(Long idRepuesto, Linea leida) {
+        Linea actual = lineas.remove(idRepuesto);
+        if (actual != null) {
+            aportar(actual, -1);
+        }
+        if (leida != null) {
+            leida.modificado = System.nanoTime();
+            lineas.put(idRepuesto, leida);
+            aportar(leida, 1);
+        }
+    }
+
+    /**
+     * Sumar (signo 1) o restar (signo -1) el aporte de un repuesto a su categoría
+     */
+    private void aportar(Linea linea, int signo) {
+        Totales totales = categorias.computeIfAbsent(linea.categoria, categoria -> new Totales());
+        totales.repuestos += signo;
+        totales.unidades += (long) signo * linea.stock;
+        totales.valorCentavos += (long) signo * linea.stock * linea.precioCentavos;
+        if (linea.activo && linea.stock <= linea.stockMinimo) {
+            totales.stockBajo += signo;
+            if (linea.stock <= 0) {
+                totales.agotados += signo;
+            }
+        }
+        if (totales.repuestos == 0) {
+            categorias.remove(linea.categoria);
+        }
+    }
+
+    private Map<Long, Linea> leer(String sql, MapSqlParameterSource parametros) {
+        Map<Long, Linea> leidas = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, parametros, rs -> {
+            String categoria = rs.getString("categoria");
+            Linea linea = new Linea(
+                    rs.getLong("id_repuesto"),
+                    categoria != null && !categoria.isBlank() ? categoria : SIN_CATEGORIA,
+                    rs.getInt("stock_minimo"),
+                    rs.getBigDecimal("precio_unitario").movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact(),
+                    rs.getBoolean("activo"));
+            linea.stock = rs.getInt("stock_actual");
+            leidas.put(linea.idRepuesto, linea);
+        });
+        return leidas;
+    }
+
+    // ===============================
+    // CLASES INTERNAS
+    // ===============================
+
+    /**
+     * Lo que aporta un repuesto a los totales; se modifica solo con el bloqueo
+     */
+    private static final class Linea {
+
+        private final Long idRepuesto;
+        private final String categoria;
+        private final int stockMinimo;
+        private final long precioCentavos;
+        private final boolean activo;
+        private int stock;
+        private long modificado;
+
+        private Linea(Long idRepuesto, String categoria, int stockMinimo, long precioCentavos, boolean activo) {
+            this.idRepuesto = idRepuesto;
+            this.categoria = categoria;
+            this.stockMinimo = stockMinimo;
+            this.precioCentavos = precioCentavos;
+            this.activo = activo;
+        }
+    }
+
+    private static final class Totales {
+
+        private int repuestos;
+        private long unidades;
+        private long valorCentavos;
+        private int stockBajo;
+        private int agotados;
+
+        private void acumular(Totales otros) {
+            repuestos += otros.repuestos;
+            unidades += otros.unidades;
+            valorCentavos += otros.valorCentavos;
+            stockBajo += otros.stockBajo;
+            agotados += otros.agotados;
+        }
+    }
+}
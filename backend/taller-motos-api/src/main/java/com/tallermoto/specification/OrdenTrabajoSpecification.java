@@ -0,0 +1,98 @@
+package com.tallermoto.specification;
+
+import com.tallermoto.dto.OrdenTrabajoFiltroDTO;
+import com.tallermoto.entity.OrdenTrabajo;
+
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Construcción de Specifications para el filtrado dinámico de órdenes de trabajo
+ * Cualquier combinación de criterios se traduce a una única sentencia SQL
+ */
+public final class OrdenTrabajoSpecification {
+
+    private OrdenTrabajoSpecification() {}
+
+    /**
+     * Specification con todos los criterios informados en el filtro
+     */
+    public static Specification<OrdenTrabajo> desdeFiltro(OrdenTrabajoFiltroDTO filtro) {
+        return (root, query, cb) -> {
+            // Las relaciones se cargan en la misma consulta, salvo en la consulta de conteo
+            if (!esConsultaDeConteo(query.getResultType())) {
+                Fetch<Object, Object> moto = root.fetch("moto", JoinType.LEFT);
+                moto.fetch("cliente", JoinType.LEFT);
+                root.fetch("usuarioCreador", JoinType.LEFT);
+                root.fetch("mecanicoAsignado", JoinType.LEFT);
+            }
+
+            if (filtro == null) {
+                return cb.conjunction();
+            }
+
+            List<Predicate> predicados = new ArrayList<>();
+            if (tieneValores(filtro.getEstados())) {
+                predicados.add(root.get("estado").in(filtro.getEstados()));
+            }
+            if (tieneValores(filtro.getPrioridades())) {
+                predicados.add(root.get("prioridad").in(filtro.getPrioridades()));
+            }
+            if (tieneValores(filtro.getEstadosPago())) {
+                predicados.add(root.get("estadoPago").in(filtro.getEstadosPago()));
+            }
+            if (filtro.getIdMecanico() != null) {
+                predicados.add(cb.equal(root.get("mecanicoAsignado").get("idUsuario"), filtro.getIdMecanico()));
+            } else if (Boolean.TRUE.equals(filtro.getSinMecanico())) {
+                predicados.add(cb.isNull(root.get("mecanicoAsignado")));
+            }
+            if (filtro.getIdMoto() != null) {
+                predicados.add(cb.equal(root.get("moto").get("idMoto"), filtro.getIdMoto()));
+            }
+            if (filtro.getIdCliente() != null) {
+                predicados.add(cb.equal(root.get("moto").get("cliente").get("idCliente"), filtro.getIdCliente()));
+            }
+            if (filtro.getIdUsuarioCreador() != null) {
+                predicados.add(cb.equal(root.get("usuarioCreador").get("idUsuario"), filtro.getIdUsuarioCreador()));
+            }
+            if (filtro.getFechaIngresoDesde() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("fechaIngreso"), filtro.getFechaIngresoDesde()));
+            }
+            if (filtro.getFechaIngresoHasta() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.<LocalDateTime>get("fechaIngreso"), filtro.getFechaIngresoHasta()));
+            }
+            if (filtro.getFechaEntregaDesde() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.<LocalDate>get("fechaEstimadaEntrega"), filtro.getFechaEntregaDesde()));
+            }
+            if (filtro.getFechaEntregaHasta() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.<LocalDate>get("fechaEstimadaEntrega"), filtro.getFechaEntregaHasta()));
+            }
+            if (filtro.getTotalMinimo() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get("totalOrden"), filtro.getTotalMinimo()));
+            }
+            if (filtro.getTotalMaximo() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.<BigDecimal>get("totalOrden"), filtro.getTotalMaximo()));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    private static boolean esConsultaDeConteo(Class<?> tipoResultado) {
+        return Long.class.equals(tipoResultado) || long.class.equals(tipoResultado);
+    }
+
+    private static boolean tieneValores(Collection<?> valores) {
+        return valores != null && !valores.isEmpty();
+    }
+}
@@ -0,0 +1,173 @@
+package com.tallermoto.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Formato de las líneas del diario y reproceso al arrancar contra el esquema real (database/schema.sql)
+ * El reproceso usa una instancia propia sobre un directorio temporal, así no toca el diario del servicio en uso
+ */
+@SpringBootTest(properties = {
+		"app.reservas.confirmacion-ms=3600000",
+		"app.reservas.vencimiento-ms=3600000",
+		"app.libro.directorio=target/libro-movimientos-test"
+})
+class LibroMovimientosServiceTest {
+
+	private static final long SIN_TRANSACCION = 0L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private PronosticoConsumoService pronosticoConsumoService;
+
+	@TempDir
+	Path carpeta;
+
+	private Long idRepuesto;
+	private Long idUsuario;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = UUID.randomUUID().toString().substring(0, 8);
+		idUsuario = jdbcTemplate.queryForObject(
+				"INSERT INTO usuarios (username, email, password_hash, nombre_completo, rol) " +
+				"VALUES (?, ?, 'x', 'Prueba libro', 'ADMIN') RETURNING id_usuario",
+				Long.class, "libro-" + sufijo, "libro-" + sufijo + "@prueba.local");
+		idRepuesto = jdbcTemplate.queryForObject(
+				"INSERT INTO repuestos (codigo, nombre, stock_actual, precio_unitario) " +
+				"VALUES (?, 'Repuesto libro', 10, 25.00) RETURNING id_repuesto",
+				Long.class, "LIB-" + sufijo);
+	}
+
+	@AfterEach
+	void borrarDatos() {
+		jdbcTemplate.update("DELETE FROM repuesto_movimientos WHERE id_repuesto = ?", idRepuesto);
+		jdbcTemplate.update("DELETE FROM repuestos WHERE id_repuesto = ?", idRepuesto);
+		jdbcTemplate.update("DELETE FROM usuarios WHERE id_usuario = ?", idUsuario);
+	}
+
+	// ===============================
+	// FORMATO DE LÍNEA
+	// ===============================
+
+	@Test
+	void laReferenciaConCaracteresDeControlOcupaUnaSolaLinea() {
+		String linea = movimiento(SIN_TRANSACCION, "tab\tsalto\nretorno\rbarra\\fin").aLinea();
+
+		assertThat(linea).doesNotContain("\n", "\r");
+		assertThat(linea.split("\t", -1)).hasSize(10);
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(linea).aLinea()).isEqualTo(linea);
+	}
+
+	@Test
+	void distingueReferenciaNulaDeLaMarcaLiteral() {
+		String nula = movimiento(SIN_TRANSACCION, null).aLinea();
+		String literal = movimiento(SIN_TRANSACCION, "\\0").aLinea();
+		String vacia = movimiento(SIN_TRANSACCION, "").aLinea();
+
+		assertThat(nula).endsWith("\t\\0");
+		assertThat(literal).endsWith("\t\\\\0");
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(nula).aLinea()).isEqualTo(nula);
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(literal).aLinea()).isEqualTo(literal);
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(vacia).aLinea()).isEqualTo(vacia);
+	}
+
+	@Test
+	void rechazaLineasIncompletasODanadas() {
+		String linea = movimiento(SIN_TRANSACCION, "Salida").aLinea();
+
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(linea.substring(0, linea.lastIndexOf('\t')))).isNull();
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea(linea.replaceFirst("^[^\t]+", "no-es-uuid"))).isNull();
+		assertThat(LibroMovimientosService.Movimiento.desdeLinea("")).isNull();
+	}
+
+	// ===============================
+	// REPROCESO DEL DIARIO
+	// ===============================
+
+	@Test
+	void alArrancarInsertaSoloLasLineasCompletasDeTransaccionesConfirmadas() throws IOException {
+		long xidConfirmada = transactionTemplate.execute(
+				estado -> jdbcTemplate.queryForObject("SELECT txid_current()", Long.class));
+		long xidRevertida = transactionTemplate.execute(estado -> {
+			estado.setRollbackOnly();
+			return jdbcTemplate.queryForObject("SELECT txid_current()", Long.class);
+		});
+
+		LibroMovimientosService.Movimiento confirmado = movimiento(xidConfirmada, "Confirmada");
+		LibroMovimientosService.Movimiento revertido = movimiento(xidRevertida, "Revertida");
+		LibroMovimientosService.Movimiento sinTransaccion = movimiento(SIN_TRANSACCION, "Sin transacción");
+		// Escritura cortada dentro de la referencia: conserva los 10 campos pero le falta el salto de línea
+		LibroMovimientosService.Movimiento cortado = movimiento(SIN_TRANSACCION, "Referencia cortada");
+		String lineaCortada = cortado.aLinea();
+		Files.writeString(carpeta.resolve("libro-0000000000001-000001.log"),
+				confirmado.aLinea() + "\n" + revertido.aLinea() + "\n" + sinTransaccion.aLinea() + "\n" +
+				lineaCortada.substring(0, lineaCortada.length() - 4),
+				StandardCharsets.UTF_8);
+
+		LibroMovimientosService libro = new LibroMovimientosService();
+		ReflectionTestUtils.setField(libro, "directorio", carpeta.toString());
+		ReflectionTestUtils.setField(libro, "tamanoLote", 500);
+		ReflectionTestUtils.setField(libro, "intervaloMs", 50L);
+		ReflectionTestUtils.setField(libro, "capacidad", 100);
+		ReflectionTestUtils.setField(libro, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(libro, "namedParameterJdbcTemplate", namedParameterJdbcTemplate);
+		ReflectionTestUtils.setField(libro, "transactionTemplate", transactionTemplate);
+		ReflectionTestUtils.setField(libro, "eventPublisher", eventPublisher);
+		ReflectionTestUtils.setField(libro, "pronosticoConsumoService", pronosticoConsumoService);
+		libro.iniciar();
+		libro.detener();
+
+		assertThat(insertado(confirmado)).isTrue();
+		assertThat(insertado(sinTransaccion)).isTrue();
+		assertThat(insertado(revertido)).isFalse();
+		assertThat(insertado(cortado)).isFalse();
+		// El consumo de las dos salidas insertadas se guarda con ellas, en la transacción del lote
+		assertThat(jdbcTemplate.queryForObject("SELECT consumo_dia FROM repuesto_consumo WHERE id_repuesto = ?",
+				Integer.class, idRepuesto)).isEqualTo(2);
+		try (Stream<Path> restantes = Files.list(carpeta)) {
+			assertThat(restantes).isEmpty();
+		}
+	}
+
+	private LibroMovimientosService.Movimiento movimiento(long xid, String referencia) {
+		return new LibroMovimientosService.Movimiento(UUID.randomUUID(), xid, idRepuesto, "SALIDA", 1, 10, 9,
+				referencia, idUsuario, LocalDateTime.now().withNano(0));
+	}
+
+	private boolean insertado(LibroMovimientosService.Movimiento movimiento) {
+		UUID idDiario = UUID.fromString(movimiento.aLinea().substring(0, 36));
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM repuesto_movimientos WHERE id_diario = ?",
+				Integer.class, idDiario) > 0;
+	}
+}
@@ -0,0 +1,112 @@
+package com.tallermoto.service;
+
+import com.tallermoto.dto.ReservaStockDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Confirmación, liberación y consumo de reservas contra el esquema real (database/schema.sql)
+ * Cada prueba corre en una transacción que se revierte al terminar; la confirmación programada
+ * se espacia para que solo la ejecuten las pruebas
+ */
+@SpringBootTest(properties = {
+		"app.reservas.confirmacion-ms=3600000",
+		"app.reservas.vencimiento-ms=3600000",
+		"app.libro.directorio=target/libro-movimientos-test"
+})
+@Transactional
+class ReservaStockServiceTest {
+
+	@Autowired
+	private ReservaStockService reservaStockService;
+
+	@Autowired
+	private RepuestoService repuestoService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long idRepuesto;
+	private Long idOrden;
+
+	@BeforeEach
+	void crearDatos() {
+		String sufijo = UUID.randomUUID().toString().substring(0, 8);
+		Long idUsuario = jdbcTemplate.queryForObject(
+				"INSERT INTO usuarios (username, email, password_hash, nombre_completo, rol) " +
+				"VALUES (?, ?, 'x', 'Prueba reservas', 'ADMIN') RETURNING id_usuario",
+				Long.class, "reservas-" + sufijo, "reservas-" + sufijo + "@prueba.local");
+		Long idCliente = jdbcTemplate.queryForObject(
+				"INSERT INTO clientes (nombre, telefono) VALUES ('Cliente prueba', '999999999') RETURNING id_cliente",
+				Long.class);
+		Long idMoto = jdbcTemplate.queryForObject(
+				"INSERT INTO motos (id_cliente, marca, modelo, placa) VALUES (?, 'Marca', 'Modelo', ?) RETURNING id_moto",
+				Long.class, idCliente, "T-" + sufijo);
+		idOrden = jdbcTemplate.queryForObject(
+				"INSERT INTO ordenes_trabajo (numero_orden, id_moto, id_usuario_creador, descripcion_problema) " +
+				"VALUES (?, ?, ?, 'Prueba de reservas') RETURNING id_orden",
+				Long.class, "TST-" + sufijo, idMoto, idUsuario);
+		idRepuesto = jdbcTemplate.queryForObject(
+				"INSERT INTO repuestos (codigo, nombre, stock_actual, precio_unitario) " +
+				"VALUES (?, 'Repuesto prueba', 10, 25.00) RETURNING id_repuesto",
+				Long.class, "TST-" + sufijo);
+	}
+
+	@Test
+	void confirmaYLiberaPorLotes() {
+		ReservaStockDTO primera = reservaStockService.reservar(idRepuesto, 3, idOrden);
+		ReservaStockDTO segunda = reservaStockService.reservar(idRepuesto, 2, idOrden);
+
+		reservaStockService.procesarPendientes();
+
+		assertThat(stockActual()).isEqualTo(5);
+		assertThat(reservaStockService.obtenerReservasDeOrden(idOrden))
+				.extracting(ReservaStockDTO::getEstado)
+				.containsOnly(ReservaStockService.CONFIRMADA);
+		assertThat(reservaStockService.obtenerDisponibilidad(idRepuesto).getSinConfirmar()).isZero();
+
+		reservaStockService.liberar(primera.getIdReserva());
+		reservaStockService.procesarPendientes();
+
+		assertThat(stockActual()).isEqualTo(8);
+		assertThat(reservaStockService.obtenerReservasDeOrden(idOrden))
+				.extracting(ReservaStockDTO::getIdReserva)
+				.containsExactly(segunda.getIdReserva());
+	}
+
+	@Test
+	void consumeUnaReservaSinConfirmar() {
+		ReservaStockDTO reserva = reservaStockService.reservar(idRepuesto, 4, idOrden);
+
+		ReservaStockDTO consumida = reservaStockService.consumir(reserva.getIdReserva());
+
+		assertThat(consumida.getEstado()).isEqualTo(ReservaStockService.CONSUMIDA);
+		assertThat(stockActual()).isEqualTo(6);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT cantidad FROM uso_repuesto WHERE id_uso = ? AND id_reserva = ?",
+				Integer.class, consumida.getIdUso(), reserva.getIdReserva())).isEqualTo(4);
+	}
+
+	@Test
+	void unaSalidaDirectaNoTomaLoReservado() {
+		reservaStockService.reservar(idRepuesto, 8, idOrden);
+
+		assertThatThrownBy(() -> repuestoService.descontarStock(idRepuesto, 5, "Salida de prueba"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("reservadas");
+	}
+
+	private int stockActual() {
+		return jdbcTemplate.queryForObject("SELECT stock_actual FROM repuestos WHERE id_repuesto = ?",
+				Integer.class, idRepuesto);
+	}
+}
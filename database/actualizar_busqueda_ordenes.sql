@@ -0,0 +1,27 @@
+-- =====================================================
+-- MIGRACIÓN: Búsqueda de texto completo y por fragmentos
+-- Propósito: agregar a una base existente la columna busqueda_tsv y los índices GIN que usa la
+--            búsqueda de órdenes (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos; agregar busqueda_tsv reescribe ordenes_trabajo,
+--             ejecutar con la aplicación detenida
+-- =====================================================
+
+BEGIN;
+
+-- Búsqueda por fragmentos (trigramas)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Documento de búsqueda de texto completo (no mapeado en JPA, lo mantiene PostgreSQL)
+ALTER TABLE ordenes_trabajo ADD COLUMN IF NOT EXISTS busqueda_tsv TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', COALESCE(numero_orden, '')), 'A') ||
+    setweight(to_tsvector('spanish', COALESCE(descripcion_problema, '')), 'B') ||
+    setweight(to_tsvector('spanish', COALESCE(diagnostico, '')), 'B') ||
+    setweight(to_tsvector('spanish', COALESCE(observaciones, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_clientes_nombre_trgm ON clientes USING GIN (nombre gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_motos_placa_trgm ON motos USING GIN (placa gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_ordenes_busqueda_tsv ON ordenes_trabajo USING GIN (busqueda_tsv);
+CREATE INDEX IF NOT EXISTS idx_ordenes_numero_trgm ON ordenes_trabajo USING GIN (numero_orden gin_trgm_ops);
+
+COMMIT;
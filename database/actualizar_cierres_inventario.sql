@@ -0,0 +1,24 @@
+-- =====================================================
+-- MIGRACIÓN: Cierres de inventario por día
+-- Propósito: agregar a una base existente la tabla repuesto_cierres y los índices con los que se calcula
+--            el stock a una fecha (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos; los cierres se generan al arrancar la aplicación
+-- =====================================================
+
+BEGIN;
+
+-- Misma definición que schema.sql
+CREATE TABLE IF NOT EXISTS repuesto_cierres (
+    id_repuesto BIGINT NOT NULL REFERENCES repuestos(id_repuesto) ON DELETE CASCADE,
+    fecha_cierre DATE NOT NULL,
+    stock INTEGER NOT NULL,
+    precio_unitario DECIMAL(10,2) NOT NULL,
+    valor DECIMAL(12,2) GENERATED ALWAYS AS (stock * precio_unitario) STORED,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id_repuesto, fecha_cierre)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cierres_fecha ON repuesto_cierres(fecha_cierre);
+CREATE INDEX IF NOT EXISTS idx_movimientos_repuesto_fecha ON repuesto_movimientos(id_repuesto, fecha_movimiento);
+
+COMMIT;
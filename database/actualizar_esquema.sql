@@ -0,0 +1,45 @@
+-- =====================================================
+-- MIGRACIÓN: Secuencia de números de orden y columna version de ordenes_trabajo
+-- Propósito: agregar a una base existente la secuencia que reparte NumeroOrdenService y la columna
+--            del control optimista de órdenes (las instalaciones nuevas ya las crean desde schema.sql)
+-- Requisitos: la aplicación detenida mientras se ejecuta; se puede volver a ejecutar sin efectos.
+--             Cada funcionalidad posterior trae su propio script actualizar_*.sql
+-- =====================================================
+
+BEGIN;
+
+-- -----------------------------------------------------
+-- NÚMEROS DE ORDEN (NumeroOrdenService)
+-- -----------------------------------------------------
+
+-- Misma definición que schema.sql: la API reserva bloques de 50 (INCREMENT BY)
+CREATE SEQUENCE IF NOT EXISTS seq_numero_orden START WITH 1 INCREMENT BY 50;
+
+-- La secuencia continúa tras el mayor número ORD-NNNNNN existente, así no repite números ya usados
+SELECT setval('seq_numero_orden',
+              COALESCE(MAX(CAST(SUBSTRING(numero_orden FROM 5) AS BIGINT)), 0) + 1, false)
+FROM ordenes_trabajo
+WHERE numero_orden ~ '^ORD-[0-9]+$';
+
+-- El trigger de inserciones fuera de la API usa la misma secuencia
+CREATE OR REPLACE FUNCTION generar_numero_orden()
+RETURNS TRIGGER AS $$
+DECLARE
+    next_number BIGINT;
+BEGIN
+    IF NEW.numero_orden IS NULL OR NEW.numero_orden = '' THEN
+        next_number := nextval('seq_numero_orden');
+        NEW.numero_orden := 'ORD-' || LPAD(next_number::TEXT, GREATEST(6, LENGTH(next_number::TEXT)), '0');
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- -----------------------------------------------------
+-- CONTROL DE VERSIÓN DE ÓRDENES (OrdenTransicionService)
+-- -----------------------------------------------------
+
+-- Control optimista de concurrencia de las órdenes (@Version en OrdenTrabajo)
+ALTER TABLE ordenes_trabajo ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMIT;
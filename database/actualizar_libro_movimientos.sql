@@ -0,0 +1,17 @@
+-- =====================================================
+-- MIGRACIÓN: Libro de movimientos con escritura diferida
+-- Propósito: agregar a una base existente la columna repuesto_movimientos.id_diario y el índice único
+--            con el que se descartan los movimientos ya insertados al reprocesar el diario
+--            (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos
+-- =====================================================
+
+BEGIN;
+
+-- Identificador del movimiento en el diario del libro de movimientos (lo lee particionar_historicos.sql)
+ALTER TABLE repuesto_movimientos ADD COLUMN IF NOT EXISTS id_diario UUID;
+
+-- Incluye fecha_movimiento igual que en schema.sql: es el destino del ON CONFLICT de LibroMovimientosService
+CREATE UNIQUE INDEX IF NOT EXISTS idx_movimientos_diario ON repuesto_movimientos(id_diario, fecha_movimiento);
+
+COMMIT;
@@ -0,0 +1,24 @@
+-- =====================================================
+-- MIGRACIÓN: Índices de la paginación por cursor de órdenes
+-- Propósito: crear en una base existente los índices (fecha_ingreso DESC, id_orden DESC) que recorre
+--            la paginación por cursor (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos
+-- =====================================================
+
+BEGIN;
+
+-- Antes era solo (fecha_ingreso): se recrea como índice compuesto si todavía tiene la definición anterior
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_indexes
+                   WHERE indexname = 'idx_ordenes_fecha_ingreso'
+                     AND indexdef LIKE '%(fecha_ingreso DESC, id_orden DESC)%') THEN
+        DROP INDEX IF EXISTS idx_ordenes_fecha_ingreso;
+        CREATE INDEX idx_ordenes_fecha_ingreso ON ordenes_trabajo(fecha_ingreso DESC, id_orden DESC);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_ordenes_estado_fecha ON ordenes_trabajo(estado, fecha_ingreso DESC, id_orden DESC);
+CREATE INDEX IF NOT EXISTS idx_ordenes_mecanico_fecha ON ordenes_trabajo(id_mecanico_asignado, fecha_ingreso DESC, id_orden DESC);
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- =====================================================
+-- MIGRACIÓN: Pronóstico de consumo
+-- Propósito: agregar a una base existente la tabla repuesto_consumo con la tasa de consumo suavizada
+--            de cada repuesto (las instalaciones nuevas ya la crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos; la tabla empieza vacía y se llena con los movimientos
+-- =====================================================
+
+BEGIN;
+
+-- Misma definición que schema.sql
+CREATE TABLE IF NOT EXISTS repuesto_consumo (
+    id_repuesto BIGINT PRIMARY KEY REFERENCES repuestos(id_repuesto) ON DELETE CASCADE,
+    dia_actual DATE NOT NULL,
+    consumo_dia INTEGER NOT NULL DEFAULT 0,
+    tasa DOUBLE PRECISION NOT NULL DEFAULT 0,
+    varianza DOUBLE PRECISION NOT NULL DEFAULT 0,
+    dias_observados INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- =====================================================
+-- MIGRACIÓN: Reservas de stock
+-- Propósito: agregar a una base existente la columna uso_repuesto.id_reserva y su índice, con los que
+--            se recuperan las reservas al arrancar (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos
+-- =====================================================
+
+BEGIN;
+
+-- Uso que consumió una reserva de stock
+ALTER TABLE uso_repuesto ADD COLUMN IF NOT EXISTS id_reserva BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_uso_reserva ON uso_repuesto(id_reserva) WHERE id_reserva IS NOT NULL;
+
+COMMIT;
@@ -0,0 +1,53 @@
+-- =====================================================
+-- MIGRACIÓN: Sincronización incremental
+-- Propósito: agregar a una base existente la marca de agua de pagos, la tabla registros_eliminados,
+--            sus triggers y los índices por updated_at (las instalaciones nuevas ya los crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos
+-- =====================================================
+
+BEGIN;
+
+-- Marca de agua de la sincronización incremental de pagos
+ALTER TABLE pagos ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+UPDATE pagos SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+
+-- Misma definición que schema.sql
+CREATE TABLE IF NOT EXISTS registros_eliminados (
+    id_registro_eliminado BIGSERIAL PRIMARY KEY,
+    entidad VARCHAR(30) NOT NULL,
+    id_registro BIGINT NOT NULL,
+    eliminado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_eliminados_fecha ON registros_eliminados(eliminado_en);
+CREATE INDEX IF NOT EXISTS idx_pagos_updated_at ON pagos(updated_at);
+CREATE INDEX IF NOT EXISTS idx_clientes_updated_at ON clientes(updated_at);
+CREATE INDEX IF NOT EXISTS idx_motos_updated_at ON motos(updated_at);
+CREATE INDEX IF NOT EXISTS idx_repuestos_updated_at ON repuestos(updated_at);
+CREATE INDEX IF NOT EXISTS idx_ordenes_updated_at ON ordenes_trabajo(updated_at);
+
+-- Registro de borrados físicos
+CREATE OR REPLACE FUNCTION registrar_eliminacion()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO registros_eliminados (entidad, id_registro)
+    VALUES (TG_ARGV[0], (to_jsonb(OLD) ->> TG_ARGV[1])::BIGINT);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS update_pagos_updated_at ON pagos;
+CREATE TRIGGER update_pagos_updated_at BEFORE UPDATE ON pagos FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS registrar_eliminacion_clientes ON clientes;
+DROP TRIGGER IF EXISTS registrar_eliminacion_motos ON motos;
+DROP TRIGGER IF EXISTS registrar_eliminacion_repuestos ON repuestos;
+DROP TRIGGER IF EXISTS registrar_eliminacion_ordenes ON ordenes_trabajo;
+DROP TRIGGER IF EXISTS registrar_eliminacion_pagos ON pagos;
+CREATE TRIGGER registrar_eliminacion_clientes AFTER DELETE ON clientes FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('CLIENTE', 'id_cliente');
+CREATE TRIGGER registrar_eliminacion_motos AFTER DELETE ON motos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('MOTO', 'id_moto');
+CREATE TRIGGER registrar_eliminacion_repuestos AFTER DELETE ON repuestos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('REPUESTO', 'id_repuesto');
+CREATE TRIGGER registrar_eliminacion_ordenes AFTER DELETE ON ordenes_trabajo FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('ORDEN', 'id_orden');
+CREATE TRIGGER registrar_eliminacion_pagos AFTER DELETE ON pagos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('PAGO', 'id_pago');
+
+COMMIT;
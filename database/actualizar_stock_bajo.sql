@@ -0,0 +1,12 @@
+-- =====================================================
+-- MIGRACIÓN: Índice parcial de stock bajo
+-- Propósito: crear en una base existente el índice con el que se consultan las alertas de stock bajo
+--            (las instalaciones nuevas ya lo crean desde schema.sql)
+-- Requisitos: se puede volver a ejecutar sin efectos
+-- =====================================================
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS idx_repuestos_stock_bajo ON repuestos(categoria, nombre) WHERE activo AND stock_actual <= stock_minimo;
+
+COMMIT;
@@ -0,0 +1,154 @@
+-- =====================================================
+-- MIGRACIÓN: Particionar repuesto_movimientos y orden_historial por mes
+-- Propósito: convertir las tablas de una base existente a particiones mensuales
+--            (las instalaciones nuevas ya las crean así desde schema.sql)
+-- Requisitos: ejecutar antes actualizar_libro_movimientos.sql (columna id_diario)
+--             y la aplicación detenida mientras se ejecuta
+-- =====================================================
+
+BEGIN;
+
+-- Las filas sin fecha no tienen partición: revisar antes de migrar
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM repuesto_movimientos WHERE fecha_movimiento IS NULL) THEN
+        RAISE EXCEPTION 'Hay movimientos sin fecha_movimiento: asignarles fecha antes de migrar';
+    END IF;
+    IF EXISTS (SELECT 1 FROM orden_historial WHERE fecha_cambio IS NULL) THEN
+        RAISE EXCEPTION 'Hay registros de historial sin fecha_cambio: asignarles fecha antes de migrar';
+    END IF;
+END $$;
+
+-- -----------------------------------------------------
+-- PARTICIÓN MENSUAL
+-- -----------------------------------------------------
+
+-- Misma definición que schema.sql; ParticionesService la usa después para crear los meses siguientes
+CREATE OR REPLACE FUNCTION crear_particion_mensual(tabla TEXT, mes DATE)
+RETURNS TEXT AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fin DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nombre TEXT := tabla || '_' || to_char(mes, 'YYYY_MM');
+    columna TEXT;
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN nombre;
+    END IF;
+
+    SELECT a.attname INTO columna
+    FROM pg_partitioned_table p
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = tabla::regclass;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nombre, tabla);
+    IF to_regclass(tabla || '_default') IS NOT NULL THEN
+        EXECUTE format('WITH movidas AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ' ||
+                       'INSERT INTO %I SELECT * FROM movidas',
+                       tabla || '_default', columna, inicio, columna, fin, nombre);
+    END IF;
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', tabla, nombre, inicio, fin);
+    RETURN nombre;
+END;
+$$ LANGUAGE plpgsql;
+
+-- -----------------------------------------------------
+-- REPUESTO_MOVIMIENTOS
+-- -----------------------------------------------------
+
+-- Liberar los nombres de la clave primaria y los índices (son únicos en el esquema)
+ALTER TABLE repuesto_movimientos RENAME TO repuesto_movimientos_anterior;
+ALTER TABLE repuesto_movimientos_anterior RENAME CONSTRAINT repuesto_movimientos_pkey TO repuesto_movimientos_anterior_pkey;
+DROP INDEX IF EXISTS idx_movimientos_repuesto;
+DROP INDEX IF EXISTS idx_movimientos_diario;
+DROP INDEX IF EXISTS idx_movimientos_fecha;
+DROP INDEX IF EXISTS idx_movimientos_tipo;
+DROP INDEX IF EXISTS idx_movimientos_usuario;
+DROP INDEX IF EXISTS idx_movimientos_repuesto_fecha;
+
+-- Misma definición que schema.sql; la secuencia existente se conserva
+CREATE TABLE repuesto_movimientos (
+    id_movimiento BIGINT NOT NULL DEFAULT nextval('repuesto_movimientos_id_movimiento_seq'),
+    id_repuesto BIGINT NOT NULL REFERENCES repuestos(id_repuesto),
+    tipo_movimiento VARCHAR(20) NOT NULL CHECK (tipo_movimiento IN ('ENTRADA','SALIDA','AJUSTE')),
+    cantidad INTEGER NOT NULL,
+    stock_anterior INTEGER NOT NULL CHECK (stock_anterior >= 0),
+    stock_nuevo INTEGER NOT NULL CHECK (stock_nuevo >= 0),
+    referencia VARCHAR(100),
+    usuario_movimiento BIGINT NOT NULL REFERENCES usuarios(id_usuario),
+    fecha_movimiento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    id_diario UUID,
+    PRIMARY KEY (id_movimiento, fecha_movimiento)
+) PARTITION BY RANGE (fecha_movimiento);
+
+CREATE TABLE repuesto_movimientos_default PARTITION OF repuesto_movimientos DEFAULT;
+
+CREATE INDEX idx_movimientos_repuesto ON repuesto_movimientos(id_repuesto);
+CREATE UNIQUE INDEX idx_movimientos_diario ON repuesto_movimientos(id_diario, fecha_movimiento);
+CREATE INDEX idx_movimientos_fecha ON repuesto_movimientos(fecha_movimiento);
+CREATE INDEX idx_movimientos_tipo ON repuesto_movimientos(tipo_movimiento);
+CREATE INDEX idx_movimientos_usuario ON repuesto_movimientos(usuario_movimiento);
+CREATE INDEX idx_movimientos_repuesto_fecha ON repuesto_movimientos(id_repuesto, fecha_movimiento);
+
+-- Una partición por cada mes con datos y hasta tres meses adelante
+SELECT crear_particion_mensual('repuesto_movimientos', mes::DATE)
+FROM generate_series(
+    date_trunc('month', COALESCE((SELECT MIN(fecha_movimiento) FROM repuesto_movimientos_anterior), CURRENT_DATE)),
+    date_trunc('month', CURRENT_DATE) + INTERVAL '3 months',
+    INTERVAL '1 month') AS mes;
+
+INSERT INTO repuesto_movimientos (id_movimiento, id_repuesto, tipo_movimiento, cantidad, stock_anterior, stock_nuevo,
+                                  referencia, usuario_movimiento, fecha_movimiento, id_diario)
+SELECT id_movimiento, id_repuesto, tipo_movimiento, cantidad, stock_anterior, stock_nuevo,
+       referencia, usuario_movimiento, fecha_movimiento, id_diario
+FROM repuesto_movimientos_anterior;
+
+ALTER SEQUENCE repuesto_movimientos_id_movimiento_seq OWNED BY repuesto_movimientos.id_movimiento;
+DROP TABLE repuesto_movimientos_anterior;
+
+-- -----------------------------------------------------
+-- ORDEN_HISTORIAL
+-- -----------------------------------------------------
+
+ALTER TABLE orden_historial RENAME TO orden_historial_anterior;
+ALTER TABLE orden_historial_anterior RENAME CONSTRAINT orden_historial_pkey TO orden_historial_anterior_pkey;
+DROP INDEX IF EXISTS idx_historial_orden;
+DROP INDEX IF EXISTS idx_historial_fecha;
+DROP INDEX IF EXISTS idx_historial_usuario;
+
+CREATE TABLE orden_historial (
+    id_historial BIGINT NOT NULL DEFAULT nextval('orden_historial_id_historial_seq'),
+    id_orden BIGINT NOT NULL REFERENCES ordenes_trabajo(id_orden) ON DELETE CASCADE,
+    estado_anterior VARCHAR(20),
+    estado_nuevo VARCHAR(20) NOT NULL,
+    comentario TEXT,
+    usuario_cambio BIGINT NOT NULL REFERENCES usuarios(id_usuario),
+    fecha_cambio TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id_historial, fecha_cambio)
+) PARTITION BY RANGE (fecha_cambio);
+
+CREATE TABLE orden_historial_default PARTITION OF orden_historial DEFAULT;
+
+CREATE INDEX idx_historial_orden ON orden_historial(id_orden);
+CREATE INDEX idx_historial_fecha ON orden_historial(fecha_cambio);
+CREATE INDEX idx_historial_usuario ON orden_historial(usuario_cambio);
+
+SELECT crear_particion_mensual('orden_historial', mes::DATE)
+FROM generate_series(
+    date_trunc('month', COALESCE((SELECT MIN(fecha_cambio) FROM orden_historial_anterior), CURRENT_DATE)),
+    date_trunc('month', CURRENT_DATE) + INTERVAL '3 months',
+    INTERVAL '1 month') AS mes;
+
+INSERT INTO orden_historial (id_historial, id_orden, estado_anterior, estado_nuevo, comentario, usuario_cambio,
+                             fecha_cambio)
+SELECT id_historial, id_orden, estado_anterior, estado_nuevo, comentario, usuario_cambio, fecha_cambio
+FROM orden_historial_anterior;
+
+ALTER SEQUENCE orden_historial_id_historial_seq OWNED BY orden_historial.id_historial;
+DROP TABLE orden_historial_anterior;
+
+COMMIT;
+
+-- Estadísticas para el planificador (fuera de la transacción)
+ANALYZE repuesto_movimientos;
+ANALYZE orden_historial;
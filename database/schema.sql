@@ -8,7 +8,13 @@
 -- Configuración inicial PostgreSQL
 SET timezone = 'America/Lima';
 
+-- Extensión para búsqueda por fragmentos (trigramas)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- Limpiar todo si existe
+DROP TABLE IF EXISTS repuesto_consumo CASCADE;
+DROP TABLE IF EXISTS repuesto_cierres CASCADE;
+DROP TABLE IF EXISTS registros_eliminados CASCADE;
 DROP TABLE IF EXISTS repuesto_movimientos CASCADE;
 DROP TABLE IF EXISTS orden_historial CASCADE;
 DROP TABLE IF EXISTS pagos CASCADE;
@@ -21,6 +27,7 @@ DROP TABLE IF EXISTS servicios CASCADE;
 DROP TABLE IF EXISTS motos CASCADE;
 DROP TABLE IF EXISTS clientes CASCADE;
 DROP TABLE IF EXISTS usuarios CASCADE;
+DROP SEQUENCE IF EXISTS seq_numero_orden;
 
 -- =====================================================
 -- TABLA 1: USUARIOS (Seguridad Enterprise)
@@ -62,6 +69,7 @@ CREATE INDEX idx_clientes_telefono ON clientes(telefono);
 CREATE INDEX idx_clientes_email ON clientes(email);
 CREATE INDEX idx_clientes_dni ON clientes(dni);
 CREATE INDEX idx_clientes_activo ON clientes(activo);
+CREATE INDEX idx_clientes_nombre_trgm ON clientes USING GIN (nombre gin_trgm_ops);
 
 -- =====================================================
 -- TABLA 3: MOTOS (Información Técnica)
@@ -85,6 +93,7 @@ CREATE UNIQUE INDEX idx_motos_placa ON motos(placa);
 CREATE INDEX idx_motos_cliente ON motos(id_cliente);
 CREATE INDEX idx_motos_marca_modelo ON motos(marca, modelo);
 CREATE INDEX idx_motos_activo ON motos(activo);
+CREATE INDEX idx_motos_placa_trgm ON motos USING GIN (placa gin_trgm_ops);
 
 -- =====================================================
 -- TABLA 4: SERVICIOS (Catálogo Enterprise)
@@ -127,6 +136,8 @@ CREATE TABLE repuestos (
 CREATE UNIQUE INDEX idx_repuestos_codigo ON repuestos(codigo);
 CREATE INDEX idx_repuestos_categoria ON repuestos(categoria);
 CREATE INDEX idx_repuestos_activo ON repuestos(activo);
+-- Índice parcial del conjunto de stock bajo: solo contiene los repuestos activos en o bajo el mínimo; en una base existente: actualizar_stock_bajo.sql
+CREATE INDEX idx_repuestos_stock_bajo ON repuestos(categoria, nombre) WHERE activo AND stock_actual <= stock_minimo;
 
 -- =====================================================
 -- TABLA 6: CONFIGURACIONES (Sistema Dinámico)
@@ -163,13 +174,28 @@ CREATE TABLE ordenes_trabajo (
     estado_pago VARCHAR(20) DEFAULT 'PENDIENTE' 
                 CHECK (estado_pago IN ('PENDIENTE','PARCIAL','COMPLETO')),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Versión para control optimista de concurrencia (se incrementa en cada cambio); en una base existente: actualizar_esquema.sql
+    version BIGINT NOT NULL DEFAULT 0,
+    -- Documento de búsqueda de texto completo (no mapeado en JPA, lo mantiene PostgreSQL)
+    busqueda_tsv TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(numero_orden, '')), 'A') ||
+        setweight(to_tsvector('spanish', COALESCE(descripcion_problema, '')), 'B') ||
+        setweight(to_tsvector('spanish', COALESCE(diagnostico, '')), 'B') ||
+        setweight(to_tsvector('spanish', COALESCE(observaciones, '')), 'C')
+    ) STORED
 );
 
 CREATE UNIQUE INDEX idx_ordenes_numero ON ordenes_trabajo(numero_orden);
+-- Índices de búsqueda: texto completo (GIN) y fragmentos de número de orden (trigramas); en una base existente: actualizar_busqueda_ordenes.sql
+CREATE INDEX idx_ordenes_busqueda_tsv ON ordenes_trabajo USING GIN (busqueda_tsv);
+CREATE INDEX idx_ordenes_numero_trgm ON ordenes_trabajo USING GIN (numero_orden gin_trgm_ops);
 CREATE INDEX idx_ordenes_estado ON ordenes_trabajo(estado);
 CREATE INDEX idx_ordenes_mecanico ON ordenes_trabajo(id_mecanico_asignado);
-CREATE INDEX idx_ordenes_fecha_ingreso ON ordenes_trabajo(fecha_ingreso);
+-- Índice compuesto para paginación por cursor (fecha_ingreso, id_orden); en una base existente: actualizar_paginacion_ordenes.sql
+CREATE INDEX idx_ordenes_fecha_ingreso ON ordenes_trabajo(fecha_ingreso DESC, id_orden DESC);
+CREATE INDEX idx_ordenes_estado_fecha ON ordenes_trabajo(estado, fecha_ingreso DESC, id_orden DESC);
+CREATE INDEX idx_ordenes_mecanico_fecha ON ordenes_trabajo(id_mecanico_asignado, fecha_ingreso DESC, id_orden DESC);
 CREATE INDEX idx_ordenes_prioridad ON ordenes_trabajo(prioridad);
 CREATE INDEX idx_ordenes_moto ON ordenes_trabajo(id_moto);
 CREATE INDEX idx_ordenes_estado_pago ON ordenes_trabajo(estado_pago);
@@ -201,10 +227,13 @@ CREATE TABLE uso_repuesto (
     cantidad INTEGER NOT NULL CHECK (cantidad > 0),
     precio_unitario DECIMAL(10,2) NOT NULL CHECK (precio_unitario >= 0),
     subtotal DECIMAL(10,2) GENERATED ALWAYS AS (cantidad * precio_unitario) STORED,
+    id_reserva BIGINT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 CREATE INDEX idx_uso_orden ON uso_repuesto(id_orden);
+-- Usos que consumieron una reserva de stock (recuperación de reservas al arrancar); en una base existente: actualizar_reservas_stock.sql
+CREATE INDEX idx_uso_reserva ON uso_repuesto(id_reserva) WHERE id_reserva IS NOT NULL;
 CREATE INDEX idx_uso_repuesto ON uso_repuesto(id_repuesto);
 CREATE INDEX idx_uso_subtotal ON uso_repuesto(subtotal);
 
@@ -219,25 +248,33 @@ CREATE TABLE pagos (
     metodo VARCHAR(20) NOT NULL CHECK (metodo IN ('EFECTIVO','TARJETA','TRANSFERENCIA','YAPE','PLIN')),
     referencia VARCHAR(100),
     observaciones TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 CREATE INDEX idx_pagos_orden ON pagos(id_orden);
 CREATE INDEX idx_pagos_fecha ON pagos(fecha_pago);
 CREATE INDEX idx_pagos_metodo ON pagos(metodo);
+CREATE INDEX idx_pagos_updated_at ON pagos(updated_at);
 
 -- =====================================================
 -- TABLA 11: ORDEN_HISTORIAL (Auditoría Eficiente)
+-- Particionada por mes sobre fecha_cambio (ver crear_particion_mensual y ParticionesService)
 -- =====================================================
 CREATE TABLE orden_historial (
-    id_historial BIGSERIAL PRIMARY KEY,
+    id_historial BIGSERIAL,
     id_orden BIGINT NOT NULL REFERENCES ordenes_trabajo(id_orden) ON DELETE CASCADE,
     estado_anterior VARCHAR(20),
     estado_nuevo VARCHAR(20) NOT NULL,
     comentario TEXT,
     usuario_cambio BIGINT NOT NULL REFERENCES usuarios(id_usuario),
-    fecha_cambio TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+    fecha_cambio TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- La clave de partición debe formar parte de la clave primaria
+    PRIMARY KEY (id_historial, fecha_cambio)
+) PARTITION BY RANGE (fecha_cambio);
+
+-- Recibe las filas de meses sin partición (no debería usarse: las particiones se crean por adelantado)
+CREATE TABLE orden_historial_default PARTITION OF orden_historial DEFAULT;
 
 CREATE INDEX idx_historial_orden ON orden_historial(id_orden);
 CREATE INDEX idx_historial_fecha ON orden_historial(fecha_cambio);
@@ -245,9 +282,10 @@ CREATE INDEX idx_historial_usuario ON orden_historial(usuario_cambio);
 
 -- =====================================================
 -- TABLA 12: REPUESTO_MOVIMIENTOS (Control de Inventario)
+-- Particionada por mes sobre fecha_movimiento (ver crear_particion_mensual y ParticionesService)
 -- =====================================================
 CREATE TABLE repuesto_movimientos (
-    id_movimiento BIGSERIAL PRIMARY KEY,
+    id_movimiento BIGSERIAL,
     id_repuesto BIGINT NOT NULL REFERENCES repuestos(id_repuesto),
     tipo_movimiento VARCHAR(20) NOT NULL CHECK (tipo_movimiento IN ('ENTRADA','SALIDA','AJUSTE')),
     cantidad INTEGER NOT NULL,
@@ -255,13 +293,77 @@ CREATE TABLE repuesto_movimientos (
     stock_nuevo INTEGER NOT NULL CHECK (stock_nuevo >= 0),
     referencia VARCHAR(100),
     usuario_movimiento BIGINT NOT NULL REFERENCES usuarios(id_usuario),
-    fecha_movimiento TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+    fecha_movimiento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Identificador del movimiento en el diario local del libro de movimientos (escritura diferida); en una base existente: actualizar_libro_movimientos.sql
+    id_diario UUID,
+    PRIMARY KEY (id_movimiento, fecha_movimiento)
+) PARTITION BY RANGE (fecha_movimiento);
+
+CREATE TABLE repuesto_movimientos_default PARTITION OF repuesto_movimientos DEFAULT;
 
 CREATE INDEX idx_movimientos_repuesto ON repuesto_movimientos(id_repuesto);
+-- Evita duplicados al reintentar lotes o reprocesar el diario tras un reinicio
+-- (incluye la clave de partición; el diario conserva la fecha original de cada movimiento)
+CREATE UNIQUE INDEX idx_movimientos_diario ON repuesto_movimientos(id_diario, fecha_movimiento);
 CREATE INDEX idx_movimientos_fecha ON repuesto_movimientos(fecha_movimiento);
 CREATE INDEX idx_movimientos_tipo ON repuesto_movimientos(tipo_movimiento);
 CREATE INDEX idx_movimientos_usuario ON repuesto_movimientos(usuario_movimiento);
+-- Movimientos de un repuesto posteriores a un cierre (consultas de stock a una fecha)
+CREATE INDEX idx_movimientos_repuesto_fecha ON repuesto_movimientos(id_repuesto, fecha_movimiento);
+
+-- =====================================================
+-- TABLA 13: REGISTROS_ELIMINADOS (Sincronización Incremental)
+-- =====================================================
+-- Marcas de borrado físico para que los clientes sincronizados quiten los registros de su réplica.
+-- Se llena por trigger y se purga según app.sincronizacion.retencion-dias; en una base existente: actualizar_sincronizacion.sql
+CREATE TABLE registros_eliminados (
+    id_registro_eliminado BIGSERIAL PRIMARY KEY,
+    entidad VARCHAR(30) NOT NULL,
+    id_registro BIGINT NOT NULL,
+    eliminado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_eliminados_fecha ON registros_eliminados(eliminado_en);
+
+-- Índices para consultar cambios desde una marca de agua
+CREATE INDEX idx_clientes_updated_at ON clientes(updated_at);
+CREATE INDEX idx_motos_updated_at ON motos(updated_at);
+CREATE INDEX idx_repuestos_updated_at ON repuestos(updated_at);
+CREATE INDEX idx_ordenes_updated_at ON ordenes_trabajo(updated_at);
+
+-- =====================================================
+-- TABLA 14: REPUESTO_CIERRES (Saldos de Inventario por Día)
+-- =====================================================
+-- Saldo de cada repuesto al final del día (fecha_cierre) y su precio en ese momento.
+-- El stock a una fecha se obtiene del cierre más cercano más los movimientos posteriores.
+-- Los cierres diarios se purgan según app.cierres.retencion-dias; los de fin de mes se conservan; en una base existente: actualizar_cierres_inventario.sql
+CREATE TABLE repuesto_cierres (
+    id_repuesto BIGINT NOT NULL REFERENCES repuestos(id_repuesto) ON DELETE CASCADE,
+    fecha_cierre DATE NOT NULL,
+    stock INTEGER NOT NULL,
+    precio_unitario DECIMAL(10,2) NOT NULL,
+    valor DECIMAL(12,2) GENERATED ALWAYS AS (stock * precio_unitario) STORED,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id_repuesto, fecha_cierre)
+);
+
+CREATE INDEX idx_cierres_fecha ON repuesto_cierres(fecha_cierre);
+
+-- =====================================================
+-- TABLA 15: REPUESTO_CONSUMO (Pronóstico de Consumo)
+-- =====================================================
+-- Tasa de consumo diaria suavizada (suavizado exponencial por día) de cada repuesto.
+-- consumo_dia acumula el consumo neto del día en curso (dia_actual); al pasar a otro día se incorpora
+-- a tasa y varianza. Se actualiza con cada movimiento, sin recorrer repuesto_movimientos; en una base existente: actualizar_pronostico_consumo.sql
+CREATE TABLE repuesto_consumo (
+    id_repuesto BIGINT PRIMARY KEY REFERENCES repuestos(id_repuesto) ON DELETE CASCADE,
+    dia_actual DATE NOT NULL,
+    consumo_dia INTEGER NOT NULL DEFAULT 0,
+    tasa DOUBLE PRECISION NOT NULL DEFAULT 0,
+    varianza DOUBLE PRECISION NOT NULL DEFAULT 0,
+    dias_observados INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
 
 -- =====================================================
 -- DATOS INICIALES
@@ -381,19 +483,21 @@ GROUP BY o.id_orden, o.numero_orden, o.total_servicios, o.total_repuestos, o.tot
 -- FUNCIONES Y TRIGGERS
 -- =====================================================
 
--- Función para generar número de orden automáticamente
+-- Secuencia de números de orden. La API reserva bloques de 50 (INCREMENT BY)
+-- y los reparte en memoria (NumeroOrdenService). En una base existente la crea actualizar_esquema.sql
+-- a continuación del mayor número ya usado
+CREATE SEQUENCE seq_numero_orden START WITH 1 INCREMENT BY 50;
+
+-- Función para generar número de orden cuando el INSERT no lo trae (inserciones fuera de la API)
+-- Usa la misma secuencia: toma el primer número de un bloque nuevo, sin recorrer la tabla
 CREATE OR REPLACE FUNCTION generar_numero_orden()
 RETURNS TRIGGER AS $$
 DECLARE
-    next_number INTEGER;
+    next_number BIGINT;
 BEGIN
     IF NEW.numero_orden IS NULL OR NEW.numero_orden = '' THEN
-        SELECT COALESCE(MAX(CAST(SUBSTRING(numero_orden FROM 5) AS INTEGER)), 0) + 1 
-        INTO next_number
-        FROM ordenes_trabajo 
-        WHERE numero_orden ~ '^ORD-[0-9]+$';
-        
-        NEW.numero_orden := 'ORD-' || LPAD(next_number::TEXT, 6, '0');
+        next_number := nextval('seq_numero_orden');
+        NEW.numero_orden := 'ORD-' || LPAD(next_number::TEXT, GREATEST(6, LENGTH(next_number::TEXT)), '0');
     END IF;
     RETURN NEW;
 END;
@@ -408,6 +512,52 @@ BEGIN
 END;
 $$ LANGUAGE plpgsql;
 
+-- Función para registrar borrados físicos (sincronización incremental)
+-- TG_ARGV[0]: nombre de la entidad, TG_ARGV[1]: columna de la clave primaria
+CREATE OR REPLACE FUNCTION registrar_eliminacion()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO registros_eliminados (entidad, id_registro)
+    VALUES (TG_ARGV[0], (to_jsonb(OLD) ->> TG_ARGV[1])::BIGINT);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Función para crear (si falta) la partición mensual de una tabla particionada por fecha: <tabla>_AAAA_MM
+-- Si la partición por defecto ya recibió filas de ese mes, se mueven a la nueva antes de adjuntarla.
+-- Devuelve el nombre de la partición. ParticionesService la usa para crear los meses siguientes
+CREATE OR REPLACE FUNCTION crear_particion_mensual(tabla TEXT, mes DATE)
+RETURNS TEXT AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fin DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nombre TEXT := tabla || '_' || to_char(mes, 'YYYY_MM');
+    columna TEXT;
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN nombre;
+    END IF;
+
+    SELECT a.attname INTO columna
+    FROM pg_partitioned_table p
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = tabla::regclass;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nombre, tabla);
+    IF to_regclass(tabla || '_default') IS NOT NULL THEN
+        EXECUTE format('WITH movidas AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ' ||
+                       'INSERT INTO %I SELECT * FROM movidas',
+                       tabla || '_default', columna, inicio, columna, fin, nombre);
+    END IF;
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', tabla, nombre, inicio, fin);
+    RETURN nombre;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Particiones iniciales: del mes anterior a tres meses adelante (las siguientes las crea ParticionesService)
+SELECT crear_particion_mensual(t.tabla, (date_trunc('month', CURRENT_DATE) + make_interval(months => n))::DATE)
+FROM (VALUES ('repuesto_movimientos'), ('orden_historial')) AS t(tabla), generate_series(-1, 3) AS n;
+
 -- Triggers
 CREATE TRIGGER generar_numero_orden_trigger
     BEFORE INSERT ON ordenes_trabajo
@@ -420,6 +570,13 @@ CREATE TRIGGER update_motos_updated_at BEFORE UPDATE ON motos FOR EACH ROW EXECU
 CREATE TRIGGER update_servicios_updated_at BEFORE UPDATE ON servicios FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_repuestos_updated_at BEFORE UPDATE ON repuestos FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_ordenes_trabajo_updated_at BEFORE UPDATE ON ordenes_trabajo FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_pagos_updated_at BEFORE UPDATE ON pagos FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+CREATE TRIGGER registrar_eliminacion_clientes AFTER DELETE ON clientes FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('CLIENTE', 'id_cliente');
+CREATE TRIGGER registrar_eliminacion_motos AFTER DELETE ON motos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('MOTO', 'id_moto');
+CREATE TRIGGER registrar_eliminacion_repuestos AFTER DELETE ON repuestos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('REPUESTO', 'id_repuesto');
+CREATE TRIGGER registrar_eliminacion_ordenes AFTER DELETE ON ordenes_trabajo FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('ORDEN', 'id_orden');
+CREATE TRIGGER registrar_eliminacion_pagos AFTER DELETE ON pagos FOR EACH ROW EXECUTE FUNCTION registrar_eliminacion('PAGO', 'id_pago');
 
 -- =====================================================
 -- VERIFICACIÓN FINAL
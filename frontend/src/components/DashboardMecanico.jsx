@@ -34,6 +34,7 @@ import {
 
 // Servicio
 import dashboardMecanicoService from '../services/dashboardMecanicoService'
+import ordenService from '../services/ordenService'
 
 /**
  * Dashboard Específico para Perfil MECÁNICO
@@ -57,6 +58,19 @@ const DashboardMecanico = ({ usuario }) => {
     cargarDatosDelDashboard()
   }, [])
 
+  // Recargar cuando llegan cambios de órdenes en vivo (agrupando ráfagas en un segundo)
+  useEffect(() => {
+    let temporizador = null
+    const cerrar = ordenService.suscribirCambios({ rol: 'MECANICO', idMecanico: usuario.idUsuario }, () => {
+      clearTimeout(temporizador)
+      temporizador = setTimeout(cargarDatosDelDashboard, 1000)
+    })
+    return () => {
+      clearTimeout(temporizador)
+      cerrar()
+    }
+  }, [])
+
   const cargarDatosDelDashboard = async () => {
     try {
       setLoading(true)
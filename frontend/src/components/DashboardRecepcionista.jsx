@@ -33,6 +33,7 @@ import {
 
 // Servicio
 import dashboardRecepcionistaService from '../services/dashboardRecepcionistaService'
+import ordenService from '../services/ordenService'
 
 /**
  * Dashboard Específico para Perfil RECEPCIONISTA
@@ -63,6 +64,19 @@ const DashboardRecepcionista = ({ usuario }) => {
     cargarDatosDelDashboard()
   }, [])
 
+  // Recargar cuando llegan cambios de órdenes en vivo (agrupando ráfagas en un segundo)
+  useEffect(() => {
+    let temporizador = null
+    const cerrar = ordenService.suscribirCambios({ rol: 'RECEPCIONISTA' }, () => {
+      clearTimeout(temporizador)
+      temporizador = setTimeout(cargarDatosDelDashboard, 1000)
+    })
+    return () => {
+      clearTimeout(temporizador)
+      cerrar()
+    }
+  }, [])
+
   const cargarDatosDelDashboard = async () => {
     try {
       setLoading(true)
@@ -45,11 +45,11 @@ const DiagnosticoDialog = ({
     }
 
     try {
-      // Llamar al callback con el diagnóstico
+      // Llamar al callback con el diagnóstico; el estado no viaja en la orden:
+      // quien recibe el diagnóstico lo guarda y pasa la orden a DIAGNOSTICADA con PATCH /{id}/estado
       await onDiagnosticoCompleto({
         ...orden,
-        diagnostico: diagnostico.trim(),
-        estado: 'DIAGNOSTICADA'
+        diagnostico: diagnostico.trim()
       })
       
       // Limpiar y cerrar
@@ -74,10 +74,8 @@ const EjecutarTrabajoDialog = ({
     try {
       // Preparar los datos del trabajo
       const trabajoData = {
-        orden: {
-          ...orden,
-          estado: 'EN_PROCESO'
-        },
+        // La orden pasa a EN_PROCESO con PATCH /{id}/estado en quien recibe el trabajo
+        orden,
         servicios: serviciosSeleccionados.map(s => ({
           idServicio: s.idServicio,
           cantidad: s.cantidad,
@@ -172,30 +172,20 @@ const TrabajarOrdenDialog = ({
     setError(null)
 
     try {
-      // Actualizar estado de la orden a COMPLETADA
-      const ordenActualizada = {
-        ...orden,
-        estado: 'COMPLETADA',
-        totalServicios: totales.servicios,
-        totalRepuestos: totales.repuestos,
-        totalOrden: totales.total
-      }
-
-      const result = await ordenService.actualizar(orden.idOrden, ordenActualizada)
+      // Pasar la orden a COMPLETADA; el servidor valida la transición y registra el historial
+      // (los totales los mantiene el servidor a partir de servicios y repuestos)
+      const result = await ordenService.cambiarEstado(
+        orden.idOrden,
+        'COMPLETADA',
+        orden.version,
+        `Orden completada por mecánico. Total: $${totales.total}`
+      )
       
       if (result.success) {
-        // Registrar cambio en el historial
-        await ordenHistorialService.registrarCambioEstado(
-          orden.idOrden,
-          orden.estado,
-          'COMPLETADA',
-          `Orden completada por mecánico. Total: $${totales.total}`,
-          user.idUsuario
-        )
-
-        // Notificar al componente padre
+        // Notificar al componente padre con la orden actualizada
         if (onOrdenActualizada) {
-          onOrdenActualizada(result.data)
+          const ordenResult = await ordenService.obtenerPorId(orden.idOrden)
+          onOrdenActualizada(ordenResult.success ? ordenResult.data : { ...orden, estado: 'COMPLETADA', version: result.data.version })
         }
 
         onClose()
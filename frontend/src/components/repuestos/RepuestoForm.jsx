@@ -207,6 +207,13 @@ const RepuestoForm = ({
       stockMinimo: parseInt(formData.stockMinimo)
     }
 
+    if (isEdit) {
+      // El stock no viaja en la edición: la diferencia con el stock leído se registra como entrada o salida,
+      // así un consumo hecho mientras el formulario estaba abierto no se deshace
+      delete repuestoData.stockActual
+      repuestoData.cambioStock = parseInt(formData.stockActual) - (repuesto.stockActual || 0)
+    }
+
     await onSave(repuestoData)
   }
 
@@ -375,7 +382,9 @@ const RepuestoForm = ({
               value={formData.stockActual}
               onChange={(e) => handleChange('stockActual', parseInt(e.target.value) || 0)}
               error={Boolean(errors.stockActual)}
-              helperText={errors.stockActual || 'Cantidad disponible en inventario'}
+              helperText={errors.stockActual || (isEdit
+                ? 'La diferencia se registra como entrada o salida de inventario'
+                : 'Cantidad disponible en inventario')}
               inputProps={{ min: 0 }}
               InputProps={{
                 startAdornment: (
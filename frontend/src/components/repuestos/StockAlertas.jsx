@@ -42,19 +42,14 @@ const StockAlertas = ({ onViewRepuesto, onEditRepuesto }) => {
     stockBajo: true
   })
 
-  // Cargar alertas de stock
+  // Cargar alertas de stock (el servidor mantiene el conjunto en memoria)
   const loadAlertas = async () => {
     try {
       setLoading(true)
       
-      // Obtener repuestos sin stock (stock = 0)
-      const sinStock = await repuestoService.getWithoutStock()
-      setRepuestosSinStock(sinStock.filter(r => r.activo))
-
-      // Obtener repuestos con stock bajo
-      const stockBajo = await repuestoService.getLowStock()
-      // Filtrar solo los que tienen stock > 0 (los de stock 0 ya están en sinStock)
-      setRepuestosStockBajo(stockBajo.filter(r => r.activo && r.stockActual > 0))
+      const alertas = await repuestoService.getAlertasStock()
+      setRepuestosSinStock(alertas.filter(a => a.nivel === 'AGOTADO'))
+      setRepuestosStockBajo(alertas.filter(a => a.nivel === 'BAJO'))
       
     } catch (error) {
       console.error('Error al cargar alertas de stock:', error)
@@ -63,11 +58,36 @@ const StockAlertas = ({ onViewRepuesto, onEditRepuesto }) => {
     }
   }
 
-  // Cargar al montar componente
+  // Aplicar una transición recibida en vivo
+  const aplicarAlerta = (alerta) => {
+    if (alerta.evento === 'RESINCRONIZAR') {
+      loadAlertas()
+      return
+    }
+    const quitar = lista => lista.filter(r => r.idRepuesto !== alerta.idRepuesto)
+    const agregar = lista => [...quitar(lista), alerta]
+      .sort((a, b) => (a.categoria || '').localeCompare(b.categoria || '') || a.nombre.localeCompare(b.nombre))
+    setRepuestosSinStock(lista => alerta.nivel === 'AGOTADO' ? agregar(lista) : quitar(lista))
+    setRepuestosStockBajo(lista => alerta.nivel === 'BAJO' ? agregar(lista) : quitar(lista))
+  }
+
+  // Cargar al montar componente y seguir las alertas en vivo
   useEffect(() => {
     loadAlertas()
+    const cerrar = repuestoService.suscribirAlertasStock(aplicarAlerta)
+    return cerrar
   }, [])
 
+  // Las alertas solo traen datos de stock: ver y editar usan el repuesto completo
+  const abrirRepuesto = async (alerta, accion) => {
+    if (!accion) return
+    try {
+      accion(await repuestoService.getById(alerta.idRepuesto))
+    } catch (error) {
+      console.error('Error al obtener repuesto:', error)
+    }
+  }
+
   // Manejar expansión de secciones
   const handleExpandClick = (section) => {
     setExpanded(prev => ({
@@ -234,14 +254,14 @@ const StockAlertas = ({ onViewRepuesto, onEditRepuesto }) => {
                       <Box display="flex" gap={0.5}>
                         <IconButton
                           size="small"
-                          onClick={() => onViewRepuesto?.(repuesto)}
+                          onClick={() => abrirRepuesto(repuesto, onViewRepuesto)}
                           sx={{ color: '#1976d2' }}
                         >
                           <VisibilityIcon fontSize="small" />
                         </IconButton>
                         <IconButton
                           size="small"
-                          onClick={() => onEditRepuesto?.(repuesto)}
+                          onClick={() => abrirRepuesto(repuesto, onEditRepuesto)}
                           sx={{ color: '#ed6c02' }}
                         >
                           <EditIcon fontSize="small" />
@@ -352,14 +372,14 @@ const StockAlertas = ({ onViewRepuesto, onEditRepuesto }) => {
                         <Box display="flex" gap={0.5}>
                           <IconButton
                             size="small"
-                            onClick={() => onViewRepuesto?.(repuesto)}
+                            onClick={() => abrirRepuesto(repuesto, onViewRepuesto)}
                             sx={{ color: '#1976d2' }}
                           >
                             <VisibilityIcon fontSize="small" />
                           </IconButton>
                           <IconButton
                             size="small"
-                            onClick={() => onEditRepuesto?.(repuesto)}
+                            onClick={() => abrirRepuesto(repuesto, onEditRepuesto)}
                             sx={{ color: '#ed6c02' }}
                           >
                             <EditIcon fontSize="small" />
@@ -161,20 +161,11 @@ const MecanicoPage = () => {
     try {
       setLoading(true)
       
-      const ordenActualizada = {
-        ...orden,
-        estado: nuevoEstado,
-        // Agregar timestamp de cambio
-        updatedAt: new Date().toISOString()
-      }
-
-      const result = await ordenService.actualizar(orden.idOrden, ordenActualizada)
+      // El servidor valida la transición y registra el historial
+      const result = await ordenService.cambiarEstado(orden.idOrden, nuevoEstado, orden.version)
       
       if (result.success) {
-        // Actualizar la lista local
-        setOrdenesAsignadas(prev => 
-          prev.map(o => o.idOrden === orden.idOrden ? result.data : o)
-        )
+        await recargarOrden(orden.idOrden)
         showSnackbar(`Orden cambiada a ${nuevoEstado}`, 'success')
       } else {
         showSnackbar(result.message || 'Error al cambiar estado', 'error')
@@ -187,6 +178,18 @@ const MecanicoPage = () => {
     }
   }
 
+  /**
+   * Volver a leer una orden y reemplazarla en la lista local (estado y versión actuales)
+   */
+  const recargarOrden = async (idOrden) => {
+    const result = await ordenService.obtenerPorId(idOrden)
+    if (result.success) {
+      setOrdenesAsignadas(prev => 
+        prev.map(o => o.idOrden === idOrden ? result.data : o)
+      )
+    }
+  }
+
   /**
    * Diagnosticar orden (RECIBIDA → DIAGNOSTICADA)
    * Abre el diálogo de diagnóstico
@@ -204,14 +207,18 @@ const MecanicoPage = () => {
     try {
       setLoading(true)
       
+      // Guardar el diagnóstico y después pasar la orden a DIAGNOSTICADA con la versión que devolvió el guardado
       const result = await ordenService.actualizar(ordenConDiagnostico.idOrden, ordenConDiagnostico)
+      const estadoResult = result.success
+        ? await ordenService.cambiarEstado(ordenConDiagnostico.idOrden, 'DIAGNOSTICADA', result.data.version)
+        : result
       
-      if (result.success) {
-        // Actualizar la lista local
-        setOrdenesAsignadas(prev => 
-          prev.map(o => o.idOrden === ordenConDiagnostico.idOrden ? result.data : o)
-        )
+      if (estadoResult.success) {
+        await recargarOrden(ordenConDiagnostico.idOrden)
         showSnackbar('Diagnóstico guardado correctamente', 'success')
+      } else if (result.success) {
+        await recargarOrden(ordenConDiagnostico.idOrden)
+        showSnackbar(estadoResult.message || 'Diagnóstico guardado, pero no se pudo cambiar el estado', 'warning')
       } else {
         showSnackbar(result.message || 'Error al guardar diagnóstico', 'error')
       }
@@ -240,8 +247,13 @@ const MecanicoPage = () => {
     try {
       setLoading(true)
       
-      // Primero actualizar el estado de la orden
-      const ordenResult = await ordenService.actualizar(trabajoData.orden.idOrden, trabajoData.orden)
+      // Primero pasar la orden a EN_PROCESO (el servidor valida la transición y registra el historial)
+      const ordenResult = await ordenService.cambiarEstado(
+        trabajoData.orden.idOrden,
+        'EN_PROCESO',
+        trabajoData.orden.version,
+        trabajoData.comentarioGeneral || null
+      )
       
       if (ordenResult.success) {
         // Registrar servicios aplicados en detalles_orden
@@ -277,9 +289,7 @@ const MecanicoPage = () => {
         }
         
         // Actualizar estado local
-        setOrdenesAsignadas(prev => 
-          prev.map(o => o.idOrden === trabajoData.orden.idOrden ? ordenResult.data : o)
-        )
+        await recargarOrden(trabajoData.orden.idOrden)
         showSnackbar('Trabajo iniciado correctamente. Servicios y repuestos registrados.', 'success')
       } else {
         showSnackbar(ordenResult.message || 'Error al iniciar trabajo', 'error')
@@ -287,13 +287,13 @@ const OrdenesPage = () => {
     setAssignDialog(prev => ({ ...prev, loading: true }))
     
     try {
-      const result = await ordenService.asignarMecanico(orden.idOrden, mecanico.idUsuario)
+      const result = await ordenService.asignarMecanico(orden.idOrden, mecanico.idUsuario, orden.version)
       
       if (result.success) {
-        // Actualizar lista local
+        // Actualizar lista local (con la versión nueva para el próximo cambio)
         setOrdenes(prev => prev.map(o => 
           o.idOrden === orden.idOrden 
-            ? { ...o, mecanicoAsignado: mecanico }
+            ? { ...o, mecanicoAsignado: mecanico, version: result.data.version }
             : o
         ))
         
@@ -148,7 +148,13 @@ const RepuestosPage = () => {
       setFormLoading(true)
       
       if (editingRepuesto) {
-        await repuestoService.update(editingRepuesto.idRepuesto, repuestoData)
+        const { cambioStock, ...datos } = repuestoData
+        await repuestoService.update(editingRepuesto.idRepuesto, datos)
+        if (cambioStock > 0) {
+          await repuestoService.reponerStock(editingRepuesto.idRepuesto, cambioStock)
+        } else if (cambioStock < 0) {
+          await repuestoService.descontarStock(editingRepuesto.idRepuesto, -cambioStock)
+        }
         showSnackbar('Repuesto actualizado exitosamente')
       } else {
         await repuestoService.create(repuestoData)
@@ -55,16 +55,16 @@ const dashboardAdministradorService = {
         responseMotos,
         responseUsuarios,
         responseServicios,
-        responseRepuestos,
-        responsePagos
+        responsePagos,
+        responseValorizacion
       ] = await Promise.all([
         this.obtenerDatosConReintentos('/ordenes-trabajo', 'órdenes', 2),
         this.obtenerDatosConReintentos('/clientes', 'clientes', 2),
         this.obtenerDatosConReintentos('/motos', 'motos', 2),
         this.obtenerDatosConReintentos('/usuarios', 'usuarios', 2),
         this.obtenerDatosConReintentos('/servicios', 'servicios', 2),
-        this.obtenerDatosConReintentos('/repuestos', 'repuestos', 2),
-        this.obtenerDatosConReintentos('/pagos', 'pagos', 2)
+        this.obtenerDatosConReintentos('/pagos', 'pagos', 2),
+        this.obtenerDatosConReintentos('/valorizacion-inventario', 'valorización de inventario', 2)
       ])
 
       const ordenes = responseOrdenes.data || []
@@ -72,8 +72,8 @@ const dashboardAdministradorService = {
       const motos = responseMotos.data || []
       const usuarios = responseUsuarios.data || []
       const servicios = responseServicios.data || []
-      const repuestos = responseRepuestos.data || []
       const pagos = responsePagos.data || []
+      const valorizacion = responseValorizacion.data || {}
 
       console.log('📊 [ADMIN] Datos obtenidos:')
       console.log(`   - Órdenes: ${ordenes.length}`)
@@ -81,7 +81,7 @@ const dashboardAdministradorService = {
       console.log(`   - Motos: ${motos.length}`)
       console.log(`   - Usuarios: ${usuarios.length}`)
       console.log(`   - Servicios: ${servicios.length}`)
-      console.log(`   - Repuestos: ${repuestos.length}`)
+      console.log(`   - Repuestos: ${valorizacion.totalRepuestos || 0}`)
       console.log(`   - Pagos: ${pagos.length}`)
 
       // Procesar y agregar datos
@@ -96,7 +96,7 @@ const dashboardAdministradorService = {
         resumenUsuarios: this.procesarResumenUsuarios(usuarios),
         
         // Estado del inventario
-        estadoInventario: this.procesarEstadoInventario(repuestos),
+        estadoInventario: this.procesarEstadoInventario(valorizacion),
         
         // Productividad del taller
         productividadTaller: this.procesarProductividad(ordenes, usuarios),
@@ -105,7 +105,7 @@ const dashboardAdministradorService = {
         serviciosPopulares: this.procesarServiciosPopulares(servicios, ordenes),
         
         // Alertas administrativas
-        alertasAdministrativas: this.procesarAlertasAdmin(ordenes, repuestos, usuarios),
+        alertasAdministrativas: this.procesarAlertasAdmin(ordenes, usuarios),
         
         // Tendencias y métricas
         tendenciasOperativas: this.procesarTendencias(ordenes, pagos)
@@ -256,36 +256,21 @@ const dashboardAdministradorService = {
 
   /**
    * Procesa estado del inventario
+   * Los totales por categoría y los contadores de stock bajo se calculan en el servidor
    */
-  procesarEstadoInventario(repuestos) {
-    const totalRepuestos = repuestos.length
-    const stockBajo = repuestos.filter(repuesto => 
-      (repuesto.cantidadStock || 0) <= (repuesto.stockMinimo || 5)
-    ).length
-
-    const valorInventario = repuestos.reduce((sum, repuesto) => 
-      sum + ((repuesto.cantidadStock || 0) * (repuesto.precio || 0)), 0
-    )
-
-    // Agrupar por categoría
-    const categorias = repuestos.reduce((acc, repuesto) => {
-      const categoria = repuesto.categoria || 'Sin categoría'
-      if (!acc[categoria]) {
-        acc[categoria] = { nombre: categoria, cantidad: 0, valor: 0 }
-      }
-      acc[categoria].cantidad += repuesto.cantidadStock || 0
-      acc[categoria].valor += (repuesto.cantidadStock || 0) * (repuesto.precio || 0)
-      return acc
-    }, {})
+  procesarEstadoInventario(valorizacion) {
+    const categorias = (valorizacion.categorias || []).map(categoria => ({
+      nombre: categoria.categoria,
+      cantidad: categoria.unidades,
+      valor: Number(categoria.valor) || 0
+    }))
 
     return {
-      totalRepuestos,
-      stockBajo,
-      valorInventario,
-      categorias: Object.values(categorias),
-      repuestosCriticos: repuestos.filter(repuesto => 
-        (repuesto.cantidadStock || 0) === 0
-      ).length
+      totalRepuestos: valorizacion.totalRepuestos || 0,
+      stockBajo: valorizacion.stockBajo || 0,
+      valorInventario: Number(valorizacion.valorTotal) || 0,
+      categorias,
+      repuestosCriticos: valorizacion.agotados || 0
     }
   },
 
@@ -386,7 +371,7 @@ const dashboardAdministradorService = {
    * Procesa alertas administrativas
    * NOTA: Alertas deshabilitadas para mantener dashboard limpio
    */
-  procesarAlertasAdmin(ordenes, repuestos, usuarios) {
+  procesarAlertasAdmin(ordenes, usuarios) {
     // Retornar array vacío - alertas deshabilitadas
     return []
   }
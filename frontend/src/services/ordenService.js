@@ -94,6 +94,30 @@ const ordenService = {
     }
   },
 
+  /**
+   * Obtener órdenes por cursor (scroll infinito)
+   * Pasar el siguienteCursor de la respuesta anterior para obtener la página siguiente
+   */
+  async obtenerPorCursor(cursor = null, limite = 20, filtros = {}) {
+    try {
+      const response = await api.get('/ordenes-trabajo/cursor', {
+        params: { cursor, limite, ...filtros }
+      });
+      return {
+        success: true,
+        data: response.data,
+        message: 'Órdenes obtenidas exitosamente'
+      };
+    } catch (error) {
+      console.error('Error al obtener órdenes por cursor:', error);
+      return {
+        success: false,
+        data: { contenido: [], siguienteCursor: null, hayMas: false },
+        message: error.response?.data?.message || 'Error al obtener las órdenes de trabajo'
+      };
+    }
+  },
+
   /**
    * Obtener orden por ID
    */
@@ -115,6 +139,52 @@ const ordenService = {
     }
   },
 
+  /**
+   * Obtener orden con servicios, repuestos, pagos e historial en una sola petición
+   */
+  async obtenerDetalleCompleto(id) {
+    try {
+      const response = await api.get(`/ordenes-trabajo/${id}/completo`);
+      return {
+        success: true,
+        data: response.data,
+        message: 'Detalle de orden obtenido exitosamente'
+      };
+    } catch (error) {
+      console.error('Error al obtener detalle completo de orden:', error);
+      return {
+        success: false,
+        data: null,
+        message: error.response?.data?.message || 'Error al obtener el detalle de la orden de trabajo'
+      };
+    }
+  },
+
+  /**
+   * Suscribirse a los cambios de órdenes en vivo (Server-Sent Events)
+   * Llama a onCambio con cada cambio; un cambio de tipo RESINCRONIZAR indica que hay que recargar todo.
+   * Devuelve una función para cerrar la suscripción
+   */
+  suscribirCambios({ rol, idMecanico } = {}, onCambio) {
+    const params = new URLSearchParams();
+    if (rol) params.append('rol', rol);
+    if (idMecanico) params.append('idMecanico', idMecanico);
+
+    const fuente = new EventSource(`/api/eventos/ordenes?${params.toString()}`);
+    fuente.addEventListener('orden', (evento) => {
+      try {
+        onCambio(JSON.parse(evento.data));
+      } catch (error) {
+        console.error('Error al procesar evento de orden:', error);
+      }
+    });
+    // EventSource reintenta solo; tras reconectar se pide una recarga por si se perdieron eventos
+    fuente.onerror = () => {
+      fuente.addEventListener('open', () => onCambio({ tipo: 'RESINCRONIZAR' }), { once: true });
+    };
+    return () => fuente.close();
+  },
+
   /**
    * Crear nueva orden de trabajo
    */
@@ -162,6 +232,31 @@ const ordenService = {
     }
   },
 
+  /**
+   * Cambiar el estado de una orden (valida la transición y registra el historial en el servidor)
+   * Endpoint: PATCH /api/ordenes-trabajo/{id}/estado
+   * @param {number} version - Versión de la orden que se muestra; si otro usuario la modificó responde 409
+   */
+  async cambiarEstado(id, estado, version = null, comentario = null) {
+    try {
+      const response = await api.patch(`/ordenes-trabajo/${id}/estado`, { estado, version, comentario });
+      return {
+        success: true,
+        data: response.data,
+        message: `Orden cambiada a ${estado}`
+      };
+    } catch (error) {
+      console.error('Error al cambiar estado de la orden:', error);
+      return {
+        success: false,
+        data: null,
+        message: error.response?.status === 409
+          ? 'La orden fue modificada por otro usuario o no admite ese cambio de estado. Recargue e intente de nuevo.'
+          : error.response?.data?.message || 'Error al cambiar el estado de la orden'
+      };
+    }
+  },
+
   /**
    * Eliminar orden de trabajo
    */
@@ -396,35 +491,80 @@ const ordenService = {
   },
 
   /**
-   * Asignar mecánico a una orden de trabajo
+   * Asignar mecánico a una orden de trabajo (valida que sea un mecánico activo y registra el historial)
+   * Endpoint: PATCH /api/ordenes-trabajo/{id}/mecanico
+   * @param {number} version - Versión de la orden que se muestra; si otro usuario la modificó responde 409
    */
-  async asignarMecanico(idOrden, idMecanico) {
+  async asignarMecanico(idOrden, idMecanico, version = null) {
     try {
-      // Primero obtenemos la orden actual
-      const ordenActual = await this.obtenerPorId(idOrden);
-      if (!ordenActual.success) {
-        throw new Error('No se pudo obtener la orden actual');
-      }
+      const response = await api.patch(`/ordenes-trabajo/${idOrden}/mecanico`, null, {
+        params: { idMecanico, version }
+      });
+      return {
+        success: true,
+        data: response.data,
+        message: 'Mecánico asignado exitosamente'
+      };
+    } catch (error) {
+      console.error('Error al asignar mecánico:', error);
+      return {
+        success: false,
+        data: null,
+        message: error.response?.status === 409
+          ? 'La orden fue modificada por otro usuario o ya no admite cambios. Recargue e intente de nuevo.'
+          : error.response?.data?.message || 'Error al asignar el mecánico'
+      };
+    }
+  },
 
-      // Preparamos los datos para actualizar solo el mecánico
-      const ordenActualizada = {
-        ...ordenActual.data,
-        mecanicoAsignado: { idUsuario: idMecanico }
+  /**
+   * Cambiar la prioridad de una orden
+   * Endpoint: PATCH /api/ordenes-trabajo/{id}/prioridad
+   */
+  async cambiarPrioridad(idOrden, prioridad, version = null) {
+    try {
+      const response = await api.patch(`/ordenes-trabajo/${idOrden}/prioridad`, null, {
+        params: { prioridad, version }
+      });
+      return {
+        success: true,
+        data: response.data,
+        message: `Prioridad cambiada a ${prioridad}`
+      };
+    } catch (error) {
+      console.error('Error al cambiar prioridad de la orden:', error);
+      return {
+        success: false,
+        data: null,
+        message: error.response?.status === 409
+          ? 'La orden fue modificada por otro usuario o ya no admite cambios. Recargue e intente de nuevo.'
+          : error.response?.data?.message || 'Error al cambiar la prioridad'
       };
+    }
+  },
 
-      // Actualizamos la orden
-      const response = await api.put(`/ordenes-trabajo/${idOrden}`, ordenActualizada);
+  /**
+   * Cambiar el estado de pago de una orden
+   * Endpoint: PATCH /api/ordenes-trabajo/{id}/estado-pago
+   */
+  async cambiarEstadoPago(idOrden, estadoPago, version = null) {
+    try {
+      const response = await api.patch(`/ordenes-trabajo/${idOrden}/estado-pago`, null, {
+        params: { estadoPago, version }
+      });
       return {
         success: true,
         data: response.data,
-        message: 'Mecánico asignado exitosamente'
+        message: `Estado de pago cambiado a ${estadoPago}`
       };
     } catch (error) {
-      console.error('Error al asignar mecánico:', error);
+      console.error('Error al cambiar estado de pago de la orden:', error);
       return {
         success: false,
         data: null,
-        message: error.response?.data?.message || 'Error al asignar el mecánico'
+        message: error.response?.status === 409
+          ? 'La orden fue modificada por otro usuario o ya no admite cambios. Recargue e intente de nuevo.'
+          : error.response?.data?.message || 'Error al cambiar el estado de pago'
       };
     }
   },
@@ -487,6 +627,7 @@ export const {
   obtenerPorId,
   crear,
   actualizar,
+  cambiarEstado,
   eliminar,
   buscarPorNumeroOrden,
   existeNumeroOrden,
@@ -503,7 +644,9 @@ export const {
   obtenerColorPrioridad,
   generarNumeroOrden,
   validarOrdenTrabajo,
-  asignarMecanico
+  asignarMecanico,
+  cambiarPrioridad,
+  cambiarEstadoPago
 } = ordenService;
 
 // Alias para compatibilidad
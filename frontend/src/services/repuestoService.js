@@ -59,11 +59,34 @@ const repuestoService = {
    * Cambiar estado activo/inactivo de repuesto
    */
   toggleActive: async (id, activo) => {
-    // Primero obtenemos el repuesto actual
-    const repuesto = await repuestoService.getById(id)
-    // Actualizamos solo el campo activo
-    const repuestoActualizado = { ...repuesto, activo }
-    const response = await api.put(`/repuestos/${id}`, repuestoActualizado)
+    const response = await api.put(`/repuestos/${id}/${activo ? 'activar' : 'desactivar'}`)
+    return response.data
+  },
+
+  // ========== MOVIMIENTOS DE STOCK ==========
+  // El PUT del repuesto no cambia el stock: cada cambio es una entrada o salida relativa al stock actual
+
+  /**
+   * Registrar una entrada de inventario
+   */
+  reponerStock: async (id, cantidad) => {
+    const response = await api.put(`/repuestos/${id}/incrementar-stock/${cantidad}`)
+    return response.data
+  },
+
+  /**
+   * Registrar una salida de inventario (falla si no alcanza el stock)
+   */
+  descontarStock: async (id, cantidad) => {
+    const response = await api.put(`/repuestos/${id}/decrementar-stock/${cantidad}`)
+    return response.data
+  },
+
+  /**
+   * Fijar el stock a un valor absoluto (conteo físico de inventario)
+   */
+  ajustarStock: async (id, nuevoStock) => {
+    const response = await api.put(`/repuestos/${id}/stock/${nuevoStock}`)
     return response.data
   },
 
@@ -125,6 +148,59 @@ const repuestoService = {
     return response.data
   },
 
+  // ========== AUTOCOMPLETADO ==========
+
+  /**
+   * Sugerencias de repuestos por prefijo de código o nombre (sin acentos), con stock y precio
+   * Resuelto en memoria por el servidor: apto para buscar mientras se escribe
+   */
+  autocompletar: async (texto, limite = 10) => {
+    const response = await api.get('/autocompletado', {
+      params: { q: texto, tipo: 'REPUESTO', limite }
+    })
+    return response.data
+  },
+
+  // ========== ALERTAS DE STOCK ==========
+
+  /**
+   * Repuestos activos en o bajo el stock mínimo (conjunto en memoria del servidor)
+   * Cada alerta trae nivel BAJO o AGOTADO
+   */
+  getAlertasStock: async () => {
+    const response = await api.get('/alertas-stock')
+    return response.data
+  },
+
+  /**
+   * Contadores de alertas de stock: { bajoMinimo, agotados }
+   */
+  getResumenAlertasStock: async () => {
+    const response = await api.get('/alertas-stock/resumen')
+    return response.data
+  },
+
+  /**
+   * Suscribirse a las alertas de stock en vivo (Server-Sent Events)
+   * Llama a onAlerta con cada transición (ENTRA_BAJO, AGOTADO, SALE_BAJO); RESINCRONIZAR indica recargar todo.
+   * Devuelve una función para cerrar la suscripción
+   */
+  suscribirAlertasStock: (onAlerta) => {
+    const fuente = new EventSource('/api/alertas-stock/eventos')
+    fuente.addEventListener('alerta-stock', (evento) => {
+      try {
+        onAlerta(JSON.parse(evento.data))
+      } catch (error) {
+        console.error('Error al procesar alerta de stock:', error)
+      }
+    })
+    // EventSource reintenta solo; tras reconectar se pide una recarga por si se perdieron alertas
+    fuente.onerror = () => {
+      fuente.addEventListener('open', () => onAlerta({ evento: 'RESINCRONIZAR' }), { once: true })
+    }
+    return () => fuente.close()
+  },
+
   // ========== UTILIDADES ==========
 
   /**
@@ -127,6 +127,16 @@ const servicioService = {
     return response.data
   },
 
+  /**
+   * Sugerencias de servicios por prefijo de código o nombre (índice en memoria del servidor)
+   */
+  autocomplete: async (texto, limite = 10) => {
+    const response = await api.get('/autocompletado', {
+      params: { q: texto, tipo: 'SERVICIO', limite }
+    })
+    return response.data
+  },
+
   /**
    * Buscar servicios activos por nombre
    */